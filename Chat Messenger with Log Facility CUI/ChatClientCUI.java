@@ -1,81 +1,76 @@
-//////////////////////////////////////////////////////////////////////////////////////////////////
-//
-// File Name   : ChatClientCUI.java
-// Description : A simple console-based chat client that connects to a server using sockets.
-//               It sends and receives messages and logs all chat messages with timestamps.
-// Author      : Kartik Ganesh Jare
-// Date        : 19/09/2025
-// 
-//////////////////////////////////////////////////////////////////////////////////////////////////
-
-import java.net.*;
-import java.io.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-
-class ChatClientCUI
-{
-    public static void main(String Arg[]) throws Exception
-    {
-        // Inform user about connection attempt
-        System.out.println("Client is ready to connect with server");
-
-        // Create socket and connect to server on localhost port 5100
-        Socket sobj = new Socket("localhost",5100);
-        System.out.println("Marvellous client is successfully connected with server");
-
-        // Output stream to send messages to server
-        PrintStream pobj = new PrintStream(sobj.getOutputStream());
-
-        // Input stream to receive messages from server
-        BufferedReader bobj1 = new BufferedReader(new InputStreamReader(sobj.getInputStream()));
-
-        // Input stream to take input from client user (keyboard)
-        BufferedReader bobj2 = new BufferedReader(new InputStreamReader(System.in));
-
-        System.out.println("------------------------------------------");
-        System.out.println("Marvellous Chat Messenger is ready to use");
-        System.out.println("------------------------------------------");
-
-        // Variables to hold messages
-        String str1 = null, str2 = null;
-
-        // Create a timestamped log file for chat history
-        DateTimeFormatter filenameFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm");
-        String fileTimestamp = filenameFormat.format(LocalDateTime.now());
-        String filename = "ChatLog-Client-" + fileTimestamp + ".txt";
-
-        FileWriter fwobj = new FileWriter(filename, true);
-
-        // Formatter for timestamps in log file
-        DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        
-        // Chat loop: runs until user types "end"
-        while(!(str1 = bobj2.readLine()).equals("end"))
-        {
-            // Send message to server
-            pobj.println(str1);
-
-            // Receive reply from server
-            str2 = bobj1.readLine();
-            System.out.println("Server says :"+str2);
-
-            // Log both client and server messages
-            fwobj.write("Client sent:"+str1);
-            fwobj.write("Server says :"+str2);
-            fwobj.write(System.lineSeparator());
-            fwobj.flush();
-
-            System.out.println("Enter message for server :");
-
-            // Log messages with timestamps
-            String timestamp = dtf.format(LocalDateTime.now());
-            fwobj.write("[" + timestamp + "] Client sent: " + str1 + "\n");
-            timestamp = dtf.format(LocalDateTime.now());
-            fwobj.write("[" + timestamp + "] Server says: " + str2 + "\n");
-        }
-
-        // Close log file when chat ends
-        fwobj.close();
-    }
+//////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// File Name   : ChatClientCUI.java
+// Description : A simple console-based chat client that connects to a server using sockets.
+//               It sends and receives messages and logs all chat messages with timestamps.
+//               Run with "--file <messages.txt>" to send every line of a file in bulk.
+// Author      : Kartik Ganesh Jare
+// Date        : 19/09/2025
+// 
+//////////////////////////////////////////////////////////////////////////////////////////////////
+
+import java.net.*;
+import java.io.*;
+
+import chat.console.ConsoleChat;
+import chat.launch.LaunchConfig;
+import chat.log.ChatLogs;
+import chat.log.Direction;
+import chat.log.LogAppender;
+import chat.net.Handshake;
+import chat.net.MessageChannel;
+import chat.server.HeartbeatPolicy;
+import chat.server.Heartbeats;
+
+class ChatClientCUI
+{
+    public static void main(String Arg[]) throws Exception
+    {
+        // Inform user about connection attempt
+        System.out.println("Client is ready to connect with server");
+
+        // Create socket and connect to server on localhost port 5100, or -Dchat.host and -Dchat.port
+        LaunchConfig launch = LaunchConfig.fromSystemProperties();
+        Socket sobj = new Socket(launch.getHost(), launch.getPort());
+        System.out.println("Marvellous client is successfully connected with server");
+
+        // Agree on the framed protocol, or fall back to text lines for older peers
+        MessageChannel channel = Handshake.connect(sobj);
+        System.out.println("Using the " + (channel.isFramed() ? "framed" : "line") + " protocol");
+
+        // Messages come from the keyboard, or from a file in bulk mode
+        boolean bulk = Arg.length > 1 && Arg[0].equals("--file");
+        BufferedReader bobj2 = bulk ? new BufferedReader(new InputStreamReader(new FileInputStream(Arg[1]), "UTF-8"), 64 * 1024)
+                                    : new BufferedReader(new InputStreamReader(System.in));
+
+        System.out.println("------------------------------------------");
+        System.out.println("Marvellous Chat Messenger is ready to use");
+        System.out.println("------------------------------------------");
+        if (!bulk)
+        {
+            System.out.println("Type messages for server at any time, \"end\" to finish");
+        }
+
+        // Create a timestamped log file for chat history, written by a background thread
+        LogAppender fwobj = ChatLogs.open("Client");
+
+        // Ping a quiet server and close the connection when it stops answering
+        Heartbeats heartbeats = new Heartbeats(HeartbeatPolicy.fromSystemProperties());
+        heartbeats.watch(channel, reason -> System.out.println("Closing the connection: " + reason));
+
+        // Send and receive at the same time until either side ends the chat
+        ConsoleChat chat = new ConsoleChat(channel, fwobj, Direction.CLIENT, Direction.SERVER, "Server");
+        long start = System.nanoTime();
+        chat.run(bobj2, !bulk);
+        heartbeats.close();
+        if (bulk)
+        {
+            long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            System.err.println("Sent " + chat.getSent() + " and received " + chat.getReceived() + " messages in "
+                    + millis + " ms (" + (chat.getSent() * 1000 / millis) + " messages/s sent)");
+        }
+
+        // Drain pending records and close log file when chat ends
+        fwobj.close();
+    }
 }
\ No newline at end of file
@@ -1,83 +1,263 @@
-//////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-//
-// File Name     : ChatServerCUI.java
-// Description   : A simple console-based chat server that communicates with a client using sockets.
-//                 It logs all messages with timestamps into a text file.
-// Author         : Kartik Ganesh Jare
-// Date           : 19/09/2025
-//
-//////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-
-import java.net.*;
-import java.io.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-
-class ChatServerCUI
-{
-    public static void main(String Arg[]) throws Exception
-    {
-        /// Create a server socket to listen on port 5100
-        ServerSocket ssobj = new ServerSocket(5100);
-        System.out.println("Marvellous Server is waiting at port number 5100");
-
-        /// Accept the client connection request
-        Socket sobj = ssobj.accept();
-        System.out.println("Marvellous Server successfully connected with client");
-
-        /// Create output stream to send messages to client
-        PrintStream pobj = new PrintStream(sobj.getOutputStream());
-
-        /// Create input stream to receive messages from client
-        BufferedReader bobj1 = new BufferedReader(new InputStreamReader(sobj.getInputStream()));
-
-        /// Create input stream to take input from server user (keyboard)
-        BufferedReader bobj2 = new BufferedReader(new InputStreamReader(System.in));
-
-        System.out.println("------------------------------------------");
-        System.out.println("Marvellous Chat Messenger is ready to use");
-        System.out.println("------------------------------------------");
-
-        /// Variables to hold messages from client and server
-        String str1 = null, str2 = null;
-
-        /// Create a timestamped log file for chat history
-        DateTimeFormatter filenameFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm");
-        String fileTimestamp = filenameFormat.format(LocalDateTime.now());
-        String filename = "ChatLog-Server-" + fileTimestamp + ".txt";
-
-        FileWriter fwobj = new FileWriter(filename, true);
-
-        /// Formatter for message timestamps
-        DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
-        /// Loop to continuously exchange messages until client disconnects
-        while((str1 = bobj1.readLine()) != null)
-        {
-            /// Display and log the client message
-            System.out.println("Client says :"+str1);
-            fwobj.write("Client says:"+str1);
-            fwobj.write(System.lineSeparator());
-
-            /// Prompt server user to send reply
-            System.out.println("Enter the message for client :");
-            str2 = bobj2.readLine();
-            pobj.println(str2);
-            fwobj.write("Server says: "+str2);
-            fwobj.flush();
-
-            /// Log both messages with proper timestamps
-            String timestamp = dtf.format(LocalDateTime.now());
-            fwobj.write("[" + timestamp + "] Client says: " + str1 + "\n");
-
-            System.out.print("Enter the message for client: ");
-            str2 = bobj2.readLine();
-
-            timestamp = dtf.format(LocalDateTime.now());
-            fwobj.write("[" + timestamp + "] Server says: " + str2 + "\n");
-        }
-
-        /// Close the log file after chat ends
-        fwobj.close();
-    }
+//////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+//
+// File Name     : ChatServerCUI.java
+// Description   : A simple console-based chat server that communicates with a client using sockets.
+//                 It logs all messages with timestamps into a text file.
+//                 Run with the argument "nio [loops]", "virtual" or "platform" to start one of
+//                 the multi-client server modes instead of the single-client session, or
+//                 "--file <messages.txt>" to send every line of a file to the client in bulk.
+//                 With -Dchat.mode=headless the multi-client server reads no console input
+//                 and prints only its startup lines, not the chat, until it is stopped;
+//                 chat.launch.Launcher starts it that way.
+// Author         : Kartik Ganesh Jare
+// Date           : 19/09/2025
+//
+//////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+import java.net.*;
+import java.io.*;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+import chat.cluster.ClusterConfig;
+import chat.cluster.ClusterNode;
+import chat.console.ConsoleChat;
+import chat.launch.LaunchConfig;
+import chat.launch.Launcher;
+import chat.log.ChatLogs;
+import chat.log.Direction;
+import chat.log.LogAppender;
+import chat.log.LogConfig;
+import chat.metrics.ChatMetrics;
+import chat.net.MessageChannel;
+import chat.server.ChatServer;
+import chat.server.HeartbeatPolicy;
+import chat.server.Heartbeats;
+import chat.server.NioChatServer;
+import chat.server.OutboundPolicy;
+import chat.server.ServerListener;
+import chat.server.ThreadModel;
+import chat.server.ThreadedChatServer;
+import chat.store.MessageStore;
+
+class ChatServerCUI
+{
+    public static void main(String Arg[]) throws Exception
+    {
+        /// Select one of the multi-client server modes when asked for, or by -Dchat.threads;
+        /// -Dchat.port moves the server off 5100, e.g. for several cluster nodes on one machine
+        LaunchConfig launch = LaunchConfig.fromSystemProperties();
+        int port = launch.getPort();
+        String threads = (Arg.length > 0 && !Arg[0].startsWith("--")) ? Arg[0] : launch.getThreads();
+        boolean echo = !launch.isHeadless();
+        if (threads.equalsIgnoreCase("nio"))
+        {
+            int loops = (Arg.length > 1) ? Integer.parseInt(Arg[1]) : (launch.getLoops() > 0) ? launch.getLoops() : NioChatServer.defaultLoopCount();
+            runMultiClientServer(new NioChatServer(port, loops, consoleListener(echo)), loops + " event loops", launch);
+            return;
+        }
+        if (threads.equalsIgnoreCase("virtual") || threads.equalsIgnoreCase("platform"))
+        {
+            ThreadModel model = ThreadModel.parse(threads);
+            runMultiClientServer(new ThreadedChatServer(port, model, consoleListener(echo)), model.name().toLowerCase() + " threads", launch);
+            return;
+        }
+
+        /// Create a server socket to listen on port 5100, or -Dchat.port
+        ServerSocket ssobj = new ServerSocket(port);
+        System.out.println("Marvellous Server is waiting at port number " + port);
+
+        /// Counters and latencies over JMX, and over HTTP with -Dchat.metrics.port; registering
+        /// them takes longer than starting the JVM, so it happens once the port is bound
+        ChatMetrics.export();
+
+        /// Accept the client connection request
+        Socket sobj = ssobj.accept();
+        System.out.println("Marvellous Server successfully connected with client");
+
+        /// Agree on the framed protocol, or fall back to text lines for older peers
+        MessageChannel channel = ChatMetrics.accept(sobj);
+        ChatMetrics.CONNECTIONS_OPENED.increment();
+        System.out.println("Using the " + (channel.isFramed() ? "framed" : "line") + " protocol");
+
+        /// Take messages from the keyboard, or from a file in bulk mode
+        boolean bulk = Arg.length > 1 && Arg[0].equals("--file");
+        BufferedReader bobj2 = bulk ? new BufferedReader(new InputStreamReader(new FileInputStream(Arg[1]), "UTF-8"), 64 * 1024)
+                                    : new BufferedReader(new InputStreamReader(System.in));
+
+        System.out.println("------------------------------------------");
+        System.out.println("Marvellous Chat Messenger is ready to use");
+        System.out.println("------------------------------------------");
+        if (!bulk)
+        {
+            System.out.println("Type messages for client at any time, \"end\" to finish");
+        }
+
+        /// Create a timestamped log file for chat history, written by a background thread
+        LogAppender fwobj = ChatLogs.open("Server");
+        ChatMetrics.REGISTRY.gauge("chat_log_queue_depth", "Records waiting for the log writer", fwobj::getQueueDepth);
+
+        /// Ping a quiet client and close the connection when it stops answering
+        Heartbeats heartbeats = new Heartbeats(HeartbeatPolicy.fromSystemProperties());
+        heartbeats.watch(channel, reason -> System.out.println("Closing the connection: " + reason));
+
+        /// Exchange messages in both directions at once until either side ends the chat
+        ConsoleChat chat = new ConsoleChat(channel, fwobj, Direction.SERVER, Direction.CLIENT, "Client");
+        long start = System.nanoTime();
+        chat.run(bobj2, !bulk);
+        heartbeats.close();
+        if (bulk)
+        {
+            long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            System.err.println("Sent " + chat.getSent() + " and received " + chat.getReceived() + " messages in "
+                    + millis + " ms (" + (chat.getSent() * 1000 / millis) + " messages/s sent)");
+        }
+
+        /// Drain pending records and close the log file after chat ends
+        ChatMetrics.CONNECTIONS_CLOSED.increment();
+        fwobj.close();
+    }
+
+    /// Log shared by the multi-client modes; server threads append to it without locking
+    static LogAppender multiClientLog;
+
+    /// Console and log output for the multi-client modes; a headless server only logs
+    static ServerListener consoleListener(boolean echo)
+    {
+        return new ServerListener()
+        {
+            public void onConnect(String client)
+            {
+                if (echo)
+                {
+                    System.out.println(client + " connected");
+                }
+            }
+
+            public void onMessage(String client, String message)
+            {
+                if (echo)
+                {
+                    System.out.println(client + " says :" + message);
+                }
+                multiClientLog.log(Direction.CLIENT, client + ": " + message);
+            }
+
+            public void onDisconnect(String client)
+            {
+                if (echo)
+                {
+                    System.out.println(client + " disconnected");
+                }
+            }
+        };
+    }
+
+    /// Multi-client mode: every client line is shown, logged, stored and fanned out to the
+    /// other clients, and every line typed here is broadcast to all of them. A headless server
+    /// has no console and runs until the JVM is stopped
+    static void runMultiClientServer(ChatServer server, String description, LaunchConfig launch) throws Exception
+    {
+        multiClientLog = ChatLogs.open("Server");
+        ChatMetrics.REGISTRY.gauge("chat_log_queue_depth", "Records waiting for the log writer", multiClientLog::getQueueDepth);
+        ChatMetrics.REGISTRY.gauge("chat_connections", "Clients connected now", server::getConnectionCount);
+
+        /// Keep messages for clients that reconnect, unless -Dchat.store.dir=none
+        String storeDir = System.getProperty("chat.store.dir", "chat-store");
+        MessageStore store = null;
+        if (!storeDir.equalsIgnoreCase("none"))
+        {
+            long segmentBytes = LogConfig.parseSize(System.getProperty("chat.store.segment.size", "64m"));
+            store = MessageStore.open(Path.of(storeDir), segmentBytes);
+            server.setMessageStore(store);
+            System.out.println("Message history in " + storeDir + " up to #" + store.getLastSequence());
+        }
+
+        /// Slow clients are handled as the chat.outbound.* properties say
+        OutboundPolicy policy = OutboundPolicy.fromSystemProperties();
+        server.setOutboundPolicy(policy);
+        System.out.println("Slow clients: " + policy);
+
+        /// Dead and idle clients are closed as the chat.heartbeat.* and chat.idle.timeout properties say
+        HeartbeatPolicy heartbeatPolicy = HeartbeatPolicy.fromSystemProperties();
+        server.setHeartbeatPolicy(heartbeatPolicy);
+        System.out.println("Heartbeats: " + heartbeatPolicy);
+
+        /// Join a cluster of servers when -Dchat.cluster.port is set
+        ClusterConfig clusterConfig = ClusterConfig.fromSystemProperties();
+        ClusterNode cluster = null;
+        if (clusterConfig != null)
+        {
+            cluster = new ClusterNode(clusterConfig, server);
+            server.setRelay(cluster);
+            ChatMetrics.REGISTRY.gauge("chat_cluster_nodes", "Cluster nodes linked to, this one included", cluster::getNodeCount);
+        }
+
+        server.start();
+        long accepting = System.currentTimeMillis();
+        System.out.println("Marvellous Server is waiting at port number " + server.getPort() + " (" + description + ")");
+
+        /// Counters and latencies over JMX, and over HTTP with -Dchat.metrics.port, once clients
+        /// can connect
+        ChatMetrics.export();
+        System.out.println("Accepting " + Launcher.sinceStart(accepting) + " ms after the JVM started");
+        if (cluster != null)
+        {
+            cluster.start();
+            System.out.println("Cluster " + clusterConfig);
+        }
+
+        if (launch.isExitWhenReady())
+        {
+            /// Go through one connection, e.g. so that a CDS archive dumped at exit holds its classes
+            Launcher.probe("localhost", server.getPort());
+        }
+        else if (launch.isHeadless())
+        {
+            multiClientLog.setEndSessionAtExit(true);
+            awaitShutdown();
+        }
+        else
+        {
+            BufferedReader bobj2 = new BufferedReader(new InputStreamReader(System.in));
+            String str2;
+            while ((str2 = bobj2.readLine()) != null && !str2.equals("end"))
+            {
+                server.broadcast(str2);
+                multiClientLog.log(Direction.SERVER, str2);
+            }
+        }
+
+        if (cluster != null)
+        {
+            cluster.close();
+        }
+        server.close();
+        if (store != null)
+        {
+            store.close();
+        }
+        multiClientLog.endSession();
+    }
+
+    /// Waits until the JVM is asked to stop, e.g. by Ctrl+C or SIGTERM. The shutdown hook then
+    /// waits in turn for this thread to close the server and the log
+    static void awaitShutdown() throws InterruptedException
+    {
+        CountDownLatch stop = new CountDownLatch(1);
+        Thread main = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() ->
+        {
+            stop.countDown();
+            try
+            {
+                main.join();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }, "chat-shutdown"));
+        stop.await();
+    }
 }
\ No newline at end of file
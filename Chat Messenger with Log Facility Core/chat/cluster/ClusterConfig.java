@@ -0,0 +1,124 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : ClusterConfig.java
+// Description : Address of this node and how it finds the other nodes of its cluster.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.cluster;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : ClusterConfig
+// Description : Immutable. fromSystemProperties() reads
+//
+//                 chat.cluster.port   port the other nodes connect to; no cluster without it
+//                 chat.cluster.host   address the other nodes reach this one at
+//                                     (default 127.0.0.1)
+//                 chat.cluster.peers  comma-separated host:port of nodes to connect to
+//                 chat.cluster.dir    directory shared by the nodes, where each one leaves
+//                                     its address for the others to find
+//
+//               A node is known by host:port, so every node must use the same form of the
+//               same address. Peers do not have to list each other: a node that is connected
+//               to connects back and passes on the nodes it knows, so one common seed is
+//               enough.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class ClusterConfig
+{
+    private final String host;
+    private final int port;
+    private final List<String> peers;
+    private final Path directory;
+
+    // directory may be null
+    public ClusterConfig(String host, int port, List<String> peers, Path directory)
+    {
+        if (port <= 0 || port > 65535)
+        {
+            throw new IllegalArgumentException("Cluster port out of range: " + port);
+        }
+        for (String peer : peers)
+        {
+            parsePort(peer);
+        }
+        this.host = host;
+        this.port = port;
+        this.peers = List.copyOf(peers);
+        this.directory = directory;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : fromSystemProperties
+    // Description   : Builds a configuration from the chat.cluster.* system properties, or
+    //                 returns null if chat.cluster.port is not set.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static ClusterConfig fromSystemProperties()
+    {
+        String port = System.getProperty("chat.cluster.port");
+        if (port == null)
+        {
+            return null;
+        }
+        List<String> peers = new ArrayList<>();
+        for (String peer : System.getProperty("chat.cluster.peers", "").split(","))
+        {
+            if (!peer.isBlank())
+            {
+                peers.add(peer.trim());
+            }
+        }
+        String directory = System.getProperty("chat.cluster.dir");
+        return new ClusterConfig(System.getProperty("chat.cluster.host", "127.0.0.1"), Integer.parseInt(port.trim()), peers,
+                (directory == null) ? null : Path.of(directory));
+    }
+
+    // host:port, the name of this node in the cluster
+    public String getNodeId()
+    {
+        return host + ":" + port;
+    }
+
+    public int getPort()
+    {
+        return port;
+    }
+
+    public List<String> getPeers()
+    {
+        return peers;
+    }
+
+    // Shared directory, or null
+    public Path getDirectory()
+    {
+        return directory;
+    }
+
+    // Host part of a host:port node id
+    static String parseHost(String node)
+    {
+        return node.substring(0, node.lastIndexOf(':'));
+    }
+
+    // Port part of a host:port node id
+    static int parsePort(String node)
+    {
+        int colon = node.lastIndexOf(':');
+        if (colon <= 0)
+        {
+            throw new IllegalArgumentException("Not host:port: " + node);
+        }
+        return Integer.parseInt(node.substring(colon + 1));
+    }
+
+    public String toString()
+    {
+        return "node " + getNodeId() + ((peers.isEmpty()) ? "" : ", peers " + String.join(",", peers))
+                + ((directory == null) ? "" : ", directory " + directory);
+    }
+}
@@ -0,0 +1,517 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : ClusterNode.java
+// Description : Makes a multi-client server one node of a cluster: rooms are sharded over the
+//               nodes by consistent hashing and messages are relayed between the nodes that
+//               have members in a room.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.cluster;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import chat.metrics.ChatMetrics;
+import chat.net.Handshake;
+import chat.net.MessageChannel;
+import chat.server.ChatServer;
+import chat.server.HeartbeatPolicy;
+import chat.server.Heartbeats;
+import chat.server.Relay;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : ClusterNode
+// Description : Every room belongs to one node, its owner on the HashRing of the nodes this one
+//               is linked to. A node tells the owner of each room it has members in (SUB) and
+//               sends the lines of its clients there (PUB); the owner delivers them to its
+//               own members and passes them on (MSG) to every other node with members. So a
+//               line crosses at most two links, and the owners between them keep the
+//               membership of all rooms without any node knowing all of it. Console lines go
+//               straight to every node (ALL). Senders from other nodes are shown as
+//               "client-3@host:port", since client names are only unique per node.
+//
+//               Each node keeps one PeerLink to every other node for what it sends, and
+//               accepts one link from every other node for what it receives; all rooms share
+//               the link. The ring only holds the nodes whose link is up, so the rooms of a
+//               node that goes down move to the others, and every change of the ring sends
+//               SUB again for every local room to its owner now. While the ring changes a line
+//               may be missed or delivered twice; there is no ordering across owners. Every
+//               change of the ring is also sent to the other nodes (PEERS), which link to the
+//               nodes they did not know, so all rings end up the same from one common seed.
+//
+//               Only the owner of a room stores its lines, so a line is stored once in the
+//               cluster and "/since" replays a room on its owner. A malformed message is
+//               reported and skipped, and the link stays up.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class ClusterNode implements Relay, Closeable
+{
+    // Pause between discovery rounds
+    static final long DISCOVERY_MILLIS = 2000;
+
+    // Pause before accepting again after accept() failed
+    static final long ACCEPT_BACKOFF_MILLIS = 100;
+
+    // Links are pinged after 1 s of silence and dropped after 5 s
+    static final HeartbeatPolicy LINK_HEARTBEATS = new HeartbeatPolicy(1000, 5000, 0);
+
+    private final ClusterConfig config;
+    private final String id;
+    private final ChatServer server;
+    private final Discovery discovery;
+
+    // Outbound links by the address they connect to, and the ones up by node id
+    private final ConcurrentHashMap<String, PeerLink> links = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, PeerLink> connected = new ConcurrentHashMap<>();
+
+    // Rooms with members here, and the other nodes with members in the rooms this node owns
+    private final Set<String> localRooms = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Set<String>> subscribers = new ConcurrentHashMap<>();
+
+    // Latest inbound link of every node, so an old one closing does not drop its subscriptions
+    private final ConcurrentHashMap<String, Socket> inbound = new ConcurrentHashMap<>();
+
+    private volatile HashRing ring;
+    private Heartbeats heartbeats;
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+    private Thread discoverer;
+    private volatile boolean running;
+
+    // Call server.setRelay(node) before the server starts, and start() after
+    public ClusterNode(ClusterConfig config, ChatServer server)
+    {
+        this.config = config;
+        this.id = config.getNodeId();
+        this.server = server;
+        this.discovery = new Discovery(config);
+        this.ring = new HashRing(List.of(id));
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : start
+    // Description   : Listens for the links of the other nodes and starts looking for them.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void start() throws IOException
+    {
+        heartbeats = new Heartbeats(LINK_HEARTBEATS);
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(config.getPort()));
+        running = true;
+
+        acceptor = new Thread(this::acceptLoop, "chat-cluster-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        discoverer = new Thread(this::discoverLoop, "chat-cluster-discovery");
+        discoverer.setDaemon(true);
+        discoverer.start();
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    // Nodes on the ring, this one included
+    public int getNodeCount()
+    {
+        return ring.size();
+    }
+
+    Heartbeats getHeartbeats()
+    {
+        return heartbeats;
+    }
+
+    public void roomOpened(String room)
+    {
+        localRooms.add(room);
+        subscribe(room, true);
+    }
+
+    public void roomClosed(String room)
+    {
+        localRooms.remove(room);
+        subscribe(room, false);
+    }
+
+    // Tells the owner of room, unless that is this node
+    private void subscribe(String room, boolean members)
+    {
+        String owner = ring.owner(room);
+        if (!owner.equals(id))
+        {
+            sendTo(owner, LinkProtocol.subscribe(room, members));
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : publish
+    // Description   : A line of a local client, already delivered here: the owner passes it
+    //                 on, whether that is this node or another.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void publish(String room, String sender, String text)
+    {
+        String tagged = sender + "@" + id;
+        String owner = ring.owner(room);
+        if (owner.equals(id))
+        {
+            forward(room, null, tagged, text);
+        }
+        else
+        {
+            sendTo(owner, LinkProtocol.message(LinkProtocol.PUB, room, tagged, text));
+        }
+    }
+
+    public boolean owns(String room)
+    {
+        return ring.owner(room).equals(id);
+    }
+
+    public void broadcast(String text)
+    {
+        String message = LinkProtocol.all(text);
+        for (PeerLink link : connected.values())
+        {
+            link.send(message);
+        }
+    }
+
+    // Sends a line of room to every node with members in it except the one it came from
+    private void forward(String room, String except, String sender, String text)
+    {
+        Set<String> nodes = subscribers.get(room);
+        if (nodes == null)
+        {
+            return;
+        }
+        String message = LinkProtocol.message(LinkProtocol.MSG, room, sender, text);
+        for (String node : nodes)
+        {
+            if (!node.equals(except))
+            {
+                sendTo(node, message);
+            }
+        }
+    }
+
+    private void sendTo(String node, String message)
+    {
+        PeerLink link = connected.get(node);
+        if (link == null)
+        {
+            ChatMetrics.CLUSTER_DROPPED.increment();
+            return;
+        }
+        link.send(message);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : linkUp
+    // Description   : Adds the peer to the ring; called by the link once it can send.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void linkUp(PeerLink link)
+    {
+        connected.put(link.getNodeId(), link);
+        ringChanged();
+    }
+
+    // Takes the peer off the ring while the link reconnects
+    void linkDown(PeerLink link)
+    {
+        connected.remove(link.getNodeId(), link);
+        ringChanged();
+    }
+
+    // Forgets a link that will not connect again
+    void linkClosed(PeerLink link)
+    {
+        links.remove(link.getPeer(), link);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : ringChanged
+    // Description   : Rebuilds the ring from the links that are up, subscribes every local room
+    //                 at its owner, which may have changed, and tells the linked nodes.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private synchronized void ringChanged()
+    {
+        List<String> members = new ArrayList<>(connected.keySet());
+        members.add(id);
+        ring = new HashRing(members);
+        for (String room : localRooms)
+        {
+            subscribe(room, true);
+        }
+        String peers = LinkProtocol.peers(members);
+        for (PeerLink link : connected.values())
+        {
+            link.send(peers);
+        }
+    }
+
+    // Starts a link to peer unless there is one already
+    private void connectTo(String peer)
+    {
+        if (peer.equals(id) || connected.containsKey(peer))
+        {
+            return;
+        }
+        links.computeIfAbsent(peer, address ->
+        {
+            PeerLink link = new PeerLink(this, address);
+            link.start();
+            return link;
+        });
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : discoverLoop
+    // Description   : Links to every node discovery finds, and closes links that are down to
+    //                 nodes it no longer finds and that have no link to this node either.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void discoverLoop()
+    {
+        while (running)
+        {
+            try
+            {
+                Set<String> found = discovery.discover();
+                for (String peer : found)
+                {
+                    connectTo(peer);
+                }
+                for (PeerLink link : links.values())
+                {
+                    String peer = link.getPeer();
+                    if (!found.contains(peer) && !link.isConnected() && !inbound.containsKey(peer))
+                    {
+                        links.remove(peer, link);
+                        link.close();
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+            try
+            {
+                Thread.sleep(DISCOVERY_MILLIS);
+            }
+            catch (InterruptedException e)
+            {
+                return;
+            }
+        }
+    }
+
+    // Accepts the links of the other nodes, each read on its own virtual thread; while running,
+    // a failed accept is reported once and retried after ACCEPT_BACKOFF_MILLIS
+    private void acceptLoop()
+    {
+        boolean failing = false;
+        while (running)
+        {
+            Socket socket;
+            try
+            {
+                socket = serverSocket.accept();
+            }
+            catch (IOException e)
+            {
+                if (!running)
+                {
+                    // server socket closed
+                    break;
+                }
+                if (!failing)
+                {
+                    System.err.println("Cluster: accepting links failed, retrying: " + e.getMessage());
+                    failing = true;
+                }
+                try
+                {
+                    Thread.sleep(ACCEPT_BACKOFF_MILLIS);
+                }
+                catch (InterruptedException interrupted)
+                {
+                    break;
+                }
+                continue;
+            }
+            failing = false;
+            Thread.ofVirtual().name("cluster-inbound").start(() -> serve(socket));
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : serve
+    // Description   : Reads one inbound link: the peer's NODE message, answered with this
+    //                 node's, then everything it relays, until the link breaks.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void serve(Socket socket)
+    {
+        String from = null;
+        Heartbeats.Watch watch = null;
+        try
+        {
+            socket.setTcpNoDelay(true);
+            MessageChannel channel = Handshake.accept(socket);
+            watch = heartbeats.watch(channel, reason -> { });
+            String line = channel.receive();
+            LinkProtocol hello = (line == null) ? null : LinkProtocol.parse(line);
+            if (hello == null || !hello.type.equals(LinkProtocol.NODE))
+            {
+                return;
+            }
+            channel.send(LinkProtocol.node(id));
+            channel.flush();
+            if (hello.text.equals(id))
+            {
+                // this node, under another address
+                return;
+            }
+            from = hello.text;
+            inbound.put(from, socket);
+            connectTo(from);
+            while ((line = channel.receive()) != null)
+            {
+                try
+                {
+                    handle(from, LinkProtocol.parse(line));
+                }
+                catch (IllegalArgumentException e)
+                {
+                    System.err.println("Cluster: skipped a bad message from " + from + ": " + e.getMessage());
+                }
+            }
+        }
+        catch (IOException | IllegalArgumentException e)
+        {
+            // link broken, or not a cluster node
+        }
+        finally
+        {
+            if (watch != null)
+            {
+                watch.cancel();
+            }
+            try
+            {
+                socket.close();
+            }
+            catch (IOException e)
+            {
+                // already closed
+            }
+            if (from != null && inbound.remove(from, socket))
+            {
+                unsubscribeAll(from);
+            }
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : handle
+    // Description   : Acts on one message relayed by node from.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void handle(String from, LinkProtocol message)
+    {
+        switch (message.type)
+        {
+            case LinkProtocol.PEERS:
+                for (String peer : message.text.split(" "))
+                {
+                    try
+                    {
+                        connectTo(peer);
+                    }
+                    catch (IllegalArgumentException e)
+                    {
+                        System.err.println("Cluster: skipped peer \"" + peer + "\" from " + from + ": " + e.getMessage());
+                    }
+                }
+                break;
+            case LinkProtocol.SUB:
+                subscribers.computeIfAbsent(message.room, room -> ConcurrentHashMap.newKeySet()).add(from);
+                break;
+            case LinkProtocol.UNSUB:
+                subscribers.computeIfPresent(message.room, (room, nodes) ->
+                {
+                    nodes.remove(from);
+                    return nodes.isEmpty() ? null : nodes;
+                });
+                break;
+            case LinkProtocol.PUB:
+                ChatMetrics.CLUSTER_RECEIVED.increment();
+                server.relayed(message.room, message.sender, message.text);
+                forward(message.room, from, message.sender, message.text);
+                break;
+            case LinkProtocol.MSG:
+                ChatMetrics.CLUSTER_RECEIVED.increment();
+                server.relayed(message.room, message.sender, message.text);
+                break;
+            case LinkProtocol.ALL:
+                ChatMetrics.CLUSTER_RECEIVED.increment();
+                server.relayed(null, null, message.text);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Drops every subscription of a node whose link is gone; it subscribes again on reconnect
+    private void unsubscribeAll(String node)
+    {
+        for (String room : subscribers.keySet())
+        {
+            subscribers.computeIfPresent(room, (name, nodes) ->
+            {
+                nodes.remove(node);
+                return nodes.isEmpty() ? null : nodes;
+            });
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : close
+    // Description   : Leaves the cluster: stops listening and discovering, closes every link
+    //                 and gives up the discovery lease.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void close() throws IOException
+    {
+        running = false;
+        if (serverSocket != null)
+        {
+            serverSocket.close();
+        }
+        if (discoverer != null)
+        {
+            discoverer.interrupt();
+        }
+        for (PeerLink link : links.values())
+        {
+            link.close();
+        }
+        for (Socket socket : inbound.values())
+        {
+            socket.close();
+        }
+        discovery.close();
+        if (heartbeats != null)
+        {
+            heartbeats.close();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : Discovery.java
+// Description : Finds the other nodes of a cluster from a static peer list and from a directory
+//               shared by the nodes.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.cluster;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : Discovery
+// Description : In the shared directory every node keeps a lease file, "<host>_<port>.node",
+//               holding its node id. discover() renews this node's lease by touching its file,
+//               and a file that has not been touched for LEASE_MILLIS belongs to a node that
+//               is gone, so a crashed node drops out without anyone cleaning up after it.
+//               close() deletes the file. Any directory all nodes can write works, e.g. one
+//               under /tmp for several processes on one machine.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class Discovery implements Closeable
+{
+    static final String LEASE_SUFFIX = ".node";
+
+    // Age after which a lease file no longer counts; several discovery rounds
+    static final long LEASE_MILLIS = 10_000;
+
+    private final String self;
+    private final Set<String> peers;
+    private final Path directory;
+    private final Path lease;
+
+    Discovery(ClusterConfig config)
+    {
+        this.self = config.getNodeId();
+        this.peers = new LinkedHashSet<>(config.getPeers());
+        this.directory = config.getDirectory();
+        this.lease = (directory == null) ? null : directory.resolve(self.replace(':', '_') + LEASE_SUFFIX);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : discover
+    // Description   : Renews this node's lease and returns the static peers and the nodes with
+    //                 a live lease, without this node.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    Set<String> discover() throws IOException
+    {
+        Set<String> found = new LinkedHashSet<>(peers);
+        if (directory != null)
+        {
+            renew();
+            long oldest = System.currentTimeMillis() - LEASE_MILLIS;
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + LEASE_SUFFIX))
+            {
+                for (Path file : files)
+                {
+                    try
+                    {
+                        if (Files.getLastModifiedTime(file).toMillis() >= oldest)
+                        {
+                            found.add(Files.readString(file, StandardCharsets.UTF_8).trim());
+                        }
+                    }
+                    catch (NoSuchFileException e)
+                    {
+                        // deleted by a node shutting down
+                    }
+                }
+            }
+        }
+        found.remove(self);
+        return found;
+    }
+
+    // Writes the lease file the first time, through a rename so no node reads half of it, then
+    // only touches it
+    private void renew() throws IOException
+    {
+        if (Files.exists(lease))
+        {
+            Files.setLastModifiedTime(lease, FileTime.fromMillis(System.currentTimeMillis()));
+            return;
+        }
+        Files.createDirectories(directory);
+        Path written = lease.resolveSibling(lease.getFileName() + ".tmp");
+        Files.writeString(written, self, StandardCharsets.UTF_8);
+        Files.move(written, lease, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Gives up the lease, so the other nodes stop looking for this one straight away
+    public void close() throws IOException
+    {
+        if (lease != null)
+        {
+            Files.deleteIfExists(lease);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : HashRing.java
+// Description : Consistent hashing of room names onto the nodes of a cluster.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeSet;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : HashRing
+// Description : Immutable. Every node is hashed onto a 64-bit ring at VIRTUAL_NODES points, and
+//               a room belongs to the node of the first point at or after the room's hash. When
+//               a node joins or leaves, only the rooms next to its points change owner, about
+//               1/n of them, and the virtual nodes keep the shares of the nodes close to equal.
+//               The points are kept in two parallel sorted arrays, so owner() is one binary
+//               search with no allocation.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class HashRing
+{
+    // Points per node on the ring
+    static final int VIRTUAL_NODES = 128;
+
+    private final String[] nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    // Nodes that know the same members build the same ring; points that collide go by name
+    public HashRing(Collection<String> members)
+    {
+        this.nodes = new TreeSet<>(members).toArray(new String[0]);
+        long[][] placed = new long[nodes.length * VIRTUAL_NODES][];
+        int n = 0;
+        for (int node = 0; node < nodes.length; node++)
+        {
+            for (int i = 0; i < VIRTUAL_NODES; i++)
+            {
+                placed[n++] = new long[] { hash(nodes[node] + "#" + i), node };
+            }
+        }
+        Arrays.sort(placed, (a, b) -> (a[0] != b[0]) ? Long.compareUnsigned(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[placed.length];
+        this.owners = new String[placed.length];
+        for (int i = 0; i < placed.length; i++)
+        {
+            points[i] = placed[i][0];
+            owners[i] = nodes[(int) placed[i][1]];
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : owner
+    // Description   : Node the room belongs to: the first point at or after its hash, going
+    //                 round to the first point past the end of the ring.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public String owner(String room)
+    {
+        long hash = hash(room);
+        int low = 0;
+        int high = points.length;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(points[middle], hash) < 0)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return owners[(low == points.length) ? 0 : low];
+    }
+
+    // Nodes on the ring
+    public int size()
+    {
+        return nodes.length;
+    }
+
+    public boolean contains(String node)
+    {
+        return Arrays.binarySearch(nodes, node) >= 0;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : hash
+    // Description   : 64-bit FNV-1a over the UTF-8 bytes, then the MurmurHash3 finaliser, which
+    //                 spreads names that differ only in their last characters over the ring.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static long hash(String text)
+    {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8))
+        {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    public String toString()
+    {
+        return String.join(", ", nodes);
+    }
+}
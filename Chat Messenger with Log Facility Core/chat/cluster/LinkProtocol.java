@@ -0,0 +1,122 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LinkProtocol.java
+// Description : Messages exchanged between the nodes of a cluster over their links.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.cluster;
+
+import java.util.Collection;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LinkProtocol
+// Description : Every message is one message of a MessageChannel, so it may carry line breaks:
+//
+//                 NODE <id>                          first message each way on a new link
+//                 PEERS <id> <id> ...                the nodes on the sender's ring
+//                 SUB <room>                         the sender has members in room
+//                 UNSUB <room>                       no longer
+//                 PUB <room> <n> <sender><text>      a client line, to the owner of room
+//                 MSG <room> <n> <sender><text>      the same, from the owner to the others
+//                 ALL <text>                         a console line, to every node
+//
+//               n is the length of sender, which may contain spaces; the text follows it
+//               after one space. All rooms share the link, whatever their owner.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class LinkProtocol
+{
+    static final String NODE = "NODE";
+    static final String PEERS = "PEERS";
+    static final String SUB = "SUB";
+    static final String UNSUB = "UNSUB";
+    static final String PUB = "PUB";
+    static final String MSG = "MSG";
+    static final String ALL = "ALL";
+
+    // Type, then the fields that type has; the others stay null
+    final String type;
+    final String room;
+    final String sender;
+    final String text;
+
+    private LinkProtocol(String type, String room, String sender, String text)
+    {
+        this.type = type;
+        this.room = room;
+        this.sender = sender;
+        this.text = text;
+    }
+
+    static String node(String id)
+    {
+        return NODE + " " + id;
+    }
+
+    static String peers(Collection<String> ids)
+    {
+        return PEERS + " " + String.join(" ", ids);
+    }
+
+    static String subscribe(String room, boolean members)
+    {
+        return (members ? SUB : UNSUB) + " " + room;
+    }
+
+    // PUB or MSG
+    static String message(String type, String room, String sender, String text)
+    {
+        return type + " " + room + " " + sender.length() + " " + sender + " " + text;
+    }
+
+    static String all(String text)
+    {
+        return ALL + " " + text;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : parse
+    // Description   : Splits a link message into its fields; throws IllegalArgumentException
+    //                 for anything else.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static LinkProtocol parse(String line)
+    {
+        int space = line.indexOf(' ');
+        if (space <= 0)
+        {
+            throw new IllegalArgumentException("Not a cluster message: " + line);
+        }
+        String type = line.substring(0, space);
+        String rest = line.substring(space + 1);
+        switch (type)
+        {
+            case NODE:
+                return new LinkProtocol(type, null, null, rest);
+            case PEERS:
+            case ALL:
+                return new LinkProtocol(type, null, null, rest);
+            case SUB:
+            case UNSUB:
+                return new LinkProtocol(type, rest, null, null);
+            case PUB:
+            case MSG:
+                int roomEnd = rest.indexOf(' ');
+                int lengthEnd = (roomEnd < 0) ? -1 : rest.indexOf(' ', roomEnd + 1);
+                if (lengthEnd < 0)
+                {
+                    break;
+                }
+                int senderStart = lengthEnd + 1;
+                int senderEnd = senderStart + Integer.parseInt(rest, roomEnd + 1, lengthEnd, 10);
+                if (senderEnd < senderStart || senderEnd >= rest.length() || rest.charAt(senderEnd) != ' ')
+                {
+                    break;
+                }
+                return new LinkProtocol(type, rest.substring(0, roomEnd), rest.substring(senderStart, senderEnd), rest.substring(senderEnd + 1));
+            default:
+                break;
+        }
+        throw new IllegalArgumentException("Not a cluster message: " + line);
+    }
+}
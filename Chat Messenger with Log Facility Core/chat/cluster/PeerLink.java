@@ -0,0 +1,269 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : PeerLink.java
+// Description : Persistent outbound link from this node to one other node of the cluster.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.cluster;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+
+import chat.metrics.ChatMetrics;
+import chat.net.Handshake;
+import chat.net.MessageChannel;
+import chat.server.Heartbeats;
+import chat.server.OutboundPolicy;
+import chat.server.QueuedSender;
+import chat.server.SlowConsumerPolicy;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : PeerLink
+// Description : One virtual thread connects, through Handshake like any client, so the link is
+//               framed and deflated and answers heartbeats, and then writes everything queued
+//               for the peer, whatever room it belongs to. Another one reads the link, which
+//               only carries the peer's NODE reply and heartbeats this way. When the link
+//               breaks or the peer stops answering heartbeats, the node is told and the link
+//               connects again after a growing pause, for as long as it is open.
+//
+//               send() only queues, so the servers' I/O threads never wait for another node;
+//               while the link is down messages for the peer are dropped and counted. A peer
+//               more than LINK_POLICY's high watermark behind is disconnected and has to
+//               catch up by connecting again, like a slow client.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class PeerLink
+{
+    // Queue limits of a link; a peer this far behind is reconnected
+    static final OutboundPolicy LINK_POLICY = new OutboundPolicy(SlowConsumerPolicy.DISCONNECT, 64L << 20, 16L << 20,
+            Path.of(System.getProperty("java.io.tmpdir")), 0);
+
+    static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    static final long MIN_BACKOFF_MILLIS = 250;
+    static final long MAX_BACKOFF_MILLIS = 5000;
+
+    private final ClusterNode node;
+    private final String peer;
+    private final InetSocketAddress address;
+    private Thread thread;
+
+    // Set while the link is up; nodeId is the id the peer gave, which the ring goes by
+    private volatile QueuedSender sender;
+    private volatile String nodeId;
+    private volatile Socket socket;
+    private volatile boolean closed;
+
+    PeerLink(ClusterNode node, String peer)
+    {
+        this.node = node;
+        this.peer = peer;
+        this.address = new InetSocketAddress(ClusterConfig.parseHost(peer), ClusterConfig.parsePort(peer));
+    }
+
+    // Address the link connects to
+    String getPeer()
+    {
+        return peer;
+    }
+
+    // Id the peer answered with, once the link has been up
+    String getNodeId()
+    {
+        return nodeId;
+    }
+
+    boolean isConnected()
+    {
+        return sender != null;
+    }
+
+    void start()
+    {
+        thread = Thread.ofVirtual().name("cluster-link-" + peer).start(this::run);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : send
+    // Description   : Queues a link message for the peer. Never blocks; false if the link is
+    //                 down or had to be dropped.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    boolean send(String message)
+    {
+        QueuedSender queue = sender;
+        if (queue == null)
+        {
+            ChatMetrics.CLUSTER_DROPPED.increment();
+            return false;
+        }
+        if (!queue.offer(message))
+        {
+            ChatMetrics.CLUSTER_DROPPED.increment();
+            queue.close();
+            return false;
+        }
+        ChatMetrics.CLUSTER_RELAYED.increment();
+        return true;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : run
+    // Description   : Keeps the link up until close(), pausing between attempts twice as long
+    //                 each time up to MAX_BACKOFF_MILLIS, and from the start again once a
+    //                 link has been up.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void run()
+    {
+        long backoff = MIN_BACKOFF_MILLIS;
+        while (!closed)
+        {
+            try
+            {
+                if (connect())
+                {
+                    backoff = MIN_BACKOFF_MILLIS;
+                }
+            }
+            catch (IOException e)
+            {
+                // refused, reset or timed out; try again
+            }
+            catch (InterruptedException e)
+            {
+                return;
+            }
+            if (closed)
+            {
+                return;
+            }
+            try
+            {
+                Thread.sleep(backoff);
+            }
+            catch (InterruptedException e)
+            {
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : connect
+    // Description   : One life of the link: connects, exchanges node ids and writes queued
+    //                 messages until it breaks. Returns true if the link was up.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private boolean connect() throws IOException, InterruptedException
+    {
+        Socket connection = new Socket();
+        socket = connection;
+        QueuedSender queue = new QueuedSender(LINK_POLICY, "cluster");
+        Heartbeats.Watch watch = null;
+        try
+        {
+            if (closed)
+            {
+                return false;
+            }
+            connection.connect(address, CONNECT_TIMEOUT_MILLIS);
+            connection.setTcpNoDelay(true);
+            MessageChannel channel = Handshake.connect(connection);
+            watch = node.getHeartbeats().watch(channel, reason -> queue.close());
+            channel.send(LinkProtocol.node(node.getId()));
+            channel.flush();
+            String reply = channel.receive();
+            LinkProtocol hello = (reply == null) ? null : LinkProtocol.parse(reply);
+            if (hello == null || !hello.type.equals(LinkProtocol.NODE))
+            {
+                throw new IOException("Not a chat cluster node: " + peer);
+            }
+            if (hello.text.equals(node.getId()))
+            {
+                // Another name of this node; nothing to link
+                closed = true;
+                node.linkClosed(this);
+                return false;
+            }
+
+            Thread.ofVirtual().name("cluster-reader-" + peer).start(() -> drain(channel, queue));
+            nodeId = hello.text;
+            sender = queue;
+            node.linkUp(this);
+            try
+            {
+                queue.run(channel);
+            }
+            finally
+            {
+                sender = null;
+                node.linkDown(this);
+            }
+            return true;
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IOException("Not a chat cluster node: " + peer, e);
+        }
+        finally
+        {
+            queue.close();
+            if (watch != null)
+            {
+                watch.cancel();
+            }
+            connection.close();
+        }
+    }
+
+    // Reads until the link breaks, which answers the peer's pings, then ends the writer
+    private void drain(MessageChannel channel, QueuedSender queue)
+    {
+        try
+        {
+            while (channel.receive() != null)
+            {
+                // nothing else comes this way
+            }
+        }
+        catch (IOException e)
+        {
+            // link broken
+        }
+        finally
+        {
+            queue.close();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : close
+    // Description   : Takes the link down for good.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void close()
+    {
+        closed = true;
+        QueuedSender queue = sender;
+        if (queue != null)
+        {
+            queue.close();
+        }
+        try
+        {
+            Socket connection = socket;
+            if (connection != null)
+            {
+                connection.close();
+            }
+        }
+        catch (IOException e)
+        {
+            // already closed
+        }
+        if (thread != null)
+        {
+            thread.interrupt();
+        }
+    }
+}
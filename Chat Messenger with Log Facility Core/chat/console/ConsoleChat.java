@@ -0,0 +1,168 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : ConsoleChat.java
+// Description : Full-duplex console chat over one connection: a reader thread shows and logs what
+//               the peer sends while a writer thread sends and logs what is typed or read from
+//               a file.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.console;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import chat.log.Direction;
+import chat.log.LogAppender;
+import chat.metrics.ChatMetrics;
+import chat.net.MessageChannel;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : ConsoleChat
+// Description : Neither side waits for the other, so any number of messages can be in flight
+//               in both directions. Both directions write through buffers and flush only when
+//               their input has nothing more ready: typed lines go out at once, while a file
+//               or a burst from the peer is coalesced into few large writes.
+//
+//               Typing "end" (or the end of the input) half-closes the connection. The peer sees
+//               the end of its input and closes, which in turn ends the reader here. An "end"
+//               line from the peer, as the GUI tools send it, also ends the chat. So does the
+//               connection failing or being closed by Heartbeats when the peer is gone.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class ConsoleChat
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MessageChannel channel;
+    private final LogAppender log;
+    private final Direction outgoing;
+    private final Direction incoming;
+    private final String peerName;
+
+    private volatile long sent;
+    private long received;
+
+    // outgoing/incoming are the log directions of sent and received lines; peerName prefixes
+    // received lines on the console, e.g. "Server" gives "Server says :hello"
+    public ConsoleChat(MessageChannel channel, LogAppender log, Direction outgoing, Direction incoming, String peerName)
+    {
+        this.channel = channel;
+        this.log = log;
+        this.outgoing = outgoing;
+        this.incoming = incoming;
+        this.peerName = peerName;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : run
+    // Description   : Sends lines from input on a writer thread and receives on the calling
+    //                 thread until the peer closes the connection. With a finite input (bulk
+    //                 mode) all of it is sent before the connection is closed; the keyboard is
+    //                 not waited for. A broken connection ends the chat like a closed one.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void run(BufferedReader input, boolean interactive) throws IOException
+    {
+        // Daemon, so a writer still blocked reading the keyboard does not keep the JVM alive
+        Thread writer = Thread.ofPlatform().name("chat-writer").daemon(true).start(() -> send(input));
+        try
+        {
+            receive();
+            if (!interactive)
+            {
+                writer.join();
+            }
+        }
+        catch (IOException e)
+        {
+            System.out.println("Connection lost: " + e.getMessage());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : send
+    // Description   : Writer thread: sends and logs every input line until "end" or the end of
+    //                 the input, then half-closes the connection.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void send(BufferedReader input)
+    {
+        try
+        {
+            String line;
+            while ((line = input.readLine()) != null && !line.equals("end"))
+            {
+                channel.send(line);
+                log.log(outgoing, line);
+                sent++;
+                ChatMetrics.MESSAGES_SENT.increment();
+                if (!input.ready())
+                {
+                    channel.flush();
+                }
+            }
+            channel.shutdownOutput();
+        }
+        catch (IOException e)
+        {
+            // The connection went away; the reader notices and ends the chat
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : receive
+    // Description   : Reader loop: shows and logs every line from the peer until it closes the
+    //                 connection or says "end".
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void receive() throws IOException
+    {
+        PrintStream console = new PrintStream(new BufferedOutputStream(System.out, BUFFER_SIZE), false);
+        String prefix = peerName + " says :";
+        try
+        {
+            String line;
+            while ((line = channel.receive()) != null)
+            {
+                long start = ChatMetrics.RECEIVE.startSample();
+                console.println(prefix + line);
+                log.log(incoming, line);
+                received++;
+                ChatMetrics.MESSAGES_RECEIVED.increment();
+                ChatMetrics.RECEIVE.recordSince(start);
+                if (line.equals("end"))
+                {
+                    break;
+                }
+                if (!channel.hasBuffered())
+                {
+                    console.flush();
+                }
+            }
+        }
+        finally
+        {
+            console.flush();
+        }
+    }
+
+    // Lines sent so far
+    public long getSent()
+    {
+        return sent;
+    }
+
+    // Lines received; final once run() has returned
+    public long getReceived()
+    {
+        return received;
+    }
+}
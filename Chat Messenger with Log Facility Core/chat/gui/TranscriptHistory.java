@@ -0,0 +1,377 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : TranscriptHistory.java
+// Description : Reads pages of older transcript lines back out of the session's log segments.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.gui;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import chat.log.BinaryLogFormat;
+import chat.log.BinaryLogReader;
+import chat.log.Direction;
+import chat.log.IndexingLogSink;
+import chat.log.LogAppender;
+import chat.log.LogLineEncoder;
+import chat.log.LogSink;
+import chat.log.RollingLogSink;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : TranscriptHistory
+// Description : Record n of the session is the n-th message line across its segments, in
+//               segment order; session end banners are not counted. Lines come back the way
+//               the transcript shows live messages, "Client: text", from text and binary
+//               segments alike.
+//
+//               The first page reads through every segment once. From then on each segment
+//               is remembered with its first ordinal, its record count once it is closed, and
+//               the byte offset of every CHECKPOINT_INTERVAL-th record, so a page skips the
+//               segments before it and seeks close to its first record. A gzipped segment
+//               cannot seek and is inflated from its start, which costs at most one segment.
+//
+//               If retention already deleted the session's first segment the ordinals cannot
+//               be resolved any more and no history is returned.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public class TranscriptHistory
+{
+    private static final String FIRST_SEGMENT = "-0001.";
+
+    // Records between two remembered byte offsets of a segment
+    static final int CHECKPOINT_INTERVAL = 256;
+
+    // "[yyyy-MM-dd HH:mm:ss] " before the label of a text log line
+    private static final int TEXT_LABEL_AT = 22;
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Class Name  : SegmentInfo
+    // Description : What is known of one segment, under its name without ".gz".
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private static final class SegmentInfo
+    {
+        final long firstOrdinal;
+
+        // Records in the segment, or -1 until a closed segment was read to its end
+        long count = -1;
+
+        // offsets[i]: offset in the plain file of record firstOrdinal + i * CHECKPOINT_INTERVAL
+        long[] offsets = new long[16];
+        int checkpoints;
+
+        SegmentInfo(long firstOrdinal)
+        {
+            this.firstOrdinal = firstOrdinal;
+        }
+
+        void checkpoint(long ordinal, long offset)
+        {
+            long relative = ordinal - firstOrdinal;
+            if (relative % CHECKPOINT_INTERVAL != 0 || relative / CHECKPOINT_INTERVAL != checkpoints)
+            {
+                return;
+            }
+            if (checkpoints == offsets.length)
+            {
+                offsets = Arrays.copyOf(offsets, checkpoints * 2);
+            }
+            offsets[checkpoints++] = offset;
+        }
+
+        // Index of the last checkpoint at or before ordinal, or -1
+        int checkpointBefore(long ordinal)
+        {
+            long index = (ordinal - firstOrdinal) / CHECKPOINT_INTERVAL;
+            return (int) Math.min(index, checkpoints - 1);
+        }
+    }
+
+    private final RollingLogSink sink;
+    private final Map<String, SegmentInfo> segmentInfo = new HashMap<>();
+
+    public TranscriptHistory(RollingLogSink sink)
+    {
+        this.sink = sink;
+    }
+
+    // History of an appender's session, or null when its sink does not keep segment files
+    public static TranscriptHistory of(LogAppender appender)
+    {
+        LogSink sink = appender.getSink();
+        if (sink instanceof IndexingLogSink)
+        {
+            sink = ((IndexingLogSink) sink).getTarget();
+        }
+        return (sink instanceof RollingLogSink) ? new TranscriptHistory((RollingLogSink) sink) : null;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : read
+    // Description   : Returns the message lines with ordinals from (inclusive) to to (exclusive),
+    //                 oldest first. Fewer lines come back if part of the range is not readable.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public synchronized List<String> read(long from, long to) throws IOException
+    {
+        List<String> lines = new ArrayList<>();
+        List<Path> segments = withoutDuplicates(sink.getSegmentFiles());
+        if (from >= to || segments.isEmpty() || !segments.get(0).getFileName().toString().contains(FIRST_SEGMENT))
+        {
+            return lines;
+        }
+
+        String live = keyOf(sink.getCurrentFile());
+        long ordinal = 0;
+        for (Path segment : segments)
+        {
+            if (ordinal >= to)
+            {
+                break;
+            }
+            String key = keyOf(segment);
+            SegmentInfo info = segmentInfo.get(key);
+            if (info == null || info.firstOrdinal != ordinal)
+            {
+                info = new SegmentInfo(ordinal);
+                segmentInfo.put(key, info);
+            }
+            if (info.count >= 0 && ordinal + info.count <= from)
+            {
+                ordinal += info.count;
+                continue;
+            }
+
+            String name = segment.getFileName().toString();
+            boolean compressed = name.endsWith(".gz");
+            long end;
+            if (name.contains(BinaryLogFormat.LOG_SUFFIX))
+            {
+                end = readBinary(segment, compressed, info, from, to, lines);
+            }
+            else
+            {
+                end = readText(segment, compressed, info, from, to, lines);
+            }
+            // Read to its end if the range goes further; a live segment may still grow
+            if (end < to && !key.equals(live))
+            {
+                info.count = end - info.firstOrdinal;
+            }
+            ordinal = end;
+        }
+        return lines;
+    }
+
+    // A segment is briefly present both plain and compressed while it is being gzipped
+    private static List<Path> withoutDuplicates(List<Path> segments)
+    {
+        List<Path> unique = new ArrayList<>(segments.size());
+        for (Path segment : segments)
+        {
+            String name = segment.getFileName().toString();
+            if (name.endsWith(".gz") && segments.contains(segment.resolveSibling(name.substring(0, name.length() - 3))))
+            {
+                continue;
+            }
+            unique.add(segment);
+        }
+        return unique;
+    }
+
+    // Name of a segment before and after it is gzipped
+    private static String keyOf(Path segment)
+    {
+        String name = segment.getFileName().toString();
+        return name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : readText
+    // Description   : Adds the lines of a text segment in [from, to), starting at the last
+    //                 checkpoint before from if the file is plain, and returns the ordinal
+    //                 after the last record read.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private long readText(Path segment, boolean compressed, SegmentInfo info, long from, long to, List<String> lines) throws IOException
+    {
+        long ordinal = info.firstOrdinal;
+        long skip = 0;
+        int checkpoint = compressed ? -1 : info.checkpointBefore(from);
+        if (checkpoint >= 0)
+        {
+            ordinal += (long) checkpoint * CHECKPOINT_INTERVAL;
+            skip = info.offsets[checkpoint];
+        }
+        try (InputStream file = Files.newInputStream(segment);
+             InputStream in = compressed ? new GZIPInputStream(file, 64 * 1024) : file)
+        {
+            in.skipNBytes(skip);
+            LineInput input = new LineInput(in, skip);
+            String line;
+            while (ordinal < to && (line = input.readLine()) != null)
+            {
+                // Message lines start with their "[timestamp]"; banners and blank lines do not
+                if (line.startsWith("["))
+                {
+                    if (!compressed)
+                    {
+                        info.checkpoint(ordinal, input.getLineOffset());
+                    }
+                    if (ordinal >= from)
+                    {
+                        lines.add(fromTextLine(line));
+                    }
+                    ordinal++;
+                }
+            }
+        }
+        return ordinal;
+    }
+
+    // Same for a binary segment, which a GZIPInputStream feeds front to back when compressed
+    private long readBinary(Path segment, boolean compressed, SegmentInfo info, long from, long to, List<String> lines) throws IOException
+    {
+        long ordinal = info.firstOrdinal;
+        BinaryLogReader reader;
+        if (compressed)
+        {
+            InputStream in = Files.newInputStream(segment);
+            try
+            {
+                reader = new BinaryLogReader(new GZIPInputStream(in, 64 * 1024));
+            }
+            catch (IOException e)
+            {
+                in.close();
+                throw e;
+            }
+        }
+        else
+        {
+            reader = new BinaryLogReader(segment.toString());
+            int checkpoint = info.checkpointBefore(from);
+            if (checkpoint >= 0)
+            {
+                ordinal += (long) checkpoint * CHECKPOINT_INTERVAL;
+                reader.seekRecord(info.offsets[checkpoint]);
+            }
+        }
+        try (BinaryLogReader records = reader)
+        {
+            while (ordinal < to && records.next())
+            {
+                if (records.getDirection() != Direction.SESSION_END)
+                {
+                    if (!compressed)
+                    {
+                        info.checkpoint(ordinal, records.getRecordOffset());
+                    }
+                    if (ordinal >= from)
+                    {
+                        lines.add(rowOf(records.getDirection(), records.getText()));
+                    }
+                    ordinal++;
+                }
+            }
+        }
+        return ordinal;
+    }
+
+    // "Client: text", as TranscriptView shows live messages
+    static String rowOf(Direction direction, String text)
+    {
+        return ((direction == Direction.SERVER) ? "Server: " : "Client: ") + text;
+    }
+
+    // Row of a "[yyyy-MM-dd HH:mm:ss] Client says: text" line, or the line if it is not one
+    static String fromTextLine(String line)
+    {
+        for (Direction direction : new Direction[] { Direction.CLIENT, Direction.SERVER })
+        {
+            String label = direction.getLabel() + ": ";
+            if (line.startsWith(label, TEXT_LABEL_AT))
+            {
+                return rowOf(direction, LogLineEncoder.unescape(line.substring(TEXT_LABEL_AT + label.length())));
+            }
+        }
+        return line;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Class Name  : LineInput
+    // Description : UTF-8 lines of a stream with the byte offset each one starts at, which
+    //               BufferedReader does not tell.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private static final class LineInput
+    {
+        private final InputStream in;
+        private final byte[] buffer = new byte[64 * 1024];
+        private int position;
+        private int limit;
+
+        // Offset of buffer[0] in the file
+        private long bufferStart;
+        private long lineOffset;
+        private byte[] line = new byte[256];
+
+        LineInput(InputStream in, long offset)
+        {
+            this.in = in;
+            this.bufferStart = offset;
+        }
+
+        // Next line without its "\n" or "\r\n", or null at the end of the stream
+        String readLine() throws IOException
+        {
+            lineOffset = bufferStart + position;
+            int length = 0;
+            while (true)
+            {
+                if (position == limit)
+                {
+                    bufferStart += limit;
+                    position = 0;
+                    limit = Math.max(0, in.read(buffer));
+                    if (limit == 0)
+                    {
+                        return (length == 0) ? null : decode(length);
+                    }
+                }
+                byte b = buffer[position++];
+                if (b == '\n')
+                {
+                    return decode(length);
+                }
+                if (length == line.length)
+                {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+            }
+        }
+
+        private String decode(int length)
+        {
+            if (length > 0 && line[length - 1] == '\r')
+            {
+                length--;
+            }
+            return new String(line, 0, length, StandardCharsets.UTF_8);
+        }
+
+        // Offset of the first byte of the line readLine() returned last
+        long getLineOffset()
+        {
+            return lineOffset;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : TranscriptModel.java
+// Description : List model of a chat transcript: the newest lines in a fixed-capacity ring, with
+//               older lines paged back in from the session log while the user scrolls up.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.gui;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.AbstractListModel;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : TranscriptModel
+// Description : Rows are the history lines (oldest first) followed by the live ring. Only
+//               lines that were also written to the session log are counted by ordinal, so
+//               firstOrdinal tells the pager which log records come before the first row.
+//
+//               While following, lines pushed out of the ring are dropped; they can be paged
+//               back in from the log. While browsing they move into the history instead, so
+//               the rows the user is looking at do not shift. Used on the EDT only.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public class TranscriptModel extends AbstractListModel<String>
+{
+    // One transcript row and whether it has a matching log record
+    static final class Entry
+    {
+        final String text;
+        final boolean logged;
+
+        Entry(String text, boolean logged)
+        {
+            this.text = text;
+            this.logged = logged;
+        }
+    }
+
+    private final Entry[] live;
+    private int head;
+    private int count;
+
+    private final List<Entry> history = new ArrayList<>();
+    private final int historyCapacity;
+    private boolean browsing;
+
+    // Log ordinal of the first logged row held
+    private long firstOrdinal;
+
+    public TranscriptModel(int capacity, int historyCapacity)
+    {
+        if (capacity <= 0 || historyCapacity < 0)
+        {
+            throw new IllegalArgumentException("Transcript capacity must be positive");
+        }
+        this.live = new Entry[capacity];
+        this.historyCapacity = historyCapacity;
+    }
+
+    public int getSize()
+    {
+        return history.size() + count;
+    }
+
+    public String getElementAt(int index)
+    {
+        int older = history.size();
+        if (index < older)
+        {
+            return history.get(index).text;
+        }
+        return live[(head + index - older) % live.length].text;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : append
+    // Description   : Adds a batch of lines at the end, evicting from the front as needed, and
+    //                 fires at most one removal and one addition event for the whole batch.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void append(List<Entry> batch)
+    {
+        if (batch.isEmpty())
+        {
+            return;
+        }
+        int oldSize = getSize();
+        int dropped = 0;
+
+        for (Entry entry : batch)
+        {
+            if (count == live.length)
+            {
+                Entry evicted = live[head];
+                live[head] = null;
+                head = (head + 1) % live.length;
+                count--;
+                if (browsing)
+                {
+                    history.add(evicted);
+                }
+                else
+                {
+                    dropped++;
+                    if (evicted.logged)
+                    {
+                        firstOrdinal++;
+                    }
+                }
+            }
+            live[(head + count) % live.length] = entry;
+            count++;
+        }
+
+        // Browsing for a long time: give up the oldest history rather than grow without bound
+        int excess = history.size() - historyCapacity;
+        if (excess > 0)
+        {
+            List<Entry> oldest = history.subList(0, excess);
+            firstOrdinal += countLogged(oldest);
+            oldest.clear();
+            dropped += excess;
+        }
+
+        // Rows leave in order, so in a batch larger than the ring the existing rows go first and
+        // some of the new ones never become visible at all
+        int removed = Math.min(dropped, oldSize);
+        if (removed > 0)
+        {
+            fireIntervalRemoved(this, 0, removed - 1);
+        }
+        int newSize = getSize();
+        if (newSize > oldSize - removed)
+        {
+            fireIntervalAdded(this, oldSize - removed, newSize - 1);
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : prependHistory
+    // Description   : Inserts log lines that come directly before the first row. The page is
+    //                 ignored if the rows have moved since it was requested at expectedFirst.
+    //                 Returns the number of rows inserted.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    int prependHistory(List<String> lines, long expectedFirst)
+    {
+        int room = historyCapacity - history.size();
+        if (lines.isEmpty() || expectedFirst != firstOrdinal || !browsing || room < lines.size())
+        {
+            return 0;
+        }
+        List<Entry> page = new ArrayList<>(lines.size());
+        for (String line : lines)
+        {
+            page.add(new Entry(line, true));
+        }
+        history.addAll(0, page);
+        firstOrdinal -= page.size();
+        fireIntervalAdded(this, 0, page.size() - 1);
+        return page.size();
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : setBrowsing
+    // Description   : Browsing keeps evicted rows in the history. Going back to following
+    //                 releases the history so only the ring stays in memory.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void setBrowsing(boolean browsing)
+    {
+        this.browsing = browsing;
+        if (!browsing && !history.isEmpty())
+        {
+            int size = history.size();
+            firstOrdinal += countLogged(history);
+            history.clear();
+            fireIntervalRemoved(this, 0, size - 1);
+        }
+    }
+
+    boolean isBrowsing()
+    {
+        return browsing;
+    }
+
+    // Log ordinal of the first logged row; the log records before it can be paged in
+    long getFirstOrdinal()
+    {
+        return firstOrdinal;
+    }
+
+    // Number of further history rows that fit
+    int getHistoryRoom()
+    {
+        return historyCapacity - history.size();
+    }
+
+    private static int countLogged(List<Entry> entries)
+    {
+        int logged = 0;
+        for (Entry entry : entries)
+        {
+            if (entry.logged)
+            {
+                logged++;
+            }
+        }
+        return logged;
+    }
+}
@@ -0,0 +1,227 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : TranscriptView.java
+// Description : Scrolling chat transcript that renders only its visible rows, takes lines from
+//               any thread and publishes them to the EDT at a capped frame rate.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.gui;
+
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.swing.BoundedRangeModel;
+import javax.swing.JList;
+import javax.swing.JScrollPane;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : TranscriptView
+// Description : A JList with a fixed cell height and width lays out in constant time and paints
+//               only the rows in the viewport, however long the chat gets. Lines posted from
+//               the receive thread are queued and a Swing timer moves everything queued into
+//               the model once per frame, so a burst of messages costs one model event and
+//               one repaint.
+//
+//               At the bottom the view follows new lines. Scrolling up switches to browsing;
+//               reaching the top then pages older lines in from the session log.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class TranscriptView extends JScrollPane
+{
+    public static final int DEFAULT_CAPACITY = 2000;
+    public static final int DEFAULT_HISTORY_CAPACITY = 20000;
+    public static final int DEFAULT_MAX_FPS = 30;
+
+    // Log records read per page when scrolled to the top
+    private static final int PAGE_SIZE = 500;
+
+    private final TranscriptModel model;
+    private final JList<String> list;
+    private final ConcurrentLinkedQueue<TranscriptModel.Entry> pending = new ConcurrentLinkedQueue<>();
+    private final Timer publisher;
+
+    private TranscriptHistory history;
+    private boolean loading;
+
+    // Scroll bar state seen last, and the pixels rows were inserted (+) or removed (-) above
+    // the viewport since then
+    private int lastMaximum;
+    private int lastExtent;
+    private int anchorShift;
+
+    public TranscriptView()
+    {
+        this(DEFAULT_CAPACITY, DEFAULT_HISTORY_CAPACITY, DEFAULT_MAX_FPS);
+    }
+
+    public TranscriptView(int capacity, int historyCapacity, int maxFps)
+    {
+        model = new TranscriptModel(capacity, historyCapacity);
+        list = new JList<String>(model)
+        {
+            // Rows are clipped to the view width, the tooltip shows the whole line
+            public String getToolTipText(MouseEvent event)
+            {
+                int index = locationToIndex(event.getPoint());
+                return (index < 0) ? null : model.getElementAt(index);
+            }
+        };
+        list.setFixedCellHeight(list.getFontMetrics(list.getFont()).getHeight() + 2);
+        list.setFixedCellWidth(1);
+        list.setToolTipText("");
+        setViewportView(list);
+
+        model.addListDataListener(new ListDataListener()
+        {
+            public void intervalAdded(ListDataEvent event)
+            {
+                if (event.getIndex0() == 0 && model.isBrowsing())
+                {
+                    anchorShift += (event.getIndex1() + 1) * list.getFixedCellHeight();
+                }
+            }
+
+            public void intervalRemoved(ListDataEvent event)
+            {
+                if (event.getIndex0() == 0 && model.isBrowsing())
+                {
+                    anchorShift -= (event.getIndex1() + 1) * list.getFixedCellHeight();
+                }
+            }
+
+            public void contentsChanged(ListDataEvent event)
+            {
+            }
+        });
+        getVerticalScrollBar().getModel().addChangeListener(event -> scrolled());
+
+        publisher = new Timer(1000 / Math.max(1, maxFps), event -> publish());
+        publisher.start();
+    }
+
+    // Source of older lines; without one the transcript only holds the ring
+    public void setHistory(TranscriptHistory history)
+    {
+        this.history = history;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : appendMessage
+    // Description   : Queues a line that was also written to the session log. Any thread.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void appendMessage(String text)
+    {
+        pending.add(new TranscriptModel.Entry(text, true));
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : appendNotice
+    // Description   : Queues a status line that is shown but not logged. Any thread.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void appendNotice(String text)
+    {
+        pending.add(new TranscriptModel.Entry(text, false));
+    }
+
+    // Timer tick on the EDT: moves everything queued since the last frame into the model
+    private void publish()
+    {
+        if (pending.isEmpty())
+        {
+            return;
+        }
+        List<TranscriptModel.Entry> batch = new ArrayList<>();
+        TranscriptModel.Entry entry;
+        while ((entry = pending.poll()) != null)
+        {
+            batch.add(entry);
+        }
+        model.append(batch);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : scrolled
+    // Description   : A change of the scroll range comes from the content or the window size:
+    //                 stick to the bottom when following, otherwise keep the visible rows in
+    //                 place. A change of the value alone comes from the user.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void scrolled()
+    {
+        BoundedRangeModel bar = getVerticalScrollBar().getModel();
+        if (bar.getMaximum() != lastMaximum || bar.getExtent() != lastExtent)
+        {
+            lastMaximum = bar.getMaximum();
+            lastExtent = bar.getExtent();
+            int shift = anchorShift;
+            anchorShift = 0;
+            if (model.isBrowsing())
+            {
+                bar.setValue(bar.getValue() + shift);
+            }
+            else
+            {
+                bar.setValue(bar.getMaximum() - bar.getExtent());
+            }
+            return;
+        }
+
+        boolean atBottom = bar.getValue() + bar.getExtent() >= bar.getMaximum();
+        if (atBottom == model.isBrowsing())
+        {
+            model.setBrowsing(!atBottom);
+        }
+        if (model.isBrowsing() && bar.getValue() == 0)
+        {
+            loadOlder();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : loadOlder
+    // Description   : Reads the page of log records before the first row on a worker thread
+    //                 and inserts it on the EDT.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void loadOlder()
+    {
+        long first = model.getFirstOrdinal();
+        int room = Math.min(PAGE_SIZE, model.getHistoryRoom());
+        if (loading || history == null || first == 0 || room == 0)
+        {
+            return;
+        }
+        long from = Math.max(0, first - room);
+        TranscriptHistory source = history;
+        loading = true;
+        new SwingWorker<List<String>, Void>()
+        {
+            protected List<String> doInBackground() throws Exception
+            {
+                return source.read(from, first);
+            }
+
+            protected void done()
+            {
+                loading = false;
+                try
+                {
+                    // A short page means the log no longer has these records
+                    List<String> lines = get();
+                    if (lines.size() == first - from)
+                    {
+                        model.prependHistory(lines, first);
+                    }
+                }
+                catch (Exception e)
+                {
+                    // History is best effort; the live transcript is unaffected
+                }
+            }
+        }.execute();
+    }
+}
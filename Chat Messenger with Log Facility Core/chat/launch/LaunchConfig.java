@@ -0,0 +1,172 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LaunchConfig.java
+// Description : What to start and where to connect: role, mode, thread model, host and port.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.launch;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LaunchConfig
+// Description : Mutable settings holder. fromSystemProperties() reads
+//
+//                 chat.role            server | client                      (no default)
+//                 chat.mode            cui | gui | headless                 (default cui)
+//                 chat.threads         single | nio | virtual | platform    (default single,
+//                                      nio when headless)
+//                 chat.loops           event loops of the nio server, 0 for one per two cores
+//                 chat.host            server the clients connect to        (default localhost)
+//                 chat.port            server port                          (default 5100)
+//                 chat.exit.when.ready start the server, connect to it once and exit, to time
+//                                      the startup or train a CDS archive  (default false)
+//
+//               Every entry point reads host, port and mode from here, so the same properties
+//               work with the Launcher and with the entry classes run directly. "single" is
+//               the original one-client console session; headless runs a multi-client server
+//               that reads no console input and prints only its startup lines.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class LaunchConfig
+{
+    public static final int DEFAULT_PORT = 5100;
+
+    private String role;
+    private String mode = "cui";
+    private String threads;
+    private int loops;
+    private String host = "localhost";
+    private int port = DEFAULT_PORT;
+    private boolean exitWhenReady;
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : fromSystemProperties
+    // Description   : Builds a configuration from the chat.* launch properties.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static LaunchConfig fromSystemProperties()
+    {
+        LaunchConfig config = new LaunchConfig();
+        String role = System.getProperty("chat.role");
+        if (role != null)
+        {
+            config.setRole(role);
+        }
+        config.setMode(System.getProperty("chat.mode", "cui"));
+        String threads = System.getProperty("chat.threads");
+        if (threads != null)
+        {
+            config.setThreads(threads);
+        }
+        config.setLoops(Integer.parseInt(System.getProperty("chat.loops", "0")));
+        config.setHost(System.getProperty("chat.host", "localhost"));
+        config.setPort(Integer.parseInt(System.getProperty("chat.port", String.valueOf(DEFAULT_PORT))));
+        config.setExitWhenReady(Boolean.parseBoolean(System.getProperty("chat.exit.when.ready", "false")));
+        return config;
+    }
+
+    // "server", "client" or null if not given
+    public String getRole()
+    {
+        return role;
+    }
+
+    public void setRole(String role)
+    {
+        this.role = oneOf("role", role, "server", "client");
+    }
+
+    public String getMode()
+    {
+        return mode;
+    }
+
+    // Accepts "cui", "gui" or "headless"
+    public void setMode(String mode)
+    {
+        this.mode = oneOf("mode", mode, "cui", "gui", "headless");
+    }
+
+    public boolean isHeadless()
+    {
+        return mode.equals("headless");
+    }
+
+    // "single" unless set, or "nio" for a headless server, which has no console to chat on
+    public String getThreads()
+    {
+        if (threads == null)
+        {
+            return isHeadless() ? "nio" : "single";
+        }
+        return threads;
+    }
+
+    // Accepts "single", "nio", "virtual" or "platform"
+    public void setThreads(String threads)
+    {
+        this.threads = oneOf("thread model", threads, "single", "nio", "virtual", "platform");
+    }
+
+    public int getLoops()
+    {
+        return loops;
+    }
+
+    public void setLoops(int loops)
+    {
+        this.loops = loops;
+    }
+
+    public String getHost()
+    {
+        return host;
+    }
+
+    public void setHost(String host)
+    {
+        this.host = host;
+    }
+
+    public int getPort()
+    {
+        return port;
+    }
+
+    public void setPort(int port)
+    {
+        if (port < 0 || port > 65535)
+        {
+            throw new IllegalArgumentException("Not a port: " + port);
+        }
+        this.port = port;
+    }
+
+    public boolean isExitWhenReady()
+    {
+        return exitWhenReady;
+    }
+
+    public void setExitWhenReady(boolean exitWhenReady)
+    {
+        this.exitWhenReady = exitWhenReady;
+    }
+
+    // Lower-cased value if it is one of choices
+    private static String oneOf(String what, String value, String... choices)
+    {
+        String lower = value.trim().toLowerCase();
+        for (String choice : choices)
+        {
+            if (choice.equals(lower))
+            {
+                return lower;
+            }
+        }
+        throw new IllegalArgumentException("Unknown " + what + ": " + value);
+    }
+
+    public String toString()
+    {
+        return role + " " + mode + ((role != null && role.equals("server")) ? " " + getThreads() + " on port " + port : " to " + host + ":" + port);
+    }
+}
@@ -0,0 +1,269 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : Launcher.java
+// Description : One entry point for the console, GUI and headless server and client, set up
+//               from the command line, a properties file and system properties.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.launch;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import chat.net.Handshake;
+import chat.net.MessageChannel;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : Launcher
+// Description : Usage: Launcher server|client [options]
+//                 --mode cui|gui|headless                  (default cui)
+//                 --threads single|nio|virtual|platform    server thread model (default single,
+//                                                          nio when headless)
+//                 --loops N                                nio event loops
+//                 --host name                              server to connect to (default localhost)
+//                 --port N                                 server port (default 5100)
+//                 --log-dir dir                            directory of the chat logs
+//                 --config file                            settings file (default chat.properties,
+//                                                          if there is one)
+//                 --exit-when-ready                        start the server, connect to it once
+//                                                          and exit
+//
+//               Every option is a chat.* property (see LaunchConfig and LogConfig), so nothing
+//               needs to be set at all. The settings file holds any chat.* properties, e.g.
+//               chat.role=server and chat.log.format=binary. An option on the command line
+//               wins over a -D property, which wins over the file.
+//
+//               The launcher then runs the main method of the CUI or GUI entry class.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class Launcher
+{
+    // Settings file read when no --config is given and it exists
+    public static final String DEFAULT_CONFIG_FILE = "chat.properties";
+
+    private Launcher()
+    {
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        LaunchConfig config;
+        try
+        {
+            configure(args);
+            config = LaunchConfig.fromSystemProperties();
+            check(config);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: Launcher server|client [--mode cui|gui|headless] [--threads single|nio|virtual|platform]");
+            System.err.println("                [--loops N] [--host name] [--port N] [--log-dir dir] [--config file] [--exit-when-ready]");
+            System.exit(2);
+            return;
+        }
+
+        if (config.getRole().equals("client"))
+        {
+            runMain(config.getMode().equals("gui") ? "ChatClientGUI" : "ChatClientCUI", new String[0]);
+        }
+        else if (config.getMode().equals("gui"))
+        {
+            runMain("ChatServerGUI", new String[0]);
+        }
+        else
+        {
+            runMain("ChatServerCUI", serverArguments(config));
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : configure
+    // Description   : Sets the system properties the options stand for, after those of the
+    //                 settings file that are not set already.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static void configure(String[] args) throws IOException
+    {
+        String file = System.getProperty("chat.config");
+        for (int i = 0; i < args.length - 1; i++)
+        {
+            if (args[i].equals("--config"))
+            {
+                file = args[i + 1];
+            }
+        }
+        if (file != null)
+        {
+            loadSettings(Path.of(file));
+        }
+        else if (Files.isRegularFile(Path.of(DEFAULT_CONFIG_FILE)))
+        {
+            loadSettings(Path.of(DEFAULT_CONFIG_FILE));
+        }
+
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "server":
+                case "client":
+                    System.setProperty("chat.role", args[i]);
+                    break;
+                case "--mode":
+                    System.setProperty("chat.mode", valueOf(args, ++i));
+                    break;
+                case "--threads":
+                    System.setProperty("chat.threads", valueOf(args, ++i));
+                    break;
+                case "--loops":
+                    System.setProperty("chat.loops", valueOf(args, ++i));
+                    break;
+                case "--host":
+                    System.setProperty("chat.host", valueOf(args, ++i));
+                    break;
+                case "--port":
+                    System.setProperty("chat.port", valueOf(args, ++i));
+                    break;
+                case "--log-dir":
+                    System.setProperty("chat.log.dir", valueOf(args, ++i));
+                    break;
+                case "--config":
+                    i++;
+                    break;
+                case "--exit-when-ready":
+                    System.setProperty("chat.exit.when.ready", "true");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    // Value after an option
+    private static String valueOf(String[] args, int index)
+    {
+        if (index >= args.length)
+        {
+            throw new IllegalArgumentException(args[index - 1] + " needs a value");
+        }
+        return args[index];
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : loadSettings
+    // Description   : Copies the chat.* properties of a settings file into the system
+    //                 properties, except those already set with -D.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static void loadSettings(Path file) throws IOException
+    {
+        Properties settings = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8))
+        {
+            settings.load(in);
+        }
+        for (String name : settings.stringPropertyNames())
+        {
+            if (!name.startsWith("chat."))
+            {
+                throw new IllegalArgumentException(file + ": not a chat.* setting: " + name);
+            }
+            if (System.getProperty(name) == null)
+            {
+                System.setProperty(name, settings.getProperty(name).trim());
+            }
+        }
+    }
+
+    // Rejects combinations no entry point runs
+    private static void check(LaunchConfig config)
+    {
+        if (config.getRole() == null)
+        {
+            throw new IllegalArgumentException("Say server or client, or set chat.role");
+        }
+        if (config.getRole().equals("client") && config.isHeadless())
+        {
+            throw new IllegalArgumentException("A client cannot run headless");
+        }
+        if (config.getRole().equals("server") && config.getMode().equals("gui") && !config.getThreads().equals("single"))
+        {
+            throw new IllegalArgumentException("The GUI server chats with a single client");
+        }
+        if (config.isHeadless() && config.getThreads().equals("single"))
+        {
+            throw new IllegalArgumentException("A headless server needs nio, virtual or platform threads");
+        }
+        if (config.isExitWhenReady() && (config.getRole().equals("client") || config.getThreads().equals("single")))
+        {
+            throw new IllegalArgumentException("--exit-when-ready needs a nio, virtual or platform server");
+        }
+    }
+
+    // ChatServerCUI arguments for the thread model
+    private static String[] serverArguments(LaunchConfig config)
+    {
+        String threads = config.getThreads();
+        if (threads.equals("single"))
+        {
+            return new String[0];
+        }
+        if (threads.equals("nio") && config.getLoops() > 0)
+        {
+            return new String[] { threads, String.valueOf(config.getLoops()) };
+        }
+        return new String[] { threads };
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : runMain
+    // Description   : Runs the main method of an entry class. Those are package-private classes
+    //                 of the default package, which no named package can import.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private static void runMain(String className, String[] args) throws Exception
+    {
+        Method main = Class.forName(className).getMethod("main", String[].class);
+        main.setAccessible(true);
+        try
+        {
+            main.invoke(null, (Object) args);
+        }
+        catch (InvocationTargetException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception)
+            {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    // Milliseconds from the start of this JVM to epochMillis. Loads JMX, so call it only once
+    // startup is over.
+    public static long sinceStart(long epochMillis)
+    {
+        return epochMillis - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : probe
+    // Description   : Connects to a server once, agrees on the protocol like a client and
+    //                 disconnects, which runs the connection path of both sides once, e.g. for
+    //                 a CDS archive to include it.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static void probe(String host, int port) throws IOException
+    {
+        Socket socket = new Socket(host, port);
+        MessageChannel channel = Handshake.connect(socket);
+        channel.close();
+    }
+}
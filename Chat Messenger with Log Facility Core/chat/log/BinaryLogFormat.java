@@ -0,0 +1,91 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : BinaryLogFormat.java
+// Description : Layout of the compact binary chat log (.clog) and its sparse time index (.cidx).
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : BinaryLogFormat
+// Description : All numbers are big-endian.
+//
+//               .clog file  : "CLOG" magic, version byte, then records
+//               record      : int    payload length
+//                             long   epoch millis
+//                             byte   direction code
+//                             long   session id
+//                             byte[] UTF-8 payload
+//                             int    CRC32C of everything after the length field
+//
+//               .cidx file  : "CIDX" magic, version byte, then 16-byte entries
+//               entry       : long   epoch millis of the indexed record
+//                             long   file offset of the indexed record
+//
+//               One index entry is written for the first record and then for the first record
+//               after every INDEX_INTERVAL bytes of log, so a reader can seek close to a time
+//               without scanning the file.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class BinaryLogFormat
+{
+    public static final String LOG_SUFFIX = ".clog";
+    public static final String INDEX_SUFFIX = ".cidx";
+
+    static final byte[] LOG_MAGIC = { 'C', 'L', 'O', 'G' };
+    static final byte[] INDEX_MAGIC = { 'C', 'I', 'D', 'X' };
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 5;
+
+    // Length + millis + direction + session + crc
+    static final int RECORD_OVERHEAD = 4 + 8 + 1 + 8 + 4;
+    static final int INDEX_ENTRY_SIZE = 16;
+
+    // Log bytes between two index entries
+    static final int INDEX_INTERVAL = 64 * 1024;
+
+    // Upper bound for a single payload, guards readers against corrupt length fields
+    static final int MAX_PAYLOAD = 16 * 1024 * 1024;
+
+    private BinaryLogFormat()
+    {
+    }
+
+    // Sidecar index path of a log file
+    public static String indexFileFor(String logFile)
+    {
+        String base = logFile.endsWith(LOG_SUFFIX) ? logFile.substring(0, logFile.length() - LOG_SUFFIX.length()) : logFile;
+        return base + INDEX_SUFFIX;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : encode
+    // Description   : Writes one record at the buffer's position. The buffer must have room for
+    //                 RECORD_OVERHEAD + payload.length bytes.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static void encode(ByteBuffer out, long epochMillis, Direction direction, long sessionId, byte[] payload, CRC32C crc)
+    {
+        out.putInt(payload.length);
+        int start = out.position();
+        out.putLong(epochMillis);
+        out.put((byte) direction.getCode());
+        out.putLong(sessionId);
+        out.put(payload);
+
+        crc.reset();
+        ByteBuffer covered = out.duplicate();
+        covered.position(start).limit(out.position());
+        crc.update(covered);
+        out.putInt((int) crc.getValue());
+    }
+
+    static byte[] payloadOf(String text)
+    {
+        return (text == null) ? new byte[0] : text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,289 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : BinaryLogReader.java
+// Description : Reads .clog files sequentially, verifying every record's CRC, and seeks to a
+//               point in time through the sparse .cidx index.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : BinaryLogReader
+// Description : Forward-only cursor over a binary chat log. A torn or corrupt record (for
+//               example the tail of a file still being written) ends the iteration. A log read
+//               from a stream, such as a gzipped segment, cannot seek.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public class BinaryLogReader implements Closeable
+{
+    // Records may be logged slightly out of time order by concurrent producers; seeking backs
+    // off by this much so none of them are skipped
+    private static final long SEEK_SLACK_MILLIS = 1000;
+
+    private final FileChannel channel;
+    private final ReadableByteChannel stream;
+    private ByteBuffer buffer = ByteBuffer.allocate(256 * 1024);
+    private final CRC32C crc = new CRC32C();
+    private final long[] indexTimes;
+    private final long[] indexOffsets;
+
+    private long bufferStart;
+    private boolean corrupt;
+
+    // Fields of the current record
+    private long epochMillis;
+    private Direction direction;
+    private long sessionId;
+    private String text;
+    private long recordOffset;
+
+    public BinaryLogReader(String filename) throws IOException
+    {
+        channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ);
+        stream = null;
+        readHeader(filename);
+
+        // The index is sparse, so it is small enough to load completely
+        Path indexPath = Path.of(BinaryLogFormat.indexFileFor(filename));
+        long[] times = new long[0];
+        long[] offsets = new long[0];
+        if (Files.exists(indexPath))
+        {
+            byte[] bytes = Files.readAllBytes(indexPath);
+            int entries = Math.max(0, (bytes.length - BinaryLogFormat.HEADER_SIZE) / BinaryLogFormat.INDEX_ENTRY_SIZE);
+            ByteBuffer index = ByteBuffer.wrap(bytes);
+            index.position(Math.min(bytes.length, BinaryLogFormat.HEADER_SIZE));
+            times = new long[entries];
+            offsets = new long[entries];
+            for (int i = 0; i < entries; i++)
+            {
+                times[i] = index.getLong();
+                offsets[i] = index.getLong();
+            }
+        }
+        indexTimes = times;
+        indexOffsets = offsets;
+
+        seekOffset(BinaryLogFormat.HEADER_SIZE);
+    }
+
+    // Reads a log front to back from a stream, e.g. through a GZIPInputStream
+    public BinaryLogReader(InputStream in) throws IOException
+    {
+        channel = null;
+        stream = Channels.newChannel(in);
+        readHeader("stream");
+        indexTimes = new long[0];
+        indexOffsets = new long[0];
+        seekOffset(BinaryLogFormat.HEADER_SIZE);
+    }
+
+    // Checks the magic and version, and closes the log if they do not match
+    private void readHeader(String name) throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(BinaryLogFormat.HEADER_SIZE);
+        while (header.hasRemaining() && ((channel != null) ? channel.read(header) : stream.read(header)) > 0)
+        {
+        }
+        header.flip();
+        byte[] magic = new byte[4];
+        if (header.remaining() < BinaryLogFormat.HEADER_SIZE)
+        {
+            closeSource();
+            throw new IOException("Not a binary chat log: " + name);
+        }
+        header.get(magic);
+        if (!Arrays.equals(magic, BinaryLogFormat.LOG_MAGIC) || header.get() != BinaryLogFormat.VERSION)
+        {
+            closeSource();
+            throw new IOException("Not a binary chat log: " + name);
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : seek
+    // Description   : Positions the cursor at the last indexed record logged before the given
+    //                 time. Records before that time may still follow and must be skipped by
+    //                 the caller.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void seek(long fromMillis) throws IOException
+    {
+        if (stream != null)
+        {
+            throw new IllegalStateException("A log read from a stream cannot seek");
+        }
+        long target = fromMillis - SEEK_SLACK_MILLIS;
+        int low = 0;
+        int high = indexTimes.length - 1;
+        int found = -1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            if (indexTimes[mid] < target)
+            {
+                found = mid;
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+        seekOffset((found < 0) ? BinaryLogFormat.HEADER_SIZE : indexOffsets[found]);
+    }
+
+    // Positions the cursor at a record offset returned by getRecordOffset() before
+    public void seekRecord(long offset)
+    {
+        if (stream != null)
+        {
+            throw new IllegalStateException("A log read from a stream cannot seek");
+        }
+        seekOffset(offset);
+    }
+
+    private void seekOffset(long offset)
+    {
+        bufferStart = offset;
+        buffer.clear().limit(0);
+        corrupt = false;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : next
+    // Description   : Advances to the next valid record. Returns false at the end of the file or
+    //                 at the first record that fails its length or CRC check.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public boolean next() throws IOException
+    {
+        if (corrupt || !ensure(4))
+        {
+            return false;
+        }
+        int length = buffer.getInt(buffer.position());
+        if (length < 0 || length > BinaryLogFormat.MAX_PAYLOAD)
+        {
+            corrupt = true;
+            return false;
+        }
+        int size = BinaryLogFormat.RECORD_OVERHEAD + length;
+        if (!ensure(size))
+        {
+            return false;
+        }
+
+        int start = buffer.position();
+        ByteBuffer covered = buffer.duplicate();
+        covered.position(start + 4).limit(start + size - 4);
+        crc.reset();
+        crc.update(covered);
+        if ((int) crc.getValue() != buffer.getInt(start + size - 4))
+        {
+            corrupt = true;
+            return false;
+        }
+
+        recordOffset = bufferStart + start;
+        buffer.getInt();
+        epochMillis = buffer.getLong();
+        direction = Direction.fromCode(buffer.get());
+        sessionId = buffer.getLong();
+        text = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length + 4);
+        return true;
+    }
+
+    // Makes sure at least n bytes of the current record are in the buffer, growing it for
+    // records larger than the buffer
+    private boolean ensure(int n) throws IOException
+    {
+        if (buffer.remaining() >= n)
+        {
+            return true;
+        }
+        bufferStart += buffer.position();
+        buffer.compact();
+        if (buffer.capacity() < n)
+        {
+            ByteBuffer larger = ByteBuffer.allocate(n);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+        while (buffer.hasRemaining())
+        {
+            // A stream is always positioned where the buffered bytes end
+            int read = (channel != null) ? channel.read(buffer, bufferStart + buffer.position()) : stream.read(buffer);
+            if (read <= 0)
+            {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= n;
+    }
+
+    public long getEpochMillis()
+    {
+        return epochMillis;
+    }
+
+    public Direction getDirection()
+    {
+        return direction;
+    }
+
+    public long getSessionId()
+    {
+        return sessionId;
+    }
+
+    public String getText()
+    {
+        return text;
+    }
+
+    // File offset of the current record
+    public long getRecordOffset()
+    {
+        return recordOffset;
+    }
+
+    // True when iteration stopped at a damaged record rather than at the end of the file
+    public boolean isCorrupt()
+    {
+        return corrupt;
+    }
+
+    public void close() throws IOException
+    {
+        closeSource();
+    }
+
+    private void closeSource() throws IOException
+    {
+        if (channel != null)
+        {
+            channel.close();
+        }
+        else
+        {
+            stream.close();
+        }
+    }
+}
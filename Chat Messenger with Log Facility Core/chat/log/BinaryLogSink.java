@@ -0,0 +1,148 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : BinaryLogSink.java
+// Description : Writes records in the length-prefixed, CRC-checked .clog layout and maintains
+//               the sparse .cidx time index next to it.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : BinaryLogSink
+// Description : Records are encoded into a 64 KiB buffer and written with one channel write per
+//               flush. Index entries are only written after the log bytes they point at, so an
+//               index never references data that is not in the file.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public class BinaryLogSink implements LogSink
+{
+    private final FileChannel log;
+    private final FileChannel index;
+    private final long sessionId;
+    private final CRC32C crc = new CRC32C();
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final ByteBuffer indexBuffer = ByteBuffer.allocate(BinaryLogFormat.INDEX_ENTRY_SIZE * 64);
+
+    // File offset of the next record, and of the last indexed record
+    private long position;
+    private long lastIndexed = -1;
+
+    public BinaryLogSink(String filename, long sessionId) throws IOException
+    {
+        this.sessionId = sessionId;
+        this.log = open(Path.of(filename), BinaryLogFormat.LOG_MAGIC);
+        this.index = open(Path.of(BinaryLogFormat.indexFileFor(filename)), BinaryLogFormat.INDEX_MAGIC);
+        this.position = log.size();
+    }
+
+    // Opens a file for appending and writes the header if it is new
+    private static FileChannel open(Path path, byte[] magic) throws IOException
+    {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (channel.size() == 0)
+        {
+            ByteBuffer header = ByteBuffer.allocate(BinaryLogFormat.HEADER_SIZE);
+            header.put(magic).put(BinaryLogFormat.VERSION).flip();
+            while (header.hasRemaining())
+            {
+                channel.write(header);
+            }
+        }
+        return channel;
+    }
+
+    public long getSessionId()
+    {
+        return sessionId;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : append
+    // Description   : Encodes one record and, at most once per INDEX_INTERVAL bytes, notes its
+    //                 time and offset for the index.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void append(LogRecord record) throws IOException
+    {
+        byte[] payload = BinaryLogFormat.payloadOf(record.getText());
+        int size = BinaryLogFormat.RECORD_OVERHEAD + payload.length;
+
+        if (lastIndexed < 0 || position - lastIndexed >= BinaryLogFormat.INDEX_INTERVAL)
+        {
+            if (!indexBuffer.hasRemaining())
+            {
+                flush();
+            }
+            indexBuffer.putLong(record.getEpochMillis()).putLong(position);
+            lastIndexed = position;
+        }
+
+        if (buffer.remaining() < size)
+        {
+            writeBuffer();
+        }
+        if (buffer.remaining() < size)
+        {
+            // Larger than the whole buffer: encode it on its own
+            ByteBuffer large = ByteBuffer.allocate(size);
+            BinaryLogFormat.encode(large, record.getEpochMillis(), record.getDirection(), sessionId, payload, crc);
+            large.flip();
+            writeFully(log, large);
+        }
+        else
+        {
+            BinaryLogFormat.encode(buffer, record.getEpochMillis(), record.getDirection(), sessionId, payload, crc);
+        }
+        position += size;
+    }
+
+    private void writeBuffer() throws IOException
+    {
+        buffer.flip();
+        writeFully(log, buffer);
+        buffer.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer data) throws IOException
+    {
+        while (data.hasRemaining())
+        {
+            channel.write(data);
+        }
+    }
+
+    public long size()
+    {
+        return position;
+    }
+
+    public void flush() throws IOException
+    {
+        writeBuffer();
+        indexBuffer.flip();
+        writeFully(index, indexBuffer);
+        indexBuffer.clear();
+    }
+
+    public void sync() throws IOException
+    {
+        flush();
+        log.force(false);
+        index.force(false);
+    }
+
+    public void close() throws IOException
+    {
+        flush();
+        log.close();
+        index.close();
+    }
+}
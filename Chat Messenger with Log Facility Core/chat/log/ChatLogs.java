@@ -0,0 +1,65 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : ChatLogs.java
+// Description : Opens the chat log of a session the same way for every CUI and GUI entry point.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : ChatLogs
+// Description : Factory for session log appenders, configured through LogConfig.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class ChatLogs
+{
+    private ChatLogs()
+    {
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : open
+    // Description   : Opens this session's log as configured by the chat.log.* properties.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static LogAppender open(String role) throws IOException
+    {
+        return open(role, LogConfig.fromSystemProperties());
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : open
+    // Description   : Opens a rolling "ChatLog-<role>-..." log, in text (.txt) or binary (.clog)
+    //                 layout, behind a background writer, and indexes it if configured.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static LogAppender open(String role, LogConfig config) throws IOException
+    {
+        long sessionId = newSessionId();
+        RollingLogSink sink;
+        if (config.isBinary())
+        {
+            sink = new RollingLogSink(config, role, sessionId, BinaryLogFormat.LOG_SUFFIX,
+                    file -> new BinaryLogSink(file.toString(), sessionId));
+        }
+        else
+        {
+            sink = new RollingLogSink(config, role, sessionId, ".txt", file -> new TextLogSink(file.toString()));
+        }
+        if (config.getIndexDirectory() != null)
+        {
+            LogIndexWriter index = new LogIndexWriter(config.getIndexDirectory(), role, sessionId);
+            return new LogAppender(new IndexingLogSink(sink, index), config.getFlushPolicy());
+        }
+        return new LogAppender(sink, config.getFlushPolicy());
+    }
+
+    // Random 64-bit id that tells sessions apart in file names and binary records. It need not
+    // be unguessable, and seeding SecureRandom for a UUID costs tens of ms at startup.
+    public static long newSessionId()
+    {
+        return ThreadLocalRandom.current().nextLong() ^ ProcessHandle.current().pid();
+    }
+}
@@ -0,0 +1,53 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : Direction.java
+// Description : Who a logged chat line came from, plus the marker written when a session ends.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Enum Name   : Direction
+// Description : The label is the text used in the ChatLog-*.txt layout, the code is the byte
+//               used in the binary .clog layout.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public enum Direction
+{
+    CLIENT(1, "Client says"),
+    SERVER(2, "Server says"),
+    SESSION_END(3, "Chat session ended at");
+
+    private final int code;
+    private final String label;
+
+    Direction(int code, String label)
+    {
+        this.code = code;
+        this.label = label;
+    }
+
+    // Stable byte stored in binary logs; never reuse a code
+    public int getCode()
+    {
+        return code;
+    }
+
+    public static Direction fromCode(int code)
+    {
+        for (Direction direction : values())
+        {
+            if (direction.code == code)
+            {
+                return direction;
+            }
+        }
+        throw new IllegalArgumentException("Unknown direction code: " + code);
+    }
+
+    public String getLabel()
+    {
+        return label;
+    }
+}
@@ -0,0 +1,100 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : FlushPolicy.java
+// Description : When the background log writer pushes buffered records to the file.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : FlushPolicy
+// Description : Either every N records, every T milliseconds, or only when the session ends.
+//               Closing an appender always flushes; the session policy also fsyncs.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class FlushPolicy
+{
+    private final int maxRecords;
+    private final long maxMillis;
+    private final boolean syncOnClose;
+
+    private FlushPolicy(int maxRecords, long maxMillis, boolean syncOnClose)
+    {
+        this.maxRecords = maxRecords;
+        this.maxMillis = maxMillis;
+        this.syncOnClose = syncOnClose;
+    }
+
+    // Flush as soon as N records are waiting in the file buffer
+    public static FlushPolicy everyRecords(int records)
+    {
+        if (records < 1)
+        {
+            throw new IllegalArgumentException("records must be at least 1: " + records);
+        }
+        return new FlushPolicy(records, Long.MAX_VALUE, false);
+    }
+
+    // Flush at most T milliseconds after a record was written
+    public static FlushPolicy everyMillis(long millis)
+    {
+        if (millis < 1)
+        {
+            throw new IllegalArgumentException("millis must be at least 1: " + millis);
+        }
+        return new FlushPolicy(Integer.MAX_VALUE, millis, false);
+    }
+
+    // Flush only when the buffer fills up, and fsync when the session ends
+    public static FlushPolicy onSessionEnd()
+    {
+        return new FlushPolicy(Integer.MAX_VALUE, Long.MAX_VALUE, true);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : parse
+    // Description   : Reads "records:N", "millis:T" or "session".
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static FlushPolicy parse(String text)
+    {
+        String value = text.trim().toLowerCase();
+        if (value.equals("session"))
+        {
+            return onSessionEnd();
+        }
+        if (value.startsWith("records:"))
+        {
+            return everyRecords(Integer.parseInt(value.substring(8)));
+        }
+        if (value.startsWith("millis:"))
+        {
+            return everyMillis(Long.parseLong(value.substring(7)));
+        }
+        throw new IllegalArgumentException("Unknown flush policy: " + text);
+    }
+
+    int getMaxRecords()
+    {
+        return maxRecords;
+    }
+
+    long getMaxMillis()
+    {
+        return maxMillis;
+    }
+
+    boolean isSyncOnClose()
+    {
+        return syncOnClose;
+    }
+
+    public String toString()
+    {
+        if (syncOnClose)
+        {
+            return "session";
+        }
+        return (maxRecords != Integer.MAX_VALUE) ? "records:" + maxRecords : "millis:" + maxMillis;
+    }
+}
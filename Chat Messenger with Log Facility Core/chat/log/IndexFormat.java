@@ -0,0 +1,153 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : IndexFormat.java
+// Description : Layout of the segment files (.tix) of the full-text log index, and the varints
+//               they are packed with.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.nio.ByteBuffer;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : IndexFormat
+// Description : A segment holds a run of logged messages, numbered from 0 within the segment,
+//               and an inverted index of their words. Fixed-width numbers are big-endian;
+//               varints hold 7 bits per byte, low bits first, with the top bit set on every
+//               byte but the last.
+//
+//               header      : "CTIX" magic, version byte, 3 bytes padding
+//                             int  level, int message count, int word count, 4 bytes padding
+//                             long earliest and latest message time (epoch millis)
+//                             long offsets of the times, message offsets, postings,
+//                                  dictionary and dictionary index sections
+//                             long file length, written last, so a short file is rejected
+//               messages    : per message: byte direction code, varint length, UTF-8 text
+//               times       : long epoch millis of every message
+//               offsets     : long file offset of every message, then of the end of the last
+//               postings    : per word, per message it occurs in, in order:
+//                             varint message number minus the previous one (the first as is)
+//                             varint number of occurrences, varint byte length of positions
+//                             varint word positions in the text, each minus the previous one
+//               dictionary  : per word, in unsigned UTF-8 byte order:
+//                             varint length, UTF-8 word, varint number of messages,
+//                             varint last message number, varlong postings offset,
+//                             varint postings length
+//               index       : int file offset of every INDEX_INTERVAL-th dictionary entry
+//
+//               The last message number of a word lets a merge append its postings to those
+//               of an earlier segment by rewriting only the first varint.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class IndexFormat
+{
+    static final String SUFFIX = ".tix";
+    static final String FILE_PREFIX = "ChatIndex-";
+
+    static final byte[] MAGIC = { 'C', 'T', 'I', 'X' };
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 88;
+
+    // Header field offsets
+    static final int LEVEL = 8;
+    static final int MESSAGE_COUNT = 12;
+    static final int WORD_COUNT = 16;
+    static final int FIRST_TIME = 24;
+    static final int LAST_TIME = 32;
+    static final int TIMES = 40;
+    static final int OFFSETS = 48;
+    static final int POSTINGS = 56;
+    static final int DICTIONARY = 64;
+    static final int DICTIONARY_INDEX = 72;
+    static final int FILE_LENGTH = 80;
+
+    // Dictionary entries between two index entries, the most a lookup scans
+    static final int INDEX_INTERVAL = 64;
+
+    // Largest segment a merge writes; a segment is mapped as one buffer
+    static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private IndexFormat()
+    {
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : putVarLong
+    // Description   : Writes value at the buffer's position, which needs up to 10 bytes of room.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static void putVarLong(ByteBuffer out, long value)
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    // Same into an array at offset; returns the offset after it
+    static int putVarInt(byte[] out, int offset, int value)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[offset++] = (byte) value;
+        return offset;
+    }
+
+    // Bytes putVarLong writes for value
+    static int varLength(long value)
+    {
+        int length = 1;
+        while ((value & ~0x7FL) != 0)
+        {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Class Name  : Input
+    // Description : Reads varints and bytes of a mapped segment from a moving position.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static final class Input
+    {
+        final ByteBuffer buf;
+        int position;
+
+        Input(ByteBuffer buf, int position)
+        {
+            this.buf = buf;
+            this.position = position;
+        }
+
+        int readVarInt()
+        {
+            return (int) readVarLong();
+        }
+
+        long readVarLong()
+        {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do
+            {
+                b = buf.get(position++);
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            }
+            while (b < 0);
+            return value;
+        }
+
+        int readByte()
+        {
+            return buf.get(position++) & 0xFF;
+        }
+    }
+}
@@ -0,0 +1,369 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : IndexSegment.java
+// Description : Read-only view of one memory-mapped segment file of the full-text log index.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : IndexSegment
+// Description : Nothing is loaded up front: a word is looked up by binary search over the
+//               dictionary index and a scan of at most INDEX_INTERVAL entries, and postings
+//               and messages are decoded from the mapping when they are read. Opening a
+//               segment therefore costs the same whatever its size. Segments are never
+//               changed once written, so any number of threads may read one.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class IndexSegment
+{
+    // Message number of postings that have no more messages
+    static final int NO_MORE = Integer.MAX_VALUE;
+
+    private final Path path;
+    private final ByteBuffer buf;
+    private final int level;
+    private final int messageCount;
+    private final int wordCount;
+    private final long firstTime;
+    private final long lastTime;
+    private final int times;
+    private final int offsets;
+    private final int dictionary;
+    private final int dictionaryIndex;
+
+    private IndexSegment(Path path, ByteBuffer buf)
+    {
+        this.path = path;
+        this.buf = buf;
+        this.level = buf.getInt(IndexFormat.LEVEL);
+        this.messageCount = buf.getInt(IndexFormat.MESSAGE_COUNT);
+        this.wordCount = buf.getInt(IndexFormat.WORD_COUNT);
+        this.firstTime = buf.getLong(IndexFormat.FIRST_TIME);
+        this.lastTime = buf.getLong(IndexFormat.LAST_TIME);
+        this.times = (int) buf.getLong(IndexFormat.TIMES);
+        this.offsets = (int) buf.getLong(IndexFormat.OFFSETS);
+        this.dictionary = (int) buf.getLong(IndexFormat.DICTIONARY);
+        this.dictionaryIndex = (int) buf.getLong(IndexFormat.DICTIONARY_INDEX);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : open
+    // Description   : Maps a segment file after checking its header and length.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static IndexSegment open(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size < IndexFormat.HEADER_SIZE || size > Integer.MAX_VALUE)
+            {
+                throw new IOException("Not an index segment: " + path);
+            }
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            byte[] magic = new byte[IndexFormat.MAGIC.length];
+            buf.get(0, magic);
+            if (!Arrays.equals(magic, IndexFormat.MAGIC) || buf.get(magic.length) != IndexFormat.VERSION
+                    || buf.getLong(IndexFormat.FILE_LENGTH) != size)
+            {
+                throw new IOException("Not an index segment: " + path);
+            }
+            return new IndexSegment(path, buf);
+        }
+    }
+
+    Path getPath()
+    {
+        return path;
+    }
+
+    // Number of merges behind this segment; 0 for one written by the log writer
+    int getLevel()
+    {
+        return level;
+    }
+
+    int getMessageCount()
+    {
+        return messageCount;
+    }
+
+    int getWordCount()
+    {
+        return wordCount;
+    }
+
+    long getFirstTime()
+    {
+        return firstTime;
+    }
+
+    long getLastTime()
+    {
+        return lastTime;
+    }
+
+    long getLength()
+    {
+        return buf.capacity();
+    }
+
+    long time(int message)
+    {
+        return buf.getLong(times + 8 * message);
+    }
+
+    int directionCode(int message)
+    {
+        return buf.get(messageOffset(message)) & 0xFF;
+    }
+
+    private int messageOffset(int message)
+    {
+        return (int) buf.getLong(offsets + 8 * message);
+    }
+
+    // The encoded bytes of a message, for a merge to copy
+    ByteBuffer encodedMessage(int message)
+    {
+        int start = messageOffset(message);
+        return buf.slice(start, messageOffset(message + 1) - start);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : message
+    // Description   : Decodes a message into a stand-alone record.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    LogRecord message(int message)
+    {
+        IndexFormat.Input in = new IndexFormat.Input(buf, messageOffset(message));
+        Direction direction = Direction.fromCode(in.readByte());
+        int length = in.readVarInt();
+        byte[] text = new byte[length];
+        buf.get(in.position, text);
+        return new LogRecord(time(message), direction, new String(text, StandardCharsets.UTF_8));
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Class Name  : Word
+    // Description : One dictionary entry.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static final class Word
+    {
+        byte[] utf8;
+        int messages;
+        int lastMessage;
+        int postings;
+        int postingsLength;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : find
+    // Description   : Looks a word up; null if no message of this segment has it.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    Word find(byte[] utf8)
+    {
+        int entries = (wordCount + IndexFormat.INDEX_INTERVAL - 1) / IndexFormat.INDEX_INTERVAL;
+        int low = 0;
+        int high = entries - 1;
+        int start = -1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            int entry = buf.getInt(dictionaryIndex + 4 * middle);
+            if (compare(entry, utf8) <= 0)
+            {
+                start = entry;
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle - 1;
+            }
+        }
+        if (start < 0)
+        {
+            return null;
+        }
+
+        IndexFormat.Input in = new IndexFormat.Input(buf, start);
+        for (int i = 0; i < IndexFormat.INDEX_INTERVAL && in.position < dictionaryIndex; i++)
+        {
+            int entry = in.position;
+            int order = compare(entry, utf8);
+            if (order > 0)
+            {
+                return null;
+            }
+            Word word = read(in);
+            if (order == 0)
+            {
+                return word;
+            }
+        }
+        return null;
+    }
+
+    // Compares the word of the dictionary entry at offset with utf8, unsigned bytewise
+    private int compare(int offset, byte[] utf8)
+    {
+        IndexFormat.Input in = new IndexFormat.Input(buf, offset);
+        int length = in.readVarInt();
+        int common = Math.min(length, utf8.length);
+        for (int i = 0; i < common; i++)
+        {
+            int order = (buf.get(in.position + i) & 0xFF) - (utf8[i] & 0xFF);
+            if (order != 0)
+            {
+                return order;
+            }
+        }
+        return length - utf8.length;
+    }
+
+    private Word read(IndexFormat.Input in)
+    {
+        Word word = new Word();
+        word.utf8 = new byte[in.readVarInt()];
+        buf.get(in.position, word.utf8);
+        in.position += word.utf8.length;
+        word.messages = in.readVarInt();
+        word.lastMessage = in.readVarInt();
+        word.postings = (int) in.readVarLong();
+        word.postingsLength = in.readVarInt();
+        return word;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Class Name  : Words
+    // Description : Walks the dictionary in order, for merges.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    final class Words
+    {
+        private final IndexFormat.Input in = new IndexFormat.Input(buf, dictionary);
+        private int remaining = wordCount;
+
+        // Next entry, or null after the last
+        Word next()
+        {
+            if (remaining == 0)
+            {
+                return null;
+            }
+            remaining--;
+            return read(in);
+        }
+    }
+
+    Words words()
+    {
+        return new Words();
+    }
+
+    // The postings of a word as stored, for a merge to copy
+    ByteBuffer encodedPostings(Word word)
+    {
+        return buf.slice(word.postings, word.postingsLength);
+    }
+
+    Postings postings(Word word)
+    {
+        return new Postings(word);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Class Name  : Postings
+    // Description : Cursor over the messages that have one word, in increasing order. The
+    //               positions of the current message are only decoded when asked for; the
+    //               cursor jumps over them otherwise.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    final class Postings
+    {
+        private final IndexFormat.Input in;
+        private final int messages;
+        private int remaining;
+        private int message = -1;
+        private int previous;
+        private int count;
+        private int positionsStart;
+
+        private Postings(Word word)
+        {
+            this.in = new IndexFormat.Input(buf, word.postings);
+            this.messages = word.messages;
+            this.remaining = word.messages;
+        }
+
+        // Messages with the word, a cost estimate for ordering cursors
+        int getMessages()
+        {
+            return messages;
+        }
+
+        // Current message, -1 before the first next() and NO_MORE after the last
+        int message()
+        {
+            return message;
+        }
+
+        int next()
+        {
+            if (remaining == 0)
+            {
+                message = NO_MORE;
+                return message;
+            }
+            remaining--;
+            previous += in.readVarInt();
+            message = previous;
+            count = in.readVarInt();
+            int length = in.readVarInt();
+            positionsStart = in.position;
+            in.position += length;
+            return message;
+        }
+
+        // Moves to the first message at or after target
+        int advance(int target)
+        {
+            while (message < target)
+            {
+                next();
+            }
+            return message;
+        }
+
+        // Occurrences of the word in the current message
+        int count()
+        {
+            return count;
+        }
+
+        // ////////////////////////////////////////////////////////////////////////////////////////
+        // Function Name : positions
+        // Description   : Word positions in the current message, in increasing order, in an
+        //                 array of at least count() elements, reusing into if it is big enough.
+        // ////////////////////////////////////////////////////////////////////////////////////////
+        int[] positions(int[] into)
+        {
+            int[] positions = (into != null && into.length >= count) ? into : new int[count];
+            IndexFormat.Input at = new IndexFormat.Input(buf, positionsStart);
+            int position = 0;
+            for (int i = 0; i < count; i++)
+            {
+                position += at.readVarInt();
+                positions[i] = position;
+            }
+            return positions;
+        }
+    }
+}
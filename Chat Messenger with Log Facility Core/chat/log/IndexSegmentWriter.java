@@ -0,0 +1,294 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : IndexSegmentWriter.java
+// Description : Streams one segment file of the full-text log index to disk.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : IndexSegmentWriter
+// Description : Messages come first, then the words in dictionary order, each as beginWord(),
+//               its postings and endWord(), then finish(). Messages and postings go through a
+//               64 KiB buffer straight to the file, so a merge of large segments needs little
+//               memory; only the times, message offsets and dictionary are kept until the end.
+//               The header is written last, so a segment cut short by a crash is rejected.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class IndexSegmentWriter implements Closeable
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final int level;
+
+    // File offset of the first byte in the buffer
+    private long bufferStart = IndexFormat.HEADER_SIZE;
+
+    private long[] times = new long[256];
+    private long[] offsets = new long[257];
+    private int messages;
+    private long firstTime = Long.MAX_VALUE;
+    private long lastTime = Long.MIN_VALUE;
+
+    private long timesOffset;
+    private long offsetsOffset;
+    private long postingsOffset;
+    private boolean inPostings;
+
+    private byte[] dictionary = new byte[4096];
+    private int dictionarySize;
+    private int[] dictionaryIndex = new int[16];
+    private int words;
+
+    // Word being written
+    private byte[] word;
+    private int wordMessages;
+    private int wordLast;
+    private long wordStart;
+
+    IndexSegmentWriter(Path file, int level) throws IOException
+    {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.channel.position(IndexFormat.HEADER_SIZE);
+        this.level = level;
+    }
+
+    // File offset the next byte goes to
+    long offset()
+    {
+        return bufferStart + buffer.position();
+    }
+
+    int getMessageCount()
+    {
+        return messages;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : addMessage
+    // Description   : Appends the next message; its number is the count before the call.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void addMessage(long epochMillis, int directionCode, byte[] text, int from, int length) throws IOException
+    {
+        startMessage(epochMillis);
+        room(11);
+        buffer.put((byte) directionCode);
+        IndexFormat.putVarLong(buffer, length);
+        write(text, from, length);
+    }
+
+    // Same for a message already encoded by another segment, as in a merge
+    void addMessage(long epochMillis, ByteBuffer encoded) throws IOException
+    {
+        startMessage(epochMillis);
+        write(encoded);
+    }
+
+    private void startMessage(long epochMillis)
+    {
+        if (inPostings)
+        {
+            throw new IllegalStateException("Messages must come before words");
+        }
+        if (messages == times.length)
+        {
+            times = Arrays.copyOf(times, times.length * 2);
+            offsets = Arrays.copyOf(offsets, times.length + 1);
+        }
+        times[messages] = epochMillis;
+        offsets[messages] = offset();
+        messages++;
+        firstTime = Math.min(firstTime, epochMillis);
+        lastTime = Math.max(lastTime, epochMillis);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : beginWord
+    // Description   : Starts the postings of a word, which must sort after the previous one.
+    //                 messageCount and lastMessage describe the postings that follow.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void beginWord(byte[] utf8, int messageCount, int lastMessage) throws IOException
+    {
+        startPostings();
+        word = utf8;
+        wordMessages = messageCount;
+        wordLast = lastMessage;
+        wordStart = offset();
+    }
+
+    void writeVarInt(int value) throws IOException
+    {
+        room(5);
+        IndexFormat.putVarLong(buffer, value);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : write
+    // Description   : Copies bytes into the file through the buffer.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void write(byte[] bytes, int from, int length) throws IOException
+    {
+        while (length > 0)
+        {
+            if (!buffer.hasRemaining())
+            {
+                drain();
+            }
+            int chunk = Math.min(length, buffer.remaining());
+            buffer.put(bytes, from, chunk);
+            from += chunk;
+            length -= chunk;
+        }
+    }
+
+    // Same from a buffer, e.g. a region of a mapped segment
+    void write(ByteBuffer bytes) throws IOException
+    {
+        while (bytes.hasRemaining())
+        {
+            if (!buffer.hasRemaining())
+            {
+                drain();
+            }
+            int chunk = Math.min(bytes.remaining(), buffer.remaining());
+            ByteBuffer slice = bytes.slice(bytes.position(), chunk);
+            buffer.put(slice);
+            bytes.position(bytes.position() + chunk);
+        }
+    }
+
+    // Ends the postings of the current word and adds it to the dictionary
+    void endWord()
+    {
+        int postingsLength = (int) (offset() - wordStart);
+        if (words % IndexFormat.INDEX_INTERVAL == 0)
+        {
+            int entry = words / IndexFormat.INDEX_INTERVAL;
+            if (entry == dictionaryIndex.length)
+            {
+                dictionaryIndex = Arrays.copyOf(dictionaryIndex, entry * 2);
+            }
+            dictionaryIndex[entry] = dictionarySize;
+        }
+        words++;
+
+        int needed = 5 + word.length + 5 + 5 + 10 + 5;
+        if (dictionarySize + needed > dictionary.length)
+        {
+            dictionary = Arrays.copyOf(dictionary, Math.max(dictionary.length * 2, dictionarySize + needed));
+        }
+        dictionarySize = IndexFormat.putVarInt(dictionary, dictionarySize, word.length);
+        System.arraycopy(word, 0, dictionary, dictionarySize, word.length);
+        dictionarySize += word.length;
+        dictionarySize = IndexFormat.putVarInt(dictionary, dictionarySize, wordMessages);
+        dictionarySize = IndexFormat.putVarInt(dictionary, dictionarySize, wordLast);
+        ByteBuffer offset = ByteBuffer.wrap(dictionary, dictionarySize, 10);
+        IndexFormat.putVarLong(offset, wordStart);
+        dictionarySize = offset.position();
+        dictionarySize = IndexFormat.putVarInt(dictionary, dictionarySize, postingsLength);
+    }
+
+    // Writes the times and message offsets once the last message is in
+    private void startPostings() throws IOException
+    {
+        if (inPostings)
+        {
+            return;
+        }
+        inPostings = true;
+        offsets[messages] = offset();
+        timesOffset = offset();
+        for (int i = 0; i < messages; i++)
+        {
+            room(8);
+            buffer.putLong(times[i]);
+        }
+        offsetsOffset = offset();
+        for (int i = 0; i <= messages; i++)
+        {
+            room(8);
+            buffer.putLong(offsets[i]);
+        }
+        postingsOffset = offset();
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : finish
+    // Description   : Writes the dictionary, its index and the header, closes the file and
+    //                 returns its length.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    long finish() throws IOException
+    {
+        startPostings();
+        long dictionaryOffset = offset();
+        write(dictionary, 0, dictionarySize);
+        long indexOffset = offset();
+        int entries = (words + IndexFormat.INDEX_INTERVAL - 1) / IndexFormat.INDEX_INTERVAL;
+        for (int i = 0; i < entries; i++)
+        {
+            room(4);
+            buffer.putInt((int) (dictionaryOffset + dictionaryIndex[i]));
+        }
+        long length = offset();
+        drain();
+
+        ByteBuffer header = ByteBuffer.allocate(IndexFormat.HEADER_SIZE);
+        header.put(IndexFormat.MAGIC).put(IndexFormat.VERSION);
+        header.putInt(IndexFormat.LEVEL, level);
+        header.putInt(IndexFormat.MESSAGE_COUNT, messages);
+        header.putInt(IndexFormat.WORD_COUNT, words);
+        header.putLong(IndexFormat.FIRST_TIME, (messages == 0) ? 0 : firstTime);
+        header.putLong(IndexFormat.LAST_TIME, (messages == 0) ? 0 : lastTime);
+        header.putLong(IndexFormat.TIMES, timesOffset);
+        header.putLong(IndexFormat.OFFSETS, offsetsOffset);
+        header.putLong(IndexFormat.POSTINGS, postingsOffset);
+        header.putLong(IndexFormat.DICTIONARY, dictionaryOffset);
+        header.putLong(IndexFormat.DICTIONARY_INDEX, indexOffset);
+        header.putLong(IndexFormat.FILE_LENGTH, length);
+        header.clear();
+        long at = 0;
+        while (header.hasRemaining())
+        {
+            at += channel.write(header, at);
+        }
+        channel.close();
+        return length;
+    }
+
+    // Makes room for bytes more bytes in the buffer
+    private void room(int bytes) throws IOException
+    {
+        if (buffer.remaining() < bytes)
+        {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+        bufferStart += buffer.limit();
+        buffer.clear();
+    }
+
+    // Gives up on an unfinished segment; the caller deletes the file
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+}
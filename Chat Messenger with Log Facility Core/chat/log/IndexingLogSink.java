@@ -0,0 +1,75 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : IndexingLogSink.java
+// Description : Log sink that also adds every chat line it writes to the full-text log index.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.io.IOException;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : IndexingLogSink
+// Description : Wraps the sink that writes the log files. Indexing happens on the log writer
+//               thread like the writing itself, so chat threads never wait for it, and every
+//               log flush publishes what was indexed since the last one: a line is searchable
+//               about as soon as it is in the log file. Session end markers and empty lines
+//               are not indexed.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class IndexingLogSink implements LogSink
+{
+    private final LogSink target;
+    private final LogIndexWriter index;
+
+    public IndexingLogSink(LogSink target, LogIndexWriter index)
+    {
+        this.target = target;
+        this.index = index;
+    }
+
+    // Sink the log files are written by
+    public LogSink getTarget()
+    {
+        return target;
+    }
+
+    public void append(LogRecord record) throws IOException
+    {
+        target.append(record);
+        if (record.getDirection() != Direction.SESSION_END && record.getText() != null && !record.getText().isEmpty())
+        {
+            index.add(record.getEpochMillis(), record.getDirection(), record.getText());
+        }
+    }
+
+    public void flush() throws IOException
+    {
+        target.flush();
+        index.publish();
+    }
+
+    public void sync() throws IOException
+    {
+        target.sync();
+        index.publish();
+    }
+
+    public long size()
+    {
+        return target.size();
+    }
+
+    public void close() throws IOException
+    {
+        try
+        {
+            target.close();
+        }
+        finally
+        {
+            index.close();
+        }
+    }
+}
@@ -0,0 +1,366 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogAppender.java
+// Description : Asynchronous chat log. Producers copy a record into a lock-free ring buffer and
+//               return at once; a single background thread drains the ring in batches into a
+//               LogSink and flushes according to a FlushPolicy.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import chat.metrics.ChatMetrics;
+import chat.metrics.MetricsRegistry;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LogAppender
+// Description : Multi-producer, single-consumer ring of preallocated LogRecord slots.
+//               A producer claims a sequence number with a CAS on the tail, fills the slot and
+//               publishes it by storing the sequence into the slot's marker. The writer consumes
+//               slots in sequence order and frees them by advancing the head.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class LogAppender implements Closeable
+{
+    // Default ring size; producers spin briefly when the writer falls this far behind
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    // Longest the writer sleeps when nothing arrives and no flush is due
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    // Busy-wait iterations before the writer parks; spinning only helps with a spare core
+    private static final int SPIN_TRIES = (Runtime.getRuntime().availableProcessors() > 1) ? 1000 : 0;
+
+    private final LogSink sink;
+    private final FlushPolicy policy;
+    private final long flushIntervalNanos;
+
+    private final LogRecord[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    private final Thread writer;
+    private final Thread shutdownHook;
+    private volatile boolean writerWaiting;
+    private volatile boolean closing;
+    private volatile boolean closed;
+    private volatile boolean endSessionAtExit;
+
+    // Set by whichever of endSession() and the shutdown hook writes the banner first
+    private final AtomicBoolean sessionEnded = new AtomicBoolean();
+
+    public LogAppender(LogSink sink, FlushPolicy policy)
+    {
+        this(sink, policy, DEFAULT_CAPACITY);
+    }
+
+    public LogAppender(LogSink sink, FlushPolicy policy, int capacity)
+    {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.sink = sink;
+        this.policy = policy;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(policy.getMaxMillis());
+        this.slots = new LogRecord[size];
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++)
+        {
+            slots[i] = new LogRecord();
+            published.set(i, -1);
+        }
+
+        writer = new Thread(this::drainLoop, "chat-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        // Drain whatever is still queued if the JVM exits without endChat()
+        shutdownHook = new Thread(this::closeAtExit, "chat-log-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    // With true, a JVM exit before endSession(), e.g. on SIGTERM, still writes the
+    // "Chat session ended" banner. Shutdown hooks run in no set order, so the caller's
+    // own hook cannot be sure to write it before this one closes the log.
+    public void setEndSessionAtExit(boolean endSessionAtExit)
+    {
+        this.endSessionAtExit = endSessionAtExit;
+    }
+
+    public FlushPolicy getFlushPolicy()
+    {
+        return policy;
+    }
+
+    // Sink the writer thread appends to; read-only use from other threads
+    public LogSink getSink()
+    {
+        return sink;
+    }
+
+    // Records queued but not yet written to the sink
+    public long getQueueDepth()
+    {
+        return Math.max(0, tail.get() - head.get());
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : log
+    // Description   : Queues a record stamped with the current time. Never touches the disk;
+    //                 only waits if the ring is completely full.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void log(Direction direction, String text)
+    {
+        log(System.currentTimeMillis(), direction, text);
+    }
+
+    public void log(long epochMillis, Direction direction, String text)
+    {
+        if (closing)
+        {
+            return;
+        }
+        ChatMetrics.LOG_RECORDS.increment();
+        long start = ChatMetrics.LOG_APPEND.startSample();
+
+        long sequence;
+        while (true)
+        {
+            sequence = tail.get();
+            if (sequence - head.get() > mask)
+            {
+                // Ring full: let the writer catch up
+                if (closing)
+                {
+                    return;
+                }
+                wakeWriter();
+                Thread.yield();
+                continue;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1))
+            {
+                break;
+            }
+        }
+
+        slots[(int) sequence & mask].set(epochMillis, direction, text);
+        published.set((int) sequence & mask, sequence);
+        wakeWriter();
+        ChatMetrics.LOG_APPEND.recordSince(start);
+    }
+
+    private void wakeWriter()
+    {
+        if (writerWaiting)
+        {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : drainLoop
+    // Description   : Writer thread. Consumes every published slot, then flushes if the policy
+    //                 asks for it, then sleeps until new records or the next flush deadline.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void drainLoop()
+    {
+        long next = head.get();
+        int unflushed = 0;
+        long firstUnflushedAt = 0;
+
+        while (true)
+        {
+            int drained = 0;
+            while (published.get((int) next & mask) == next)
+            {
+                LogRecord record = slots[(int) next & mask];
+                try
+                {
+                    sink.append(record);
+                }
+                catch (IOException e)
+                {
+                    e.printStackTrace();
+                }
+                record.text = null;
+                next++;
+                drained++;
+                // Free slots in small steps so blocked producers resume early
+                if ((drained & 63) == 0)
+                {
+                    head.set(next);
+                }
+                // records:N holds inside a burst too, not only once per batch
+                if (unflushed == 0)
+                {
+                    firstUnflushedAt = System.nanoTime();
+                }
+                if (++unflushed >= policy.getMaxRecords())
+                {
+                    flushQuietly();
+                    unflushed = 0;
+                }
+            }
+            head.set(next);
+
+            long waitNanos = IDLE_PARK_NANOS;
+            if (unflushed > 0)
+            {
+                long age = System.nanoTime() - firstUnflushedAt;
+                if (unflushed >= policy.getMaxRecords() || age >= flushIntervalNanos)
+                {
+                    flushQuietly();
+                    unflushed = 0;
+                }
+                else
+                {
+                    waitNanos = Math.min(waitNanos, flushIntervalNanos - age);
+                }
+            }
+
+            if (drained == 0)
+            {
+                if (closing && tail.get() == next)
+                {
+                    break;
+                }
+                if (awaitBriefly(next))
+                {
+                    continue;
+                }
+                writerWaiting = true;
+                if (published.get((int) next & mask) != next && !closing)
+                {
+                    LockSupport.parkNanos(this, waitNanos);
+                }
+                writerWaiting = false;
+            }
+        }
+
+        try
+        {
+            long start = MetricsRegistry.startTimer();
+            if (policy.isSyncOnClose())
+            {
+                sink.sync();
+            }
+            else
+            {
+                sink.flush();
+            }
+            ChatMetrics.LOG_FLUSH.recordSince(start);
+            sink.close();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    // Spins for a short while before parking, so bursts are drained without an unpark per record
+    private boolean awaitBriefly(long next)
+    {
+        for (int i = 0; i < SPIN_TRIES; i++)
+        {
+            if (published.get((int) next & mask) == next)
+            {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        return false;
+    }
+
+    private void flushQuietly()
+    {
+        long start = MetricsRegistry.startTimer();
+        try
+        {
+            sink.flush();
+            ChatMetrics.LOG_FLUSH.recordSince(start);
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : endSession
+    // Description   : Writes the "Chat session ended" banner and closes the appender.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void endSession()
+    {
+        logSessionEnd();
+        close();
+    }
+
+    // The banner is written once, even if endSession() and the shutdown hook both run
+    private void logSessionEnd()
+    {
+        if (sessionEnded.compareAndSet(false, true))
+        {
+            log(Direction.SESSION_END, "");
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : close
+    // Description   : Stops accepting records, waits until every queued record has been written,
+    //                 flushed (or fsynced) and the sink closed.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void close()
+    {
+        closeQuietly();
+        try
+        {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        }
+        catch (IllegalStateException e)
+        {
+            // JVM already shutting down
+        }
+    }
+
+    // Shutdown hook
+    private void closeAtExit()
+    {
+        if (endSessionAtExit)
+        {
+            logSessionEnd();
+        }
+        closeQuietly();
+    }
+
+    private void closeQuietly()
+    {
+        synchronized (this)
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+        }
+        closing = true;
+        LockSupport.unpark(writer);
+        try
+        {
+            writer.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogCompressor.java
+// Description : Background thread that gzips rolled-over log segments and enforces the
+//               retention cap, so neither ever runs on the log writer or the chat path.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LogCompressor
+// Description : One daemon thread shared by every log in the process. A segment is compressed
+//               into "<name>.gz.tmp", renamed into place and only then is the original deleted,
+//               so an interrupted run never loses data.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class LogCompressor
+{
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable ->
+    {
+        Thread thread = new Thread(runnable, "chat-log-compressor");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    // Start of this process; a file last written before it was closed by an earlier run, or
+    // else belongs to a session that is still writing. 0, protecting every other session, if
+    // the operating system does not say.
+    private static final long PROCESS_START = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli).orElse(0L);
+
+    private LogCompressor()
+    {
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : segmentClosed
+    // Description   : Queues compression of a closed segment's files, then retention cleanup.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static void segmentClosed(List<Path> files, boolean compress, Path directory, String prefix, int retain, Path active)
+    {
+        EXECUTOR.execute(() ->
+        {
+            if (compress)
+            {
+                for (Path file : files)
+                {
+                    gzip(file);
+                }
+            }
+            if (retain > 0)
+            {
+                enforceRetention(directory, prefix, retain, active);
+            }
+        });
+    }
+
+    // Like gzip(1), keeps the original modification time so retention order is preserved
+    static void gzip(Path file)
+    {
+        if (!Files.exists(file))
+        {
+            // Already removed by retention
+            return;
+        }
+        Path target = file.resolveSibling(file.getFileName() + ".gz");
+        Path temp = file.resolveSibling(file.getFileName() + ".gz.tmp");
+        FileTime modified;
+        try (InputStream in = Files.newInputStream(file);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024))
+        {
+            modified = Files.getLastModifiedTime(file);
+            in.transferTo(out);
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+            return;
+        }
+        try
+        {
+            Files.setLastModifiedTime(temp, modified);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(file);
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : enforceRetention
+    // Description   : Keeps the newest `retain` segments whose names start with the prefix and
+    //                 deletes every file of the older ones that are surely closed: the rolled
+    //                 segments of the active session, and segments of other sessions that have
+    //                 not been written since this process started. The newest segment of another
+    //                 session is never deleted, as that session may still be writing to it, in
+    //                 this process or another.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static void enforceRetention(Path directory, String prefix, int retain, Path active)
+    {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(directory, prefix + "*"))
+        {
+            dir.forEach(files::add);
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+            return;
+        }
+
+        // A segment's files share the name up to the first '.'; segments are ordered by their
+        // last write, because sessions started in the same minute share a name prefix but not
+        // an order
+        Map<String, Long> segments = new HashMap<>();
+        Map<String, Integer> newest = new HashMap<>();
+        for (Path file : files)
+        {
+            long modified;
+            try
+            {
+                modified = Files.getLastModifiedTime(file).toMillis();
+            }
+            catch (IOException e)
+            {
+                continue;
+            }
+            String segment = segmentOf(file);
+            segments.merge(segment, modified, Math::max);
+            newest.merge(sessionOf(segment), numberOf(segment), Math::max);
+        }
+        List<String> ordered = new ArrayList<>(segments.keySet());
+        ordered.sort(Comparator.comparing((String segment) -> segments.get(segment)).thenComparing(Comparator.naturalOrder()));
+        String activeSegment = (active != null) ? segmentOf(active) : null;
+        String activeSession = (active != null) ? sessionOf(activeSegment) : null;
+        int excess = ordered.size() - retain;
+        for (int i = 0; i < ordered.size() && excess > 0; i++)
+        {
+            String segment = ordered.get(i);
+            String session = sessionOf(segment);
+            boolean closed;
+            if (session.equals(activeSession))
+            {
+                closed = !segment.equals(activeSegment);
+            }
+            else
+            {
+                closed = segments.get(segment) < PROCESS_START && numberOf(segment) < newest.get(session);
+            }
+            if (!closed)
+            {
+                continue;
+            }
+            for (Path file : files)
+            {
+                if (segmentOf(file).equals(segment))
+                {
+                    try
+                    {
+                        Files.deleteIfExists(file);
+                    }
+                    catch (IOException e)
+                    {
+                        e.printStackTrace();
+                    }
+                }
+            }
+            excess--;
+        }
+    }
+
+    private static String segmentOf(Path file)
+    {
+        String name = file.getFileName().toString();
+        int dot = name.indexOf('.');
+        return (dot < 0) ? name : name.substring(0, dot);
+    }
+
+    // "<session>" of "ChatLog-<role>-<time>-<session>-<nnnn>", or the whole name if it has no
+    // segment number, which makes such a file a session of its own
+    private static String sessionOf(String segment)
+    {
+        int last = segment.lastIndexOf('-');
+        int before = (last > 0) ? segment.lastIndexOf('-', last - 1) : -1;
+        return (numberOf(segment) < 0 || before < 0) ? segment : segment.substring(before + 1, last);
+    }
+
+    // "<nnnn>" of a segment name, or -1
+    private static int numberOf(String segment)
+    {
+        String digits = segment.substring(segment.lastIndexOf('-') + 1);
+        if (digits.isEmpty() || digits.length() > 9)
+        {
+            return -1;
+        }
+        for (int i = 0; i < digits.length(); i++)
+        {
+            if (!Character.isDigit(digits.charAt(i)))
+            {
+                return -1;
+            }
+        }
+        return Integer.parseInt(digits);
+    }
+}
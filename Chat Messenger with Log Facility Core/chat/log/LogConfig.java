@@ -0,0 +1,194 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogConfig.java
+// Description : Settings of a session log: directory, layout, flush policy, rotation,
+//               compression and retention.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.nio.file.Path;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LogConfig
+// Description : Mutable settings holder. fromSystemProperties() reads
+//
+//                 chat.log.dir              directory of the log files         (default ".")
+//                 chat.log.format           text | binary                      (default text)
+//                 chat.log.flush            records:N | millis:T | session     (default millis:100)
+//                 chat.log.rotate.size      roll over after this many bytes, e.g. 64m (default off)
+//                 chat.log.rotate.interval  roll over every interval, e.g. 30m, 1h, 1d (default off)
+//                 chat.log.compress         gzip | none, for rolled-over segments (default gzip)
+//                 chat.log.retain           segments kept per role, 0 keeps all (default 0)
+//                 chat.log.index            directory of the full-text index of the logs,
+//                                           or none                            (default none)
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class LogConfig
+{
+    private Path directory = Path.of(".");
+    private boolean binary;
+    private FlushPolicy flushPolicy = FlushPolicy.everyMillis(100);
+    private long rotateBytes;
+    private long rotateMillis;
+    private boolean compress = true;
+    private int retain;
+    private Path indexDirectory;
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : fromSystemProperties
+    // Description   : Builds a configuration from the chat.log.* system properties.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static LogConfig fromSystemProperties()
+    {
+        LogConfig config = new LogConfig();
+        config.setDirectory(Path.of(System.getProperty("chat.log.dir", ".")));
+        config.setFormat(System.getProperty("chat.log.format", "text"));
+        config.setFlushPolicy(FlushPolicy.parse(System.getProperty("chat.log.flush", "millis:100")));
+        config.setRotateBytes(parseSize(System.getProperty("chat.log.rotate.size", "0")));
+        config.setRotateMillis(parseDuration(System.getProperty("chat.log.rotate.interval", "0")));
+        config.setCompress(!System.getProperty("chat.log.compress", "gzip").equalsIgnoreCase("none"));
+        config.setRetain(Integer.parseInt(System.getProperty("chat.log.retain", "0")));
+        String index = System.getProperty("chat.log.index", "none");
+        config.setIndexDirectory(index.equalsIgnoreCase("none") ? null : Path.of(index));
+        return config;
+    }
+
+    public Path getDirectory()
+    {
+        return directory;
+    }
+
+    public void setDirectory(Path directory)
+    {
+        this.directory = directory;
+    }
+
+    public boolean isBinary()
+    {
+        return binary;
+    }
+
+    // Accepts "text" or "binary"
+    public void setFormat(String format)
+    {
+        if (!format.equalsIgnoreCase("text") && !format.equalsIgnoreCase("binary"))
+        {
+            throw new IllegalArgumentException("Unknown log format: " + format);
+        }
+        this.binary = format.equalsIgnoreCase("binary");
+    }
+
+    public FlushPolicy getFlushPolicy()
+    {
+        return flushPolicy;
+    }
+
+    public void setFlushPolicy(FlushPolicy flushPolicy)
+    {
+        this.flushPolicy = flushPolicy;
+    }
+
+    public long getRotateBytes()
+    {
+        return rotateBytes;
+    }
+
+    public void setRotateBytes(long rotateBytes)
+    {
+        this.rotateBytes = rotateBytes;
+    }
+
+    public long getRotateMillis()
+    {
+        return rotateMillis;
+    }
+
+    public void setRotateMillis(long rotateMillis)
+    {
+        this.rotateMillis = rotateMillis;
+    }
+
+    public boolean isCompress()
+    {
+        return compress;
+    }
+
+    public void setCompress(boolean compress)
+    {
+        this.compress = compress;
+    }
+
+    public int getRetain()
+    {
+        return retain;
+    }
+
+    public void setRetain(int retain)
+    {
+        this.retain = retain;
+    }
+
+    // Directory of the full-text index, or null if the log is not indexed
+    public Path getIndexDirectory()
+    {
+        return indexDirectory;
+    }
+
+    public void setIndexDirectory(Path indexDirectory)
+    {
+        this.indexDirectory = indexDirectory;
+    }
+
+    // Reads "1048576", "512k", "64m" or "2g"
+    public static long parseSize(String text)
+    {
+        String value = text.trim().toLowerCase();
+        long unit = 1;
+        switch (value.isEmpty() ? ' ' : value.charAt(value.length() - 1))
+        {
+            case 'k':
+                unit = 1024;
+                break;
+            case 'm':
+                unit = 1024 * 1024;
+                break;
+            case 'g':
+                unit = 1024L * 1024 * 1024;
+                break;
+            default:
+                return Long.parseLong(value);
+        }
+        return Long.parseLong(value.substring(0, value.length() - 1)) * unit;
+    }
+
+    // Reads "0", "500ms", "30s", "15m", "1h" or "1d" into milliseconds
+    public static long parseDuration(String text)
+    {
+        String value = text.trim().toLowerCase();
+        if (value.endsWith("ms"))
+        {
+            return Long.parseLong(value.substring(0, value.length() - 2));
+        }
+        long unit;
+        switch (value.isEmpty() ? ' ' : value.charAt(value.length() - 1))
+        {
+            case 's':
+                unit = 1000;
+                break;
+            case 'm':
+                unit = 60_000;
+                break;
+            case 'h':
+                unit = 3_600_000;
+                break;
+            case 'd':
+                unit = 86_400_000;
+                break;
+            default:
+                return Long.parseLong(value);
+        }
+        return Long.parseLong(value.substring(0, value.length() - 1)) * unit;
+    }
+}
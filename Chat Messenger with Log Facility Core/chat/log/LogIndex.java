@@ -0,0 +1,384 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogIndex.java
+// Description : Searches the full-text log index written by LogIndexWriter for words, phrases
+//               and time ranges.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LogIndex
+// Description : A snapshot of the index directory when it was opened: segments published or
+//               merged later are seen by opening it again, which is cheap, since segments are
+//               mapped rather than read. A search walks the postings of its rarest word and
+//               moves the other words' cursors up to each candidate, so a query costs about
+//               the length of its postings lists, not the size of the logs. Segments outside
+//               the time range are skipped whole; message texts are only decoded for the
+//               matches returned.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class LogIndex
+{
+    // Times a directory is listed again when a merge deleted a file while it was being opened
+    private static final int OPEN_ATTEMPTS = 3;
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Class Name  : Hit
+    // Description : One matching message and the role of the log it came from.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static final class Hit
+    {
+        private final String role;
+        private final LogRecord record;
+
+        Hit(String role, LogRecord record)
+        {
+            this.role = role;
+            this.record = record;
+        }
+
+        // "Server", "Client", ...
+        public String getRole()
+        {
+            return role;
+        }
+
+        public LogRecord getRecord()
+        {
+            return record;
+        }
+    }
+
+    private final List<IndexSegment> segments;
+    private final List<String> roles;
+
+    private LogIndex(List<IndexSegment> segments, List<String> roles)
+    {
+        this.segments = segments;
+        this.roles = roles;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : open
+    // Description   : Maps every current segment of the index in directory. An index that
+    //                 does not exist yet is empty.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static LogIndex open(Path directory) throws IOException
+    {
+        for (int attempt = 1; ; attempt++)
+        {
+            try
+            {
+                return tryOpen(directory);
+            }
+            catch (NoSuchFileException e)
+            {
+                if (attempt == OPEN_ATTEMPTS)
+                {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static LogIndex tryOpen(Path directory) throws IOException
+    {
+        List<IndexSegment> segments = new ArrayList<>();
+        List<String> roles = new ArrayList<>();
+        if (!Files.isDirectory(directory))
+        {
+            return new LogIndex(segments, roles);
+        }
+
+        // Session -> its segments as { first, last } numbers by file
+        Map<String, Map<Path, int[]>> sessions = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, IndexFormat.FILE_PREFIX + "*" + IndexFormat.SUFFIX))
+        {
+            for (Path file : files)
+            {
+                String name = file.getFileName().toString();
+                String[] parts = name.substring(0, name.length() - IndexFormat.SUFFIX.length()).split("-");
+                if (parts.length < 5)
+                {
+                    continue;
+                }
+                String session = name.substring(0, name.lastIndexOf('-', name.lastIndexOf('-') - 1));
+                try
+                {
+                    int[] range = { Integer.parseInt(parts[parts.length - 2]), Integer.parseInt(parts[parts.length - 1]) };
+                    sessions.computeIfAbsent(session, key -> new LinkedHashMap<>()).put(file, range);
+                }
+                catch (NumberFormatException e)
+                {
+                    // not a segment name
+                }
+            }
+        }
+
+        for (Map<Path, int[]> session : sessions.values())
+        {
+            for (Map.Entry<Path, int[]> segment : session.entrySet())
+            {
+                if (isCovered(segment, session))
+                {
+                    continue;
+                }
+                segments.add(IndexSegment.open(segment.getKey()));
+                String name = segment.getKey().getFileName().toString();
+                String[] parts = name.split("-");
+                roles.add(String.join("-", Arrays.copyOfRange(parts, 1, parts.length - 3)));
+            }
+        }
+        return new LogIndex(segments, roles);
+    }
+
+    // True if a merged segment of the same session holds this one's messages
+    private static boolean isCovered(Map.Entry<Path, int[]> segment, Map<Path, int[]> session)
+    {
+        int[] range = segment.getValue();
+        for (Map.Entry<Path, int[]> other : session.entrySet())
+        {
+            int[] outer = other.getValue();
+            if (other != segment && outer[0] <= range[0] && range[1] <= outer[1] && (outer[1] - outer[0] > range[1] - range[0]))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getSegmentCount()
+    {
+        return segments.size();
+    }
+
+    // Messages in all segments
+    public long getMessageCount()
+    {
+        long count = 0;
+        for (IndexSegment segment : segments)
+        {
+            count += segment.getMessageCount();
+        }
+        return count;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : search
+    // Description   : Counts the messages that match query and adds the newest limit of them
+    //                 to hits, oldest first. Returns the count.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public long search(LogQuery query, int limit, List<Hit> hits)
+    {
+        Matches matches = new Matches();
+        for (int i = 0; i < segments.size(); i++)
+        {
+            searchSegment(i, query, matches);
+        }
+        if (limit > 0 && matches.count > 0)
+        {
+            collectNewest(matches, limit, hits);
+        }
+        return matches.count;
+    }
+
+    // Growing lists of the matches found so far
+    private static final class Matches
+    {
+        long[] times = new long[256];
+        int[] segments = new int[256];
+        int[] messages = new int[256];
+        int count;
+
+        void add(long time, int segment, int message)
+        {
+            if (count == times.length)
+            {
+                times = Arrays.copyOf(times, count * 2);
+                segments = Arrays.copyOf(segments, count * 2);
+                messages = Arrays.copyOf(messages, count * 2);
+            }
+            times[count] = time;
+            segments[count] = segment;
+            messages[count] = message;
+            count++;
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : searchSegment
+    // Description   : Intersects the postings of all query words in one segment, rarest first,
+    //                 and checks time, direction and phrases on every message that has them all.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void searchSegment(int index, LogQuery query, Matches matches)
+    {
+        IndexSegment segment = segments.get(index);
+        if (segment.getMessageCount() == 0 || segment.getLastTime() < query.getFrom() || segment.getFirstTime() > query.getTo())
+        {
+            return;
+        }
+
+        Map<String, IndexSegment.Postings> cursors = new HashMap<>();
+        List<String> needed = new ArrayList<>(query.getWords());
+        for (List<String> phrase : query.getPhrases())
+        {
+            needed.addAll(phrase);
+        }
+        for (String word : needed)
+        {
+            if (!cursors.containsKey(word))
+            {
+                IndexSegment.Word entry = segment.find(word.getBytes(StandardCharsets.UTF_8));
+                if (entry == null)
+                {
+                    return;
+                }
+                cursors.put(word, segment.postings(entry));
+            }
+        }
+
+        if (cursors.isEmpty())
+        {
+            for (int message = 0; message < segment.getMessageCount(); message++)
+            {
+                check(index, segment, message, query, cursors, matches);
+            }
+            return;
+        }
+
+        IndexSegment.Postings[] order = cursors.values().toArray(new IndexSegment.Postings[0]);
+        Arrays.sort(order, Comparator.comparingInt(IndexSegment.Postings::getMessages));
+        IndexSegment.Postings lead = order[0];
+        int candidate = lead.next();
+        while (candidate != IndexSegment.NO_MORE)
+        {
+            boolean all = true;
+            for (int i = 1; i < order.length; i++)
+            {
+                int at = order[i].advance(candidate);
+                if (at > candidate)
+                {
+                    candidate = lead.advance(at);
+                    all = false;
+                    break;
+                }
+            }
+            if (all)
+            {
+                check(index, segment, candidate, query, cursors, matches);
+                candidate = lead.next();
+            }
+        }
+    }
+
+    // Adds message to the matches if its time, direction and phrases fit the query
+    private static void check(int index, IndexSegment segment, int message, LogQuery query,
+            Map<String, IndexSegment.Postings> cursors, Matches matches)
+    {
+        long time = segment.time(message);
+        if (time < query.getFrom() || time > query.getTo())
+        {
+            return;
+        }
+        if (query.getDirection() != null && segment.directionCode(message) != query.getDirection().getCode())
+        {
+            return;
+        }
+        for (List<String> phrase : query.getPhrases())
+        {
+            if (!hasPhrase(phrase, cursors))
+            {
+                return;
+            }
+        }
+        matches.add(time, index, message);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : hasPhrase
+    // Description   : True if the current message of the cursors has the phrase words at
+    //                 consecutive positions somewhere.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private static boolean hasPhrase(List<String> phrase, Map<String, IndexSegment.Postings> cursors)
+    {
+        int[][] positions = new int[phrase.size()][];
+        int[] counts = new int[phrase.size()];
+        for (int i = 0; i < positions.length; i++)
+        {
+            IndexSegment.Postings cursor = cursors.get(phrase.get(i));
+            positions[i] = cursor.positions(null);
+            counts[i] = cursor.count();
+        }
+        for (int p = 0; p < counts[0]; p++)
+        {
+            int start = positions[0][p];
+            int i = 1;
+            while (i < positions.length && Arrays.binarySearch(positions[i], 0, counts[i], start + i) >= 0)
+            {
+                i++;
+            }
+            if (i == positions.length)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : collectNewest
+    // Description   : Decodes the newest limit matches into hits, oldest first. The cut-off
+    //                 time is found on a sorted copy of the times, so only the hits themselves
+    //                 are ever sorted as objects.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void collectNewest(Matches matches, int limit, List<Hit> hits)
+    {
+        long cutOff = Long.MIN_VALUE;
+        int atCutOff = Integer.MAX_VALUE;
+        if (matches.count > limit)
+        {
+            long[] sorted = Arrays.copyOf(matches.times, matches.count);
+            Arrays.sort(sorted);
+            cutOff = sorted[matches.count - limit];
+            atCutOff = limit;
+            for (int i = matches.count - limit; i < matches.count; i++)
+            {
+                if (sorted[i] > cutOff)
+                {
+                    atCutOff--;
+                }
+            }
+        }
+
+        List<Hit> found = new ArrayList<>();
+        for (int i = matches.count - 1; i >= 0; i--)
+        {
+            long time = matches.times[i];
+            if (time > cutOff || (time == cutOff && atCutOff-- > 0))
+            {
+                IndexSegment segment = segments.get(matches.segments[i]);
+                found.add(new Hit(roles.get(matches.segments[i]), segment.message(matches.messages[i])));
+            }
+        }
+        Collections.reverse(found);
+        found.sort(Comparator.comparingLong(hit -> hit.getRecord().getEpochMillis()));
+        hits.addAll(found);
+    }
+}
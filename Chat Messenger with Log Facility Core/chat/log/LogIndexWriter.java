@@ -0,0 +1,539 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogIndexWriter.java
+// Description : Adds the messages of one log session to the full-text log index, a segment
+//               at a time, and merges the segments in the background.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LogIndexWriter
+// Description : add() tokenizes a message and appends its positions to an in-memory postings
+//               list per word, varint-packed as they will be on disk. publish() writes the
+//               buffered messages as one new segment, through a temporary file and a rename,
+//               so readers only ever see whole segments. A session writes its own files,
+//               named
+//                 ChatIndex-<role>-<session>-<first>-<last>.tix
+//               where first and last number the segments this one was made of, so any number
+//               of sessions can share one directory.
+//
+//               Publishing on every log flush makes many small segments, which would make
+//               searches open more and more files. Whenever a session has MERGE_FACTOR
+//               segments of one level, a background thread merges them into one of the next
+//               level, copying messages and postings nearly byte for byte, so a session has
+//               at most MERGE_FACTOR segments per level and merges cost O(log n) copies of
+//               every message. A merged segment covers the numbers of its parts, and readers
+//               skip a segment covered by another one, so the moment both exist is harmless.
+//               Near the largest segment size fewer parts are merged, and a segment that is
+//               too large to merge with the next one moves up a level as it is.
+//
+//               add() and publish() are called from one thread, the log writer's.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class LogIndexWriter implements Closeable
+{
+    // Buffered messages or text bytes after which add() publishes on its own
+    static final int SEGMENT_MESSAGES = 65536;
+    static final int SEGMENT_BYTES = 16 * 1024 * 1024;
+
+    // Segments of one level that are merged into one of the next level
+    static final int MERGE_FACTOR = 10;
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Class Name  : Postings
+    // Description : Growing postings list of one word in the segment being buffered. The
+    //               positions of the message being added are collected first, since a word can
+    //               occur more than once in it.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private static final class Postings
+    {
+        byte[] utf8;
+        byte[] bytes = new byte[16];
+        int size;
+        int messages;
+        int lastMessage;
+        int[] pending = new int[4];
+        int pendingCount;
+
+        void addPosition(int position)
+        {
+            if (pendingCount == pending.length)
+            {
+                pending = Arrays.copyOf(pending, pendingCount * 2);
+            }
+            pending[pendingCount++] = position;
+        }
+
+        // Appends the collected positions as the postings entry of message
+        void endMessage(int message, byte[] scratch)
+        {
+            int length = 0;
+            int previous = 0;
+            for (int i = 0; i < pendingCount; i++)
+            {
+                length = IndexFormat.putVarInt(scratch, length, pending[i] - previous);
+                previous = pending[i];
+            }
+            ensure(15 + length);
+            size = IndexFormat.putVarInt(bytes, size, message - lastMessage);
+            size = IndexFormat.putVarInt(bytes, size, pendingCount);
+            size = IndexFormat.putVarInt(bytes, size, length);
+            System.arraycopy(scratch, 0, bytes, size, length);
+            size += length;
+            lastMessage = message;
+            messages++;
+            pendingCount = 0;
+        }
+
+        private void ensure(int room)
+        {
+            if (size + room > bytes.length)
+            {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + room));
+            }
+        }
+    }
+
+    // One published segment of this session
+    private static final class Entry
+    {
+        final Path path;
+        final int first;
+        final int last;
+        final int level;
+        final long length;
+
+        Entry(Path path, int first, int last, int level, long length)
+        {
+            this.path = path;
+            this.first = first;
+            this.last = last;
+            this.level = level;
+            this.length = length;
+        }
+    }
+
+    private final Path directory;
+    private final String prefix;
+
+    // Messages and postings of the segment being buffered
+    private long[] times = new long[1024];
+    private byte[] directions = new byte[1024];
+    private String[] texts = new String[1024];
+    private int count;
+    private long textBytes;
+    private final Map<String, Postings> words = new HashMap<>();
+    private final List<Postings> touched = new ArrayList<>();
+    private final Tokenizer.Consumer collector = this::collect;
+    private byte[] scratch = new byte[256];
+    private int segmentNumber;
+
+    // Published segments, oldest first; shared with the merge thread
+    private final List<Entry> segments = new ArrayList<>();
+    private boolean merging;
+
+    // Largest total length of the parts of one merge
+    private final long mergeBytes;
+
+    public LogIndexWriter(Path directory, String role, long sessionId) throws IOException
+    {
+        this(directory, role, sessionId, IndexFormat.MAX_SEGMENT_BYTES);
+    }
+
+    LogIndexWriter(Path directory, String role, long sessionId, long mergeBytes) throws IOException
+    {
+        this.directory = directory;
+        this.mergeBytes = mergeBytes;
+        this.prefix = IndexFormat.FILE_PREFIX + role + "-" + String.format("%08x", sessionId & 0xFFFFFFFFL) + "-";
+        Files.createDirectories(directory);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : add
+    // Description   : Buffers one message and the postings of its words; publishes the buffer
+    //                 once it is full.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void add(long epochMillis, Direction direction, String text) throws IOException
+    {
+        if (count == times.length)
+        {
+            times = Arrays.copyOf(times, count * 2);
+            directions = Arrays.copyOf(directions, count * 2);
+            texts = Arrays.copyOf(texts, count * 2);
+        }
+        times[count] = epochMillis;
+        directions[count] = (byte) direction.getCode();
+        texts[count] = text;
+
+        int positions = Tokenizer.tokenize(text, collector);
+        if (scratch.length < positions * 5)
+        {
+            scratch = new byte[positions * 5];
+        }
+        for (Postings postings : touched)
+        {
+            postings.endMessage(count, scratch);
+        }
+        touched.clear();
+        count++;
+        textBytes += text.length();
+
+        if (count >= SEGMENT_MESSAGES || textBytes >= SEGMENT_BYTES)
+        {
+            publish();
+        }
+    }
+
+    private void collect(String word, int position)
+    {
+        Postings postings = words.get(word);
+        if (postings == null)
+        {
+            postings = new Postings();
+            words.put(word, postings);
+        }
+        if (postings.pendingCount == 0)
+        {
+            touched.add(postings);
+        }
+        postings.addPosition(position);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : publish
+    // Description   : Writes the buffered messages as a new segment, if there are any, and
+    //                 starts a merge if one is due.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void publish() throws IOException
+    {
+        if (count == 0)
+        {
+            return;
+        }
+        int number = ++segmentNumber;
+        Path file = directory.resolve(fileName(number, number));
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        try (IndexSegmentWriter out = new IndexSegmentWriter(temporary, 0))
+        {
+            for (int i = 0; i < count; i++)
+            {
+                byte[] text = texts[i].getBytes(StandardCharsets.UTF_8);
+                out.addMessage(times[i], directions[i], text, 0, text.length);
+            }
+
+            Postings[] sorted = new Postings[words.size()];
+            int i = 0;
+            for (Map.Entry<String, Postings> word : words.entrySet())
+            {
+                sorted[i] = word.getValue();
+                sorted[i++].utf8 = word.getKey().getBytes(StandardCharsets.UTF_8);
+            }
+            Arrays.sort(sorted, (a, b) -> Arrays.compareUnsigned(a.utf8, b.utf8));
+            for (Postings postings : sorted)
+            {
+                out.beginWord(postings.utf8, postings.messages, postings.lastMessage);
+                out.write(postings.bytes, 0, postings.size);
+                out.endWord();
+            }
+            long length = out.finish();
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            synchronized (segments)
+            {
+                segments.add(new Entry(file, number, number, 0, length));
+            }
+        }
+        catch (IOException e)
+        {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        finally
+        {
+            // A segment that could not be written is dropped rather than kept growing
+            Arrays.fill(texts, 0, count, null);
+            count = 0;
+            textBytes = 0;
+            words.clear();
+        }
+        startMerge();
+    }
+
+    private String fileName(int first, int last)
+    {
+        return prefix + String.format("%08d-%08d", first, last) + IndexFormat.SUFFIX;
+    }
+
+    // Starts the merge thread if a merge is due and none is running
+    private void startMerge()
+    {
+        synchronized (segments)
+        {
+            if (merging || nextMerge() == null)
+            {
+                return;
+            }
+            merging = true;
+        }
+        Thread merger = new Thread(this::mergeLoop, "chat-index-merge");
+        merger.setDaemon(true);
+        merger.start();
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : nextMerge
+    // Description   : Of the lowest level that has MERGE_FACTOR segments, its oldest ones up
+    //                 to that many that together stay within mergeBytes; null if none is due.
+    //                 If not even the oldest two fit, the oldest moves up a level unmerged, so
+    //                 a level of large segments cannot stop merging. Called holding the
+    //                 segments lock.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private List<Entry> nextMerge()
+    {
+        int highest = 0;
+        for (Entry entry : segments)
+        {
+            highest = Math.max(highest, entry.level);
+        }
+        for (int level = 0; level <= highest; level++)
+        {
+            List<Entry> oldest = oldestOf(level);
+            while (oldest.size() == MERGE_FACTOR)
+            {
+                List<Entry> parts = new ArrayList<>();
+                long length = 0;
+                for (Entry entry : oldest)
+                {
+                    if (length + entry.length > mergeBytes)
+                    {
+                        break;
+                    }
+                    parts.add(entry);
+                    length += entry.length;
+                }
+                if (parts.size() > 1)
+                {
+                    return parts;
+                }
+                Entry large = oldest.get(0);
+                segments.set(segments.indexOf(large), new Entry(large.path, large.first, large.last, level + 1, large.length));
+                highest = Math.max(highest, level + 1);
+                oldest = oldestOf(level);
+            }
+        }
+        return null;
+    }
+
+    // Up to MERGE_FACTOR segments of level, oldest first
+    private List<Entry> oldestOf(int level)
+    {
+        List<Entry> oldest = new ArrayList<>();
+        for (Entry entry : segments)
+        {
+            if (entry.level == level)
+            {
+                oldest.add(entry);
+                if (oldest.size() == MERGE_FACTOR)
+                {
+                    break;
+                }
+            }
+        }
+        return oldest;
+    }
+
+    private void mergeLoop()
+    {
+        while (true)
+        {
+            List<Entry> parts;
+            synchronized (segments)
+            {
+                parts = nextMerge();
+                if (parts == null)
+                {
+                    merging = false;
+                    segments.notifyAll();
+                    return;
+                }
+            }
+            try
+            {
+                merge(parts);
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+                synchronized (segments)
+                {
+                    merging = false;
+                    segments.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : merge
+    // Description   : Writes one segment holding the messages of parts in order, takes its
+    //                 place among the segments and deletes the parts.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void merge(List<Entry> parts) throws IOException
+    {
+        Entry first = parts.get(0);
+        Entry last = parts.get(parts.size() - 1);
+        Path file = directory.resolve(fileName(first.first, last.last));
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        IndexSegment[] inputs = new IndexSegment[parts.size()];
+        int[] bases = new int[parts.size()];
+        long length;
+        try (IndexSegmentWriter out = new IndexSegmentWriter(temporary, first.level + 1))
+        {
+            for (int i = 0; i < inputs.length; i++)
+            {
+                inputs[i] = IndexSegment.open(parts.get(i).path);
+                bases[i] = out.getMessageCount();
+                for (int message = 0; message < inputs[i].getMessageCount(); message++)
+                {
+                    out.addMessage(inputs[i].time(message), inputs[i].encodedMessage(message));
+                }
+            }
+            mergeWords(inputs, bases, out);
+            length = out.finish();
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e)
+        {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        synchronized (segments)
+        {
+            int at = segments.indexOf(first);
+            segments.removeAll(parts);
+            segments.add(at, new Entry(file, first.first, last.last, first.level + 1, length));
+        }
+        for (Entry part : parts)
+        {
+            Files.deleteIfExists(part.path);
+        }
+    }
+
+    // Current dictionary entry of one input of a merge
+    private static final class WordCursor
+    {
+        final int input;
+        final IndexSegment.Words words;
+        IndexSegment.Word word;
+
+        WordCursor(int input, IndexSegment.Words words)
+        {
+            this.input = input;
+            this.words = words;
+            this.word = words.next();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : mergeWords
+    // Description   : Walks the dictionaries of all inputs together. The postings of a word
+    //                 are the inputs' postings one after another: only the first message number
+    //                 of each input changes, into the distance from the previous input's last.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private static void mergeWords(IndexSegment[] inputs, int[] bases, IndexSegmentWriter out) throws IOException
+    {
+        PriorityQueue<WordCursor> queue = new PriorityQueue<>((a, b) ->
+        {
+            int order = Arrays.compareUnsigned(a.word.utf8, b.word.utf8);
+            return (order != 0) ? order : Integer.compare(a.input, b.input);
+        });
+        for (int i = 0; i < inputs.length; i++)
+        {
+            WordCursor cursor = new WordCursor(i, inputs[i].words());
+            if (cursor.word != null)
+            {
+                queue.add(cursor);
+            }
+        }
+
+        List<WordCursor> same = new ArrayList<>();
+        while (!queue.isEmpty())
+        {
+            same.clear();
+            same.add(queue.poll());
+            while (!queue.isEmpty() && Arrays.equals(queue.peek().word.utf8, same.get(0).word.utf8))
+            {
+                same.add(queue.poll());
+            }
+
+            int messages = 0;
+            for (WordCursor cursor : same)
+            {
+                messages += cursor.word.messages;
+            }
+            WordCursor newest = same.get(same.size() - 1);
+            out.beginWord(newest.word.utf8, messages, bases[newest.input] + newest.word.lastMessage);
+            int previous = 0;
+            for (WordCursor cursor : same)
+            {
+                ByteBuffer postings = inputs[cursor.input].encodedPostings(cursor.word);
+                IndexFormat.Input in = new IndexFormat.Input(postings, 0);
+                int firstMessage = bases[cursor.input] + in.readVarInt();
+                out.writeVarInt(firstMessage - previous);
+                out.write(postings.position(in.position));
+                previous = bases[cursor.input] + cursor.word.lastMessage;
+            }
+            out.endWord();
+
+            for (WordCursor cursor : same)
+            {
+                cursor.word = cursor.words.next();
+                if (cursor.word != null)
+                {
+                    queue.add(cursor);
+                }
+            }
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : close
+    // Description   : Publishes what is buffered and waits for a running merge to finish.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void close() throws IOException
+    {
+        publish();
+        synchronized (segments)
+        {
+            while (merging)
+            {
+                try
+                {
+                    segments.wait();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,305 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogLineEncoder.java
+// Description : Encodes records in the ChatLog-*.txt layout straight into a reusable direct
+//               buffer, without creating Strings or other garbage per record.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneOffsetTransition;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LogLineEncoder
+// Description : The "yyyy-MM-dd HH:mm:ss" timestamp is kept as bytes. Within a local minute
+//               only its two second digits are rewritten, when the second rolls over; the
+//               rest is formatted again once a minute, or at a time zone offset change. Labels
+//               are encoded once, and message text is encoded to UTF-8 char by char, with '?'
+//               for an unpaired surrogate like String.getBytes. When the buffer is full it is
+//               written to the channel, so a message of any length fits.
+//
+//               A record is always one line: line breaks in the text, which the framed wire
+//               protocol carries, are written as "\n" and "\r", and a backslash as "\\".
+//               unescape() turns the text of a line back into the message, and escape() a
+//               message into the text of its line.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class LogLineEncoder
+{
+    private static final String RULE_LINE = "---------------------------------------------\n";
+    private static final byte[] RULE = RULE_LINE.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SESSION_END_SUFFIX = ("\n" + RULE_LINE + "\n").getBytes(StandardCharsets.US_ASCII);
+    private static final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Longest UTF-8 sequence for one code point; the buffer always has room for it
+    private static final int MIN_ROOM = 4;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final ZoneId zone;
+    private long encoded;
+
+    // "] Client says: " etc., indexed by Direction ordinal
+    private final byte[][] labels = new byte[Direction.values().length][];
+    private final byte[] sessionEnd = (Direction.SESSION_END.getLabel() + ": ").getBytes(StandardCharsets.UTF_8);
+
+    // Cached timestamp; valid for epoch millis in [minuteStart, minuteEnd)
+    private byte[] timestamp = new byte[0];
+    private long minuteStart;
+    private long minuteEnd;
+    private int second = -1;
+
+    public LogLineEncoder(WritableByteChannel channel, int bufferSize, ZoneId zone)
+    {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, 256));
+        this.zone = zone;
+        for (Direction direction : Direction.values())
+        {
+            labels[direction.ordinal()] = ("] " + direction.getLabel() + ": ").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : append
+    // Description   : Encodes one record as "[timestamp] Label: text\n", or as the ruled
+    //                 "Chat session ended at" block for SESSION_END.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void append(long epochMillis, Direction direction, CharSequence text) throws IOException
+    {
+        updateTimestamp(epochMillis);
+        if (direction == Direction.SESSION_END)
+        {
+            put(RULE);
+            put(sessionEnd);
+            put(timestamp);
+            put(SESSION_END_SUFFIX);
+            return;
+        }
+        putByte('[');
+        put(timestamp);
+        put(labels[direction.ordinal()]);
+        putText(text);
+        putByte('\n');
+    }
+
+    // Bytes encoded so far, including those still in the buffer
+    public long getEncodedBytes()
+    {
+        return encoded + buffer.position();
+    }
+
+    // Writes the buffered bytes to the channel
+    public void flush() throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining())
+        {
+            encoded += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : updateTimestamp
+    // Description   : Brings the cached timestamp to the second of epochMillis. Formats in full
+    //                 only when the time leaves the cached minute, which also happens at the
+    //                 next offset transition of the zone, or for clocks that went backwards.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void updateTimestamp(long epochMillis)
+    {
+        if (epochMillis < minuteStart || epochMillis >= minuteEnd)
+        {
+            Instant instant = Instant.ofEpochMilli(epochMillis);
+            LocalDateTime local = LocalDateTime.ofInstant(instant, zone);
+            timestamp = DTF.format(local).getBytes(StandardCharsets.US_ASCII);
+            minuteStart = epochMillis - local.getSecond() * 1000L - Math.floorMod(epochMillis, 1000L);
+            minuteEnd = minuteStart + 60_000;
+            ZoneOffsetTransition transition = zone.getRules().nextTransition(instant);
+            if (transition != null)
+            {
+                minuteEnd = Math.min(minuteEnd, transition.toEpochSecond() * 1000);
+            }
+            second = local.getSecond();
+            return;
+        }
+
+        int now = (int) ((epochMillis - minuteStart) / 1000);
+        if (now != second)
+        {
+            second = now;
+            timestamp[timestamp.length - 2] = (byte) ('0' + now / 10);
+            timestamp[timestamp.length - 1] = (byte) ('0' + now % 10);
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : putText
+    // Description   : Encodes text to UTF-8 in chunks that are sure to fit the buffer: with at
+    //                 least 3 bytes per char, plus one for a surrogate pair ending a chunk.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void putText(CharSequence text) throws IOException
+    {
+        int length = text.length();
+        int i = 0;
+        while (i < length)
+        {
+            if (buffer.remaining() < MIN_ROOM)
+            {
+                flush();
+            }
+            int end = Math.min(length, i + (buffer.remaining() - 1) / 3);
+            int p = buffer.position();
+            while (i < end)
+            {
+                char c = text.charAt(i++);
+                if (c < 0x80)
+                {
+                    int escaped = escapeOf(c);
+                    if (escaped != 0)
+                    {
+                        buffer.put(p++, (byte) '\\');
+                        c = (char) escaped;
+                    }
+                    buffer.put(p++, (byte) c);
+                }
+                else if (c < 0x800)
+                {
+                    buffer.put(p++, (byte) (0xC0 | (c >> 6)));
+                    buffer.put(p++, (byte) (0x80 | (c & 0x3F)));
+                }
+                else if (Character.isSurrogate(c))
+                {
+                    char low = (i < length) ? text.charAt(i) : 0;
+                    if (Character.isHighSurrogate(c) && Character.isLowSurrogate(low))
+                    {
+                        int cp = Character.toCodePoint(c, low);
+                        i++;
+                        buffer.put(p++, (byte) (0xF0 | (cp >> 18)));
+                        buffer.put(p++, (byte) (0x80 | ((cp >> 12) & 0x3F)));
+                        buffer.put(p++, (byte) (0x80 | ((cp >> 6) & 0x3F)));
+                        buffer.put(p++, (byte) (0x80 | (cp & 0x3F)));
+                    }
+                    else
+                    {
+                        buffer.put(p++, (byte) '?');
+                    }
+                }
+                else
+                {
+                    buffer.put(p++, (byte) (0xE0 | (c >> 12)));
+                    buffer.put(p++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+                    buffer.put(p++, (byte) (0x80 | (c & 0x3F)));
+                }
+            }
+            buffer.position(p);
+        }
+    }
+
+    // Letter written after a backslash for c, or 0 if c is written as it is
+    private static int escapeOf(char c)
+    {
+        switch (c)
+        {
+            case '\n':
+                return 'n';
+            case '\r':
+                return 'r';
+            case '\\':
+                return '\\';
+            default:
+                return 0;
+        }
+    }
+
+    // Text as putText() writes it into a line
+    public static String escape(String text)
+    {
+        StringBuilder line = null;
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            int escaped = escapeOf(c);
+            if (escaped != 0 && line == null)
+            {
+                line = new StringBuilder(text.length() + 8).append(text, 0, i);
+            }
+            if (line != null)
+            {
+                if (escaped != 0)
+                {
+                    line.append('\\').append((char) escaped);
+                }
+                else
+                {
+                    line.append(c);
+                }
+            }
+        }
+        return (line == null) ? text : line.toString();
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : unescape
+    // Description   : Message text of a logged line's text part: "\n", "\r" and "\\" back to
+    //                 the characters they stand for. Other backslashes are kept as they are.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static String unescape(String text)
+    {
+        int at = text.indexOf('\\');
+        if (at < 0)
+        {
+            return text;
+        }
+        StringBuilder message = new StringBuilder(text.length());
+        message.append(text, 0, at);
+        for (int i = at; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            char next = (i + 1 < text.length()) ? text.charAt(i + 1) : 0;
+            if (c == '\\' && (next == 'n' || next == 'r' || next == '\\'))
+            {
+                message.append((next == 'n') ? '\n' : (next == 'r') ? '\r' : '\\');
+                i++;
+            }
+            else
+            {
+                message.append(c);
+            }
+        }
+        return message.toString();
+    }
+
+    private void put(byte[] bytes) throws IOException
+    {
+        int offset = 0;
+        while (offset < bytes.length)
+        {
+            if (!buffer.hasRemaining())
+            {
+                flush();
+            }
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    private void putByte(char c) throws IOException
+    {
+        if (!buffer.hasRemaining())
+        {
+            flush();
+        }
+        buffer.put((byte) c);
+    }
+}
@@ -0,0 +1,134 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogQuery.java
+// Description : What a search of the full-text log index looks for.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LogQuery
+// Description : Mutable settings holder. A message matches if it has every word, has the
+//               words of every phrase next to each other in order, was logged between from
+//               and to (inclusive), and has the given direction, if one is set. A query
+//               without words or phrases matches every message of its time range.
+//
+//               parse() reads the usual search box syntax: words, and phrases in double
+//               quotes, e.g.  invoice "order status" . A word that the Tokenizer splits, like
+//               client-3, is searched as a phrase, the way it was written. A word longer than
+//               Tokenizer.MAX_LENGTH is not in the index, so parse() rejects it.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class LogQuery
+{
+    private final List<String> words = new ArrayList<>();
+    private final List<List<String>> phrases = new ArrayList<>();
+    private long from = Long.MIN_VALUE;
+    private long to = Long.MAX_VALUE;
+    private Direction direction;
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : parse
+    // Description   : Builds a query from words and "quoted phrases", without a time range;
+    //                 throws IllegalArgumentException for a word that is too long to search.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static LogQuery parse(String text)
+    {
+        LogQuery query = new LogQuery();
+        String[] parts = text.split("\"", -1);
+        for (int i = 0; i < parts.length; i++)
+        {
+            if (i % 2 == 1)
+            {
+                query.add(Tokenizer.words(parts[i]));
+                continue;
+            }
+            for (String word : parts[i].trim().split("\\s+"))
+            {
+                query.add(Tokenizer.words(word));
+            }
+        }
+        return query;
+    }
+
+    // Adds a single word as a word and more as a phrase
+    private void add(List<String> phrase)
+    {
+        if (phrase.size() == 1)
+        {
+            words.add(phrase.get(0));
+        }
+        else if (phrase.size() > 1)
+        {
+            phrases.add(phrase);
+        }
+    }
+
+    // Adds a word, already lower case as the Tokenizer makes it
+    public void addWord(String word)
+    {
+        words.add(word);
+    }
+
+    public void addPhrase(List<String> phrase)
+    {
+        phrases.add(List.copyOf(phrase));
+    }
+
+    public List<String> getWords()
+    {
+        return words;
+    }
+
+    public List<List<String>> getPhrases()
+    {
+        return phrases;
+    }
+
+    public long getFrom()
+    {
+        return from;
+    }
+
+    // Earliest time, epoch millis
+    public void setFrom(long from)
+    {
+        this.from = from;
+    }
+
+    public long getTo()
+    {
+        return to;
+    }
+
+    // Latest time, epoch millis, inclusive
+    public void setTo(long to)
+    {
+        this.to = to;
+    }
+
+    public Direction getDirection()
+    {
+        return direction;
+    }
+
+    // CLIENT or SERVER, or null for both
+    public void setDirection(Direction direction)
+    {
+        this.direction = direction;
+    }
+
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder(String.join(" ", words));
+        for (List<String> phrase : phrases)
+        {
+            text.append((text.length() == 0) ? "\"" : " \"").append(String.join(" ", phrase)).append('"');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,54 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogRecord.java
+// Description : One chat log entry. Instances are slots of the appender's ring buffer and are
+//               reused, so sinks must not keep a reference after append() returns.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LogRecord
+// Description : Time is captured by the producer, so it reflects when the message was sent or
+//               received rather than when the background writer got to it.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class LogRecord
+{
+    long epochMillis;
+    Direction direction;
+    String text;
+
+    LogRecord()
+    {
+    }
+
+    // Stand-alone record, used by tools that read logs back
+    public LogRecord(long epochMillis, Direction direction, String text)
+    {
+        set(epochMillis, direction, text);
+    }
+
+    public long getEpochMillis()
+    {
+        return epochMillis;
+    }
+
+    public Direction getDirection()
+    {
+        return direction;
+    }
+
+    public String getText()
+    {
+        return text;
+    }
+
+    void set(long epochMillis, Direction direction, String text)
+    {
+        this.epochMillis = epochMillis;
+        this.direction = direction;
+        this.text = text;
+    }
+}
@@ -0,0 +1,31 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogSink.java
+// Description : Destination of the background log writer.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Interface Name : LogSink
+// Description    : All methods are called from the single writer thread only.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public interface LogSink extends Closeable
+{
+    // Encodes one record into the sink's buffer
+    void append(LogRecord record) throws IOException;
+
+    // Pushes buffered bytes to the operating system
+    void flush() throws IOException;
+
+    // Flushes and forces the bytes to the storage device
+    void sync() throws IOException;
+
+    // Approximate size of the file including bytes still buffered, used for rotation
+    long size();
+}
@@ -0,0 +1,181 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : RollingLogSink.java
+// Description : Splits a session log into segments by size and/or wall-clock interval. Every
+//               session writes to its own uniquely named files; closed segments are handed to
+//               the background LogCompressor.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.TimeZone;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : RollingLogSink
+// Description : Segment files are named
+//                 ChatLog-<role>-<yyyy-MM-dd_HH-mm>-<session>-<nnnn><suffix>
+//               where the time is the start of the segment and session is the low 32 bits of
+//               the session id in hex, so names are unique per session and sort by time.
+//               Rotation is decided on the log writer thread before a record is appended.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public class RollingLogSink implements LogSink
+{
+    // Opens the format-specific sink for one segment file
+    public interface SegmentOpener
+    {
+        LogSink open(Path file) throws IOException;
+    }
+
+    private static final DateTimeFormatter NAME_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm")
+            .withZone(ZoneId.systemDefault());
+
+    private final LogConfig config;
+    private final String prefix;
+    private final String session;
+    private final String suffix;
+    private final SegmentOpener opener;
+
+    private LogSink current;
+    private Path currentFile;
+    private int segment;
+    private long nextRollMillis = Long.MAX_VALUE;
+
+    public RollingLogSink(LogConfig config, String role, long sessionId, String suffix, SegmentOpener opener) throws IOException
+    {
+        this.config = config;
+        this.prefix = "ChatLog-" + role + "-";
+        this.session = HexFormat.of().toHexDigits((int) sessionId);
+        this.suffix = suffix;
+        this.opener = opener;
+        Files.createDirectories(config.getDirectory());
+        openSegment(System.currentTimeMillis());
+    }
+
+    // File the next record goes to
+    public Path getCurrentFile()
+    {
+        return currentFile;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : getSegmentFiles
+    // Description   : Every file written by this session so far, oldest segment first. Rolled
+    //                 segments may already be compressed (".gz") or deleted by retention.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public List<Path> getSegmentFiles() throws IOException
+    {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(config.getDirectory(), prefix + "*-" + session + "-*" + suffix + "*"))
+        {
+            for (Path file : dir)
+            {
+                if (!file.getFileName().toString().endsWith(".tmp"))
+                {
+                    files.add(file);
+                }
+            }
+        }
+        // Segment numbers have a fixed width and directly follow the session id
+        files.sort(Comparator.comparing(file -> segmentNumberOf(file.getFileName().toString())));
+        return files;
+    }
+
+    private String segmentNumberOf(String name)
+    {
+        int at = name.indexOf("-" + session + "-");
+        return (at < 0) ? name : name.substring(at + session.length() + 2);
+    }
+
+    private void openSegment(long now) throws IOException
+    {
+        segment++;
+        String name = prefix + NAME_TIME.format(Instant.ofEpochMilli(now)) + "-" + session
+                + "-" + fourDigits(segment) + suffix;
+        currentFile = config.getDirectory().resolve(name);
+        current = opener.open(currentFile);
+        if (config.getRotateMillis() > 0)
+        {
+            nextRollMillis = nextBoundary(now, config.getRotateMillis());
+        }
+    }
+
+    // Segment number padded like "%04d"; String.format costs tens of ms the first time it runs
+    private static String fourDigits(int number)
+    {
+        String digits = Integer.toString(number);
+        return (digits.length() >= 4) ? digits : "0000".substring(digits.length()) + digits;
+    }
+
+    // Next multiple of the interval in local time, so hourly logs roll on the hour
+    static long nextBoundary(long now, long interval)
+    {
+        long offset = TimeZone.getDefault().getOffset(now);
+        return Math.floorDiv(now + offset, interval) * interval + interval - offset;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : append
+    // Description   : Rolls over first if the segment is full or its interval has passed.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void append(LogRecord record) throws IOException
+    {
+        long now = record.getEpochMillis();
+        boolean bySize = config.getRotateBytes() > 0 && current.size() >= config.getRotateBytes();
+        boolean byTime = now >= nextRollMillis;
+        if ((bySize || byTime) && record.getDirection() != Direction.SESSION_END)
+        {
+            roll(Math.max(now, System.currentTimeMillis()));
+        }
+        current.append(record);
+    }
+
+    private void roll(long now) throws IOException
+    {
+        current.close();
+        List<Path> closed = new ArrayList<>();
+        closed.add(currentFile);
+        if (suffix.equals(BinaryLogFormat.LOG_SUFFIX))
+        {
+            closed.add(Path.of(BinaryLogFormat.indexFileFor(currentFile.toString())));
+        }
+        openSegment(now);
+        LogCompressor.segmentClosed(closed, config.isCompress(), config.getDirectory(), prefix, config.getRetain(), currentFile);
+    }
+
+    public void flush() throws IOException
+    {
+        current.flush();
+    }
+
+    public void sync() throws IOException
+    {
+        current.sync();
+    }
+
+    public long size()
+    {
+        return current.size();
+    }
+
+    public void close() throws IOException
+    {
+        current.close();
+        if (config.getRetain() > 0)
+        {
+            LogCompressor.segmentClosed(List.of(), false, config.getDirectory(), prefix, config.getRetain(), currentFile);
+        }
+    }
+}
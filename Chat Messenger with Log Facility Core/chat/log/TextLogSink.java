@@ -0,0 +1,89 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : TextLogSink.java
+// Description : Writes records in the ChatLog-*.txt layout, e.g.
+//               "[2025-09-19 10:15:00] Client says: hello".
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : TextLogSink
+// Description : UTF-8 text file appended to by the background writer. Records are encoded by a
+//               LogLineEncoder into a 64 KiB direct buffer, which goes to the file in one
+//               channel write when full or on flush.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public class TextLogSink implements LogSink
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final OutputStream out;
+    private final LogLineEncoder encoder;
+    private long initialSize;
+
+    public TextLogSink(String filename) throws IOException
+    {
+        this(FileChannel.open(Path.of(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), null);
+        initialSize = ((FileChannel) channel).size();
+    }
+
+    // Writes to any stream, e.g. System.out when replaying a binary log
+    public TextLogSink(OutputStream out)
+    {
+        this(Channels.newChannel(out), out);
+    }
+
+    private TextLogSink(WritableByteChannel channel, OutputStream out)
+    {
+        this.channel = channel;
+        this.out = out;
+        this.encoder = new LogLineEncoder(channel, BUFFER_SIZE, ZoneId.systemDefault());
+    }
+
+    public void append(LogRecord record) throws IOException
+    {
+        encoder.append(record.getEpochMillis(), record.getDirection(), record.getText());
+    }
+
+    // Exact byte count, including bytes still buffered
+    public long size()
+    {
+        return initialSize + encoder.getEncodedBytes();
+    }
+
+    public void flush() throws IOException
+    {
+        encoder.flush();
+        if (out != null)
+        {
+            out.flush();
+        }
+    }
+
+    public void sync() throws IOException
+    {
+        flush();
+        if (channel instanceof FileChannel)
+        {
+            ((FileChannel) channel).force(true);
+        }
+    }
+
+    public void close() throws IOException
+    {
+        flush();
+        channel.close();
+    }
+}
@@ -0,0 +1,109 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : Tokenizer.java
+// Description : Splits chat text into the lower-case words the log index is searched by.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : Tokenizer
+// Description : A word is a run of letters and digits in any script, so "client-3: hello!"
+//               has the words "client", "3" and "hello". Words are lower-cased per code point,
+//               which is all the normalising there is: no stemming and no stop words, so a
+//               search finds exactly the words that were typed. Words longer than MAX_LENGTH
+//               chars are not indexed but still take a position, so phrases across them do not
+//               match by accident. ASCII text, most of any chat, never goes through the
+//               Character tables.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class Tokenizer
+{
+    // Longest word that is indexed, in chars
+    public static final int MAX_LENGTH = 64;
+
+    // Receives every word of a text with its position, counting from 0
+    public interface Consumer
+    {
+        void word(String word, int position);
+    }
+
+    private Tokenizer()
+    {
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : tokenize
+    // Description   : Hands every indexable word of text to consumer, in order, and returns the
+    //                 number of positions used.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static int tokenize(String text, Consumer consumer)
+    {
+        StringBuilder word = new StringBuilder(16);
+        int position = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length)
+        {
+            char c = text.charAt(i);
+            if (c < 0x80)
+            {
+                i++;
+                if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9'))
+                {
+                    word.append(c);
+                    continue;
+                }
+                if (c >= 'A' && c <= 'Z')
+                {
+                    word.append((char) (c + ('a' - 'A')));
+                    continue;
+                }
+            }
+            else
+            {
+                int codePoint = text.codePointAt(i);
+                i += Character.charCount(codePoint);
+                if (Character.isLetterOrDigit(codePoint))
+                {
+                    word.appendCodePoint(Character.toLowerCase(codePoint));
+                    continue;
+                }
+            }
+            if (word.length() > 0)
+            {
+                emit(word, position++, consumer);
+            }
+        }
+        if (word.length() > 0)
+        {
+            emit(word, position++, consumer);
+        }
+        return position;
+    }
+
+    private static void emit(StringBuilder word, int position, Consumer consumer)
+    {
+        if (word.length() <= MAX_LENGTH)
+        {
+            consumer.word(word.toString(), position);
+        }
+        word.setLength(0);
+    }
+
+    // The words of text in order, for queries; throws IllegalArgumentException for a word that
+    // is too long to be indexed, since a query without it would find the wrong messages
+    public static List<String> words(String text)
+    {
+        List<String> words = new ArrayList<>();
+        if (tokenize(text, (word, position) -> words.add(word)) != words.size())
+        {
+            throw new IllegalArgumentException("Words longer than " + MAX_LENGTH + " characters are not indexed: " + text.trim());
+        }
+        return words;
+    }
+}
@@ -0,0 +1,113 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : ChatMetrics.java
+// Description : The metrics of the chat servers, and their export over HTTP and JMX.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.metrics;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+
+import chat.net.Handshake;
+import chat.net.MessageChannel;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : ChatMetrics
+// Description : One process-wide registry, like the single log per server process. Counters
+//               and histograms are static so the hot paths reach them without passing a
+//               registry around; gauges over live objects such as the connection count are
+//               registered by whoever owns the object.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class ChatMetrics
+{
+    public static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    public static final Counter CONNECTIONS_OPENED = REGISTRY.counter("chat_connections_opened_total", "Client connections accepted");
+    public static final Counter CONNECTIONS_CLOSED = REGISTRY.counter("chat_connections_closed_total", "Client connections closed");
+    public static final Counter MESSAGES_RECEIVED = REGISTRY.counter("chat_messages_received_total", "Messages received from clients");
+    public static final Counter MESSAGES_SENT = REGISTRY.counter("chat_messages_sent_total", "Messages queued for delivery to clients, counted per recipient");
+    public static final Counter MESSAGES_DROPPED = REGISTRY.counter("chat_messages_dropped_total", "Messages dropped for clients that could not keep up");
+    public static final Counter MESSAGES_SPILLED = REGISTRY.counter("chat_messages_spilled_total", "Messages queued in spill files for clients that could not keep up");
+    public static final Counter SLOW_CONSUMER_DISCONNECTS = REGISTRY.counter("chat_slow_consumer_disconnects_total", "Clients disconnected for falling too far behind");
+    public static final Counter BYTES_RECEIVED = REGISTRY.counter("chat_bytes_received_total", "Bytes read from client sockets");
+    public static final Counter BYTES_SENT = REGISTRY.counter("chat_bytes_sent_total", "Bytes written to client sockets");
+    public static final Counter LOG_RECORDS = REGISTRY.counter("chat_log_records_total", "Records queued for the chat log");
+    public static final Counter HISTORY_REPLAYS = REGISTRY.counter("chat_history_replays_total", "/since requests answered from the message store");
+    public static final Counter PEERS_DEAD = REGISTRY.counter("chat_peers_dead_total", "Connections closed because the peer stopped answering heartbeats");
+    public static final Counter PEERS_IDLE = REGISTRY.counter("chat_peers_idle_total", "Connections without heartbeats closed after the idle timeout");
+    public static final Counter CLUSTER_RELAYED = REGISTRY.counter("chat_cluster_messages_relayed_total", "Messages queued for other cluster nodes, counted per node");
+    public static final Counter CLUSTER_RECEIVED = REGISTRY.counter("chat_cluster_messages_received_total", "Messages received from other cluster nodes");
+    public static final Counter CLUSTER_DROPPED = REGISTRY.counter("chat_cluster_messages_dropped_total", "Messages for cluster nodes that were not connected");
+
+    // Per-message paths are sampled; LatencyHistogram explains why
+    public static final LatencyHistogram RECEIVE = REGISTRY.histogram("chat_receive_seconds", "Time to handle one received message, up to queueing it for every recipient, sampled 1 in 16", 16);
+    public static final LatencyHistogram SEND = REGISTRY.histogram("chat_send_seconds", "Time to write queued messages to a client socket, sampled 1 in 16", 16);
+    public static final LatencyHistogram LOG_APPEND = REGISTRY.histogram("chat_log_append_seconds", "Time to queue one record for the log writer, sampled 1 in 64", 64);
+    public static final LatencyHistogram LOG_FLUSH = REGISTRY.histogram("chat_log_flush_seconds", "Time the log writer takes to flush or fsync the log");
+    public static final LatencyHistogram STORE_APPEND = REGISTRY.histogram("chat_store_append_seconds", "Time to append one message to the message store");
+
+    // Up-down totals behind the queue depth gauges
+    public static final LongAdder OUTBOUND_MESSAGES = new LongAdder();
+    public static final LongAdder OUTBOUND_BYTES = new LongAdder();
+    public static final LongAdder SPILLED_BYTES = new LongAdder();
+
+    static
+    {
+        REGISTRY.gauge("chat_outbound_queued_messages", "Messages waiting in outbound queues, in memory or spilled", OUTBOUND_MESSAGES::sum);
+        REGISTRY.gauge("chat_outbound_queued_bytes", "Bytes waiting in outbound queues in memory", OUTBOUND_BYTES::sum);
+        REGISTRY.gauge("chat_outbound_spilled_bytes", "Bytes waiting in outbound spill files", SPILLED_BYTES::sum);
+    }
+
+    private ChatMetrics()
+    {
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : accept
+    // Description   : Server side of Handshake.accept with the socket's bytes counted in
+    //                 BYTES_RECEIVED and BYTES_SENT.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static MessageChannel accept(Socket socket) throws IOException
+    {
+        return Handshake.accept(socket, new CountingInputStream(socket.getInputStream(), BYTES_RECEIVED),
+                new CountingOutputStream(socket.getOutputStream(), BYTES_SENT));
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : export
+    // Description   : Registers the JMX MBean and, if -Dchat.metrics.port is set, starts the
+    //                 Prometheus endpoint on that local port. Failures are reported, not thrown:
+    //                 a server must not fail to start over its metrics.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static void export()
+    {
+        try
+        {
+            MetricsMBean.register(REGISTRY);
+        }
+        catch (JMException e)
+        {
+            System.err.println("Metrics: JMX registration failed: " + e);
+        }
+
+        String port = System.getProperty("chat.metrics.port");
+        if (port != null)
+        {
+            try
+            {
+                MetricsEndpoint endpoint = MetricsEndpoint.start(REGISTRY, Integer.parseInt(port));
+                System.out.println("Metrics at http://127.0.0.1:" + endpoint.getPort() + "/metrics");
+            }
+            catch (IOException | NumberFormatException e)
+            {
+                System.err.println("Metrics: endpoint on port " + port + " failed: " + e);
+            }
+        }
+    }
+}
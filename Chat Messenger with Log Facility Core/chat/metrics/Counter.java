@@ -0,0 +1,60 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : Counter.java
+// Description : Monotonic counter for hot paths.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : Counter
+// Description : Backed by a LongAdder, so threads that count at the same time update separate
+//               cells instead of fighting over one cache line. Counting does nothing when
+//               metrics are switched off.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class Counter extends Metric
+{
+    private final LongAdder adder = new LongAdder();
+
+    Counter(String name, String help)
+    {
+        super(name, help);
+    }
+
+    public void increment()
+    {
+        if (MetricsRegistry.ENABLED)
+        {
+            adder.increment();
+        }
+    }
+
+    public void add(long n)
+    {
+        if (MetricsRegistry.ENABLED)
+        {
+            adder.add(n);
+        }
+    }
+
+    public long get()
+    {
+        return adder.sum();
+    }
+
+    void writePrometheus(StringBuilder out)
+    {
+        writeHeader(out, "counter");
+        out.append(getName()).append(' ').append(get()).append('\n');
+    }
+
+    void addAttributes(Map<String, Object> attributes)
+    {
+        attributes.put(getName(), get());
+    }
+}
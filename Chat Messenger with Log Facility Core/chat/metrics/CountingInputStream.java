@@ -0,0 +1,49 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : CountingInputStream.java
+// Description : Adds the bytes read from a socket to a Counter.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : CountingInputStream
+// Description : Meant to sit right on the socket, below any buffering, so it counts once per
+//               read call rather than once per byte.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class CountingInputStream extends FilterInputStream
+{
+    private final Counter counter;
+
+    public CountingInputStream(InputStream in, Counter counter)
+    {
+        super(in);
+        this.counter = counter;
+    }
+
+    public int read() throws IOException
+    {
+        int b = in.read();
+        if (b >= 0)
+        {
+            counter.increment();
+        }
+        return b;
+    }
+
+    public int read(byte[] buffer, int offset, int length) throws IOException
+    {
+        int n = in.read(buffer, offset, length);
+        if (n > 0)
+        {
+            counter.add(n);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,41 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : CountingOutputStream.java
+// Description : Adds the bytes written to a socket to a Counter.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.metrics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : CountingOutputStream
+// Description : Writes arrays straight through; FilterOutputStream would split them into
+//               single bytes.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class CountingOutputStream extends FilterOutputStream
+{
+    private final Counter counter;
+
+    public CountingOutputStream(OutputStream out, Counter counter)
+    {
+        super(out);
+        this.counter = counter;
+    }
+
+    public void write(int b) throws IOException
+    {
+        out.write(b);
+        counter.increment();
+    }
+
+    public void write(byte[] buffer, int offset, int length) throws IOException
+    {
+        out.write(buffer, offset, length);
+        counter.add(length);
+    }
+}
@@ -0,0 +1,44 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : Gauge.java
+// Description : A value that can go up and down, read when the metrics are collected.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.metrics;
+
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : Gauge
+// Description : Costs nothing on the hot path; the supplier runs on the collecting thread and
+//               must be safe to call from there.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class Gauge extends Metric
+{
+    private final LongSupplier value;
+
+    Gauge(String name, String help, LongSupplier value)
+    {
+        super(name, help);
+        this.value = value;
+    }
+
+    public long get()
+    {
+        return value.getAsLong();
+    }
+
+    void writePrometheus(StringBuilder out)
+    {
+        writeHeader(out, "gauge");
+        out.append(getName()).append(' ').append(get()).append('\n');
+    }
+
+    void addAttributes(Map<String, Object> attributes)
+    {
+        attributes.put(getName(), get());
+    }
+}
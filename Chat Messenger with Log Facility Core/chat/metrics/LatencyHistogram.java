@@ -0,0 +1,214 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LatencyHistogram.java
+// Description : Concurrent latency histogram with bounded relative error, in the style of
+//               HdrHistogram.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LatencyHistogram
+// Description : Nanosecond values are counted in log-linear buckets: every power of two is
+//               split into SUB_BUCKETS equal buckets, so a bucket is never wider than 1/32 of
+//               its value, about 3%. Values below SUB_BUCKETS get a bucket each; values above
+//               MAX_EXPONENT (about 68 s) land in the last bucket. Recording is one index
+//               computation and a LongAdder increment, so it never blocks. Quantiles are read
+//               from a copy of the bucket counts, so they may lag concurrent records slightly.
+//               They cover everything recorded since the start, and the reported value is the
+//               upper end of the bucket.
+//
+//               Timing costs two System.nanoTime() calls, which on some machines is as much as
+//               the work being timed on the per-message paths. A histogram created with a
+//               sample rate of N times a random one in N calls of startSample(); its count and
+//               sum then cover the sampled calls only, while quantiles and the mean still
+//               describe all of them.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class LatencyHistogram extends Metric
+{
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 36;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    // Quantiles exported to Prometheus and JMX
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+    private static final String[] QUANTILE_NAMES = { "p50", "p90", "p99", "p999" };
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder sum = new LongAdder();
+    private final int sampleMask;
+    private final boolean enabled;
+
+    // sampleEvery is rounded up to a power of two
+    LatencyHistogram(String name, String help, int sampleEvery)
+    {
+        this(name, help, sampleEvery, MetricsRegistry.ENABLED);
+    }
+
+    // Unregistered histogram that always records, for tools that report latencies themselves
+    public LatencyHistogram(String name, String help)
+    {
+        this(name, help, 1, true);
+    }
+
+    private LatencyHistogram(String name, String help, int sampleEvery, boolean enabled)
+    {
+        super(name, help);
+        this.sampleMask = (sampleEvery <= 1) ? 0 : Integer.highestOneBit(sampleEvery - 1) * 2 - 1;
+        this.enabled = enabled;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : record
+    // Description   : Counts one latency in nanoseconds.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void record(long nanos)
+    {
+        if (!enabled)
+        {
+            return;
+        }
+        long value = Math.max(0, nanos);
+        buckets[indexOf(value)].increment();
+        sum.add(value);
+    }
+
+    // Start time for recordSince() for a sampled call, 0 for the calls that are not timed
+    public long startSample()
+    {
+        if (!enabled || (ThreadLocalRandom.current().nextInt() & sampleMask) != 0)
+        {
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    // Records the time since start, a value from startSample() or MetricsRegistry.startTimer();
+    // 0 means not timed
+    public void recordSince(long start)
+    {
+        if (start != 0)
+        {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    static int indexOf(long value)
+    {
+        if (value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT)
+        {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // Largest value that falls into bucket index
+    static long upperBoundOf(int index)
+    {
+        if (index < SUB_BUCKETS)
+        {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BITS);
+        return ((SUB_BUCKETS + sub) << (exponent - SUB_BITS)) + width - 1;
+    }
+
+    private long[] snapshot()
+    {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    private static long total(long[] counts)
+    {
+        long total = 0;
+        for (long count : counts)
+        {
+            total += count;
+        }
+        return total;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : valueAt
+    // Description   : Nanoseconds at or below which the given fraction of the counted values
+    //                 lie, 0 while nothing has been recorded.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private static long valueAt(long[] counts, long total, double quantile)
+    {
+        if (total == 0)
+        {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++)
+        {
+            seen += counts[i];
+            if (seen >= rank)
+            {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(counts.length - 1);
+    }
+
+    public long getCount()
+    {
+        return total(snapshot());
+    }
+
+    public long valueAtQuantile(double quantile)
+    {
+        long[] counts = snapshot();
+        return valueAt(counts, total(counts), quantile);
+    }
+
+    void writePrometheus(StringBuilder out)
+    {
+        long[] counts = snapshot();
+        long total = total(counts);
+        writeHeader(out, "summary");
+        for (double quantile : QUANTILES)
+        {
+            out.append(getName()).append("{quantile=\"").append(quantile).append("\"} ")
+                    .append(valueAt(counts, total, quantile) / 1e9).append('\n');
+        }
+        out.append(getName()).append("_sum ").append(sum.sum() / 1e9).append('\n');
+        out.append(getName()).append("_count ").append(total).append('\n');
+    }
+
+    void addAttributes(Map<String, Object> attributes)
+    {
+        long[] counts = snapshot();
+        long total = total(counts);
+        attributes.put(getName() + "_count", total);
+        for (int i = 0; i < QUANTILES.length; i++)
+        {
+            attributes.put(getName() + "_" + QUANTILE_NAMES[i], valueAt(counts, total, QUANTILES[i]) / 1e9);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : Metric.java
+// Description : Common base of the metric types kept in a MetricsRegistry.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.metrics;
+
+import java.util.Map;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : Metric
+// Description : A named value with a help text that can write itself in the Prometheus text
+//               format and as JMX attributes.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public abstract class Metric
+{
+    private final String name;
+    private final String help;
+
+    Metric(String name, String help)
+    {
+        this.name = name;
+        this.help = help;
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public String getHelp()
+    {
+        return help;
+    }
+
+    // Appends the "# HELP", "# TYPE" and sample lines of this metric
+    abstract void writePrometheus(StringBuilder out);
+
+    // Adds one attribute per value, keyed by attribute name
+    abstract void addAttributes(Map<String, Object> attributes);
+
+    // Writes the "# HELP" and "# TYPE" lines
+    void writeHeader(StringBuilder out, String type)
+    {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+}
@@ -0,0 +1,85 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : MetricsEndpoint.java
+// Description : Local HTTP endpoint that serves a MetricsRegistry to Prometheus.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : MetricsEndpoint
+// Description : GET /metrics on the loopback interface only, answered on one daemon thread of
+//               the JDK's built-in HTTP server, so scraping never touches the chat threads.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class MetricsEndpoint
+{
+    private final HttpServer server;
+
+    private MetricsEndpoint(HttpServer server)
+    {
+        this.server = server;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : start
+    // Description   : Binds 127.0.0.1:port (0 picks a free port) and starts serving.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static MetricsEndpoint start(MetricsRegistry registry, int port) throws IOException
+    {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> serve(exchange, registry));
+
+        // The dispatcher thread inherits daemon status from the thread that starts the server
+        Thread starter = Thread.ofPlatform().name("chat-metrics-start").daemon(true).unstarted(server::start);
+        starter.start();
+        try
+        {
+            starter.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        return new MetricsEndpoint(server);
+    }
+
+    private static void serve(HttpExchange exchange, MetricsRegistry registry) throws IOException
+    {
+        try (exchange)
+        {
+            if (!exchange.getRequestMethod().equals("GET"))
+            {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = registry.toPrometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody())
+            {
+                out.write(body);
+            }
+        }
+    }
+
+    public int getPort()
+    {
+        return server.getAddress().getPort();
+    }
+
+    public void stop()
+    {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,111 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : MetricsMBean.java
+// Description : Publishes a MetricsRegistry as one JMX MBean, e.g. for JConsole.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : MetricsMBean
+// Description : A read-only dynamic MBean with one attribute per counter and gauge, and a
+//               count plus quantiles in seconds per histogram. The attribute list is built
+//               from the registry whenever it is asked for, so metrics registered later show up
+//               too.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class MetricsMBean implements DynamicMBean
+{
+    public static final String OBJECT_NAME = "chat:type=Metrics";
+
+    private final MetricsRegistry registry;
+
+    private MetricsMBean(MetricsRegistry registry)
+    {
+        this.registry = registry;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : register
+    // Description   : Registers the registry with the platform MBean server, replacing an
+    //                 earlier registration.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static void register(MetricsRegistry registry) throws JMException
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (server.isRegistered(name))
+        {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(new MetricsMBean(registry), name);
+    }
+
+    public Object getAttribute(String attribute) throws AttributeNotFoundException
+    {
+        Object value = registry.attributes().get(attribute);
+        if (value == null)
+        {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
+    }
+
+    public AttributeList getAttributes(String[] attributes)
+    {
+        Map<String, Object> values = registry.attributes();
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes)
+        {
+            if (values.containsKey(attribute))
+            {
+                list.add(new Attribute(attribute, values.get(attribute)));
+            }
+        }
+        return list;
+    }
+
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException
+    {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    public AttributeList setAttributes(AttributeList attributes)
+    {
+        return new AttributeList();
+    }
+
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException
+    {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    public MBeanInfo getMBeanInfo()
+    {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : registry.attributes().entrySet())
+        {
+            attributes.add(new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(),
+                    entry.getKey(), true, false, false));
+        }
+        return new MBeanInfo(getClass().getName(), "Chat server metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+    }
+}
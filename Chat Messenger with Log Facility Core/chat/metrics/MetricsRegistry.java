@@ -0,0 +1,105 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : MetricsRegistry.java
+// Description : The set of metrics a process exports, by name.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : MetricsRegistry
+// Description : Metrics are created once and kept in registration order; registering a gauge
+//               under a name that exists replaces it, so a restarted component can register
+//               its gauges again. Starting the JVM with -Dchat.metrics=off turns recording
+//               off everywhere, which is how the overhead of the metrics is measured.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class MetricsRegistry
+{
+    // Folded by the JIT, so switched-off metrics cost nothing on the hot path
+    static final boolean ENABLED = !System.getProperty("chat.metrics", "on").equalsIgnoreCase("off");
+
+    private final Map<String, Metric> metrics = new LinkedHashMap<>();
+
+    // Start time for LatencyHistogram.recordSince(), or 0 when metrics are off
+    public static long startTimer()
+    {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    public static boolean isEnabled()
+    {
+        return ENABLED;
+    }
+
+    public synchronized Counter counter(String name, String help)
+    {
+        return add(new Counter(name, help));
+    }
+
+    public synchronized LatencyHistogram histogram(String name, String help)
+    {
+        return histogram(name, help, 1);
+    }
+
+    // A histogram that times one in sampleEvery calls of startSample()
+    public synchronized LatencyHistogram histogram(String name, String help, int sampleEvery)
+    {
+        return add(new LatencyHistogram(name, help, sampleEvery));
+    }
+
+    public synchronized Gauge gauge(String name, String help, LongSupplier value)
+    {
+        Gauge gauge = new Gauge(name, help, value);
+        metrics.put(name, gauge);
+        return gauge;
+    }
+
+    private <T extends Metric> T add(T metric)
+    {
+        if (metrics.containsKey(metric.getName()))
+        {
+            throw new IllegalArgumentException("Metric already registered: " + metric.getName());
+        }
+        metrics.put(metric.getName(), metric);
+        return metric;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : toPrometheus
+    // Description   : Every metric in the Prometheus text exposition format, version 0.0.4.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public String toPrometheus()
+    {
+        StringBuilder out = new StringBuilder(4096);
+        for (Metric metric : snapshot())
+        {
+            metric.writePrometheus(out);
+        }
+        return out.toString();
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : attributes
+    // Description   : Current values keyed by JMX attribute name, in registration order.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public Map<String, Object> attributes()
+    {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for (Metric metric : snapshot())
+        {
+            metric.addAttributes(attributes);
+        }
+        return attributes;
+    }
+
+    private synchronized Metric[] snapshot()
+    {
+        return metrics.values().toArray(new Metric[0]);
+    }
+}
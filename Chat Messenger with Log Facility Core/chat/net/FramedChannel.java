@@ -0,0 +1,376 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : FramedChannel.java
+// Description : Length-prefixed binary wire protocol that batches messages into frames and
+//               deflates large batches.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.net;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : FramedChannel
+// Description : All numbers are big-endian.
+//
+//               frame   : int    length of everything after this field
+//                         byte   flags, bit 0 set when the records are deflated, bit 1 for a
+//                                ping and bit 2 for a pong
+//                         long   sequence number of the first message in the frame
+//                         int    number of messages
+//                         int    length of the inflated records, only when deflated
+//                         byte[] records, deflated or not
+//               record  : int    payload length
+//                         byte[] UTF-8 payload, may contain line breaks
+//
+//               Sent messages collect in a batch that becomes one frame when it reaches
+//               MAX_BATCH_BYTES or on flush(), so a burst costs one header and one write.
+//               Batches of at least COMPRESS_THRESHOLD bytes are deflated when the peer
+//               agreed to it and deflating actually makes them smaller. Every message gets the
+//               next sequence number of its sender, starting at 0.
+//
+//               A ping or pong is a frame without messages, so a peer that did not agree to
+//               heartbeats would read it as an empty batch. receive() answers pings with a pong
+//               and never returns either.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public class FramedChannel implements MessageChannel
+{
+    static final int FLAG_DEFLATED = 1;
+    static final int FLAG_PING = 2;
+    static final int FLAG_PONG = 4;
+
+    // Flags, first sequence number and message count
+    private static final int HEADER_SIZE = 1 + 8 + 4;
+
+    // Batch size that is sent without waiting for flush()
+    static final int MAX_BATCH_BYTES = 64 * 1024;
+
+    // Smallest batch worth deflating
+    static final int COMPRESS_THRESHOLD = 1024;
+
+    // Upper bound for a frame, guards readers against corrupt length fields
+    static final int MAX_FRAME = 16 * 1024 * 1024;
+
+    private final Socket socket;
+    private final boolean deflate;
+    private final boolean heartbeats;
+
+    // Sending side, guarded by this
+    private final OutputStream out;
+    private final ByteBuffer header = ByteBuffer.allocate(4 + HEADER_SIZE + 4);
+    private byte[] batch = new byte[MAX_BATCH_BYTES + 1024];
+    private int batchLength;
+    private int batchCount;
+    private long nextSequence;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private byte[] deflated = new byte[0];
+
+    // Receiving side, used by the reader thread only
+    private final DataInputStream in;
+    private final ArrayDeque<String> received = new ArrayDeque<>();
+    private final Inflater inflater = new Inflater();
+    private byte[] frame = new byte[8192];
+    private byte[] records = new byte[8192];
+    private long lastSequence = -1;
+    private volatile long lastReceivedNanos = System.nanoTime();
+
+    // in may hold bytes already read from the socket during negotiation; out writes to the socket
+    public FramedChannel(Socket socket, InputStream in, OutputStream out, boolean deflate)
+    {
+        this(socket, in, out, deflate, false);
+    }
+
+    // Same, with heartbeats if the peer agreed to them
+    public FramedChannel(Socket socket, InputStream in, OutputStream out, boolean deflate, boolean heartbeats)
+    {
+        this.socket = socket;
+        this.deflate = deflate;
+        this.heartbeats = heartbeats;
+        this.in = new DataInputStream(new BufferedInputStream(in, Handshake.BUFFER_SIZE));
+        this.out = new BufferedOutputStream(out, Handshake.BUFFER_SIZE);
+    }
+
+    public void send(String message) throws IOException
+    {
+        byte[] utf8 = message.getBytes(StandardCharsets.UTF_8);
+        send(utf8, 0, utf8.length);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : send
+    // Description   : Adds one record to the current batch and writes the batch as a frame once
+    //                 it is full.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public synchronized void send(byte[] utf8, int offset, int length) throws IOException
+    {
+        if (length > MAX_FRAME / 2)
+        {
+            throw new IOException("Message too large: " + length + " bytes");
+        }
+        if (batch.length < batchLength + 4 + length)
+        {
+            batch = Arrays.copyOf(batch, Math.max(batch.length * 2, batchLength + 4 + length));
+        }
+        ByteBuffer.wrap(batch, batchLength, 4).putInt(length);
+        System.arraycopy(utf8, offset, batch, batchLength + 4, length);
+        batchLength += 4 + length;
+        batchCount++;
+        if (batchLength >= MAX_BATCH_BYTES)
+        {
+            writeFrame();
+        }
+    }
+
+    // Turns the current batch into one frame in the output buffer
+    private void writeFrame() throws IOException
+    {
+        if (batchCount == 0)
+        {
+            return;
+        }
+        byte[] body = batch;
+        int bodyLength = batchLength;
+        boolean compressed = false;
+        if (deflate && batchLength >= COMPRESS_THRESHOLD)
+        {
+            // Only worth it if the result is smaller, so the output never needs more room
+            if (deflated.length < batchLength)
+            {
+                deflated = new byte[batchLength];
+            }
+            deflater.reset();
+            deflater.setInput(batch, 0, batchLength);
+            deflater.finish();
+            int n = 0;
+            while (!deflater.finished() && n < batchLength)
+            {
+                n += deflater.deflate(deflated, n, batchLength - n);
+            }
+            if (deflater.finished() && n + 4 < batchLength)
+            {
+                body = deflated;
+                bodyLength = n;
+                compressed = true;
+            }
+        }
+
+        header.clear();
+        header.putInt(HEADER_SIZE + (compressed ? 4 : 0) + bodyLength);
+        header.put((byte) (compressed ? FLAG_DEFLATED : 0));
+        header.putLong(nextSequence);
+        header.putInt(batchCount);
+        if (compressed)
+        {
+            header.putInt(batchLength);
+        }
+        out.write(header.array(), 0, header.position());
+        out.write(body, 0, bodyLength);
+
+        nextSequence += batchCount;
+        batchLength = 0;
+        batchCount = 0;
+    }
+
+    public synchronized void flush() throws IOException
+    {
+        writeFrame();
+        out.flush();
+    }
+
+    public void ping() throws IOException
+    {
+        sendControl(FLAG_PING);
+    }
+
+    // Writes what is batched, then a ping or pong frame, and flushes
+    private synchronized void sendControl(int flag) throws IOException
+    {
+        writeFrame();
+        header.clear();
+        header.putInt(HEADER_SIZE);
+        header.put((byte) flag);
+        header.putLong(nextSequence);
+        header.putInt(0);
+        out.write(header.array(), 0, header.position());
+        out.flush();
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : receive
+    // Description   : Returns the next message, reading another frame when the last one is
+    //                 used up. A frame cut off by the end of the stream ends the input.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public String receive() throws IOException
+    {
+        try
+        {
+            while (received.isEmpty())
+            {
+                if (!readFrame())
+                {
+                    return null;
+                }
+            }
+        }
+        catch (EOFException e)
+        {
+            return null;
+        }
+        return received.poll();
+    }
+
+    private boolean readFrame() throws IOException
+    {
+        int first = in.read();
+        if (first < 0)
+        {
+            return false;
+        }
+        lastReceivedNanos = System.nanoTime();
+        int length = (first << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedShort());
+        if (length < HEADER_SIZE || length > MAX_FRAME)
+        {
+            throw new IOException("Corrupt frame length: " + length);
+        }
+        int flags = in.readUnsignedByte();
+        long sequence = in.readLong();
+        int count = in.readInt();
+        int bodyLength = length - HEADER_SIZE;
+        if (count < 0)
+        {
+            throw new IOException("Corrupt frame message count: " + count);
+        }
+        if ((flags & (FLAG_PING | FLAG_PONG)) != 0)
+        {
+            frame = readBody(frame, bodyLength);
+            if ((flags & FLAG_PING) != 0)
+            {
+                sendControl(FLAG_PONG);
+            }
+            return true;
+        }
+
+        byte[] data;
+        int dataLength;
+        if ((flags & FLAG_DEFLATED) != 0)
+        {
+            dataLength = in.readInt();
+            bodyLength -= 4;
+            if (dataLength < 0 || dataLength > MAX_FRAME || bodyLength < 0)
+            {
+                throw new IOException("Corrupt compressed frame");
+            }
+            frame = readBody(frame, bodyLength);
+            if (records.length < dataLength)
+            {
+                records = new byte[dataLength];
+            }
+            inflater.reset();
+            inflater.setInput(frame, 0, bodyLength);
+            try
+            {
+                int n = 0;
+                while (n < dataLength && !inflater.finished())
+                {
+                    int inflated = inflater.inflate(records, n, dataLength - n);
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    {
+                        break;
+                    }
+                    n += inflated;
+                }
+                if (n != dataLength)
+                {
+                    throw new IOException("Corrupt compressed frame");
+                }
+            }
+            catch (DataFormatException e)
+            {
+                throw new IOException("Corrupt compressed frame", e);
+            }
+            data = records;
+        }
+        else
+        {
+            frame = readBody(frame, bodyLength);
+            data = frame;
+            dataLength = bodyLength;
+        }
+
+        ByteBuffer view = ByteBuffer.wrap(data, 0, dataLength);
+        for (int i = 0; i < count; i++)
+        {
+            int size = view.getInt();
+            if (size < 0 || size > view.remaining())
+            {
+                throw new IOException("Corrupt frame record");
+            }
+            received.add(new String(data, view.position(), size, StandardCharsets.UTF_8));
+            view.position(view.position() + size);
+        }
+        lastSequence = sequence + count - 1;
+        return true;
+    }
+
+    private byte[] readBody(byte[] buffer, int length) throws IOException
+    {
+        byte[] target = (buffer.length < length) ? new byte[length] : buffer;
+        in.readFully(target, 0, length);
+        return target;
+    }
+
+    // Sequence number of the newest message received from the peer, -1 before the first one
+    public long getLastSequence()
+    {
+        return lastSequence;
+    }
+
+    public boolean hasBuffered() throws IOException
+    {
+        return !received.isEmpty() || in.available() > 0;
+    }
+
+    public synchronized void shutdownOutput() throws IOException
+    {
+        flush();
+        socket.shutdownOutput();
+    }
+
+    public boolean isFramed()
+    {
+        return true;
+    }
+
+    public boolean hasHeartbeats()
+    {
+        return heartbeats;
+    }
+
+    public long getLastReceivedNanos()
+    {
+        return lastReceivedNanos;
+    }
+
+    // The deflater and inflater release their native memory when collected; ending them here
+    // could race with a send or receive still running on another thread
+    public void close() throws IOException
+    {
+        socket.close();
+    }
+}
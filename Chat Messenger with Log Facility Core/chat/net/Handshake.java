@@ -0,0 +1,227 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : Handshake.java
+// Description : Negotiates the wire protocol of a new connection: framed when both ends support
+//               it, plain text lines otherwise.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : Handshake
+// Description : The connecting side sends one text line offering the protocol and its options
+//
+//                 CHAT/1 HELLO deflate ping
+//
+//               and a peer that supports it answers with the options it accepts
+//
+//                 CHAT/1 OK deflate ping
+//
+//               after which both sides switch to FramedChannel. A peer that only speaks lines
+//               but knows the handshake answers "CHAT/1 NO", followed by "ping" if it takes
+//               part in heartbeats as PING and PONG lines. Older peers do not answer at all;
+//               after CONNECT_TIMEOUT_MILLIS the connection falls back to LineChannel, and
+//               such a peer shows the hello as one ordinary message.
+//
+//               The accepting side waits ACCEPT_TIMEOUT_MILLIS for a hello. Anything else that
+//               arrives is put back and read as line protocol, so old clients work unchanged.
+//               The version number in "CHAT/1" changes with incompatible frame layouts.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class Handshake
+{
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    public static final String HELLO = "CHAT/1 HELLO";
+    static final String ACCEPT = "CHAT/1 OK";
+    static final String DECLINE = "CHAT/1 NO";
+    static final String DEFLATE = "deflate";
+    static final String HEARTBEATS = "ping";
+
+    // Heartbeat lines of the line protocol, used only when both sides offered "ping"
+    public static final String PING = "CHAT/1 PING";
+    public static final String PONG = "CHAT/1 PONG";
+
+    static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    static final int ACCEPT_TIMEOUT_MILLIS = 1000;
+
+    // Longest handshake line; also the most that is ever pushed back
+    private static final int MAX_LINE = 128;
+
+    private Handshake()
+    {
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : connect
+    // Description   : Client side: offers the framed protocol with compression and returns the
+    //                 channel for whatever the server answered.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static MessageChannel connect(Socket socket) throws IOException
+    {
+        OutputStream out = socket.getOutputStream();
+        out.write((HELLO + " " + DEFLATE + " " + HEARTBEATS + "\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+
+        PushbackInputStream in = new PutBack(socket.getInputStream());
+        String reply = readLine(socket, in, CONNECT_TIMEOUT_MILLIS, ACCEPT, DECLINE);
+        if (reply != null && reply.startsWith(ACCEPT))
+        {
+            List<String> options = optionsOf(reply, ACCEPT);
+            return new FramedChannel(socket, in, out, options.contains(DEFLATE), options.contains(HEARTBEATS));
+        }
+        if (reply != null)
+        {
+            return new LineChannel(socket, in, out, optionsOf(reply, DECLINE).contains(HEARTBEATS));
+        }
+        return new LineChannel(socket, in, out);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : accept
+    // Description   : Server side: answers a hello with the options both sides support, or keeps
+    //                 the line protocol for clients that do not send one.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static MessageChannel accept(Socket socket) throws IOException
+    {
+        return accept(socket, socket.getInputStream(), socket.getOutputStream());
+    }
+
+    // Same, reading and writing through the given socket streams, e.g. to count the bytes
+    public static MessageChannel accept(Socket socket, InputStream input, OutputStream out) throws IOException
+    {
+        PushbackInputStream in = new PutBack(input);
+        String hello = readLine(socket, in, ACCEPT_TIMEOUT_MILLIS, HELLO);
+        if (hello == null)
+        {
+            return new LineChannel(socket, in, out);
+        }
+        List<String> options = optionsOf(hello, HELLO);
+        boolean deflate = options.contains(DEFLATE);
+        boolean heartbeats = options.contains(HEARTBEATS);
+        out.write((ACCEPT + (deflate ? " " + DEFLATE : "") + (heartbeats ? " " + HEARTBEATS : "") + "\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return new FramedChannel(socket, in, out, deflate, heartbeats);
+    }
+
+    // True for a hello line read by a server that only speaks the line protocol
+    public static boolean isHello(String line)
+    {
+        return line.startsWith(HELLO);
+    }
+
+    // True if the client that sent hello takes part in heartbeats
+    public static boolean offersHeartbeats(String hello)
+    {
+        return optionsOf(hello, HELLO).contains(HEARTBEATS);
+    }
+
+    // Answer of a line-only server to a hello, including the line terminator
+    public static byte[] declineLine()
+    {
+        return (DECLINE + "\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Same, also agreeing to heartbeats as PING and PONG lines
+    public static byte[] declineLineWithHeartbeats()
+    {
+        return (DECLINE + " " + HEARTBEATS + "\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : readLine
+    // Description   : Reads one line byte by byte, so nothing after it is consumed, and returns
+    //                 it if it starts with one of the expected prefixes. Otherwise, and on
+    //                 timeout or end of stream, every byte read is pushed back and null returned.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private static String readLine(Socket socket, PushbackInputStream in, int timeoutMillis, String... expected) throws IOException
+    {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(MAX_LINE);
+        boolean complete = false;
+        int previousTimeout = socket.getSoTimeout();
+        socket.setSoTimeout(timeoutMillis);
+        try
+        {
+            while (line.size() < MAX_LINE)
+            {
+                int b = in.read();
+                if (b < 0)
+                {
+                    break;
+                }
+                line.write(b);
+                if (b == '\n')
+                {
+                    complete = true;
+                    break;
+                }
+            }
+        }
+        catch (SocketTimeoutException e)
+        {
+            // a peer that does not take part in the handshake
+        }
+        finally
+        {
+            socket.setSoTimeout(previousTimeout);
+        }
+
+        byte[] bytes = line.toByteArray();
+        if (complete)
+        {
+            String text = new String(bytes, 0, bytes.length - 1, StandardCharsets.US_ASCII).trim();
+            for (String prefix : expected)
+            {
+                if (text.startsWith(prefix))
+                {
+                    return text;
+                }
+            }
+        }
+        in.unread(bytes);
+        return null;
+    }
+
+    private static List<String> optionsOf(String line, String prefix)
+    {
+        String options = line.substring(prefix.length()).trim();
+        return options.isEmpty() ? List.of() : Arrays.asList(options.split("\\s+"));
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Class Name  : PutBack
+    // Description : A PushbackInputStream hands out the bytes put back and then goes on reading
+    //               the socket to fill the rest of the caller's buffer, which blocks a reader
+    //               whose peer sent one line and waits for the answer. This one returns the
+    //               bytes put back on their own.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private static final class PutBack extends PushbackInputStream
+    {
+        PutBack(InputStream in)
+        {
+            super(in, MAX_LINE);
+        }
+
+        public int read(byte[] bytes, int offset, int length) throws IOException
+        {
+            int putBack = buf.length - pos;
+            if (putBack > 0 && length > putBack)
+            {
+                return super.read(bytes, offset, putBack);
+            }
+            return super.read(bytes, offset, length);
+        }
+    }
+}
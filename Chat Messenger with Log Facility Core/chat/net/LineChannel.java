@@ -0,0 +1,134 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LineChannel.java
+// Description : The original wire protocol: one UTF-8 text line per message.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.net;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LineChannel
+// Description : Used with peers that do not speak the framed protocol. A message containing a
+//               line break arrives as several messages; that is a limit of the old protocol.
+//               With heartbeats, Handshake.PING and PONG lines are handled by receive().
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public class LineChannel implements MessageChannel
+{
+    private final Socket socket;
+    private final BufferedReader in;
+    private final OutputStream out;
+    private final boolean heartbeats;
+    private volatile long lastReceivedNanos = System.nanoTime();
+
+    // in may hold bytes already read from the socket during negotiation; out writes to the socket
+    public LineChannel(Socket socket, InputStream in, OutputStream out)
+    {
+        this(socket, in, out, false);
+    }
+
+    // Same, with heartbeats if the peer agreed to them
+    public LineChannel(Socket socket, InputStream in, OutputStream out, boolean heartbeats)
+    {
+        this.socket = socket;
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), Handshake.BUFFER_SIZE);
+        this.out = new BufferedOutputStream(out, Handshake.BUFFER_SIZE);
+        this.heartbeats = heartbeats;
+    }
+
+    public synchronized void send(String message) throws IOException
+    {
+        out.write(message.getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+    }
+
+    public synchronized void send(byte[] utf8, int offset, int length) throws IOException
+    {
+        out.write(utf8, offset, length);
+        out.write('\n');
+    }
+
+    public synchronized void flush() throws IOException
+    {
+        out.flush();
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : receive
+    // Description   : Returns the next line, answering and skipping heartbeat lines.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public String receive() throws IOException
+    {
+        String line;
+        while ((line = in.readLine()) != null)
+        {
+            lastReceivedNanos = System.nanoTime();
+            if (!heartbeats)
+            {
+                return line;
+            }
+            if (line.equals(Handshake.PING))
+            {
+                sendNow(Handshake.PONG);
+            }
+            else if (!line.equals(Handshake.PONG))
+            {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    public void ping() throws IOException
+    {
+        sendNow(Handshake.PING);
+    }
+
+    // Sends one line ahead of nothing else queued, and flushes
+    private synchronized void sendNow(String line) throws IOException
+    {
+        send(line);
+        flush();
+    }
+
+    public boolean hasBuffered() throws IOException
+    {
+        return in.ready();
+    }
+
+    public synchronized void shutdownOutput() throws IOException
+    {
+        out.flush();
+        socket.shutdownOutput();
+    }
+
+    public boolean isFramed()
+    {
+        return false;
+    }
+
+    public boolean hasHeartbeats()
+    {
+        return heartbeats;
+    }
+
+    public long getLastReceivedNanos()
+    {
+        return lastReceivedNanos;
+    }
+
+    public void close() throws IOException
+    {
+        socket.close();
+    }
+}
@@ -0,0 +1,105 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LineCodec.java
+// Description : Encodes messages as UTF-8 text lines and splits a byte stream back into lines
+//               without blocking, for the line protocol on non-blocking sockets.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LineCodec
+// Description : One decoder per connection keeps the partial line between reads. Input is
+//               scanned for the next '\n' and copied in bulk; a trailing '\r' is removed, so
+//               lines from Windows clients decode the same.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class LineCodec
+{
+    // Receives decoded lines; returning false stops decoding, e.g. after a close
+    public interface LineHandler
+    {
+        boolean line(String line) throws IOException;
+    }
+
+    private final int maxLineLength;
+    private byte[] partial = new byte[256];
+    private int partialLength;
+
+    public LineCodec(int maxLineLength)
+    {
+        this.maxLineLength = maxLineLength;
+    }
+
+    // A message as one line: UTF-8 bytes followed by '\n'
+    public static byte[] encode(String message)
+    {
+        return (message + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : decode
+    // Description   : Consumes the readable bytes of input and hands every complete line to the
+    //                 handler. Returns false if the handler stopped early; the rest of the input
+    //                 is then left unread.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public boolean decode(ByteBuffer input, LineHandler handler) throws IOException
+    {
+        while (input.hasRemaining())
+        {
+            int start = input.position();
+            int limit = input.limit();
+            int newline = -1;
+            for (int i = start; i < limit; i++)
+            {
+                if (input.get(i) == '\n')
+                {
+                    newline = i;
+                    break;
+                }
+            }
+
+            if (newline < 0)
+            {
+                append(input, limit - start);
+                return true;
+            }
+
+            append(input, newline - start);
+            input.get();
+            int end = partialLength;
+            if (end > 0 && partial[end - 1] == '\r')
+            {
+                end--;
+            }
+            String line = new String(partial, 0, end, StandardCharsets.UTF_8);
+            partialLength = 0;
+            if (!handler.line(line))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void append(ByteBuffer input, int length) throws IOException
+    {
+        int needed = partialLength + length;
+        if (needed > maxLineLength)
+        {
+            throw new IOException("Line longer than " + maxLineLength + " bytes");
+        }
+        if (needed > partial.length)
+        {
+            partial = Arrays.copyOf(partial, Math.min(Math.max(needed, partial.length * 2), maxLineLength));
+        }
+        input.get(partial, partialLength, length);
+        partialLength = needed;
+    }
+}
@@ -0,0 +1,51 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : MessageChannel.java
+// Description : A chat connection that sends and receives whole messages, whichever wire
+//               protocol was negotiated for it.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Interface Name : MessageChannel
+// Description    : Sending and receiving may run on two different threads; sending from several
+//                  threads at once is allowed too. Sent messages are buffered until flush().
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public interface MessageChannel extends Closeable
+{
+    // Queues one message
+    void send(String message) throws IOException;
+
+    // Queues one message that is already UTF-8 encoded, without a line terminator
+    void send(byte[] utf8, int offset, int length) throws IOException;
+
+    // Writes everything queued to the socket
+    void flush() throws IOException;
+
+    // Next message from the peer, or null once the peer has closed its side
+    String receive() throws IOException;
+
+    // True if receive() can return without waiting for the network
+    boolean hasBuffered() throws IOException;
+
+    // Flushes and closes the sending direction; the peer sees the end of its input
+    void shutdownOutput() throws IOException;
+
+    // True for the framed protocol, false for the plain line fallback
+    boolean isFramed();
+
+    // True if the peer agreed to heartbeats; receive() answers its pings and never returns them
+    boolean hasHeartbeats();
+
+    // Sends a ping, which the peer answers with a pong, and flushes
+    void ping() throws IOException;
+
+    // System.nanoTime() when anything, messages or heartbeats, last arrived from the peer
+    long getLastReceivedNanos();
+}
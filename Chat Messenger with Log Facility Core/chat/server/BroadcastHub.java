@@ -0,0 +1,85 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : BroadcastHub.java
+// Description : Shared fan-out point of the thread-per-connection server. A message is encoded
+//               once and the same bytes are handed to every other peer's outbound queue.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import chat.net.LineCodec;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : BroadcastHub
+// Description : Concurrent set of peers, plus the rooms they are in. Publishing never blocks:
+//               each peer decides what to do when its own queue is full, so one slow reader
+//               cannot stall the others.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class BroadcastHub
+{
+    private final Set<Peer> peers = ConcurrentHashMap.newKeySet();
+    private final RoomIndex<Peer> rooms = new RoomIndex<>(Peer[]::new);
+
+    // Adds a peer to the hub and to room
+    public void join(Peer peer, String room)
+    {
+        peers.add(peer);
+        rooms.join(room, peer);
+    }
+
+    // Removes a peer from the hub and from room, the one it was in last
+    public void leave(Peer peer, String room)
+    {
+        peers.remove(peer);
+        rooms.leave(room, peer);
+    }
+
+    public RoomIndex<Peer> getRooms()
+    {
+        return rooms;
+    }
+
+    public int size()
+    {
+        return peers.size();
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : publish
+    // Description   : Delivers a line to every peer except the sender (null sends to everyone).
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void publish(Peer from, String line)
+    {
+        ByteBuffer message = ByteBuffer.wrap(LineCodec.encode(line));
+        for (Peer peer : peers)
+        {
+            if (peer != from)
+            {
+                peer.deliver(message);
+            }
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : publish
+    // Description   : Delivers a line to every member of room except the sender. The line is
+    //                 encoded once and all members queue the same buffer.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void publish(Peer from, String room, String line)
+    {
+        ByteBuffer message = ByteBuffer.wrap(LineCodec.encode(line));
+        for (Peer peer : rooms.members(room))
+        {
+            if (peer != from)
+            {
+                peer.deliver(message);
+            }
+        }
+    }
+}
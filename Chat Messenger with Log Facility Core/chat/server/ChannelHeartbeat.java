@@ -0,0 +1,79 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : ChannelHeartbeat.java
+// Description : HeartbeatPeer for a blocking MessageChannel.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import chat.net.MessageChannel;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : ChannelHeartbeat
+// Description : A ping to a dead peer can block once the socket buffer is full, so it is
+//               written on a virtual thread of its own, one at a time; closing the channel on
+//               expiry releases a ping that is stuck.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class ChannelHeartbeat implements HeartbeatPeer
+{
+    private final MessageChannel channel;
+    private final Consumer<String> onExpired;
+    private final AtomicBoolean pinging = new AtomicBoolean();
+
+    ChannelHeartbeat(MessageChannel channel, Consumer<String> onExpired)
+    {
+        this.channel = channel;
+        this.onExpired = onExpired;
+    }
+
+    public long getLastReceivedNanos()
+    {
+        return channel.getLastReceivedNanos();
+    }
+
+    public boolean hasHeartbeats()
+    {
+        return channel.hasHeartbeats();
+    }
+
+    public void ping()
+    {
+        if (pinging.compareAndSet(false, true))
+        {
+            Thread.ofVirtual().name("chat-ping").start(() ->
+            {
+                try
+                {
+                    channel.ping();
+                }
+                catch (IOException e)
+                {
+                    // the reader sees the broken connection
+                }
+                finally
+                {
+                    pinging.set(false);
+                }
+            });
+        }
+    }
+
+    public void expire(String reason)
+    {
+        onExpired.accept(reason);
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            // already closed
+        }
+    }
+}
@@ -0,0 +1,50 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : ChatServer.java
+// Description : Common contract of the multi-client server modes, so the console front end can
+//               drive any of them the same way.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import chat.store.MessageStore;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Interface Name : ChatServer
+// Description    : A started server accepts clients on its port until it is closed.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public interface ChatServer extends Closeable
+{
+    // Binds the listening socket and starts accepting clients
+    void start() throws IOException;
+
+    // Sends a server-originated line to every connected client
+    void broadcast(String message);
+
+    // Port actually bound, useful when started on port 0
+    int getPort();
+
+    // Clients currently connected
+    int getConnectionCount();
+
+    // Keeps every fanned-out message in store and answers "/since N" from it; call before start()
+    void setMessageStore(MessageStore store);
+
+    // How slow clients are treated; call before start()
+    void setOutboundPolicy(OutboundPolicy policy);
+
+    // When clients are pinged and when silent ones are closed; call before start()
+    void setHeartbeatPolicy(HeartbeatPolicy policy);
+
+    // Passes every client and console line on to the other nodes of a cluster; call before start()
+    void setRelay(Relay relay);
+
+    // Delivers a line from another node to the members of room here, and stores it if this node
+    // owns room; a null room is a console line of that node, for everyone
+    void relayed(String room, String sender, String text);
+}
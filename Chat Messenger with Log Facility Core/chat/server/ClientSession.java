@@ -0,0 +1,241 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : ClientSession.java
+// Description : One client of the thread-per-connection server: a reader loop that publishes
+//               incoming messages to the hub and a writer loop that drains a bounded outbound
+//               queue.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import chat.metrics.ChatMetrics;
+import chat.net.MessageChannel;
+import chat.store.MessageStore;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : ClientSession
+// Description : Blocking I/O on two threads of the server's ThreadModel. The reader first
+//               negotiates the wire protocol; the writer waits for that before sending. Queued
+//               messages are the hub's shared line buffers, so a framed client gets them as
+//               one frame per drained batch. A client that falls behind is handled by the
+//               server's OutboundPolicy, for this client only, and one that goes silent by its
+//               Heartbeats.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class ClientSession implements Peer
+{
+    private final ThreadedChatServer server;
+    private final Socket socket;
+    private final String name;
+    private final QueuedSender outbound;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    // Set by the reader once the protocol is agreed
+    private final CountDownLatch negotiated = new CountDownLatch(1);
+    private volatile MessageChannel channel;
+    private volatile Heartbeats.Watch heartbeat;
+
+    // Room this client is in; changed by the reader thread only
+    private volatile String room = Rooms.LOBBY;
+
+    ClientSession(ThreadedChatServer server, Socket socket, String name, OutboundPolicy policy)
+    {
+        this.server = server;
+        this.socket = socket;
+        this.name = name;
+        this.outbound = new QueuedSender(policy, name);
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    String getRoom()
+    {
+        return room;
+    }
+
+    void setRoom(String room)
+    {
+        this.room = room;
+    }
+
+    boolean isClosed()
+    {
+        return closed.get();
+    }
+
+    // Messages dropped because this client could not keep up
+    long getDropped()
+    {
+        return outbound.getDropped();
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : deliver
+    // Description   : Non-blocking enqueue called by the hub on the publisher's thread. Closes
+    //                 the session if the outbound policy gives up on this client.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void deliver(ByteBuffer message)
+    {
+        if (!outbound.offer(message))
+        {
+            close();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : readLoop
+    // Description   : Negotiates the protocol, then reads client messages until EOF or "end"
+    //                 and hands each one to the server.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void readLoop()
+    {
+        try
+        {
+            channel = ChatMetrics.accept(socket);
+            heartbeat = server.getHeartbeats().watch(channel, reason -> close());
+            negotiated.countDown();
+            if (closed.get())
+            {
+                // close() ran before the watch existed
+                heartbeat.cancel();
+            }
+            String line;
+            while ((line = channel.receive()) != null)
+            {
+                server.lineReceived(this, line);
+                if (line.equalsIgnoreCase("end"))
+                {
+                    break;
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            // connection reset or closed by close()
+        }
+        finally
+        {
+            close();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : replay
+    // Description   : Answers "/since" on the reader thread, sending the stored messages straight
+    //                 to the channel rather than through the bounded queue, so none are dropped
+    //                 and a slow client only slows its own replay.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void replay(MessageStore store, long afterSequence)
+    {
+        MessageChannel out = channel;
+        String room = this.room;
+        try
+        {
+            if (afterSequence < 0)
+            {
+                out.send(History.usage());
+            }
+            else
+            {
+                ChatMetrics.HISTORY_REPLAYS.increment();
+                store.replay(afterSequence, message ->
+                {
+                    if (Rooms.isVisibleIn(message.getSender(), room))
+                    {
+                        out.send(History.format(message));
+                        ChatMetrics.MESSAGES_SENT.increment();
+                    }
+                    return true;
+                });
+                out.send(History.end(store.getLastSequence()));
+            }
+            out.flush();
+        }
+        catch (IOException e)
+        {
+            close();
+        }
+    }
+
+    // Answers a command straight away on the reader thread, like replay()
+    void reply(String line)
+    {
+        try
+        {
+            channel.send(line);
+            channel.flush();
+        }
+        catch (IOException e)
+        {
+            close();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : writeLoop
+    // Description   : Once the protocol is agreed, writes queued messages in batches until
+    //                 the session closes.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void writeLoop()
+    {
+        try
+        {
+            negotiated.await();
+            MessageChannel out = channel;
+            if (out == null)
+            {
+                // closed before the protocol was agreed
+                return;
+            }
+            outbound.run(out);
+        }
+        catch (IOException e)
+        {
+            close();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : close
+    // Description   : Closes the socket once, stops the writer and the heartbeat checks and
+    //                 leaves the hub.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void close()
+    {
+        if (!closed.compareAndSet(false, true))
+        {
+            return;
+        }
+        outbound.close();
+        Heartbeats.Watch watch = heartbeat;
+        if (watch != null)
+        {
+            watch.cancel();
+        }
+        // A writer still waiting for the handshake finds the sender closed straight away
+        negotiated.countDown();
+        try
+        {
+            socket.close();
+        }
+        catch (IOException e)
+        {
+            // already closed
+        }
+        server.sessionClosed(this);
+    }
+}
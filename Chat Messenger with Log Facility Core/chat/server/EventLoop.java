@@ -0,0 +1,249 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : EventLoop.java
+// Description : A single-threaded selector loop that owns a set of client connections. All
+//               reads and writes of its connections happen on the loop thread; other threads
+//               hand work over through a task queue.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import chat.metrics.ChatMetrics;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : EventLoop
+// Description : Runs select() on its own thread and dispatches read/write readiness to the
+//               NioConnection attached to each key.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class EventLoop implements Runnable
+{
+    private final NioChatServer server;
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+
+    // Connections owned by this loop; only touched on the loop thread
+    private final Set<NioConnection> connections = new HashSet<>();
+
+    private volatile boolean running = true;
+
+    EventLoop(NioChatServer server, int index) throws IOException
+    {
+        this.server = server;
+        this.selector = Selector.open();
+        this.thread = new Thread(this, "chat-nio-loop-" + index);
+        this.thread.setDaemon(true);
+    }
+
+    void start()
+    {
+        thread.start();
+    }
+
+    boolean inEventLoop()
+    {
+        return Thread.currentThread() == thread;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : execute
+    // Description   : Queues a task to run on the loop thread and wakes the selector once.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void execute(Runnable task)
+    {
+        tasks.add(task);
+        if (wakeupPending.compareAndSet(false, true))
+        {
+            selector.wakeup();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : register
+    // Description   : Hands an accepted channel over to this loop.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void register(SocketChannel channel, String name)
+    {
+        execute(() ->
+        {
+            try
+            {
+                SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                NioConnection connection = new NioConnection(server, this, channel, key, name);
+                key.attach(connection);
+                connections.add(connection);
+                server.connectionOpened(connection);
+            }
+            catch (IOException e)
+            {
+                closeQuietly(channel);
+            }
+        });
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : broadcast
+    // Description   : Writes an already encoded message to every connection of this loop except
+    //                 the sender. The buffer is shared, so each connection gets its own duplicate.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void broadcast(ByteBuffer message, NioConnection except)
+    {
+        if (!inEventLoop())
+        {
+            execute(() -> broadcast(message, except));
+            return;
+        }
+
+        int sent = 0;
+        for (NioConnection connection : connections.toArray(new NioConnection[0]))
+        {
+            if (connection != except)
+            {
+                connection.send(message.duplicate());
+                sent++;
+            }
+        }
+        ChatMetrics.MESSAGES_SENT.add(sent);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : broadcast
+    // Description   : Like broadcast(message, except), but only to the members of a room that
+    //                 this loop owns. Every loop walks the same member array, so a room message
+    //                 costs one task per loop rather than one per member.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void broadcast(ByteBuffer message, NioConnection except, NioConnection[] members)
+    {
+        if (!inEventLoop())
+        {
+            execute(() -> broadcast(message, except, members));
+            return;
+        }
+
+        int sent = 0;
+        for (NioConnection connection : members)
+        {
+            if (connection.getLoop() == this && connection != except)
+            {
+                connection.send(message.duplicate());
+                sent++;
+            }
+        }
+        ChatMetrics.MESSAGES_SENT.add(sent);
+    }
+
+    void removed(NioConnection connection)
+    {
+        connections.remove(connection);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : run
+    // Description   : Main selector loop.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void run()
+    {
+        while (running)
+        {
+            try
+            {
+                selector.select();
+                wakeupPending.set(false);
+                runTasks();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext())
+                {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    NioConnection connection = (NioConnection) key.attachment();
+                    if (!key.isValid() || connection == null)
+                    {
+                        continue;
+                    }
+                    if (key.isReadable())
+                    {
+                        connection.read();
+                    }
+                    if (key.isValid() && key.isWritable())
+                    {
+                        connection.flush();
+                    }
+                }
+            }
+            catch (ClosedSelectorException e)
+            {
+                break;
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+        closeAll();
+    }
+
+    private void runTasks()
+    {
+        Runnable task;
+        while ((task = tasks.poll()) != null)
+        {
+            task.run();
+        }
+    }
+
+    void shutdown()
+    {
+        running = false;
+        selector.wakeup();
+    }
+
+    void join() throws InterruptedException
+    {
+        thread.join();
+    }
+
+    private void closeAll()
+    {
+        for (NioConnection connection : connections.toArray(new NioConnection[0]))
+        {
+            connection.close();
+        }
+        try
+        {
+            selector.close();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    static void closeQuietly(SocketChannel channel)
+    {
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            // already closed
+        }
+    }
+}
@@ -0,0 +1,29 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : HeartbeatPeer.java
+// Description : A connection watched by Heartbeats.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Interface Name : HeartbeatPeer
+// Description    : Called on the timer thread, so ping() and expire() must not block on the
+//                  network; they hand the work to the connection's own threads.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public interface HeartbeatPeer
+{
+    // System.nanoTime() when anything last arrived from the peer
+    long getLastReceivedNanos();
+
+    // True if the peer answers pings
+    boolean hasHeartbeats();
+
+    // Sends a ping without waiting for it to be written
+    void ping();
+
+    // Closes the connection; reason says whether the peer was dead or idle
+    void expire(String reason);
+}
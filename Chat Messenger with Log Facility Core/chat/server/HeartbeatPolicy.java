@@ -0,0 +1,84 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : HeartbeatPolicy.java
+// Description : How often connections are checked and when a silent peer counts as dead or idle.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import chat.log.LogConfig;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : HeartbeatPolicy
+// Description : Immutable. fromSystemProperties() reads
+//
+//                 chat.heartbeat.interval  ping a peer silent for this long        (default 15s)
+//                 chat.heartbeat.timeout   close a peer silent for this long       (default 45s)
+//                 chat.idle.timeout        close a peer without heartbeats after
+//                                          this long without a message, 0 for never (default 30m)
+//
+//               A peer without heartbeats is an older client that cannot answer pings, so
+//               only its silence tells that it may be gone.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class HeartbeatPolicy
+{
+    private final long intervalMillis;
+    private final long timeoutMillis;
+    private final long idleTimeoutMillis;
+
+    public HeartbeatPolicy(long intervalMillis, long timeoutMillis, long idleTimeoutMillis)
+    {
+        if (intervalMillis <= 0)
+        {
+            throw new IllegalArgumentException("Heartbeat interval must be positive: " + intervalMillis);
+        }
+        if (timeoutMillis <= intervalMillis)
+        {
+            throw new IllegalArgumentException("Heartbeat timeout must be longer than the interval: " + timeoutMillis);
+        }
+        this.intervalMillis = intervalMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.idleTimeoutMillis = Math.max(0, idleTimeoutMillis);
+    }
+
+    // Ping after 15 s, dead after 45 s, idle after 30 min
+    public static HeartbeatPolicy defaults()
+    {
+        return new HeartbeatPolicy(15_000, 45_000, 30 * 60_000);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : fromSystemProperties
+    // Description   : Builds a policy from chat.heartbeat.interval, chat.heartbeat.timeout and
+    //                 chat.idle.timeout.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static HeartbeatPolicy fromSystemProperties()
+    {
+        return new HeartbeatPolicy(LogConfig.parseDuration(System.getProperty("chat.heartbeat.interval", "15s")),
+                LogConfig.parseDuration(System.getProperty("chat.heartbeat.timeout", "45s")),
+                LogConfig.parseDuration(System.getProperty("chat.idle.timeout", "30m")));
+    }
+
+    public long getIntervalMillis()
+    {
+        return intervalMillis;
+    }
+
+    public long getTimeoutMillis()
+    {
+        return timeoutMillis;
+    }
+
+    public long getIdleTimeoutMillis()
+    {
+        return idleTimeoutMillis;
+    }
+
+    public String toString()
+    {
+        return "ping after " + intervalMillis + " ms, dead after " + timeoutMillis + " ms, idle after "
+                + ((idleTimeoutMillis > 0) ? idleTimeoutMillis + " ms" : "never");
+    }
+}
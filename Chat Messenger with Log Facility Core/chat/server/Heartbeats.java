@@ -0,0 +1,160 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : Heartbeats.java
+// Description : Pings quiet connections and closes dead and idle ones, all from one timer thread.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.io.Closeable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import chat.metrics.ChatMetrics;
+import chat.net.MessageChannel;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : Heartbeats
+// Description : Every watched connection has one timeout in a TimingWheel, due when it next
+//               needs attention: when it has been silent for the heartbeat interval it is
+//               pinged, and when it has been silent for the heartbeat timeout it is expired as
+//               dead. Peers without heartbeats are expired after the idle timeout instead.
+//               Anything the peer sends counts, so a busy connection is never pinged, and
+//               nothing is done per message; the reader only stores the time of its last read.
+//
+//               A blocking read on a half-open connection never returns by itself. Expiring
+//               closes the socket, which ends the read with an exception, so the connection
+//               is cleaned up by the same code as any other disconnect.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class Heartbeats implements Closeable
+{
+    // Resolution of the checks, far finer than any sensible interval
+    static final long TICK_MILLIS = 100;
+
+    private final HeartbeatPolicy policy;
+    private final TimingWheel wheel;
+
+    // Starts the timer thread
+    public Heartbeats(HeartbeatPolicy policy)
+    {
+        this.policy = policy;
+        this.wheel = new TimingWheel("chat-heartbeats", TICK_MILLIS);
+    }
+
+    public HeartbeatPolicy getPolicy()
+    {
+        return policy;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : watch
+    // Description   : Watches peer until the watch is cancelled or the peer expires. The first
+    //                 check comes at a random point of the interval, so connections opened
+    //                 together are not all checked in the same tick.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public Watch watch(HeartbeatPeer peer)
+    {
+        Watch watch = new Watch(peer);
+        watch.schedule(1 + ThreadLocalRandom.current().nextLong(policy.getIntervalMillis()));
+        return watch;
+    }
+
+    // Same for a blocking channel; pings are written on a virtual thread, and an expired channel
+    // is closed after onExpired has been told why
+    public Watch watch(MessageChannel channel, Consumer<String> onExpired)
+    {
+        return watch(new ChannelHeartbeat(channel, onExpired));
+    }
+
+    // Stops the timer thread; watched connections are no longer checked
+    public void close()
+    {
+        wheel.close();
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Class Name  : Watch
+    // Description : The checks of one connection; cancel it when the connection closes.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public final class Watch
+    {
+        private final HeartbeatPeer peer;
+        private volatile TimingWheel.Timeout timeout;
+        private volatile boolean cancelled;
+
+        private Watch(HeartbeatPeer peer)
+        {
+            this.peer = peer;
+        }
+
+        private void schedule(long delayMillis)
+        {
+            timeout = wheel.schedule(delayMillis, this::check);
+            // cancel() may have missed the new timeout
+            if (cancelled)
+            {
+                timeout.cancel();
+            }
+        }
+
+        // ////////////////////////////////////////////////////////////////////////////////////////
+        // Function Name : check
+        // Description   : Runs on the timer thread: pings, expires, or schedules the next check
+        //                 for when the peer's silence next matters.
+        // ////////////////////////////////////////////////////////////////////////////////////////
+        private void check()
+        {
+            long silent = (System.nanoTime() - peer.getLastReceivedNanos()) / 1_000_000;
+            long delay;
+            if (peer.hasHeartbeats())
+            {
+                if (silent >= policy.getTimeoutMillis())
+                {
+                    ChatMetrics.PEERS_DEAD.increment();
+                    peer.expire("no answer to heartbeats for " + silent / 1000 + " s");
+                    return;
+                }
+                if (silent >= policy.getIntervalMillis())
+                {
+                    peer.ping();
+                    delay = Math.min(policy.getIntervalMillis(), policy.getTimeoutMillis() - silent);
+                }
+                else
+                {
+                    delay = policy.getIntervalMillis() - silent;
+                }
+            }
+            else
+            {
+                if (policy.getIdleTimeoutMillis() == 0)
+                {
+                    // nothing to expire, but the peer may still ask for heartbeats
+                    delay = policy.getIntervalMillis();
+                }
+                else if (silent >= policy.getIdleTimeoutMillis())
+                {
+                    ChatMetrics.PEERS_IDLE.increment();
+                    peer.expire("idle for " + silent / 1000 + " s");
+                    return;
+                }
+                else
+                {
+                    delay = policy.getIdleTimeoutMillis() - silent;
+                }
+            }
+            schedule(delay);
+        }
+
+        public void cancel()
+        {
+            cancelled = true;
+            TimingWheel.Timeout current = timeout;
+            if (current != null)
+            {
+                current.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : History.java
+// Description : The "/since N" command of the multi-client servers and the lines they answer
+//               it with.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import chat.store.StoredMessage;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : History
+// Description : A client sends "/since 120" and gets every stored message after number 120,
+//               one line each as "#121 client-3: hello", then "#250 end of history" naming
+//               the newest number, which it can use to ask again after reconnecting.
+//               "/since 0" replays everything.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class History
+{
+    static final String SINCE = "/since";
+
+    // Sender stored for lines typed on the server console
+    static final String SERVER = "server";
+
+    private History()
+    {
+    }
+
+    // True for "/since" followed by nothing or a space, in any case
+    static boolean isSince(String line)
+    {
+        return line.regionMatches(true, 0, SINCE, 0, SINCE.length())
+                && (line.length() == SINCE.length() || line.charAt(SINCE.length()) == ' ');
+    }
+
+    // Sequence number after "/since", or -1 if it is missing or not a number
+    static long parseSince(String line)
+    {
+        try
+        {
+            long sequence = Long.parseLong(line.substring(SINCE.length()).trim());
+            return (sequence < 0) ? -1 : sequence;
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+
+    static String format(StoredMessage message)
+    {
+        return "#" + message.getSequence() + " " + message.getSender() + ": " + message.getText();
+    }
+
+    static String end(long lastSequence)
+    {
+        return "#" + lastSequence + " end of history";
+    }
+
+    static String usage()
+    {
+        return "usage: " + SINCE + " <message number>";
+    }
+}
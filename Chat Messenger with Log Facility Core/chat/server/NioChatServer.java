@@ -0,0 +1,498 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : NioChatServer.java
+// Description : Non-blocking multi-client chat server built on ServerSocketChannel and a small
+//               pool of Selector event loops. It keeps the plain line protocol, so the existing
+//               CUI and GUI clients connect to it unchanged.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chat.metrics.ChatMetrics;
+import chat.net.Handshake;
+import chat.net.LineCodec;
+import chat.store.MessageStore;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : NioChatServer
+// Description : Accepts clients on one thread and spreads them round-robin over the event
+//               loops. Every line a client sends is fanned out to the other members of its
+//               room (see Rooms); room commands run on the client's own loop. With a
+//               MessageStore every fanned-out line is stored first; "/since" replies are read
+//               from the store in steps of REPLAY_STEP_BYTES on the client's loop, the next
+//               step once the previous one has been written, so a long history neither
+//               blocks the loop nor fills the client's outbound queue. A step also ends after
+//               REPLAY_STEP_MESSAGES stored messages, so skipping other rooms' messages
+//               cannot hold the loop up either.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class NioChatServer implements ChatServer
+{
+    // Number of pending connections the kernel may queue while the acceptor catches up
+    private static final int ACCEPT_BACKLOG = 1024;
+
+    // Pause before accepting again after accept() failed
+    static final long ACCEPT_BACKOFF_MILLIS = 100;
+
+    // Answer to clients offering the framed protocol
+    private static final ByteBuffer DECLINE = ByteBuffer.wrap(Handshake.declineLine()).asReadOnlyBuffer();
+
+    // Same for clients that also offer heartbeats, which this server does answer
+    private static final ByteBuffer DECLINE_HEARTBEATS = ByteBuffer.wrap(Handshake.declineLineWithHeartbeats()).asReadOnlyBuffer();
+
+    // Answer to a client's ping
+    private static final ByteBuffer PONG = encode(Handshake.PONG);
+
+    // Bytes of history read and queued for a client at a time
+    static final int REPLAY_STEP_BYTES = 64 * 1024;
+
+    // Stored messages looked at per step, sent or not
+    static final int REPLAY_STEP_MESSAGES = 4096;
+
+    private final int port;
+    private final EventLoop[] loops;
+    private final ServerListener listener;
+
+    private final AtomicLong clientIds = new AtomicLong();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final RoomIndex<NioConnection> rooms = new RoomIndex<>(NioConnection[]::new);
+    private int nextLoop;
+
+    // Acceptor thread only: set while accept() keeps failing, so the failure is reported once
+    private boolean acceptFailing;
+    private MessageStore store;
+    private OutboundPolicy outboundPolicy = OutboundPolicy.defaults();
+    private HeartbeatPolicy heartbeatPolicy = HeartbeatPolicy.defaults();
+    private Heartbeats heartbeats;
+    private Relay relay;
+
+    private ServerSocketChannel serverChannel;
+    private Selector acceptSelector;
+    private Thread acceptor;
+    private volatile boolean running;
+
+    public NioChatServer(int port, int loopCount, ServerListener listener) throws IOException
+    {
+        this.port = port;
+        this.listener = listener;
+        this.loops = new EventLoop[Math.max(1, loopCount)];
+        for (int i = 0; i < loops.length; i++)
+        {
+            loops[i] = new EventLoop(this, i);
+        }
+    }
+
+    // Default loop count: half the cores, at least one
+    public static int defaultLoopCount()
+    {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : start
+    // Description   : Binds the listening socket and starts the acceptor and event loop threads.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void start() throws IOException
+    {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        serverChannel.configureBlocking(false);
+
+        acceptSelector = Selector.open();
+        serverChannel.register(acceptSelector, SelectionKey.OP_ACCEPT);
+
+        running = true;
+        heartbeats = new Heartbeats(heartbeatPolicy);
+        for (EventLoop loop : loops)
+        {
+            loop.start();
+        }
+        acceptor = new Thread(this::acceptLoop, "chat-nio-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    // Port actually bound, useful when started on port 0
+    public int getPort()
+    {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getConnectionCount()
+    {
+        return connectionCount.get();
+    }
+
+    public void setMessageStore(MessageStore store)
+    {
+        this.store = store;
+    }
+
+    public void setOutboundPolicy(OutboundPolicy policy)
+    {
+        this.outboundPolicy = policy;
+    }
+
+    OutboundPolicy getOutboundPolicy()
+    {
+        return outboundPolicy;
+    }
+
+    public void setHeartbeatPolicy(HeartbeatPolicy policy)
+    {
+        this.heartbeatPolicy = policy;
+    }
+
+    public void setRelay(Relay relay)
+    {
+        this.relay = relay;
+        rooms.setListener(relay);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : acceptLoop
+    // Description   : Drains all pending connections each time the selector fires.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void acceptLoop()
+    {
+        while (running)
+        {
+            try
+            {
+                acceptSelector.select();
+                acceptSelector.selectedKeys().clear();
+            }
+            catch (ClosedSelectorException e)
+            {
+                break;
+            }
+            catch (IOException e)
+            {
+                if (running)
+                {
+                    e.printStackTrace();
+                }
+                continue;
+            }
+            acceptPending();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : acceptPending
+    // Description   : Accepts connections until none is pending. A connection that cannot be
+    //                 set up is closed and the next one accepted. A failed accept while running,
+    //                 e.g. with every file descriptor in use, is reported once and retried after
+    //                 ACCEPT_BACKOFF_MILLIS, since the selector would fire again at once.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void acceptPending()
+    {
+        while (true)
+        {
+            SocketChannel channel;
+            try
+            {
+                channel = serverChannel.accept();
+            }
+            catch (IOException e)
+            {
+                if (running)
+                {
+                    if (!acceptFailing)
+                    {
+                        System.err.println("Accepting clients failed, retrying: " + e.getMessage());
+                        acceptFailing = true;
+                    }
+                    pause(ACCEPT_BACKOFF_MILLIS);
+                }
+                return;
+            }
+            if (channel == null)
+            {
+                return;
+            }
+            acceptFailing = false;
+            try
+            {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            }
+            catch (IOException e)
+            {
+                // reset by the client already
+                EventLoop.closeQuietly(channel);
+                continue;
+            }
+            String name = "client-" + clientIds.incrementAndGet();
+            loops[nextLoop].register(channel, name);
+            nextLoop = (nextLoop + 1) % loops.length;
+        }
+    }
+
+    // Sleeps for millis, or less if the thread is interrupted
+    private static void pause(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : broadcast
+    // Description   : Sends a server-originated line to every connected client.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void broadcast(String message)
+    {
+        store(History.SERVER, message);
+        fanOut(encode(message), null);
+        if (relay != null)
+        {
+            relay.broadcast(message);
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : relayed
+    // Description   : Fans a line from another node out over the loops, like a local one.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void relayed(String room, String sender, String text)
+    {
+        if (room == null)
+        {
+            store(History.SERVER, text);
+            fanOut(encode(text), null);
+            return;
+        }
+        if (stores(room))
+        {
+            store(sender, text);
+        }
+        fanOut(encode(sender + ": " + text), null, rooms.members(room));
+    }
+
+    void lineReceived(NioConnection from, String line)
+    {
+        // This server keeps to the line protocol; declining lets framed clients fall back at once
+        if (Handshake.isHello(line))
+        {
+            boolean ping = Handshake.offersHeartbeats(line);
+            from.setHeartbeats(ping);
+            from.send((ping ? DECLINE_HEARTBEATS : DECLINE).duplicate());
+            return;
+        }
+        if (from.hasHeartbeats())
+        {
+            if (line.equals(Handshake.PING))
+            {
+                from.send(PONG.duplicate());
+                return;
+            }
+            if (line.equals(Handshake.PONG))
+            {
+                return;
+            }
+        }
+        if (store != null && History.isSince(line))
+        {
+            ChatMetrics.HISTORY_REPLAYS.increment();
+            replay(from, History.parseSince(line));
+            return;
+        }
+        if (Rooms.isCommand(line))
+        {
+            from.setRoom(Rooms.execute(rooms, from, from.getRoom(), line, reply -> from.send(encode(reply))));
+            return;
+        }
+        long start = ChatMetrics.RECEIVE.startSample();
+        ChatMetrics.MESSAGES_RECEIVED.increment();
+        String sender = Rooms.sender(from.getRoom(), from.getName());
+        listener.onMessage(sender, line);
+        if (line.equalsIgnoreCase("end"))
+        {
+            from.close();
+            return;
+        }
+        if (stores(from.getRoom()))
+        {
+            store(sender, line);
+        }
+        fanOut(encode(sender + ": " + line), from, rooms.members(from.getRoom()));
+        if (relay != null)
+        {
+            relay.publish(from.getRoom(), sender, line);
+        }
+        ChatMetrics.RECEIVE.recordSince(start);
+    }
+
+    // In a cluster only the owner of room stores its lines, whether they start here or arrive
+    private boolean stores(String room)
+    {
+        return relay == null || relay.owns(room);
+    }
+
+    // A message that cannot be stored is still delivered to the clients online
+    private void store(String sender, String text)
+    {
+        if (store != null)
+        {
+            try
+            {
+                store.append(System.currentTimeMillis(), sender, text);
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : replay
+    // Description   : Sends one step of the history after afterSequence and schedules the next
+    //                 step for when it has been written; the last step ends with the end line.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void replay(NioConnection to, long afterSequence)
+    {
+        if (to.isClosed())
+        {
+            return;
+        }
+        if (afterSequence < 0)
+        {
+            to.send(encode(History.usage()));
+            return;
+        }
+
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        String room = to.getRoom();
+        int[] scanned = new int[1];
+        long last;
+        try
+        {
+            last = store.replay(afterSequence, message ->
+            {
+                if (Rooms.isVisibleIn(message.getSender(), room))
+                {
+                    lines.writeBytes(LineCodec.encode(History.format(message)));
+                    ChatMetrics.MESSAGES_SENT.increment();
+                }
+                return lines.size() < REPLAY_STEP_BYTES && ++scanned[0] < REPLAY_STEP_MESSAGES;
+            });
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+            to.close();
+            return;
+        }
+
+        boolean done = last == afterSequence || last >= store.getLastSequence();
+        if (done)
+        {
+            lines.writeBytes(LineCodec.encode(History.end(store.getLastSequence())));
+        }
+        if (lines.size() > 0)
+        {
+            to.send(ByteBuffer.wrap(lines.toByteArray()));
+        }
+        if (!done)
+        {
+            to.whenDrained(() -> replay(to, last));
+        }
+    }
+
+    // Encode once; every loop and connection works on duplicates of the same bytes
+    private static ByteBuffer encode(String line)
+    {
+        return ByteBuffer.wrap(LineCodec.encode(line)).asReadOnlyBuffer();
+    }
+
+    private void fanOut(ByteBuffer message, NioConnection except)
+    {
+        for (EventLoop loop : loops)
+        {
+            loop.broadcast(message, except);
+        }
+    }
+
+    private void fanOut(ByteBuffer message, NioConnection except, NioConnection[] members)
+    {
+        for (EventLoop loop : loops)
+        {
+            loop.broadcast(message, except, members);
+        }
+    }
+
+    void connectionOpened(NioConnection connection)
+    {
+        rooms.join(connection.getRoom(), connection);
+        connectionCount.incrementAndGet();
+        ChatMetrics.CONNECTIONS_OPENED.increment();
+        listener.onConnect(connection.getName());
+        connection.setHeartbeat(heartbeats.watch(connection));
+    }
+
+    void connectionClosed(NioConnection connection)
+    {
+        connectionCount.decrementAndGet();
+        rooms.leave(connection.getRoom(), connection);
+        ChatMetrics.CONNECTIONS_CLOSED.increment();
+        listener.onDisconnect(connection.getName());
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : close
+    // Description   : Stops accepting, closes every connection and waits for the loops to exit.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void close() throws IOException
+    {
+        running = false;
+        if (acceptSelector != null)
+        {
+            acceptSelector.close();
+        }
+        if (serverChannel != null)
+        {
+            serverChannel.close();
+        }
+        if (heartbeats != null)
+        {
+            heartbeats.close();
+        }
+        for (EventLoop loop : loops)
+        {
+            loop.shutdown();
+        }
+        try
+        {
+            for (EventLoop loop : loops)
+            {
+                loop.join();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
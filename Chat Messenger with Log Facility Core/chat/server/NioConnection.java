@@ -0,0 +1,260 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : NioConnection.java
+// Description : State of one non-blocking client connection: the partial input line being
+//               decoded and the queue of outbound buffers waiting for the socket to drain.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import chat.metrics.ChatMetrics;
+import chat.net.Handshake;
+import chat.net.LineCodec;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : NioConnection
+// Description : Line-oriented connection owned by exactly one EventLoop. Every method except
+//               send() and the HeartbeatPeer methods must be called on the owning loop thread.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class NioConnection implements HeartbeatPeer
+{
+    // Longest line accepted from a client before the connection is dropped
+    static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    // Sent when the client has been quiet for the heartbeat interval
+    private static final ByteBuffer PING = ByteBuffer.wrap(LineCodec.encode(Handshake.PING)).asReadOnlyBuffer();
+
+    private final NioChatServer server;
+    private final EventLoop loop;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final String name;
+
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+    private final LineCodec decoder = new LineCodec(MAX_LINE_LENGTH);
+
+    private final OutboundQueue outbound;
+    private Runnable drained;
+    private boolean closed;
+    private String room = Rooms.LOBBY;
+    private Heartbeats.Watch heartbeat;
+    private volatile boolean heartbeats;
+    private volatile long lastReceivedNanos = System.nanoTime();
+
+    NioConnection(NioChatServer server, EventLoop loop, SocketChannel channel, SelectionKey key, String name)
+    {
+        this.server = server;
+        this.loop = loop;
+        this.channel = channel;
+        this.key = key;
+        this.name = name;
+        this.outbound = new OutboundQueue(server.getOutboundPolicy(), name);
+    }
+
+    String getName()
+    {
+        return name;
+    }
+
+    EventLoop getLoop()
+    {
+        return loop;
+    }
+
+    String getRoom()
+    {
+        return room;
+    }
+
+    void setRoom(String room)
+    {
+        this.room = room;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : read
+    // Description   : Reads what is available and emits every complete line to the server.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void read()
+    {
+        try
+        {
+            int n;
+            while ((n = channel.read(readBuffer)) > 0)
+            {
+                lastReceivedNanos = System.nanoTime();
+                ChatMetrics.BYTES_RECEIVED.add(n);
+                readBuffer.flip();
+                if (!decoder.decode(readBuffer, this::lineDecoded))
+                {
+                    return;
+                }
+                readBuffer.clear();
+            }
+            if (n < 0)
+            {
+                close();
+            }
+        }
+        catch (IOException e)
+        {
+            close();
+        }
+    }
+
+    // Passes a line on; stops decoding once the server has closed the connection
+    private boolean lineDecoded(String line)
+    {
+        server.lineReceived(this, line);
+        return !closed;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : send
+    // Description   : Queues a buffer for this client. Safe to call from any thread. Closes the
+    //                 connection if the outbound policy gives up on the client.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void send(ByteBuffer message)
+    {
+        if (!loop.inEventLoop())
+        {
+            loop.execute(() -> send(message));
+            return;
+        }
+        if (closed)
+        {
+            return;
+        }
+
+        boolean wasIdle = outbound.isEmpty();
+        if (!outbound.add(message))
+        {
+            close();
+            return;
+        }
+        if (wasIdle)
+        {
+            flush();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : flush
+    // Description   : Writes queued buffers until the socket would block, then waits for
+    //                 OP_WRITE before continuing.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void flush()
+    {
+        long start = ChatMetrics.SEND.startSample();
+        try
+        {
+            ByteBuffer head;
+            while ((head = outbound.peek()) != null)
+            {
+                int written = channel.write(head);
+                outbound.written(written);
+                ChatMetrics.BYTES_SENT.add(written);
+                if (head.hasRemaining())
+                {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    ChatMetrics.SEND.recordSince(start);
+                    return;
+                }
+                outbound.remove();
+            }
+            ChatMetrics.SEND.recordSince(start);
+            key.interestOps(SelectionKey.OP_READ);
+            if (drained != null)
+            {
+                Runnable task = drained;
+                drained = null;
+                loop.execute(task);
+            }
+        }
+        catch (IOException e)
+        {
+            close();
+        }
+    }
+
+    // Runs task on the loop once everything queued so far is written; streams long replies
+    void whenDrained(Runnable task)
+    {
+        if (outbound.isEmpty())
+        {
+            loop.execute(task);
+        }
+        else
+        {
+            drained = task;
+        }
+    }
+
+    boolean isClosed()
+    {
+        return closed;
+    }
+
+    void setHeartbeat(Heartbeats.Watch heartbeat)
+    {
+        this.heartbeat = heartbeat;
+    }
+
+    // Set once the client's hello offers heartbeats
+    void setHeartbeats(boolean heartbeats)
+    {
+        this.heartbeats = heartbeats;
+    }
+
+    public boolean hasHeartbeats()
+    {
+        return heartbeats;
+    }
+
+    public long getLastReceivedNanos()
+    {
+        return lastReceivedNanos;
+    }
+
+    // Queued like any other line, so a ping never overtakes a message
+    public void ping()
+    {
+        send(PING.duplicate());
+    }
+
+    // Closes on the loop thread; the reason is left to the metrics
+    public void expire(String reason)
+    {
+        loop.execute(this::close);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : close
+    // Description   : Closes the channel once and tells the server the client is gone.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        key.cancel();
+        EventLoop.closeQuietly(channel);
+        outbound.close();
+        drained = null;
+        if (heartbeat != null)
+        {
+            heartbeat.cancel();
+        }
+        loop.removed(this);
+        server.connectionClosed(this);
+    }
+}
@@ -0,0 +1,106 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : OutboundPolicy.java
+// Description : Limits of the per-connection outbound queues and what happens when a client
+//               exceeds them.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.nio.file.Path;
+
+import chat.log.LogConfig;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : OutboundPolicy
+// Description : Immutable. fromSystemProperties() reads
+//
+//                 chat.outbound.policy     drop-oldest | disconnect | spill  (default drop-oldest)
+//                 chat.outbound.high       high watermark in bytes, e.g. 4m  (default 4m)
+//                 chat.outbound.low        low watermark in bytes            (default 1m)
+//                 chat.outbound.spill.dir  directory of spill files          (default java.io.tmpdir)
+//                 chat.outbound.spill.max  spilled bytes per client before it is disconnected
+//                                          anyway                            (default 256m)
+//
+//               The high watermark must leave room for one history replay step.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class OutboundPolicy
+{
+    // Smallest high watermark; a "/since" replay queues up to this much at a time
+    static final long MIN_HIGH_WATERMARK = NioChatServer.REPLAY_STEP_BYTES;
+
+    private final SlowConsumerPolicy policy;
+    private final long highWatermark;
+    private final long lowWatermark;
+    private final Path spillDirectory;
+    private final long maxSpillBytes;
+
+    public OutboundPolicy(SlowConsumerPolicy policy, long highWatermark, long lowWatermark, Path spillDirectory, long maxSpillBytes)
+    {
+        if (highWatermark < MIN_HIGH_WATERMARK)
+        {
+            throw new IllegalArgumentException("High watermark must be at least " + MIN_HIGH_WATERMARK + " bytes: " + highWatermark);
+        }
+        if (lowWatermark < 0 || lowWatermark >= highWatermark)
+        {
+            throw new IllegalArgumentException("Low watermark must be below the high watermark: " + lowWatermark);
+        }
+        this.policy = policy;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.spillDirectory = spillDirectory;
+        this.maxSpillBytes = maxSpillBytes;
+    }
+
+    // Drop oldest above 4 MiB down to 1 MiB
+    public static OutboundPolicy defaults()
+    {
+        return new OutboundPolicy(SlowConsumerPolicy.DROP_OLDEST, 4L << 20, 1L << 20,
+                Path.of(System.getProperty("java.io.tmpdir")), 256L << 20);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : fromSystemProperties
+    // Description   : Builds a policy from the chat.outbound.* system properties.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static OutboundPolicy fromSystemProperties()
+    {
+        return new OutboundPolicy(SlowConsumerPolicy.parse(System.getProperty("chat.outbound.policy", "drop-oldest")),
+                LogConfig.parseSize(System.getProperty("chat.outbound.high", "4m")),
+                LogConfig.parseSize(System.getProperty("chat.outbound.low", "1m")),
+                Path.of(System.getProperty("chat.outbound.spill.dir", System.getProperty("java.io.tmpdir"))),
+                LogConfig.parseSize(System.getProperty("chat.outbound.spill.max", "256m")));
+    }
+
+    public SlowConsumerPolicy getPolicy()
+    {
+        return policy;
+    }
+
+    public long getHighWatermark()
+    {
+        return highWatermark;
+    }
+
+    public long getLowWatermark()
+    {
+        return lowWatermark;
+    }
+
+    public Path getSpillDirectory()
+    {
+        return spillDirectory;
+    }
+
+    public long getMaxSpillBytes()
+    {
+        return maxSpillBytes;
+    }
+
+    public String toString()
+    {
+        return policy.name().toLowerCase().replace('_', '-') + " above " + highWatermark + " bytes, down to " + lowWatermark;
+    }
+}
@@ -0,0 +1,300 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : OutboundQueue.java
+// Description : Messages waiting to be written to one client, bounded by the watermarks of an
+//               OutboundPolicy.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+
+import chat.metrics.ChatMetrics;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : OutboundQueue
+// Description : Not thread-safe; NioConnection uses it on its loop thread and QueuedSender
+//               behind a lock. Queued buffers are never modified here, so the same buffer can
+//               sit in many queues; the size of a message is its remaining() bytes.
+//
+//               The writer either poll()s whole messages, or peek()s the head, reports
+//               partial writes with written() and remove()s it when done. A peeked head is
+//               in flight and never dropped, so a client never gets half a message.
+//
+//               With SPILL, once the next message would pass the high watermark it and every
+//               later one go to a temporary file as length-prefixed records, keeping their
+//               order. When the queue in memory drains to the low watermark, spilled messages
+//               are read back up to the high watermark; the file is emptied whenever all of
+//               it has been read back and deleted when the queue is closed.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class OutboundQueue implements Closeable
+{
+    private final OutboundPolicy policy;
+    private final String name;
+
+    private final ArrayDeque<ByteBuffer> memory = new ArrayDeque<>();
+    private long memoryBytes;
+    private boolean headInFlight;
+    private long dropped;
+    private boolean closed;
+
+    // Spill file, opened on first use; records between spillRead and spillWrite are queued
+    private FileChannel spill;
+    private long spillRead;
+    private long spillWrite;
+    private long spillCount;
+    private final ByteBuffer length = ByteBuffer.allocate(4);
+
+    // name goes into the spill file name
+    OutboundQueue(OutboundPolicy policy, String name)
+    {
+        this.policy = policy;
+        this.name = name;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : add
+    // Description   : Queues a message and applies the slow consumer policy. Returns false if
+    //                 the client has to be disconnected: over the high watermark with
+    //                 DISCONNECT, or when the spill file is full or cannot be written.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    boolean add(ByteBuffer message)
+    {
+        if (closed)
+        {
+            return true;
+        }
+        int size = message.remaining();
+        if (policy.getPolicy() == SlowConsumerPolicy.SPILL
+                && (spillCount > 0 || (!memory.isEmpty() && memoryBytes + size > policy.getHighWatermark())))
+        {
+            return spill(message);
+        }
+
+        memory.add(message);
+        memoryBytes += size;
+        ChatMetrics.OUTBOUND_MESSAGES.increment();
+        ChatMetrics.OUTBOUND_BYTES.add(size);
+        if (memoryBytes <= policy.getHighWatermark())
+        {
+            return true;
+        }
+        if (policy.getPolicy() == SlowConsumerPolicy.DISCONNECT)
+        {
+            ChatMetrics.SLOW_CONSUMER_DISCONNECTS.increment();
+            return false;
+        }
+        if (policy.getPolicy() == SlowConsumerPolicy.DROP_OLDEST)
+        {
+            dropOldest();
+        }
+        // SPILL gets here only for a single message larger than the high watermark
+        return true;
+    }
+
+    // Drops from the front until the queue is down to the low watermark, keeping a head in flight
+    private void dropOldest()
+    {
+        ByteBuffer inFlight = headInFlight ? memory.pollFirst() : null;
+        int count = 0;
+        long bytes = 0;
+        while (memoryBytes - bytes > policy.getLowWatermark() && !memory.isEmpty())
+        {
+            bytes += memory.pollFirst().remaining();
+            count++;
+        }
+        if (inFlight != null)
+        {
+            memory.addFirst(inFlight);
+        }
+        memoryBytes -= bytes;
+        dropped += count;
+        ChatMetrics.MESSAGES_DROPPED.add(count);
+        ChatMetrics.OUTBOUND_MESSAGES.add(-count);
+        ChatMetrics.OUTBOUND_BYTES.add(-bytes);
+    }
+
+    // Appends one record to the spill file
+    private boolean spill(ByteBuffer message)
+    {
+        int size = message.remaining();
+        if (spillWrite - spillRead + 4 + size > policy.getMaxSpillBytes())
+        {
+            ChatMetrics.SLOW_CONSUMER_DISCONNECTS.increment();
+            return false;
+        }
+        try
+        {
+            if (spill == null)
+            {
+                Path file = Files.createTempFile(policy.getSpillDirectory(), "chat-spill-" + name + "-", ".tmp");
+                spill = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            length.clear();
+            length.putInt(size).flip();
+            ByteBuffer[] record = { length, message.duplicate() };
+            spill.position(spillWrite);
+            while (record[1].hasRemaining())
+            {
+                spill.write(record);
+            }
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+            ChatMetrics.SLOW_CONSUMER_DISCONNECTS.increment();
+            return false;
+        }
+        spillWrite += 4 + size;
+        spillCount++;
+        ChatMetrics.OUTBOUND_MESSAGES.increment();
+        ChatMetrics.SPILLED_BYTES.add(4 + size);
+        ChatMetrics.MESSAGES_SPILLED.increment();
+        return true;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : refill
+    // Description   : Reads spilled messages back once memory is down to the low watermark.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void refill() throws IOException
+    {
+        if (spillCount == 0 || memoryBytes > policy.getLowWatermark())
+        {
+            return;
+        }
+        while (spillCount > 0 && memoryBytes < policy.getHighWatermark())
+        {
+            length.clear();
+            readFully(length, spillRead);
+            int size = length.flip().getInt();
+            ByteBuffer message = ByteBuffer.allocate(size);
+            readFully(message, spillRead + 4);
+            message.flip();
+
+            spillRead += 4 + size;
+            spillCount--;
+            memory.add(message);
+            memoryBytes += size;
+            ChatMetrics.SPILLED_BYTES.add(-(4 + size));
+            ChatMetrics.OUTBOUND_BYTES.add(size);
+        }
+        if (spillCount == 0)
+        {
+            spill.truncate(0);
+            spillRead = 0;
+            spillWrite = 0;
+        }
+    }
+
+    private void readFully(ByteBuffer target, long position) throws IOException
+    {
+        while (target.hasRemaining())
+        {
+            if (spill.read(target, position + target.position()) < 0)
+            {
+                throw new EOFException("Spill file of " + name + " is shorter than expected");
+            }
+        }
+    }
+
+    // Removes and returns the oldest message, or null if none is queued
+    ByteBuffer poll() throws IOException
+    {
+        refill();
+        ByteBuffer head = memory.pollFirst();
+        if (head != null)
+        {
+            memoryBytes -= head.remaining();
+            ChatMetrics.OUTBOUND_MESSAGES.decrement();
+            ChatMetrics.OUTBOUND_BYTES.add(-head.remaining());
+        }
+        return head;
+    }
+
+    // Oldest message, now in flight, or null if none is queued; the caller may write from it
+    ByteBuffer peek() throws IOException
+    {
+        refill();
+        ByteBuffer head = memory.peekFirst();
+        headInFlight = head != null;
+        return head;
+    }
+
+    // Bytes of the peeked head that have been written
+    void written(int bytes)
+    {
+        memoryBytes -= bytes;
+        ChatMetrics.OUTBOUND_BYTES.add(-bytes);
+    }
+
+    // Removes the peeked head after it has been written completely
+    void remove()
+    {
+        ByteBuffer head = memory.pollFirst();
+        memoryBytes -= head.remaining();
+        headInFlight = false;
+        ChatMetrics.OUTBOUND_MESSAGES.decrement();
+        ChatMetrics.OUTBOUND_BYTES.add(-head.remaining());
+    }
+
+    boolean isEmpty()
+    {
+        return memory.isEmpty() && spillCount == 0;
+    }
+
+    // Bytes queued in memory and in the spill file
+    long getBytes()
+    {
+        return memoryBytes + (spillWrite - spillRead);
+    }
+
+    // Messages dropped by DROP_OLDEST so far
+    long getDropped()
+    {
+        return dropped;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : close
+    // Description   : Discards everything queued and deletes the spill file. Later adds are
+    //                 ignored.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        ChatMetrics.OUTBOUND_MESSAGES.add(-(memory.size() + spillCount));
+        ChatMetrics.OUTBOUND_BYTES.add(-memoryBytes);
+        ChatMetrics.SPILLED_BYTES.add(-(spillWrite - spillRead));
+        memory.clear();
+        memoryBytes = 0;
+        spillCount = 0;
+        spillRead = 0;
+        spillWrite = 0;
+        if (spill != null)
+        {
+            try
+            {
+                spill.close();
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : Peer.java
+// Description : A connected client as seen by the BroadcastHub.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.nio.ByteBuffer;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Interface Name : Peer
+// Description    : Receives already encoded messages from the hub. deliver() is called on the
+//                  publisher's thread and must never block on the network.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public interface Peer
+{
+    String getName();
+
+    // Queues an encoded line for this peer; the buffer is shared and neither its content nor
+    // its position may be modified
+    void deliver(ByteBuffer message);
+}
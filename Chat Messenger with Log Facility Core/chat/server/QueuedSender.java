@@ -0,0 +1,184 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : QueuedSender.java
+// Description : Decouples producing messages for a blocking MessageChannel from writing them:
+//               producers queue without ever touching the socket, and one writer thread
+//               sends.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import chat.metrics.ChatMetrics;
+import chat.net.LineCodec;
+import chat.net.MessageChannel;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : QueuedSender
+// Description : An OutboundQueue behind a lock. offer() is safe from any thread, including
+//               the Swing event thread and the publishers of BroadcastHub, and never blocks on
+//               the network; a stalled peer only fills this queue, and its OutboundPolicy
+//               decides what happens then. run() is the writer loop: it takes everything
+//               queued, up to MAX_BATCH_BYTES, writes it and flushes once per batch.
+//
+//               Messages are lines as LineCodec.encode() returns them, in buffers with an
+//               accessible array; the trailing '\n' is left to the channel.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class QueuedSender
+{
+    // Bytes taken from the queue per write and flush
+    static final int MAX_BATCH_BYTES = 64 * 1024;
+
+    private final OutboundQueue queue;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition ready = lock.newCondition();
+    private boolean closed;
+
+    // name goes into the spill file name
+    public QueuedSender(OutboundPolicy policy, String name)
+    {
+        this.queue = new OutboundQueue(policy, name);
+    }
+
+    // Queues one line; false if the policy says the peer is too slow and must be disconnected
+    public boolean offer(String line)
+    {
+        return offer(ByteBuffer.wrap(LineCodec.encode(line)));
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : offer
+    // Description   : Queues an encoded line, which may be shared with other senders and is
+    //                 not modified. Returns false if the peer must be disconnected; offers
+    //                 after close() are ignored.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public boolean offer(ByteBuffer line)
+    {
+        lock.lock();
+        try
+        {
+            if (closed)
+            {
+                return true;
+            }
+            boolean wasEmpty = queue.isEmpty();
+            boolean accepted = queue.add(line);
+            if (wasEmpty)
+            {
+                ready.signal();
+            }
+            return accepted;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : run
+    // Description   : Writer loop. Sends queued lines to out until close(), then flushes and
+    //                 returns. A failed write ends the loop with the IOException.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void run(MessageChannel out) throws IOException, InterruptedException
+    {
+        List<ByteBuffer> batch = new ArrayList<>();
+        while (take(batch))
+        {
+            long start = ChatMetrics.SEND.startSample();
+            for (ByteBuffer line : batch)
+            {
+                out.send(line.array(), line.arrayOffset() + line.position(), line.remaining() - 1);
+            }
+            out.flush();
+            ChatMetrics.MESSAGES_SENT.add(batch.size());
+            ChatMetrics.SEND.recordSince(start);
+            batch.clear();
+        }
+        out.flush();
+    }
+
+    // Waits for queued lines and moves a batch of them into batch; false once closed
+    private boolean take(List<ByteBuffer> batch) throws IOException, InterruptedException
+    {
+        lock.lock();
+        try
+        {
+            while (queue.isEmpty() && !closed)
+            {
+                ready.await();
+            }
+            if (closed)
+            {
+                return false;
+            }
+            long bytes = 0;
+            ByteBuffer line;
+            while (bytes < MAX_BATCH_BYTES && (line = queue.poll()) != null)
+            {
+                batch.add(line);
+                bytes += line.remaining();
+            }
+            return true;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // Bytes waiting, in memory and spilled
+    public long getQueuedBytes()
+    {
+        lock.lock();
+        try
+        {
+            return queue.getBytes();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // Messages dropped for this peer by the drop-oldest policy
+    public long getDropped()
+    {
+        lock.lock();
+        try
+        {
+            return queue.getDropped();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : close
+    // Description   : Discards what is still queued and ends run() after its current batch.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void close()
+    {
+        lock.lock();
+        try
+        {
+            closed = true;
+            queue.close();
+            ready.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+}
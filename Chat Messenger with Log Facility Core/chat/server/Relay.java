@@ -0,0 +1,30 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : Relay.java
+// Description : Where a multi-client server passes on the messages of its clients when it is
+//               one node of a cluster.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Interface Name : Relay
+// Description    : The server delivers to its own clients first and then hands the message to
+//                  the relay, which sends it to the other nodes; what they send back comes in
+//                  through ChatServer.relayed(). The room events tell the relay which rooms
+//                  have members on this node. Every method is called on the server's I/O
+//                  threads and must not block on the network.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public interface Relay extends RoomIndex.Listener
+{
+    // A line a client of this node sent to room, as sender
+    void publish(String room, String sender, String text);
+
+    // A line typed on this node's console, for everyone
+    void broadcast(String text);
+
+    // True if this node owns room, and so is the one node that stores its lines
+    boolean owns(String room);
+}
@@ -0,0 +1,125 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : RoomIndex.java
+// Description : Concurrent index from room name to the members of the room, read on every
+//               message fan-out and changed only when a client joins or leaves.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : RoomIndex
+// Description : Every room maps to an immutable array of its members. Joining or leaving
+//               replaces the array inside ConcurrentHashMap.compute, which serialises changes
+//               to one room without blocking the others. Fan-out reads the current array with
+//               a single map lookup and walks it without locks or iterators, so publishing to
+//               a large room costs one plain array pass. A room disappears with its last member.
+//
+//               A Listener hears of a room's first member and of its last one leaving from
+//               inside the change, so the calls for one room always come in order.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class RoomIndex<M>
+{
+    private final ConcurrentHashMap<String, M[]> rooms = new ConcurrentHashMap<>();
+    private final M[] empty;
+    private volatile Listener listener;
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Interface Name : Listener
+    // Description    : Called while the room is locked, so it must return quickly and must not
+    //                  touch this index.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public interface Listener
+    {
+        // room got its first member
+        void roomOpened(String room);
+
+        // room lost its last member
+        void roomClosed(String room);
+    }
+
+    // newArray creates member arrays, e.g. Peer[]::new
+    public RoomIndex(IntFunction<M[]> newArray)
+    {
+        this.empty = newArray.apply(0);
+    }
+
+    public void setListener(Listener listener)
+    {
+        this.listener = listener;
+    }
+
+    public void join(String room, M member)
+    {
+        rooms.compute(room, (name, members) ->
+        {
+            if (members == null && listener != null)
+            {
+                listener.roomOpened(name);
+            }
+            M[] current = (members == null) ? empty : members;
+            for (M existing : current)
+            {
+                if (existing == member)
+                {
+                    return current;
+                }
+            }
+            M[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = member;
+            return grown;
+        });
+    }
+
+    public void leave(String room, M member)
+    {
+        rooms.computeIfPresent(room, (name, members) ->
+        {
+            for (int i = 0; i < members.length; i++)
+            {
+                if (members[i] == member)
+                {
+                    if (members.length == 1)
+                    {
+                        if (listener != null)
+                        {
+                            listener.roomClosed(name);
+                        }
+                        return null;
+                    }
+                    M[] shrunk = Arrays.copyOf(members, members.length - 1);
+                    // The last member takes the freed place; order within a room does not matter
+                    if (i < shrunk.length)
+                    {
+                        shrunk[i] = members[members.length - 1];
+                    }
+                    return shrunk;
+                }
+            }
+            return members;
+        });
+    }
+
+    // Current members of room; the array is shared and must not be modified
+    public M[] members(String room)
+    {
+        M[] members = rooms.get(room);
+        return (members == null) ? empty : members;
+    }
+
+    // Member count of every room, sorted by name
+    public Map<String, Integer> sizes()
+    {
+        Map<String, Integer> sizes = new TreeMap<>();
+        rooms.forEach((name, members) -> sizes.put(name, members.length));
+        return sizes;
+    }
+}
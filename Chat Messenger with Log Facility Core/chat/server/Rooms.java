@@ -0,0 +1,129 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : Rooms.java
+// Description : The "/join", "/leave" and "/rooms" commands of the multi-client servers and
+//               how messages are tagged with the room they were sent in.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : Rooms
+// Description : Every client is in exactly one room and starts in the lobby. "/join dev" moves
+//               it to room dev, "/leave" back to the lobby and "/rooms" lists the rooms with
+//               their member counts. A line is fanned out to the sender's room only; lines
+//               typed on the server console still go to everyone. Outside the lobby the sender
+//               is shown, logged and stored as "[dev] client-3", so "/since" can replay the
+//               asking client's room and leave the other rooms out.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class Rooms
+{
+    static final String LOBBY = "lobby";
+    static final String JOIN = "/join";
+    static final String LEAVE = "/leave";
+    static final String LIST = "/rooms";
+
+    // Room names are 1 to MAX_NAME letters, digits, '-' or '_', case-insensitive
+    static final int MAX_NAME = 32;
+
+    private Rooms()
+    {
+    }
+
+    // True for any of the room commands
+    static boolean isCommand(String line)
+    {
+        return is(line, JOIN) || is(line, LEAVE) || is(line, LIST);
+    }
+
+    // True for command followed by nothing or a space, in any case
+    private static boolean is(String line, String command)
+    {
+        return line.regionMatches(true, 0, command, 0, command.length())
+                && (line.length() == command.length() || line.charAt(command.length()) == ' ');
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : execute
+    // Description   : Runs one room command for member, which is in room, and sends the answer
+    //                 through reply. Returns the room the member is in afterwards.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static <M> String execute(RoomIndex<M> rooms, M member, String room, String line, Consumer<String> reply)
+    {
+        if (is(line, LIST))
+        {
+            reply.accept(list(rooms.sizes()));
+            return room;
+        }
+
+        String target = LOBBY;
+        if (is(line, JOIN))
+        {
+            target = parseName(line.substring(JOIN.length()));
+            if (target == null)
+            {
+                reply.accept("usage: " + JOIN + " <room>, up to " + MAX_NAME + " letters, digits, '-' or '_'");
+                return room;
+            }
+        }
+        if (!target.equals(room))
+        {
+            rooms.leave(room, member);
+            rooms.join(target, member);
+        }
+        reply.accept("in room " + target + " with " + rooms.members(target).length + " member(s)");
+        return target;
+    }
+
+    // Lower-case room name, or null if it is empty or not allowed
+    static String parseName(String text)
+    {
+        String name = text.trim().toLowerCase(Locale.ROOT);
+        if (name.isEmpty() || name.length() > MAX_NAME)
+        {
+            return null;
+        }
+        for (int i = 0; i < name.length(); i++)
+        {
+            char c = name.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_'))
+            {
+                return null;
+            }
+        }
+        return name;
+    }
+
+    // Sender as shown and stored: the client name, tagged with the room outside the lobby
+    static String sender(String room, String client)
+    {
+        return room.equals(LOBBY) ? client : "[" + room + "] " + client;
+    }
+
+    // True if a stored message from sender belongs in the history of room
+    static boolean isVisibleIn(String sender, String room)
+    {
+        if (sender.equals(History.SERVER))
+        {
+            return true;
+        }
+        if (!sender.startsWith("["))
+        {
+            return room.equals(LOBBY);
+        }
+        return sender.startsWith(room, 1) && sender.startsWith("] ", room.length() + 1);
+    }
+
+    private static String list(Map<String, Integer> sizes)
+    {
+        StringBuilder out = new StringBuilder("rooms:");
+        sizes.forEach((name, size) -> out.append(' ').append(name).append(" (").append(size).append(')'));
+        return out.toString();
+    }
+}
@@ -0,0 +1,33 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : ServerListener.java
+// Description : Callback interface through which a multi-client server reports connections,
+//               received messages and disconnections to its console or GUI front end.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Interface Name : ServerListener
+// Description    : Receives server events. Callbacks run on the server's I/O threads, so they
+//                  must return quickly and must not block.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public interface ServerListener
+{
+    // Called after a client has been accepted and registered
+    default void onConnect(String client)
+    {
+    }
+
+    // Called for every complete line received from a client
+    default void onMessage(String client, String message)
+    {
+    }
+
+    // Called once when a client connection has been closed
+    default void onDisconnect(String client)
+    {
+    }
+}
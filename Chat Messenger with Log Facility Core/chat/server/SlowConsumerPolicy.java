@@ -0,0 +1,29 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : SlowConsumerPolicy.java
+// Description : What an outbound queue does when its client reads slower than messages arrive.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Enum Name   : SlowConsumerPolicy
+// Description : Applied once the queued bytes pass the high watermark. DROP_OLDEST discards
+//               the oldest queued messages until the queue is back at the low watermark;
+//               DISCONNECT closes the connection; SPILL queues further messages in a file
+//               and reads them back once the queue has drained to the low watermark.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public enum SlowConsumerPolicy
+{
+    DROP_OLDEST,
+    DISCONNECT,
+    SPILL;
+
+    // Accepts "drop-oldest", "disconnect" or "spill" in any case
+    public static SlowConsumerPolicy parse(String text)
+    {
+        return valueOf(text.trim().toUpperCase().replace('-', '_'));
+    }
+}
@@ -0,0 +1,41 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : ThreadModel.java
+// Description : Kind of thread the thread-per-connection server runs each client on.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.util.concurrent.ThreadFactory;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Enum Name   : ThreadModel
+// Description : VIRTUAL runs every connection on a Java 21 virtual thread; PLATFORM is the
+//               classic one-OS-thread-per-connection baseline it is compared against.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public enum ThreadModel
+{
+    VIRTUAL,
+    PLATFORM;
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : factory
+    // Description   : Creates a thread factory of this model with the given name prefix.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public ThreadFactory factory(String prefix)
+    {
+        if (this == VIRTUAL)
+        {
+            return Thread.ofVirtual().name(prefix, 0).factory();
+        }
+        return Thread.ofPlatform().name(prefix, 0).daemon(true).stackSize(256 * 1024).factory();
+    }
+
+    // Accepts "virtual"/"platform" in any case
+    public static ThreadModel parse(String text)
+    {
+        return valueOf(text.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,324 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : ThreadedChatServer.java
+// Description : Multi-client chat server that accepts in a loop and serves every connection on
+//               its own thread, either a virtual thread or a platform thread for comparison.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chat.metrics.ChatMetrics;
+import chat.store.MessageStore;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : ThreadedChatServer
+// Description : Plain blocking sockets, one reader and one writer thread per client, with all
+//               messages passing through a shared BroadcastHub to the sender's room (see
+//               Rooms). With a MessageStore every published message is stored first. Room
+//               commands and "/since" are answered on the asking client's reader thread, so
+//               a long replay only holds up that client.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class ThreadedChatServer implements ChatServer
+{
+    private static final int ACCEPT_BACKLOG = 1024;
+
+    // Pause before accepting again after accept() failed
+    static final long ACCEPT_BACKOFF_MILLIS = 100;
+
+    private final int port;
+    private final ThreadModel threadModel;
+    private final ServerListener listener;
+    private final BroadcastHub hub = new BroadcastHub();
+    private final Set<ClientSession> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong clientIds = new AtomicLong();
+    private MessageStore store;
+    private OutboundPolicy outboundPolicy = OutboundPolicy.defaults();
+    private HeartbeatPolicy heartbeatPolicy = HeartbeatPolicy.defaults();
+    private Heartbeats heartbeats;
+    private Relay relay;
+
+    private ServerSocket serverSocket;
+    private ExecutorService executor;
+    private Thread acceptor;
+    private volatile boolean running;
+
+    public ThreadedChatServer(int port, ThreadModel threadModel, ServerListener listener)
+    {
+        this.port = port;
+        this.threadModel = threadModel;
+        this.listener = listener;
+    }
+
+    public ThreadModel getThreadModel()
+    {
+        return threadModel;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : start
+    // Description   : Binds the port and starts the accept loop on a platform thread.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void start() throws IOException
+    {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+
+        heartbeats = new Heartbeats(heartbeatPolicy);
+        executor = Executors.newThreadPerTaskExecutor(threadModel.factory("chat-" + threadModel.name().toLowerCase() + "-"));
+        running = true;
+        acceptor = new Thread(this::acceptLoop, "chat-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort()
+    {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getConnectionCount()
+    {
+        return hub.size();
+    }
+
+    public void setMessageStore(MessageStore store)
+    {
+        this.store = store;
+    }
+
+    public void setOutboundPolicy(OutboundPolicy policy)
+    {
+        this.outboundPolicy = policy;
+    }
+
+    public void setHeartbeatPolicy(HeartbeatPolicy policy)
+    {
+        this.heartbeatPolicy = policy;
+    }
+
+    Heartbeats getHeartbeats()
+    {
+        return heartbeats;
+    }
+
+    public void setRelay(Relay relay)
+    {
+        this.relay = relay;
+        hub.getRooms().setListener(relay);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : acceptLoop
+    // Description   : Accepts clients and starts a reader and a writer for each of them. A
+    //                 failed accept while running, e.g. with every file descriptor in use, is
+    //                 reported once and retried after ACCEPT_BACKOFF_MILLIS instead of at once.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void acceptLoop()
+    {
+        boolean failing = false;
+        while (running)
+        {
+            Socket socket;
+            try
+            {
+                socket = serverSocket.accept();
+            }
+            catch (IOException e)
+            {
+                if (!running)
+                {
+                    // server socket closed
+                    break;
+                }
+                if (!failing)
+                {
+                    System.err.println("Accepting clients failed, retrying: " + e.getMessage());
+                    failing = true;
+                }
+                if (!pause(ACCEPT_BACKOFF_MILLIS))
+                {
+                    break;
+                }
+                continue;
+            }
+            failing = false;
+            try
+            {
+                socket.setTcpNoDelay(true);
+            }
+            catch (SocketException e)
+            {
+                // reset by the client already
+                closeQuietly(socket);
+                continue;
+            }
+            ClientSession session = new ClientSession(this, socket, "client-" + clientIds.incrementAndGet(), outboundPolicy);
+            sessions.add(session);
+            hub.join(session, session.getRoom());
+            ChatMetrics.CONNECTIONS_OPENED.increment();
+            listener.onConnect(session.getName());
+            executor.execute(session::writeLoop);
+            executor.execute(session::readLoop);
+        }
+    }
+
+    // Sleeps for millis; false if the thread was interrupted
+    private static boolean pause(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+            return true;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Socket socket)
+    {
+        try
+        {
+            socket.close();
+        }
+        catch (IOException e)
+        {
+            // already closed
+        }
+    }
+
+    public void broadcast(String message)
+    {
+        store(History.SERVER, message);
+        hub.publish(null, message);
+        if (relay != null)
+        {
+            relay.broadcast(message);
+        }
+    }
+
+    // Publishes a line from another node to the members of its room here, like a local one
+    public void relayed(String room, String sender, String text)
+    {
+        if (room == null)
+        {
+            store(History.SERVER, text);
+            hub.publish(null, text);
+            return;
+        }
+        if (stores(room))
+        {
+            store(sender, text);
+        }
+        hub.publish(null, room, sender + ": " + text);
+    }
+
+    void lineReceived(ClientSession from, String line)
+    {
+        if (store != null && History.isSince(line))
+        {
+            from.replay(store, History.parseSince(line));
+            return;
+        }
+        if (Rooms.isCommand(line))
+        {
+            String room = Rooms.execute(hub.getRooms(), from, from.getRoom(), line, from::reply);
+            from.setRoom(room);
+            // sessionClosed() may have run with the old room
+            if (from.isClosed())
+            {
+                hub.leave(from, room);
+            }
+            return;
+        }
+        long start = ChatMetrics.RECEIVE.startSample();
+        ChatMetrics.MESSAGES_RECEIVED.increment();
+        String room = from.getRoom();
+        String sender = Rooms.sender(room, from.getName());
+        listener.onMessage(sender, line);
+        if (!line.equalsIgnoreCase("end"))
+        {
+            if (stores(room))
+            {
+                store(sender, line);
+            }
+            hub.publish(from, room, sender + ": " + line);
+            if (relay != null)
+            {
+                relay.publish(room, sender, line);
+            }
+        }
+        ChatMetrics.RECEIVE.recordSince(start);
+    }
+
+    // In a cluster only the owner of room stores its lines, whether they start here or arrive
+    private boolean stores(String room)
+    {
+        return relay == null || relay.owns(room);
+    }
+
+    // A message that cannot be stored is still delivered to the clients online
+    private void store(String sender, String text)
+    {
+        if (store != null)
+        {
+            try
+            {
+                store.append(System.currentTimeMillis(), sender, text);
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    void sessionClosed(ClientSession session)
+    {
+        hub.leave(session, session.getRoom());
+        sessions.remove(session);
+        ChatMetrics.CONNECTIONS_CLOSED.increment();
+        listener.onDisconnect(session.getName());
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : close
+    // Description   : Stops accepting, closes every client socket and stops the threads.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public void close() throws IOException
+    {
+        running = false;
+        if (serverSocket != null)
+        {
+            serverSocket.close();
+        }
+        for (ClientSession session : sessions)
+        {
+            session.close();
+        }
+        if (executor != null)
+        {
+            executor.shutdownNow();
+        }
+        if (heartbeats != null)
+        {
+            heartbeats.close();
+        }
+    }
+}
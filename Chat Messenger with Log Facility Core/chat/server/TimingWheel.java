@@ -0,0 +1,193 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : TimingWheel.java
+// Description : Hierarchical timing wheel: one thread runs the timeouts of any number of
+//               connections, with constant cost to schedule and cancel.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.server;
+
+import java.io.Closeable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : TimingWheel
+// Description : Time advances in ticks. Level 0 has one slot per tick for the next SLOTS
+//               ticks, level 1 one slot per SLOTS ticks, and so on for LEVELS levels, so a
+//               timeout is always placed in the finest level whose range covers it. When a
+//               higher-level slot comes round, its timeouts are moved down to the levels below;
+//               a timeout is moved at most LEVELS - 1 times however far away it is.
+//
+//               The slots belong to the timer thread. schedule() only adds to a lock-free
+//               queue that the timer thread drains every tick, and cancel() only clears the
+//               task, leaving the entry to be dropped when its slot comes round. Tasks run on
+//               the timer thread and must not block.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class TimingWheel implements Closeable
+{
+    static final int SLOT_BITS = 8;
+    static final int SLOTS = 1 << SLOT_BITS;
+    static final int LEVELS = 4;
+    private static final int MASK = SLOTS - 1;
+
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    private final Timeout[][] slots = new Timeout[LEVELS][SLOTS];
+    private final ConcurrentLinkedQueue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // Ticks passed, owned by the timer thread
+    private long currentTick;
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Class Name  : Timeout
+    // Description : A scheduled task; cancel() makes sure it does not run.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static final class Timeout
+    {
+        private final long deadlineTick;
+        private volatile Runnable task;
+        private Timeout next;
+
+        private Timeout(long deadlineTick, Runnable task)
+        {
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        // Also lets go of the task, so a cancelled timeout keeps nothing else alive
+        public void cancel()
+        {
+            task = null;
+        }
+    }
+
+    // Starts the daemon timer thread; tickMillis is the resolution of every timeout
+    public TimingWheel(String name, long tickMillis)
+    {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis));
+        this.thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : schedule
+    // Description   : Runs task on the timer thread after delayMillis, rounded up to the next
+    //                 tick. Safe to call from any thread, including from a running task.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public Timeout schedule(long delayMillis, Runnable task)
+    {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        Timeout timeout = new Timeout(Math.max(1, (deadline - startNanos + tickNanos - 1) / tickNanos), task);
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : run
+    // Description   : Timer thread: sleeps until the next tick, and catches up tick by tick when
+    //                 it fell behind.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void run()
+    {
+        while (running)
+        {
+            long wait = startNanos + (currentTick + 1) * tickNanos - System.nanoTime();
+            if (wait > 0)
+            {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            currentTick++;
+            Timeout timeout;
+            while ((timeout = scheduled.poll()) != null)
+            {
+                place(timeout);
+            }
+            advance(currentTick);
+        }
+    }
+
+    // Moves the due slots down a level, highest first, then runs the level 0 slot of tick
+    private void advance(long tick)
+    {
+        for (int level = LEVELS - 1; level > 0; level--)
+        {
+            int shift = SLOT_BITS * level;
+            if ((tick & ((1L << shift) - 1)) == 0)
+            {
+                Timeout timeout = take(level, (int) (tick >>> shift) & MASK);
+                while (timeout != null)
+                {
+                    Timeout next = timeout.next;
+                    place(timeout);
+                    timeout = next;
+                }
+            }
+        }
+        Timeout timeout = take(0, (int) tick & MASK);
+        while (timeout != null)
+        {
+            Timeout next = timeout.next;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    private Timeout take(int level, int slot)
+    {
+        Timeout first = slots[level][slot];
+        slots[level][slot] = null;
+        return first;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : place
+    // Description   : Runs a timeout that is due, drops a cancelled one, and otherwise puts it in
+    //                 the finest level that reaches its deadline. Deadlines beyond the top
+    //                 level are placed there again every time round until they are in range.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void place(Timeout timeout)
+    {
+        Runnable task = timeout.task;
+        if (task == null)
+        {
+            return;
+        }
+        long ticks = timeout.deadlineTick - currentTick;
+        if (ticks <= 0)
+        {
+            timeout.task = null;
+            try
+            {
+                task.run();
+            }
+            catch (RuntimeException e)
+            {
+                e.printStackTrace();
+            }
+            return;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && ticks >= 1L << (SLOT_BITS * (level + 1)))
+        {
+            level++;
+        }
+        int slot = (int) (timeout.deadlineTick >>> (SLOT_BITS * level)) & MASK;
+        timeout.next = slots[level][slot];
+        slots[level][slot] = timeout;
+    }
+
+    // Stops the timer thread; timeouts not yet run never run
+    public void close()
+    {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+}
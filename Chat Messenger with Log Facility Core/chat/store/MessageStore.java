@@ -0,0 +1,321 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : MessageStore.java
+// Description : Embedded append-only message store on local disk. Every message gets the next
+//               sequence number, and everything after a given number can be streamed back
+//               without scanning the whole history.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import chat.metrics.ChatMetrics;
+import chat.metrics.MetricsRegistry;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : MessageStore
+// Description : Messages are appended to segment files named after their first sequence
+//               number, "messages-<first>.seg"; a new segment starts once one reaches its size
+//               limit. All numbers are big-endian.
+//
+//               segment : "CMSG" magic, version byte, then records
+//               record  : int    length of everything up to the CRC
+//                         long   sequence number, starting at 1
+//                         long   epoch millis
+//                         short  sender length
+//                         byte[] UTF-8 sender
+//                         byte[] UTF-8 text
+//                         int    CRC32C of everything after the length field
+//
+//               Each segment keeps a sparse index of one sequence number and offset per
+//               INDEX_INTERVAL bytes in memory, rebuilt by scanning when the store is opened.
+//               A replay looks up the segment and index entry at or before the first wanted
+//               message and reads forward from there. A tail left torn by a crash is cut off
+//               on open. Appends are written to the file straight away and fsynced on sync()
+//               and close(); replays may run on any thread while messages are appended.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class MessageStore implements Closeable
+{
+    public static final String SEGMENT_PREFIX = "messages-";
+    public static final String SEGMENT_SUFFIX = ".seg";
+
+    // Segment size at which the next message starts a new segment
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    // Length + sequence + millis + sender length + crc
+    static final int RECORD_OVERHEAD = 4 + 8 + 8 + 2 + 4;
+
+    // Upper bounds that guard readers against corrupt length fields
+    static final int MAX_SENDER = 1024;
+    static final int MAX_TEXT = 16 * 1024 * 1024;
+    static final int MAX_BODY = RECORD_OVERHEAD - 8 + MAX_SENDER + MAX_TEXT;
+
+    // Receives the messages of a replay in sequence order; returning false ends the replay
+    public interface MessageHandler
+    {
+        boolean message(StoredMessage message) throws IOException;
+    }
+
+    private final Path directory;
+    private final long segmentBytes;
+
+    // Appending side, guarded by this
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer record = ByteBuffer.allocate(4096);
+    private long nextSequence;
+    private boolean closed;
+
+    // Read without locking by replays; replaced as a whole when a segment is added
+    private volatile Segment[] segments;
+    private volatile long lastSequence;
+
+    private MessageStore(Path directory, long segmentBytes)
+    {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    // Opens or creates a store with the default segment size
+    public static MessageStore open(Path directory) throws IOException
+    {
+        return open(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : open
+    // Description   : Opens the store in directory, creating it if needed, and recovers the
+    //                 sequence numbers and indexes of the existing segments.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static MessageStore open(Path directory, long segmentBytes) throws IOException
+    {
+        Files.createDirectories(directory);
+        MessageStore store = new MessageStore(directory, Math.max(segmentBytes, Segment.HEADER_SIZE + RECORD_OVERHEAD));
+        store.recover();
+        return store;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : recover
+    // Description   : Scans every segment in order, rebuilding its index. The first damaged
+    //                 record and everything after it in that segment is cut off. A last segment
+    //                 whose header never made it to disk is started again, empty.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void recover() throws IOException
+    {
+        List<Segment> found = new ArrayList<>();
+        long last = 0;
+        List<Path> files = segmentFiles();
+        for (int i = 0; i < files.size(); i++)
+        {
+            Path path = files.get(i);
+            String name = path.getFileName().toString();
+            long first = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            if (i == files.size() - 1 && Segment.hasTornHeader(path))
+            {
+                System.err.println("Message store: " + path + " has no complete header, starting it again");
+                Files.delete(path);
+                long next = Math.max(first, last + 1);
+                found.add(Segment.create(directory, next));
+                last = next - 1;
+                break;
+            }
+            Segment segment = Segment.open(path, first);
+            SegmentReader reader = new SegmentReader(segment.getChannel(), Segment.HEADER_SIZE, segment.getChannel().size());
+            long expected = Math.max(first, last + 1);
+            boolean damaged = false;
+            while (reader.next())
+            {
+                if (reader.getSequence() != expected)
+                {
+                    damaged = true;
+                    break;
+                }
+                segment.recordAdded(expected, reader.getRecordPosition(), reader.getPosition());
+                last = expected++;
+            }
+            if (damaged || reader.isDamaged())
+            {
+                System.err.println("Message store: cutting damaged data off " + path + " at byte " + segment.getSize());
+                segment.truncate(segment.getSize());
+            }
+            found.add(segment);
+        }
+
+        if (found.isEmpty())
+        {
+            found.add(Segment.create(directory, 1));
+        }
+        segments = found.toArray(new Segment[0]);
+        lastSequence = last;
+        nextSequence = last + 1;
+    }
+
+    // Segment files of this store, oldest first
+    private List<Path> segmentFiles() throws IOException
+    {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX))
+        {
+            for (Path path : stream)
+            {
+                files.add(path);
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : append
+    // Description   : Writes one message and returns its sequence number. The message can be
+    //                 replayed as soon as this returns.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public synchronized long append(long epochMillis, String sender, String text) throws IOException
+    {
+        if (closed)
+        {
+            throw new IOException("Message store is closed");
+        }
+        long start = MetricsRegistry.startTimer();
+        byte[] senderBytes = sender.getBytes(StandardCharsets.UTF_8);
+        byte[] textBytes = text.getBytes(StandardCharsets.UTF_8);
+        if (senderBytes.length > MAX_SENDER || textBytes.length > MAX_TEXT)
+        {
+            throw new IOException("Message too large to store");
+        }
+        int bodyLength = RECORD_OVERHEAD - 8 + senderBytes.length + textBytes.length;
+        if (record.capacity() < bodyLength + 8)
+        {
+            record = ByteBuffer.allocate(Math.max(record.capacity() * 2, bodyLength + 8));
+        }
+
+        long sequence = nextSequence;
+        record.clear();
+        record.putInt(bodyLength).putLong(sequence).putLong(epochMillis).putShort((short) senderBytes.length);
+        record.put(senderBytes).put(textBytes);
+        crc.reset();
+        crc.update(record.array(), 4, bodyLength);
+        record.putInt((int) crc.getValue());
+        record.flip();
+
+        Segment active = segments[segments.length - 1];
+        if (active.getSize() > Segment.HEADER_SIZE && active.getSize() + record.remaining() > segmentBytes)
+        {
+            active = roll(sequence);
+        }
+        active.write(record, sequence);
+        nextSequence = sequence + 1;
+        lastSequence = sequence;
+        ChatMetrics.STORE_APPEND.recordSince(start);
+        return sequence;
+    }
+
+    // Starts a new segment; the finished one is forced to disk first
+    private Segment roll(long firstSequence) throws IOException
+    {
+        segments[segments.length - 1].getChannel().force(false);
+        Segment segment = Segment.create(directory, firstSequence);
+        Segment[] grown = Arrays.copyOf(segments, segments.length + 1);
+        grown[grown.length - 1] = segment;
+        segments = grown;
+        return segment;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : replay
+    // Description   : Streams the messages with sequence numbers greater than afterSequence to
+    //                 the handler, oldest first, until the handler stops or the newest message
+    //                 at the time of the call. Returns the sequence number of the last message
+    //                 passed on, or afterSequence if there was none.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public long replay(long afterSequence, MessageHandler handler) throws IOException
+    {
+        long last = lastSequence;
+        Segment[] current = segments;
+        long from = afterSequence + 1;
+        long delivered = afterSequence;
+
+        int first = 0;
+        while (first + 1 < current.length && current[first + 1].getFirstSequence() <= from)
+        {
+            first++;
+        }
+        for (int i = first; i < current.length; i++)
+        {
+            Segment segment = current[i];
+            SegmentReader reader = new SegmentReader(segment.getChannel(), segment.positionFor(from), segment.getSize());
+            while (reader.next())
+            {
+                long sequence = reader.getSequence();
+                if (sequence > last)
+                {
+                    return delivered;
+                }
+                if (sequence >= from)
+                {
+                    delivered = sequence;
+                    if (!handler.message(new StoredMessage(sequence, reader.getEpochMillis(), reader.getSender(), reader.getText())))
+                    {
+                        return delivered;
+                    }
+                }
+            }
+            if (reader.isDamaged())
+            {
+                throw new IOException("Damaged record in " + segment.getPath() + " at byte " + reader.getPosition());
+            }
+        }
+        return delivered;
+    }
+
+    // Sequence number of the newest message, 0 while the store is empty
+    public long getLastSequence()
+    {
+        return lastSequence;
+    }
+
+    public Path getDirectory()
+    {
+        return directory;
+    }
+
+    // Forces appended messages to the storage device
+    public synchronized void sync() throws IOException
+    {
+        if (!closed)
+        {
+            segments[segments.length - 1].getChannel().force(false);
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : close
+    // Description   : Forces the active segment to disk and closes every segment file.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public synchronized void close() throws IOException
+    {
+        if (closed)
+        {
+            return;
+        }
+        sync();
+        closed = true;
+        for (Segment segment : segments)
+        {
+            segment.close();
+        }
+    }
+}
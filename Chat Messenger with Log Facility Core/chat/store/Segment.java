@@ -0,0 +1,233 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : Segment.java
+// Description : One segment file of a MessageStore and its in-memory offset index.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : Segment
+// Description : Written by the appending thread only, while any number of readers scan it.
+//               The size is published after the bytes are written, and index entries are
+//               published as a new Index, so a reader never sees a partial record or entry.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class Segment
+{
+    static final byte[] MAGIC = { 'C', 'M', 'S', 'G' };
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 5;
+
+    // Segment bytes between two index entries
+    static final int INDEX_INTERVAL = 4 * 1024;
+
+    // Sparse index: sequence numbers and file offsets of every indexed record, in order
+    private static final class Index
+    {
+        final long[] sequences;
+        final long[] positions;
+        final int count;
+
+        Index(long[] sequences, long[] positions, int count)
+        {
+            this.sequences = sequences;
+            this.positions = positions;
+            this.count = count;
+        }
+    }
+
+    private final Path path;
+    private final long firstSequence;
+    private final FileChannel channel;
+    private volatile long size;
+    private volatile Index index = new Index(new long[16], new long[16], 0);
+    private long lastIndexed = -1;
+
+    private Segment(Path path, long firstSequence, FileChannel channel, long size)
+    {
+        this.path = path;
+        this.firstSequence = firstSequence;
+        this.channel = channel;
+        this.size = size;
+    }
+
+    // File name of the segment starting at firstSequence; zero padded to 20 digits so names sort
+    // by number. Not String.format, whose first call costs tens of ms at server startup.
+    static String fileName(long firstSequence)
+    {
+        String digits = Long.toString(firstSequence);
+        return MessageStore.SEGMENT_PREFIX + "0".repeat(20 - digits.length()) + digits + MessageStore.SEGMENT_SUFFIX;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : create
+    // Description   : Creates an empty segment file holding only the header.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static Segment create(Path directory, long firstSequence) throws IOException
+    {
+        Path path = directory.resolve(fileName(firstSequence));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC).put(VERSION).flip();
+        while (header.hasRemaining())
+        {
+            channel.write(header);
+        }
+        return new Segment(path, firstSequence, channel, HEADER_SIZE);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : open
+    // Description   : Opens an existing segment after checking its header. The caller rebuilds
+    //                 the index by scanning it.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static Segment open(Path path, long firstSequence) throws IOException
+    {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        byte[] bytes = header.array();
+        if (header.position() < HEADER_SIZE || !Arrays.equals(bytes, 0, MAGIC.length, MAGIC, 0, MAGIC.length)
+                || bytes[MAGIC.length] != VERSION)
+        {
+            channel.close();
+            throw new IOException("Not a message store segment: " + path);
+        }
+        return new Segment(path, firstSequence, channel, HEADER_SIZE);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : hasTornHeader
+    // Description   : True for a file cut short before its header was complete, or whose header
+    //                 is still zeros: a segment created just before a crash. Any other header
+    //                 that does not match is left for open() to reject.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static boolean hasTornHeader(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            if (channel.size() < HEADER_SIZE)
+            {
+                return true;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0)
+            {
+            }
+            for (byte b : header.array())
+            {
+                if (b != 0)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    Path getPath()
+    {
+        return path;
+    }
+
+    long getFirstSequence()
+    {
+        return firstSequence;
+    }
+
+    FileChannel getChannel()
+    {
+        return channel;
+    }
+
+    // Bytes of complete records plus the header
+    long getSize()
+    {
+        return size;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : write
+    // Description   : Appends an encoded record at the end of the segment and indexes it if it
+    //                 starts a new INDEX_INTERVAL.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    void write(ByteBuffer record, long sequence) throws IOException
+    {
+        long position = size;
+        long at = position;
+        while (record.hasRemaining())
+        {
+            at += channel.write(record, at);
+        }
+        recordAdded(sequence, position, at);
+    }
+
+    // Notes a record found while scanning, or just written, that ends at end
+    void recordAdded(long sequence, long position, long end)
+    {
+        if (lastIndexed < 0 || position - lastIndexed >= INDEX_INTERVAL)
+        {
+            Index current = index;
+            long[] sequences = current.sequences;
+            long[] positions = current.positions;
+            if (current.count == sequences.length)
+            {
+                sequences = Arrays.copyOf(sequences, sequences.length * 2);
+                positions = Arrays.copyOf(positions, positions.length * 2);
+            }
+            sequences[current.count] = sequence;
+            positions[current.count] = position;
+            index = new Index(sequences, positions, current.count + 1);
+            lastIndexed = position;
+        }
+        size = end;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : positionFor
+    // Description   : Offset of the last indexed record at or before sequence, where a scan for
+    //                 it starts.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    long positionFor(long sequence)
+    {
+        Index current = index;
+        int low = 0;
+        int high = current.count - 1;
+        long position = HEADER_SIZE;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            if (current.sequences[middle] <= sequence)
+            {
+                position = current.positions[middle];
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle - 1;
+            }
+        }
+        return position;
+    }
+
+    // Cuts off a torn or corrupt tail found during recovery
+    void truncate(long length) throws IOException
+    {
+        channel.truncate(length);
+        size = length;
+    }
+
+    void close() throws IOException
+    {
+        channel.close();
+    }
+}
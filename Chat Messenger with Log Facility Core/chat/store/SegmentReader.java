@@ -0,0 +1,152 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : SegmentReader.java
+// Description : Reads the records of one segment in order, with positional reads through a
+//               reusable buffer.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : SegmentReader
+// Description : next() stops at the limit, at a record cut off by a crash, or at a record whose
+//               length, sequence or CRC is wrong; isDamaged() tells the last two apart from a
+//               clean end. Many records are read with one file read, and the sender and text
+//               are only decoded when asked for.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class SegmentReader
+{
+    // Smallest buffer; grows to fit a single larger record
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long limit;
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long bufferStart;
+
+    private long position;
+    private boolean damaged;
+
+    // Current record
+    private int offset;
+    private int length;
+    private int senderLength;
+    private long sequence;
+    private long epochMillis;
+
+    SegmentReader(FileChannel channel, long position, long limit)
+    {
+        this.channel = channel;
+        this.position = position;
+        this.limit = limit;
+        this.buffer.limit(0);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : next
+    // Description   : Moves to the next record. Returns false at the end or at damage, leaving
+    //                 getPosition() at the first byte that is not part of a good record.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    boolean next() throws IOException
+    {
+        long available = limit - position;
+        if (available < MessageStore.RECORD_OVERHEAD)
+        {
+            damaged = available > 0;
+            return false;
+        }
+        fill(4);
+        int bodyLength = buffer.getInt(offset);
+        if (bodyLength < MessageStore.RECORD_OVERHEAD - 8 || bodyLength > MessageStore.MAX_BODY || 4L + bodyLength + 4 > available)
+        {
+            damaged = true;
+            return false;
+        }
+        length = 4 + bodyLength + 4;
+        fill(length);
+        sequence = buffer.getLong(offset + 4);
+        epochMillis = buffer.getLong(offset + 12);
+        senderLength = buffer.getShort(offset + 20) & 0xFFFF;
+        crc.reset();
+        crc.update(buffer.array(), offset + 4, bodyLength);
+        if (senderLength > bodyLength - 18 || (int) crc.getValue() != buffer.getInt(offset + 4 + bodyLength))
+        {
+            damaged = true;
+            return false;
+        }
+        position += length;
+        return true;
+    }
+
+    // Makes the n bytes at position available in the buffer at offset
+    private void fill(int n) throws IOException
+    {
+        offset = (int) (position - bufferStart);
+        if (position >= bufferStart && offset + n <= buffer.limit())
+        {
+            return;
+        }
+        if (buffer.capacity() < n)
+        {
+            buffer = ByteBuffer.allocate(n);
+        }
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), limit - position));
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+            {
+                throw new IOException("Segment shorter than expected");
+            }
+        }
+        buffer.flip();
+        bufferStart = position;
+        offset = 0;
+    }
+
+    long getSequence()
+    {
+        return sequence;
+    }
+
+    long getEpochMillis()
+    {
+        return epochMillis;
+    }
+
+    String getSender()
+    {
+        return new String(buffer.array(), offset + 22, senderLength, StandardCharsets.UTF_8);
+    }
+
+    String getText()
+    {
+        return new String(buffer.array(), offset + 22 + senderLength, length - 8 - 18 - senderLength, StandardCharsets.UTF_8);
+    }
+
+    // Start of the current record
+    long getRecordPosition()
+    {
+        return position - length;
+    }
+
+    // End of the last good record
+    long getPosition()
+    {
+        return position;
+    }
+
+    boolean isDamaged()
+    {
+        return damaged;
+    }
+}
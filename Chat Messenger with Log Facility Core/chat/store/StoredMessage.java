@@ -0,0 +1,50 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : StoredMessage.java
+// Description : One chat message as kept by the MessageStore.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.store;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : StoredMessage
+// Description : Immutable; the sequence number is unique within a store and grows with every
+//               message appended.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class StoredMessage
+{
+    private final long sequence;
+    private final long epochMillis;
+    private final String sender;
+    private final String text;
+
+    public StoredMessage(long sequence, long epochMillis, String sender, String text)
+    {
+        this.sequence = sequence;
+        this.epochMillis = epochMillis;
+        this.sender = sender;
+        this.text = text;
+    }
+
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    public long getEpochMillis()
+    {
+        return epochMillis;
+    }
+
+    public String getSender()
+    {
+        return sender;
+    }
+
+    public String getText()
+    {
+        return text;
+    }
+}
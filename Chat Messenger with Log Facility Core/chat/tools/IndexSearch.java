@@ -0,0 +1,339 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : IndexSearch.java
+// Description : Command line search of the full-text log index, which can also add existing
+//               log files to the index.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.tools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import chat.log.BinaryLogFormat;
+import chat.log.BinaryLogReader;
+import chat.log.ChatLogs;
+import chat.log.Direction;
+import chat.log.LogIndex;
+import chat.log.LogIndexWriter;
+import chat.log.LogLineEncoder;
+import chat.log.LogQuery;
+import chat.log.LogRecord;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : IndexSearch
+// Description : Usage: IndexSearch [options] [word | "phrase"]...
+//                 --index dir                    index directory (default: chat.log.index,
+//                                                or chat-index)
+//                 --from "yyyy-MM-dd HH:mm:ss"   earliest time (any prefix, e.g. "2025-07")
+//                 --to   "yyyy-MM-dd HH:mm:ss"   latest time, inclusive (any prefix)
+//                 --direction client|server      only lines the client or the server said
+//                 --limit N                      print the newest N matches (default 50)
+//                 --count                        print only the number of matches
+//                 --add file|directory           index existing ChatLog-* files first, in
+//                                                text or binary layout, plain or gzipped
+//               A message matches if it has every word and every phrase. An argument with
+//               spaces is a phrase, so  IndexSearch invoice "order status"  works from a
+//               shell. Files given to --add are indexed again if given again. Timings are
+//               printed to standard error.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class IndexSearch
+{
+    private static final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String EARLIEST = "0000-01-01 00:00:00";
+
+    private IndexSearch()
+    {
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        String configured = System.getProperty("chat.log.index", "none");
+        Path directory = Path.of(configured.equalsIgnoreCase("none") ? "chat-index" : configured);
+        List<Path> add = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        LogQuery options = new LogQuery();
+        int limit = 50;
+        boolean count = false;
+
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--index":
+                    directory = Path.of(args[++i]);
+                    break;
+                case "--from":
+                    options.setFrom(parseTime(args[++i], false));
+                    break;
+                case "--to":
+                    options.setTo(parseTime(args[++i], true));
+                    break;
+                case "--direction":
+                    options.setDirection(args[++i].equalsIgnoreCase("server") ? Direction.SERVER : Direction.CLIENT);
+                    break;
+                case "--limit":
+                    limit = Integer.parseInt(args[++i]);
+                    break;
+                case "--count":
+                    count = true;
+                    break;
+                case "--add":
+                    add.add(Path.of(args[++i]));
+                    break;
+                default:
+                    boolean phrase = args[i].trim().contains(" ") && !args[i].contains("\"");
+                    text.append(phrase ? " \"" + args[i] + "\"" : " " + args[i]);
+                    break;
+            }
+        }
+        if (add.isEmpty() && text.length() == 0 && options.getFrom() == Long.MIN_VALUE && options.getTo() == Long.MAX_VALUE)
+        {
+            System.err.println("Usage: IndexSearch [--index dir] [--from time] [--to time] [--direction client|server]");
+            System.err.println("                   [--limit N] [--count] [--add file|directory]... [word | \"phrase\"]...");
+            System.exit(2);
+        }
+
+        if (!add.isEmpty())
+        {
+            addFiles(directory, add);
+            if (text.length() == 0 && options.getFrom() == Long.MIN_VALUE && options.getTo() == Long.MAX_VALUE)
+            {
+                return;
+            }
+        }
+
+        LogQuery query;
+        try
+        {
+            query = LogQuery.parse(text.toString());
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        query.setFrom(options.getFrom());
+        query.setTo(options.getTo());
+        query.setDirection(options.getDirection());
+
+        long started = System.nanoTime();
+        LogIndex index = LogIndex.open(directory);
+        long opened = System.nanoTime();
+        List<LogIndex.Hit> hits = new ArrayList<>();
+        long matches = index.search(query, count ? 0 : limit, hits);
+        long searched = System.nanoTime();
+
+        if (count)
+        {
+            System.out.println(matches);
+        }
+        DateTimeFormatter format = DTF.withZone(ZoneId.systemDefault());
+        for (LogIndex.Hit hit : hits)
+        {
+            LogRecord record = hit.getRecord();
+            System.out.println(hit.getRole() + " [" + format.format(Instant.ofEpochMilli(record.getEpochMillis())) + "] "
+                    + record.getDirection().getLabel() + ": " + record.getText());
+        }
+        System.err.printf("%d matches of %s in %d messages, %d segments; opened in %.1f ms, searched in %.1f ms%n",
+                matches, query, index.getMessageCount(), index.getSegmentCount(),
+                (opened - started) / 1e6, (searched - opened) / 1e6);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : parseTime
+    // Description   : Reads any prefix of "yyyy-MM-dd HH:mm:ss" in local time as the start of
+    //                 the period it names, or with end as the last millisecond of it.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static long parseTime(String text, boolean end)
+    {
+        String prefix = text.trim();
+        if (prefix.length() > EARLIEST.length())
+        {
+            throw new IllegalArgumentException("Not a time: " + text);
+        }
+        LocalDateTime start = LocalDateTime.parse(prefix + EARLIEST.substring(prefix.length()), DTF);
+        if (!end)
+        {
+            return start.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        LocalDateTime next;
+        if (prefix.length() <= 4)
+        {
+            next = start.plusYears(1);
+        }
+        else if (prefix.length() <= 7)
+        {
+            next = start.plusMonths(1);
+        }
+        else if (prefix.length() <= 10)
+        {
+            next = start.plusDays(1);
+        }
+        else if (prefix.length() <= 13)
+        {
+            next = start.plusHours(1);
+        }
+        else if (prefix.length() <= 16)
+        {
+            next = start.plusMinutes(1);
+        }
+        else
+        {
+            next = start.plusSeconds(1);
+        }
+        return next.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() - 1;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : addFiles
+    // Description   : Indexes existing log files, each as a session of its own, under the role
+    //                 in its name. Directories are expanded to the ChatLog-* files in them.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private static void addFiles(Path directory, List<Path> paths) throws IOException
+    {
+        List<Path> files = new ArrayList<>();
+        for (Path path : paths)
+        {
+            if (!Files.isDirectory(path))
+            {
+                files.add(path);
+                continue;
+            }
+            try (DirectoryStream<Path> logs = Files.newDirectoryStream(path, "ChatLog-*"))
+            {
+                for (Path file : logs)
+                {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(".txt") || name.endsWith(".txt.gz") || name.endsWith(BinaryLogFormat.LOG_SUFFIX)
+                            || name.endsWith(BinaryLogFormat.LOG_SUFFIX + ".gz"))
+                    {
+                        files.add(file);
+                    }
+                }
+            }
+        }
+
+        long started = System.nanoTime();
+        long messages = 0;
+        for (Path file : files)
+        {
+            try (LogIndexWriter index = new LogIndexWriter(directory, roleOf(file), ChatLogs.newSessionId()))
+            {
+                String name = file.getFileName().toString();
+                if (name.contains(BinaryLogFormat.LOG_SUFFIX))
+                {
+                    messages += addBinary(file, name.endsWith(".gz"), index);
+                }
+                else
+                {
+                    messages += addText(file, name.endsWith(".gz"), index);
+                }
+            }
+        }
+        System.err.printf("Indexed %d messages from %d files in %d ms%n", messages, files.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // "Server" for ChatLog-Server-..., "Log" for the older ChatLog-<date> names
+    private static String roleOf(Path file)
+    {
+        String[] parts = file.getFileName().toString().split("-");
+        return (parts.length > 2 && !parts[1].isEmpty() && Character.isLetter(parts[1].charAt(0))) ? parts[1] : "Log";
+    }
+
+    // Adds the "[yyyy-MM-dd HH:mm:ss] Client says: ..." lines of a text log
+    private static long addText(Path file, boolean compressed, LogIndexWriter index) throws IOException
+    {
+        String client = "] " + Direction.CLIENT.getLabel() + ": ";
+        String server = "] " + Direction.SERVER.getLabel() + ": ";
+        InputStream in = Files.newInputStream(file);
+        if (compressed)
+        {
+            in = new GZIPInputStream(in, 64 * 1024);
+        }
+        long added = 0;
+        String stamp = null;
+        long time = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                Direction direction;
+                if (line.startsWith(client, 20))
+                {
+                    direction = Direction.CLIENT;
+                }
+                else if (line.startsWith(server, 20))
+                {
+                    direction = Direction.SERVER;
+                }
+                else
+                {
+                    continue;
+                }
+                // Lines of one second share their timestamp, so it is parsed once
+                if (stamp == null || !line.startsWith(stamp, 1))
+                {
+                    stamp = line.substring(1, 20);
+                    time = parseTime(stamp, false);
+                }
+                index.add(time, direction, LogLineEncoder.unescape(line.substring(20 + client.length())));
+                added++;
+            }
+        }
+        return added;
+    }
+
+    // Adds the chat records of a binary log, which the reader needs as a plain file
+    private static long addBinary(Path file, boolean compressed, LogIndexWriter index) throws IOException
+    {
+        Path plain = file;
+        if (compressed)
+        {
+            plain = Files.createTempFile("chat-index", BinaryLogFormat.LOG_SUFFIX);
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 64 * 1024))
+            {
+                Files.copy(in, plain, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        long added = 0;
+        try (BinaryLogReader reader = new BinaryLogReader(plain.toString()))
+        {
+            while (reader.next())
+            {
+                if (reader.getDirection() != Direction.SESSION_END && !reader.getText().isEmpty())
+                {
+                    index.add(reader.getEpochMillis(), reader.getDirection(), reader.getText());
+                    added++;
+                }
+            }
+        }
+        finally
+        {
+            if (compressed)
+            {
+                Files.deleteIfExists(plain);
+            }
+        }
+        return added;
+    }
+}
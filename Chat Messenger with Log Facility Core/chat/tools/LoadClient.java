@@ -0,0 +1,183 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LoadClient.java
+// Description : One simulated chat client of the load generator.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.tools;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import chat.net.Handshake;
+import chat.net.MessageChannel;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LoadClient
+// Description : Connects like ChatClientCUI, through Handshake, and runs a sender and a reader
+//               on virtual threads. Every message carries the System.nanoTime() it was due
+//               at after MARKER, so whichever client of the same process receives its fan-out
+//               can work out the latency.
+//
+//               The sender is open loop: messages are due at fixed intervals from a random
+//               phase and a late message is still timed from when it was due, so a stalled
+//               server shows up as latency instead of as fewer messages sent.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class LoadClient
+{
+    // Starts the payload of every generated message
+    static final String MARKER = "~load ";
+
+    // Longest the sender parks before looking at the stop flag again
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final LoadGenerator load;
+    private final MessageChannel channel;
+    private final int peers;
+    private final AtomicBoolean gone = new AtomicBoolean();
+    private final StringBuilder message = new StringBuilder();
+
+    private LoadClient(LoadGenerator load, MessageChannel channel, int peers)
+    {
+        this.load = load;
+        this.channel = channel;
+        this.peers = peers;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : connect
+    // Description   : Opens a connection and, unless room is null, joins the room and waits
+    //                 for the server to confirm, so no fan-out is missed once sending starts.
+    //                 peers is how many other clients share the room.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static LoadClient connect(LoadGenerator load, String host, int port, String room, int peers) throws IOException
+    {
+        Socket socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        MessageChannel channel = Handshake.connect(socket);
+        if (room != null)
+        {
+            channel.send("/join " + room);
+            channel.flush();
+            String reply;
+            while ((reply = channel.receive()) != null && !reply.startsWith("in room "))
+            {
+                // other rooms' traffic or server lines until the join is confirmed
+            }
+            if (reply == null)
+            {
+                throw new IOException("Server closed the connection before joining " + room);
+            }
+        }
+        return new LoadClient(load, channel, peers);
+    }
+
+    // Starts the reader and the sender, which sends one message every intervalNanos
+    void start(int id, long startNanos, long intervalNanos)
+    {
+        Thread.ofVirtual().name("load-reader-" + id).start(this::readLoop);
+        Thread.ofVirtual().name("load-sender-" + id).start(() -> sendLoop(startNanos, intervalNanos));
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : sendLoop
+    // Description   : Sends messages of the configured sizes on schedule until the load
+    //                 generator stops sending.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void sendLoop(long startNanos, long intervalNanos)
+    {
+        long due = startNanos + ThreadLocalRandom.current().nextLong(intervalNanos);
+        try
+        {
+            while (load.isSending() && !gone.get())
+            {
+                long now = System.nanoTime();
+                if (due - now > 0)
+                {
+                    LockSupport.parkNanos(Math.min(due - now, MAX_PARK_NANOS));
+                    continue;
+                }
+                String line = compose(due);
+                channel.send(line);
+                channel.flush();
+                load.sent(line.length(), peers);
+                due += intervalNanos;
+            }
+        }
+        catch (IOException e)
+        {
+            disconnected();
+        }
+    }
+
+    // MARKER, the due time and padding up to the next message length
+    private String compose(long dueNanos)
+    {
+        int length = load.getSizes().next();
+        message.setLength(0);
+        message.append(MARKER).append(dueNanos).append(' ');
+        while (message.length() < length)
+        {
+            message.append('x');
+        }
+        return message.toString();
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : readLoop
+    // Description   : Times every generated message fanned out to this client and ignores
+    //                 everything else.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private void readLoop()
+    {
+        try
+        {
+            String line;
+            while ((line = channel.receive()) != null)
+            {
+                long now = System.nanoTime();
+                int at = line.indexOf(MARKER);
+                if (at >= 0)
+                {
+                    int start = at + MARKER.length();
+                    int end = line.indexOf(' ', start);
+                    load.delivered(now - Long.parseLong(line, start, (end < 0) ? line.length() : end, 10));
+                }
+            }
+            disconnected();
+        }
+        catch (IOException e)
+        {
+            disconnected();
+        }
+    }
+
+    // Counts a connection the server dropped, once, unless the load generator closed it
+    private void disconnected()
+    {
+        if (gone.compareAndSet(false, true))
+        {
+            load.disconnected();
+        }
+    }
+
+    // Closes the connection without counting it as a disconnect
+    void close()
+    {
+        gone.set(true);
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            // already closed
+        }
+    }
+}
@@ -0,0 +1,404 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LoadGenerator.java
+// Description : Command line load generator and soak test for the chat servers: many simulated
+//               clients, a steady message rate, latency percentiles and throughput as text and
+//               CSV.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.tools;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import chat.log.LogConfig;
+import chat.metrics.LatencyHistogram;
+import chat.server.ChatServer;
+import chat.server.NioChatServer;
+import chat.server.OutboundPolicy;
+import chat.server.ServerListener;
+import chat.server.ThreadModel;
+import chat.server.ThreadedChatServer;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LoadGenerator
+// Description : Usage: LoadGenerator [options]
+//                 --host name                server to load (default localhost)
+//                 --port N                   its port (default 5100)
+//                 --server nio|virtual|platform
+//                                            start that server in this process on a free
+//                                            loopback port instead
+//                 --clients N                simulated clients (default 100)
+//                 --rooms N                  spread them over N rooms, 1 keeps all in the
+//                                            lobby (default 10)
+//                 --rate N                   messages per second from all clients together
+//                                            (default 1000)
+//                 --size 64|32-512|exp:256   message lengths (default exp:256)
+//                 --duration 60s             measured run, e.g. 8h for a soak test
+//                 --warmup 5s                load before measuring starts
+//                 --interval 10s             how often a progress row is printed
+//                 --csv file                 also write the rows to a CSV file
+//                 --max-p99 5ms              fail if the p99 latency is above this
+//
+//               Latency is from when a message was due to be sent until another client
+//               received its fan-out, so it covers both directions through the server; all
+//               clients run in this process and share one clock. The exit status is 1 if
+//               messages were lost, a client was disconnected or --max-p99 was exceeded.
+//
+//               There is no "as fast as possible" mode: a client that never pauses keeps a
+//               server's reader busy and measures little more than starvation. To find the
+//               most a server takes, raise --rate until "in flight" keeps growing.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class LoadGenerator
+{
+    // Connections opened at the same time, well below the servers' accept backlog
+    static final int CONNECT_PARALLELISM = 64;
+
+    // Longest wait after the run for fan-outs still on their way
+    private static final long DRAIN_MILLIS = 5000;
+
+    private static final String USAGE = "Usage: LoadGenerator [--host name] [--port N | --server nio|virtual|platform] [--clients N] [--rooms N]"
+            + " [--rate N] [--size 64|32-512|exp:256] [--duration 60s] [--warmup 5s] [--interval 10s] [--csv file] [--max-p99 5ms]";
+
+    private static final String CSV_HEADER = "elapsed_s,phase,sent_per_s,delivered_per_s,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,in_flight,disconnects";
+
+    private final MessageSizes sizes;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder sentBytes = new LongAdder();
+    private final LongAdder expected = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+    private final LatencyHistogram total = new LatencyHistogram("load_latency", "Latency over the measured run");
+    private final AtomicReference<LatencyHistogram> interval = new AtomicReference<>(newInterval());
+    private volatile boolean sending = true;
+    private volatile boolean measuring;
+
+    private LoadGenerator(MessageSizes sizes)
+    {
+        this.sizes = sizes;
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        String host = "localhost";
+        int port = 5100;
+        String server = null;
+        int clients = 100;
+        int rooms = 10;
+        double rate = 1000;
+        String size = "exp:256";
+        long duration = LogConfig.parseDuration("60s");
+        long warmup = LogConfig.parseDuration("5s");
+        long every = LogConfig.parseDuration("10s");
+        String csv = null;
+        long maxP99 = 0;
+
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--host":
+                    host = args[++i];
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--server":
+                    server = args[++i];
+                    break;
+                case "--clients":
+                    clients = Integer.parseInt(args[++i]);
+                    break;
+                case "--rooms":
+                    rooms = Integer.parseInt(args[++i]);
+                    break;
+                case "--rate":
+                    rate = Double.parseDouble(args[++i]);
+                    break;
+                case "--size":
+                    size = args[++i];
+                    break;
+                case "--duration":
+                    duration = LogConfig.parseDuration(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = LogConfig.parseDuration(args[++i]);
+                    break;
+                case "--interval":
+                    every = LogConfig.parseDuration(args[++i]);
+                    break;
+                case "--csv":
+                    csv = args[++i];
+                    break;
+                case "--max-p99":
+                    maxP99 = TimeUnit.MILLISECONDS.toNanos(LogConfig.parseDuration(args[++i]));
+                    break;
+                default:
+                    System.err.println(USAGE);
+                    System.exit(2);
+            }
+        }
+        if (clients < 1 || rooms < 1 || rate <= 0 || every <= 0)
+        {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        ChatServer local = null;
+        if (server != null)
+        {
+            local = startServer(server);
+            host = "127.0.0.1";
+            port = local.getPort();
+        }
+
+        LoadGenerator load = new LoadGenerator(MessageSizes.parse(size));
+        System.out.println("Load: " + clients + " clients in " + Math.min(rooms, clients) + " room(s), "
+                + rate + " msg/s, sizes " + size + ", " + host + ":" + port
+                + ((local != null) ? " (" + server + " in process)" : ""));
+        boolean passed;
+        try (PrintWriter csvOut = (csv != null) ? new PrintWriter(new FileWriter(csv)) : null)
+        {
+            passed = load.run(host, port, clients, rooms, rate, warmup, duration, every, csvOut, maxP99);
+        }
+        finally
+        {
+            if (local != null)
+            {
+                local.close();
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    // Quiet server on a free loopback port, with the slow client policy of the chat.outbound.* properties
+    private static ChatServer startServer(String kind) throws IOException
+    {
+        ServerListener quiet = new ServerListener()
+        {
+        };
+        ChatServer server = kind.equalsIgnoreCase("nio")
+                ? new NioChatServer(0, NioChatServer.defaultLoopCount(), quiet)
+                : new ThreadedChatServer(0, ThreadModel.parse(kind), quiet);
+        server.setOutboundPolicy(OutboundPolicy.fromSystemProperties());
+        server.start();
+        return server;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : run
+    // Description   : Connects the clients, loads the server for warmup plus duration while
+    //                 printing a row every interval, then waits for the last fan-outs and
+    //                 prints the summary. Returns whether the run passed.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private boolean run(String host, int port, int clients, int rooms, double rate, long warmup, long duration,
+            long every, PrintWriter csv, long maxP99) throws Exception
+    {
+        long connectStart = System.nanoTime();
+        List<LoadClient> all = connect(host, port, clients, Math.min(rooms, clients));
+        System.out.println("Connected " + clients + " clients in " + millisSince(connectStart) + " ms");
+
+        // Each client sends its share of the rate
+        long intervalNanos = Math.max(1, (long) (clients * 1e9 / rate));
+        long start = System.nanoTime();
+        for (int i = 0; i < all.size(); i++)
+        {
+            all.get(i).start(i, start, intervalNanos);
+        }
+
+        System.out.println(String.format("%8s %-7s %10s %12s %8s %8s %8s %8s %8s %9s %5s", "time", "phase", "sent/s",
+                "delivered/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "in flight", "disc"));
+        if (csv != null)
+        {
+            csv.println(CSV_HEADER);
+        }
+
+        long measureStart = start + TimeUnit.MILLISECONDS.toNanos(warmup);
+        long end = measureStart + TimeUnit.MILLISECONDS.toNanos(duration);
+        long[] measuredFrom = { 0, 0, 0 };
+        long[] previous = { 0, 0, 0 };
+        long previousTime = start;
+        measuring = warmup == 0;
+        while (previousTime < end)
+        {
+            long next = Math.min(previousTime + TimeUnit.MILLISECONDS.toNanos(every), end);
+            if (!measuring && next > measureStart)
+            {
+                next = measureStart;
+            }
+            sleepUntil(next);
+
+            long[] now = { sent.sum(), delivered.sum(), sentBytes.sum() };
+            LatencyHistogram rows = interval.getAndSet(newInterval());
+            report(String.format("%8.1f", (next - start) / 1e9), measuring ? "run" : "warmup", now[0] - previous[0],
+                    now[1] - previous[1], next - previousTime, rows, csv);
+            if (!measuring && next >= measureStart)
+            {
+                measuring = true;
+                measuredFrom = now;
+            }
+            previous = now;
+            previousTime = next;
+        }
+        // Stop, and let what is in flight arrive before counting losses
+        measuring = false;
+        long[] measured = { sent.sum() - measuredFrom[0], delivered.sum() - measuredFrom[1], sentBytes.sum() - measuredFrom[2] };
+        sending = false;
+        long drainEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DRAIN_MILLIS);
+        while (delivered.sum() < expected.sum() && System.nanoTime() < drainEnd)
+        {
+            Thread.sleep(50);
+        }
+        for (LoadClient client : all)
+        {
+            client.close();
+        }
+
+        long lost = Math.max(0, expected.sum() - delivered.sum());
+        double seconds = Math.max(1, end - measureStart) / 1e9;
+        report(String.format("%8.1f", seconds), "total", measured[0], measured[1], end - measureStart, total, csv);
+        System.out.println();
+        System.out.println(String.format("Sent       %d messages, %.1f/s, %.2f MB/s", measured[0], measured[0] / seconds,
+                measured[2] / seconds / 1e6));
+        System.out.println(String.format("Delivered  %d fan-outs, %.1f/s", measured[1], measured[1] / seconds));
+        System.out.println(String.format("Latency    p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  max %.3f ms",
+                millis(total.valueAtQuantile(0.5)), millis(total.valueAtQuantile(0.9)), millis(total.valueAtQuantile(0.99)),
+                millis(total.valueAtQuantile(0.999)), millis(total.valueAtQuantile(1))));
+        System.out.println("Lost       " + lost + " fan-outs, " + disconnects.sum() + " client(s) disconnected");
+
+        boolean passed = lost == 0 && disconnects.sum() == 0;
+        if (maxP99 > 0 && total.valueAtQuantile(0.99) > maxP99)
+        {
+            System.out.println(String.format("FAILED     p99 above %.3f ms", millis(maxP99)));
+            passed = false;
+        }
+        return passed;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : connect
+    // Description   : Opens every connection, a few at a time, and puts client i in room
+    //                 "load-(i % rooms)", or leaves everyone in the lobby with one room.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private List<LoadClient> connect(String host, int port, int clients, int rooms) throws Exception
+    {
+        Semaphore permits = new Semaphore(CONNECT_PARALLELISM);
+        List<Future<LoadClient>> pending = new ArrayList<>();
+        try (ExecutorService connector = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            for (int i = 0; i < clients; i++)
+            {
+                String room = (rooms > 1) ? "load-" + (i % rooms) : null;
+                int members = clients / rooms + ((i % rooms < clients % rooms) ? 1 : 0);
+                pending.add(connector.submit(() ->
+                {
+                    permits.acquire();
+                    try
+                    {
+                        return LoadClient.connect(this, host, port, room, members - 1);
+                    }
+                    finally
+                    {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+        List<LoadClient> all = new ArrayList<>(clients);
+        for (Future<LoadClient> client : pending)
+        {
+            all.add(client.get());
+        }
+        return all;
+    }
+
+    // One progress row as text, and as CSV if requested
+    private void report(String time, String phase, long sentCount, long deliveredCount, long nanos, LatencyHistogram latency,
+            PrintWriter csv)
+    {
+        double seconds = Math.max(1, nanos) / 1e9;
+        double[] values = { millis(latency.valueAtQuantile(0.5)), millis(latency.valueAtQuantile(0.9)),
+                millis(latency.valueAtQuantile(0.99)), millis(latency.valueAtQuantile(0.999)), millis(latency.valueAtQuantile(1)) };
+        long inFlight = expected.sum() - delivered.sum();
+        System.out.println(String.format("%8s %-7s %10.1f %12.1f %8.3f %8.3f %8.3f %8.3f %8.3f %9d %5d", time, phase,
+                sentCount / seconds, deliveredCount / seconds, values[0], values[1], values[2], values[3], values[4], inFlight,
+                disconnects.sum()));
+        if (csv != null)
+        {
+            csv.println(String.format("%s,%s,%.1f,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f,%d,%d", time.trim(), phase, sentCount / seconds,
+                    deliveredCount / seconds, values[0], values[1], values[2], values[3], values[4], inFlight, disconnects.sum()));
+            csv.flush();
+        }
+    }
+
+    private static LatencyHistogram newInterval()
+    {
+        return new LatencyHistogram("load_interval_latency", "Latency since the last progress row");
+    }
+
+    private static void sleepUntil(long deadline) throws InterruptedException
+    {
+        long wait;
+        while ((wait = deadline - System.nanoTime()) > 0)
+        {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private static double millis(long nanos)
+    {
+        return nanos / 1e6;
+    }
+
+    private static long millisSince(long start)
+    {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    MessageSizes getSizes()
+    {
+        return sizes;
+    }
+
+    boolean isSending()
+    {
+        return sending;
+    }
+
+    // A message of length characters went to a room with peers other members
+    void sent(int length, int peers)
+    {
+        sent.increment();
+        sentBytes.add(length);
+        expected.add(peers);
+    }
+
+    // A generated message arrived latencyNanos after it was due
+    void delivered(long latencyNanos)
+    {
+        delivered.increment();
+        interval.get().record(latencyNanos);
+        if (measuring)
+        {
+            total.record(latencyNanos);
+        }
+    }
+
+    void disconnected()
+    {
+        disconnects.increment();
+    }
+}
@@ -0,0 +1,125 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogReplay.java
+// Description : Command line tool that replays a binary chat log (.clog), or a time range of it,
+//               in the familiar ChatLog-*.txt text layout.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.tools;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+import chat.log.BinaryLogReader;
+import chat.log.LogRecord;
+import chat.log.TextLogSink;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LogReplay
+// Description : Usage: LogReplay <file.clog> [--from "yyyy-MM-dd HH:mm:ss"]
+//                                            [--to "yyyy-MM-dd HH:mm:ss"] [--out file.txt]
+//               With --from the reader seeks through the .cidx index instead of scanning the
+//               file from the start. Without --out the text goes to standard output.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class LogReplay
+{
+    private static final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Stop reading once records are this far past --to, allowing for slightly unordered times
+    private static final long END_SLACK_MILLIS = 1000;
+
+    private LogReplay()
+    {
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        String file = null;
+        String outFile = null;
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--from":
+                    from = parseTime(args[++i]);
+                    break;
+                case "--to":
+                    to = parseTime(args[++i]);
+                    break;
+                case "--out":
+                    outFile = args[++i];
+                    break;
+                default:
+                    file = args[i];
+                    break;
+            }
+        }
+        if (file == null)
+        {
+            System.err.println("Usage: LogReplay <file.clog> [--from \"yyyy-MM-dd HH:mm:ss\"] [--to \"yyyy-MM-dd HH:mm:ss\"] [--out file.txt]");
+            System.exit(2);
+        }
+
+        long started = System.nanoTime();
+        OutputStream out = (outFile != null) ? new FileOutputStream(outFile) : System.out;
+        long written = replay(file, from, to, out);
+        long elapsed = (System.nanoTime() - started) / 1_000_000;
+        System.err.println(written + " records replayed in " + elapsed + " ms");
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : replay
+    // Description   : Writes every record with from <= time <= to to the stream in text layout
+    //                 and returns how many were written.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    public static long replay(String file, long from, long to, OutputStream out) throws IOException
+    {
+        long written = 0;
+        TextLogSink sink = new TextLogSink(out);
+        try (BinaryLogReader reader = new BinaryLogReader(file))
+        {
+            if (from != Long.MIN_VALUE)
+            {
+                reader.seek(from);
+            }
+            while (reader.next())
+            {
+                long time = reader.getEpochMillis();
+                if (time > to && time - to > END_SLACK_MILLIS)
+                {
+                    break;
+                }
+                if (time < from || time > to)
+                {
+                    continue;
+                }
+                sink.append(new LogRecord(time, reader.getDirection(), reader.getText()));
+                written++;
+            }
+            if (reader.isCorrupt())
+            {
+                System.err.println("Stopped at a damaged record after offset " + reader.getRecordOffset());
+            }
+        }
+        sink.flush();
+        if (out != System.out)
+        {
+            sink.close();
+        }
+        return written;
+    }
+
+    private static long parseTime(String text)
+    {
+        return LocalDateTime.parse(text, DTF).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
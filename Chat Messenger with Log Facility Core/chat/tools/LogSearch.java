@@ -0,0 +1,770 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogSearch.java
+// Description : Command line search and tail tool for ChatLog-*.txt files. Files are memory
+//               mapped in line-aligned chunks and scanned in parallel on a fork-join pool.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.tools;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import chat.log.LogLineEncoder;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LogSearch
+// Description : Usage: LogSearch [options] <file or directory>...
+//                 --from "yyyy-MM-dd HH:mm:ss"   earliest time (any prefix, e.g. "2025-09-19")
+//                 --to   "yyyy-MM-dd HH:mm:ss"   latest time, inclusive (any prefix)
+//                 --direction client|server      only "Client says" or "Server says" lines
+//                 --contains text                plain substring of the message
+//                 --regex pattern                Java regular expression
+//                 --count                        print only the number of matches
+//                 --threads N                    fork-join parallelism (default: all cores)
+//                 --follow                       keep printing new matching lines, like tail -f
+//                 --baseline                     also time a BufferedReader line loop
+//               Directories are expanded to the ChatLog-*.txt files they contain, and to the
+//               ChatLog-*.txt.gz segments log rotation leaves; those are decompressed as they
+//               are read, one task per file. Throughput numbers are printed to standard error.
+//
+//               Text logs write line breaks in a message as "\n" and "\r" and a backslash as
+//               "\\" (see LogLineEncoder). --contains and --regex match the message as it was
+//               sent, with these undone, and matching lines are printed the same way.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+public final class LogSearch
+{
+    // Size of the regions scanned by one fork-join task
+    static final long CHUNK_SIZE = 32L * 1024 * 1024;
+
+    // How often follow mode looks for new data
+    private static final long FOLLOW_POLL_MILLIS = 250;
+
+    // "yyyy-MM-dd HH:mm:ss", the longest --from or --to the filter compares
+    private static final int TIMESTAMP_LENGTH = 19;
+
+    private static final String USAGE = "Usage: LogSearch [--from time] [--to time] [--direction client|server] [--contains text] [--regex pattern] [--count] [--threads N] [--follow] [--baseline] <file or directory>...";
+
+    private LogSearch()
+    {
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Class Name  : Filter
+    // Description : Matching rules evaluated directly on the mapped bytes of a line. Timestamps
+    //               have a fixed width, so time ranges are plain byte comparisons. The substring
+    //               is looked for escaped, as the log writes it. Only lines that pass the cheap
+    //               checks are decoded and unescaped for the regular expression.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static final class Filter
+    {
+        byte[] from;
+        byte[] to;
+        byte[] label;
+        Pattern regex;
+
+        // The --contains text as typed, and as its bytes appear in a log line
+        String containsText;
+        byte[] contains;
+
+        void setContains(String text)
+        {
+            containsText = text.isEmpty() ? null : text;
+            contains = text.isEmpty() ? null : LogLineEncoder.escape(text).getBytes(StandardCharsets.UTF_8);
+        }
+
+        boolean matches(ByteBuffer buf, int start, int end)
+        {
+            int length = end - start;
+            if (from != null || to != null)
+            {
+                // "[yyyy-MM-dd HH:mm:ss] ..."
+                if (length < 21 || buf.get(start) != '[')
+                {
+                    return false;
+                }
+                if (from != null && compare(buf, start + 1, from) < 0)
+                {
+                    return false;
+                }
+                if (to != null && compare(buf, start + 1, to) > 0)
+                {
+                    return false;
+                }
+            }
+            if (label != null)
+            {
+                int at = (length > 22 && buf.get(start) == '[') ? start + 22 : start;
+                if (end - at < label.length || !regionEquals(buf, at, label))
+                {
+                    return false;
+                }
+            }
+            if (contains != null && indexOf(buf, start, end, contains) < 0)
+            {
+                return false;
+            }
+            if (regex != null)
+            {
+                return regex.matcher(LogLineEncoder.unescape(decode(buf, start, end))).find();
+            }
+            return true;
+        }
+
+        // Same rules on an already decoded line, used by the BufferedReader baseline
+        boolean matches(String line)
+        {
+            if (from != null || to != null)
+            {
+                if (line.length() < 21 || line.charAt(0) != '[')
+                {
+                    return false;
+                }
+                if (from != null && line.substring(1, 1 + from.length).compareTo(ascii(from)) < 0)
+                {
+                    return false;
+                }
+                if (to != null && line.substring(1, 1 + to.length).compareTo(ascii(to)) > 0)
+                {
+                    return false;
+                }
+            }
+            if (label != null)
+            {
+                int at = (line.length() > 22 && line.charAt(0) == '[') ? 22 : 0;
+                if (!line.startsWith(ascii(label), at))
+                {
+                    return false;
+                }
+            }
+            if (containsText == null && regex == null)
+            {
+                return true;
+            }
+            String message = LogLineEncoder.unescape(line);
+            if (containsText != null && !message.contains(containsText))
+            {
+                return false;
+            }
+            return regex == null || regex.matcher(message).find();
+        }
+
+        private static String ascii(byte[] bytes)
+        {
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+
+        // Compares the first key.length bytes at pos with key
+        private static int compare(ByteBuffer buf, int pos, byte[] key)
+        {
+            for (int i = 0; i < key.length; i++)
+            {
+                int diff = (buf.get(pos + i) & 0xFF) - (key[i] & 0xFF);
+                if (diff != 0)
+                {
+                    return diff;
+                }
+            }
+            return 0;
+        }
+
+        private static boolean regionEquals(ByteBuffer buf, int pos, byte[] key)
+        {
+            return compare(buf, pos, key) == 0;
+        }
+
+        // First match of an escaped key that starts on a whole char of the line, not on the
+        // second byte of an escape, so "n" is not found in "\\n"
+        private static int indexOf(ByteBuffer buf, int start, int end, byte[] key)
+        {
+            byte first = key[0];
+            int last = end - key.length;
+            for (int i = start; i <= last; i++)
+            {
+                if (buf.get(i) == first && regionEquals(buf, i, key) && !escapedAt(buf, start, i))
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // True if an odd run of backslashes comes right before pos
+        private static boolean escapedAt(ByteBuffer buf, int start, int pos)
+        {
+            int backslashes = 0;
+            while (pos - backslashes > start && buf.get(pos - backslashes - 1) == '\\')
+            {
+                backslashes++;
+            }
+            return (backslashes & 1) == 1;
+        }
+    }
+
+    // Result of scanning one chunk: matching lines and their line numbers within the chunk
+    static final class ChunkResult
+    {
+        final List<String> lines = new ArrayList<>();
+        final List<Long> lineNumbers = new ArrayList<>();
+        long lineCount;
+        long matchCount;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Class Name  : Chunk
+    // Description : A line-aligned region of one file.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static final class Chunk
+    {
+        final Path file;
+        final long start;
+        final long end;
+        ChunkResult result;
+
+        Chunk(Path file, long start, long end)
+        {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Class Name  : ScanTask
+    // Description : Splits the chunk list in halves until a single chunk is left, then maps and
+    //               scans it.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static final class ScanTask extends RecursiveTask<Void>
+    {
+        private final List<Chunk> chunks;
+        private final Filter filter;
+        private final boolean keepLines;
+
+        ScanTask(List<Chunk> chunks, Filter filter, boolean keepLines)
+        {
+            this.chunks = chunks;
+            this.filter = filter;
+            this.keepLines = keepLines;
+        }
+
+        protected Void compute()
+        {
+            if (chunks.size() > 1)
+            {
+                int mid = chunks.size() / 2;
+                invokeAll(new ScanTask(chunks.subList(0, mid), filter, keepLines),
+                          new ScanTask(chunks.subList(mid, chunks.size()), filter, keepLines));
+                return null;
+            }
+            Chunk chunk = chunks.get(0);
+            if (isCompressed(chunk.file))
+            {
+                try
+                {
+                    chunk.result = scanCompressed(chunk.file, filter, keepLines);
+                }
+                catch (IOException e)
+                {
+                    System.err.println(chunk.file + ": " + e.getMessage());
+                    chunk.result = new ChunkResult();
+                }
+                return null;
+            }
+            try (FileChannel channel = FileChannel.open(chunk.file, StandardOpenOption.READ))
+            {
+                chunk.result = scan(channel, chunk.start, chunk.end, filter, keepLines);
+            }
+            catch (IOException e)
+            {
+                System.err.println(chunk.file + ": " + e.getMessage());
+                chunk.result = new ChunkResult();
+            }
+            return null;
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : scan
+    // Description   : Maps [start, end) read-only and runs the filter over every complete line.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static ChunkResult scan(FileChannel channel, long start, long end, Filter filter, boolean keepLines) throws IOException
+    {
+        ChunkResult result = new ChunkResult();
+        if (end <= start)
+        {
+            return result;
+        }
+        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        int limit = buf.limit();
+        int lineStart = 0;
+        int i;
+        while ((i = nextNewline(buf, lineStart, limit)) >= 0)
+        {
+            int lineEnd = (i > lineStart && buf.get(i - 1) == '\r') ? i - 1 : i;
+            if (filter.matches(buf, lineStart, lineEnd))
+            {
+                result.matchCount++;
+                if (keepLines)
+                {
+                    result.lines.add(LogLineEncoder.unescape(decode(buf, lineStart, lineEnd)));
+                    result.lineNumbers.add(result.lineCount + 1);
+                }
+            }
+            result.lineCount++;
+            lineStart = i + 1;
+        }
+        return result;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : scanCompressed
+    // Description   : Same as scan for a whole gzipped segment, line by line as it is inflated.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static ChunkResult scanCompressed(Path file, Filter filter, boolean keepLines) throws IOException
+    {
+        ChunkResult result = new ChunkResult();
+        try (BufferedReader reader = openLines(file))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                if (filter.matches(line))
+                {
+                    result.matchCount++;
+                    if (keepLines)
+                    {
+                        result.lines.add(LogLineEncoder.unescape(line));
+                        result.lineNumbers.add(result.lineCount + 1);
+                    }
+                }
+                result.lineCount++;
+            }
+        }
+        return result;
+    }
+
+    static boolean isCompressed(Path file)
+    {
+        return file.getFileName().toString().endsWith(".gz");
+    }
+
+    // Reader of a log file's lines, inflating a gzipped one
+    static BufferedReader openLines(Path file) throws IOException
+    {
+        if (!isCompressed(file))
+        {
+            return Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        }
+        InputStream in = Files.newInputStream(file);
+        try
+        {
+            return new BufferedReader(new InputStreamReader(new GZIPInputStream(in, 64 * 1024), StandardCharsets.UTF_8), 64 * 1024);
+        }
+        catch (IOException e)
+        {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : nextNewline
+    // Description   : Finds the next '\n' eight bytes at a time: XOR turns newline bytes into
+    //                 zero bytes, and the classic has-zero-byte test marks the first of them.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static int nextNewline(ByteBuffer buf, int from, int limit)
+    {
+        int i = from;
+        for (; i + 8 <= limit; i += 8)
+        {
+            long word = buf.getLong(i) ^ NEWLINES;
+            long found = (word - LOW_BITS) & ~word & HIGH_BITS;
+            if (found != 0)
+            {
+                return i + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+        }
+        for (; i < limit; i++)
+        {
+            if (buf.get(i) == '\n')
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static String decode(ByteBuffer buf, int start, int end)
+    {
+        byte[] bytes = new byte[end - start];
+        buf.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : split
+    // Description   : Cuts [0, size) of a file into chunks of about CHUNK_SIZE that end right
+    //                 after a newline. A trailing partial line is left out; it is returned by
+    //                 the next call in follow mode once it is complete.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static List<Chunk> split(Path file, FileChannel channel, long from, long size) throws IOException
+    {
+        List<Chunk> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(64 * 1024);
+        long start = from;
+        while (start < size)
+        {
+            long end = Math.min(start + CHUNK_SIZE, size);
+            end = lineEndAtOrAfter(channel, end, size, probe);
+            if (end <= start)
+            {
+                break;
+            }
+            chunks.add(new Chunk(file, start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    // First offset after a '\n' at or after pos - 1, or the last such offset before size
+    private static long lineEndAtOrAfter(FileChannel channel, long pos, long size, ByteBuffer probe) throws IOException
+    {
+        long at = pos - 1;
+        while (at < size)
+        {
+            probe.clear();
+            int n = channel.read(probe, at);
+            if (n <= 0)
+            {
+                break;
+            }
+            for (int i = 0; i < n; i++)
+            {
+                if (probe.get(i) == '\n')
+                {
+                    return at + i + 1;
+                }
+            }
+            at += n;
+        }
+        // No newline until EOF: only whole lines before pos are complete
+        return lastLineEndBefore(channel, pos, probe);
+    }
+
+    private static long lastLineEndBefore(FileChannel channel, long pos, ByteBuffer probe) throws IOException
+    {
+        long at = pos;
+        while (at > 0)
+        {
+            int n = (int) Math.min(probe.capacity(), at);
+            probe.clear().limit(n);
+            channel.read(probe, at - n);
+            for (int i = n - 1; i >= 0; i--)
+            {
+                if (probe.get(i) == '\n')
+                {
+                    return at - n + i + 1;
+                }
+            }
+            at -= n;
+        }
+        return 0;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : expand
+    // Description   : Turns file and directory arguments into a sorted list of log files.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static List<Path> expand(List<String> args) throws IOException
+    {
+        List<Path> files = new ArrayList<>();
+        for (String arg : args)
+        {
+            Path path = Path.of(arg);
+            if (Files.isDirectory(path))
+            {
+                List<Path> found = new ArrayList<>();
+                try (DirectoryStream<Path> dir = Files.newDirectoryStream(path, "ChatLog-*.{txt,txt.gz}"))
+                {
+                    dir.forEach(found::add);
+                }
+                Collections.sort(found);
+                files.addAll(found);
+            }
+            else
+            {
+                files.add(path);
+            }
+        }
+        return files;
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        Filter filter = new Filter();
+        List<String> targets = new ArrayList<>();
+        boolean countOnly = false;
+        boolean follow = false;
+        boolean baseline = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 0; i < args.length; i++)
+        {
+            switch (args[i])
+            {
+                case "--from":
+                    filter.from = timeKey(args[i], args[++i]);
+                    break;
+                case "--to":
+                    filter.to = timeKey(args[i], args[++i]);
+                    break;
+                case "--direction":
+                    String direction = args[++i];
+                    if (!direction.equalsIgnoreCase("server") && !direction.equalsIgnoreCase("client"))
+                    {
+                        usageError("--direction must be client or server: " + direction);
+                    }
+                    String label = direction.equalsIgnoreCase("server") ? "Server says" : "Client says";
+                    filter.label = label.getBytes(StandardCharsets.US_ASCII);
+                    break;
+                case "--contains":
+                    filter.setContains(args[++i]);
+                    break;
+                case "--regex":
+                    filter.regex = Pattern.compile(args[++i]);
+                    break;
+                case "--count":
+                    countOnly = true;
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--follow":
+                    follow = true;
+                    break;
+                case "--baseline":
+                    baseline = true;
+                    break;
+                default:
+                    targets.add(args[i]);
+                    break;
+            }
+        }
+        if (targets.isEmpty())
+        {
+            usageError(null);
+        }
+        List<Path> files = expand(targets);
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        Map<Path, Long> scanned = search(files, filter, pool, !countOnly, System.out, countOnly);
+
+        if (baseline)
+        {
+            runBaseline(files, filter);
+        }
+        if (follow)
+        {
+            follow(targets, scanned, filter);
+        }
+        pool.shutdown();
+    }
+
+    // Bytes of a --from or --to time; the filter compares that many bytes after the '[' of a line
+    private static byte[] timeKey(String option, String value)
+    {
+        if (value.length() > TIMESTAMP_LENGTH)
+        {
+            usageError(option + " is longer than \"yyyy-MM-dd HH:mm:ss\": " + value);
+        }
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static void usageError(String message)
+    {
+        if (message != null)
+        {
+            System.err.println(message);
+        }
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : search
+    // Description   : Scans every file in parallel, prints the matches in file order and the
+    //                 throughput, and returns how far each file was scanned.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static Map<Path, Long> search(List<Path> files, Filter filter, ForkJoinPool pool, boolean keepLines, PrintStream out, boolean countOnly) throws IOException
+    {
+        long started = System.nanoTime();
+        Map<Path, Long> scanned = new LinkedHashMap<>();
+        List<Chunk> chunks = new ArrayList<>();
+        for (Path file : files)
+        {
+            if (isCompressed(file))
+            {
+                // Read whole by one task; done growing, so follow mode never reads it again
+                long size = Files.size(file);
+                chunks.add(new Chunk(file, 0, size));
+                scanned.put(file, size);
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+            {
+                List<Chunk> fileChunks = split(file, channel, 0, channel.size());
+                chunks.addAll(fileChunks);
+                scanned.put(file, fileChunks.isEmpty() ? 0 : fileChunks.get(fileChunks.size() - 1).end);
+            }
+        }
+        if (!chunks.isEmpty())
+        {
+            pool.invoke(new ScanTask(chunks, filter, keepLines));
+        }
+
+        long bytes = 0;
+        long lines = 0;
+        long matches = 0;
+        Path current = null;
+        long lineBase = 0;
+        for (Chunk chunk : chunks)
+        {
+            if (chunk.file != current)
+            {
+                current = chunk.file;
+                lineBase = 0;
+            }
+            ChunkResult result = chunk.result;
+            for (int i = 0; i < result.lines.size(); i++)
+            {
+                out.println(chunk.file.getFileName() + ":" + (lineBase + result.lineNumbers.get(i)) + ": " + result.lines.get(i));
+            }
+            lineBase += result.lineCount;
+            bytes += chunk.end - chunk.start;
+            lines += result.lineCount;
+            matches += result.matchCount;
+        }
+        if (countOnly)
+        {
+            out.println(matches);
+        }
+        out.flush();
+        report("mapped", files.size(), bytes, lines, matches, System.nanoTime() - started);
+        return scanned;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : runBaseline
+    // Description   : Same search as a single-threaded BufferedReader readLine() loop, for
+    //                 comparison with the mapped scan.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static void runBaseline(List<Path> files, Filter filter) throws IOException
+    {
+        long started = System.nanoTime();
+        long bytes = 0;
+        long lines = 0;
+        long matches = 0;
+        for (Path file : files)
+        {
+            bytes += Files.size(file);
+            try (BufferedReader reader = openLines(file))
+            {
+                String line;
+                while ((line = reader.readLine()) != null)
+                {
+                    lines++;
+                    if (filter.matches(line))
+                    {
+                        matches++;
+                    }
+                }
+            }
+        }
+        report("baseline", files.size(), bytes, lines, matches, System.nanoTime() - started);
+    }
+
+    private static void report(String label, int files, long bytes, long lines, long matches, long nanos)
+    {
+        double seconds = Math.max(nanos, 1) / 1e9;
+        System.err.printf("%-8s %d files, %d lines, %d matches, %.1f MB in %.3f s: %.1f MB/s, %.0f lines/s%n",
+                label, files, lines, matches, bytes / 1e6, seconds, bytes / 1e6 / seconds, lines / seconds);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : follow
+    // Description   : tail -f: polls the files (and directories, for new logs) and prints new
+    //                 matching lines as soon as they are complete. Runs until interrupted.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static void follow(List<String> targets, Map<Path, Long> scanned, Filter filter) throws IOException, InterruptedException
+    {
+        while (true)
+        {
+            Thread.sleep(FOLLOW_POLL_MILLIS);
+            for (Path file : expand(targets))
+            {
+                if (isCompressed(file))
+                {
+                    // A rolled segment: its lines were printed while it was the live file
+                    continue;
+                }
+                long from = scanned.getOrDefault(file, 0L);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+                {
+                    long size = channel.size();
+                    if (size < from)
+                    {
+                        // File was truncated or replaced: start again
+                        from = 0;
+                    }
+                    List<Chunk> chunks = split(file, channel, from, size);
+                    if (chunks.isEmpty())
+                    {
+                        scanned.put(file, from);
+                        continue;
+                    }
+                    for (Chunk chunk : chunks)
+                    {
+                        ChunkResult result = scan(channel, chunk.start, chunk.end, filter, true);
+                        for (String line : result.lines)
+                        {
+                            System.out.println(file.getFileName() + ": " + line);
+                        }
+                    }
+                    scanned.put(file, chunks.get(chunks.size() - 1).end);
+                }
+                catch (IOException e)
+                {
+                    // File rotated away between listing and opening
+                }
+            }
+            System.out.flush();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : MessageSizes.java
+// Description : Distribution of message lengths for the load generator.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.tools;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : MessageSizes
+// Description : parse() reads
+//
+//                 64          every message 64 characters long
+//                 32-512      uniform between 32 and 512
+//                 exp:256     exponential with a mean of 256, like real chat traffic: mostly
+//                             short lines and a few long pastes
+//
+//               Lengths are clamped to MIN_LENGTH..MAX_LENGTH, so every message can carry the
+//               load generator's timestamp and still fits the servers' line limit.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class MessageSizes
+{
+    // Room for the marker and the send time
+    static final int MIN_LENGTH = 32;
+
+    // Below NioConnection.MAX_LINE_LENGTH, leaving room for the sender prefix
+    static final int MAX_LENGTH = 60 * 1024;
+
+    private final String text;
+    private final int min;
+    private final int max;
+    private final double mean;
+
+    private MessageSizes(String text, int min, int max, double mean)
+    {
+        this.text = text;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : parse
+    // Description   : Reads "64", "32-512" or "exp:256".
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    static MessageSizes parse(String text)
+    {
+        String value = text.trim().toLowerCase();
+        if (value.startsWith("exp:"))
+        {
+            int mean = Integer.parseInt(value.substring(4));
+            return new MessageSizes(value, MIN_LENGTH, MAX_LENGTH, clamp(mean));
+        }
+        int dash = value.indexOf('-');
+        if (dash > 0)
+        {
+            int min = clamp(Integer.parseInt(value.substring(0, dash)));
+            int max = clamp(Integer.parseInt(value.substring(dash + 1)));
+            if (min > max)
+            {
+                throw new IllegalArgumentException("Empty size range: " + text);
+            }
+            return new MessageSizes(value, min, max, 0);
+        }
+        int length = clamp(Integer.parseInt(value));
+        return new MessageSizes(value, length, length, 0);
+    }
+
+    // Length of the next message
+    int next()
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (mean > 0)
+        {
+            double length = -mean * Math.log(1 - random.nextDouble());
+            return clamp((int) Math.min(length, MAX_LENGTH));
+        }
+        return (min == max) ? min : random.nextInt(min, max + 1);
+    }
+
+    private static int clamp(int length)
+    {
+        return Math.max(MIN_LENGTH, Math.min(MAX_LENGTH, length));
+    }
+
+    public String toString()
+    {
+        return text;
+    }
+}
@@ -1,172 +1,218 @@
-// ////////////////////////////////////////////////////////////////////////////////////////////////
-// File Name   : ChatClientGUI.java
-// Description : A simple GUI-based chat client that connects to a server using sockets.
-//               It allows sending and receiving messages with a graphical interface,
-//               and logs all messages with timestamps.
-// Author      : Kartik Ganesh Jare
-// Date        : 19/09/2025
-// ////////////////////////////////////////////////////////////////////////////////////////////////
-
-import java.net.*;
-import java.io.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import javax.swing.*;
-import java.awt.*;
-import java.awt.event.*;
-
-// ////////////////////////////////////////////////////////////////////////////////////////////////
-// Class Name  : ChatClientGUI
-// Description : Implements a GUI-based chat client that sends and receives messages from server.
-// ////////////////////////////////////////////////////////////////////////////////////////////////
-
-class ChatClientGUI implements ActionListener
-{
-    // GUI components
-    private JFrame fobj;
-    private JTextArea chatArea;
-    private JButton sendButton;
-    private JTextField inputArea;
-
-    // Networking and logging
-    private PrintStream outStream;
-    private BufferedReader inStream;
-    private FileWriter logWriter;
-    private DateTimeFormatter dtf;
-
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    // Constructor : ChatClientGUI
-    // Description : Sets up GUI, initializes socket streams, and starts background receive thread.
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    public ChatClientGUI(String title, int width, int height, Socket serverSocket) throws Exception
-    {
-        fobj = new JFrame();
-        chatArea = new JTextArea();
-        chatArea.setEditable(false);
-
-        JScrollPane scrollpane = new JScrollPane(chatArea);
-        scrollpane.setBounds(20, 20, 450, 250);
-
-        inputArea = new JTextField();
-        inputArea.setBounds(20, 290, 340, 30);
-
-        sendButton = new JButton("Send");
-        sendButton.setBounds(370, 290, 100, 30);
-
-        sendButton.addActionListener(this);
-        inputArea.addActionListener(this);
-
-        // Connect to server and set up I/O streams
-        outStream = new PrintStream(serverSocket.getOutputStream());
-        inStream = new BufferedReader(new InputStreamReader(serverSocket.getInputStream()));
-
-        // Create timestamped log file
-        DateTimeFormatter filenameFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm");
-        String fileTimestamp = filenameFormat.format(LocalDateTime.now());
-        String filename = "ChatLog-Client-" + fileTimestamp + ".txt";
-        logWriter = new FileWriter(filename, true);
-
-        dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
-        // Start background thread to receive messages
-        new Thread(this::receiveMessage).start();
-
-        // Finalize GUI
-        fobj.add(scrollpane);
-        fobj.add(inputArea);
-        fobj.add(sendButton);
-        fobj.setLayout(null);
-        fobj.setTitle(title);
-        fobj.setSize(width, height);
-        fobj.setVisible(true);
-        fobj.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-    }
-
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    // Function Name : receiveMessage
-    // Description   : Continuously receives messages from the server and appends them to the GUI.
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    private void receiveMessage()
-    {
-        try
-        {
-            String msg;
-            while ((msg = inStream.readLine()) != null)
-            {
-                String timestamp = dtf.format(LocalDateTime.now());
-                chatArea.append("Server: " + msg + "\n");
-                logWriter.write("[" + timestamp + "] Server says: " + msg + "\n");
-                logWriter.flush();
-
-                if (msg.equalsIgnoreCase("end"))
-                {
-                    chatArea.append("Server ended the chat.\n");
-                    endChat();
-                    break;
-                }
-            }
-        }
-        catch (IOException e)
-        {
-            chatArea.append("Connection closed.\n");
-        }
-    }
-
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    // Function Name : actionPerformed
-    // Description   : Sends a message typed by the client to the server and logs it.
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    public void actionPerformed(ActionEvent aobj)
-    {
-        String msg = inputArea.getText().trim();
-        if (!msg.isEmpty())
-        {
-            outStream.println(msg);
-            String timestamp = dtf.format(LocalDateTime.now());
-            chatArea.append("Client: " + msg + "\n");
-            try
-            {
-                logWriter.write("[" + timestamp + "] Client says: " + msg + "\n");
-                logWriter.flush();
-            }
-            catch (IOException ex)
-            {
-                ex.printStackTrace();
-            }
-            inputArea.setText("");
-        }
-    }
-
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    // Function Name : endChat
-    // Description   : Ends the chat session, closes the log file, and disables input.
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    private void endChat()
-    {
-        try
-        {
-            String endTime = dtf.format(LocalDateTime.now());
-            logWriter.write("---------------------------------------------\n");
-            logWriter.write("Chat session ended at: " + endTime + "\n");
-            logWriter.write("---------------------------------------------\n\n");
-            logWriter.flush();
-            logWriter.close();
-        }
-        catch (IOException e)
-        {
-            e.printStackTrace();
-        }
-        sendButton.setEnabled(false);
-        inputArea.setEditable(false);
-    }
-
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    // Function Name : main
-    // Description   : Entry point. Connects to the server and launches the client GUI.
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    public static void main(String[] args) throws Exception
-    {
-        Socket serverSocket = new Socket("localhost", 5100);
-        new ChatClientGUI("Client", 500, 400, serverSocket);
-    }
-}
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : ChatClientGUI.java
+// Description : A simple GUI-based chat client that connects to a server using sockets.
+//               It allows sending and receiving messages with a graphical interface,
+//               and logs all messages with timestamps.
+// Author      : Kartik Ganesh Jare
+// Date        : 19/09/2025
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+import java.net.*;
+import java.io.*;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+
+import chat.gui.TranscriptHistory;
+import chat.gui.TranscriptView;
+import chat.launch.LaunchConfig;
+import chat.log.ChatLogs;
+import chat.log.Direction;
+import chat.log.LogAppender;
+import chat.net.Handshake;
+import chat.net.MessageChannel;
+import chat.server.HeartbeatPolicy;
+import chat.server.Heartbeats;
+import chat.server.OutboundPolicy;
+import chat.server.QueuedSender;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : ChatClientGUI
+// Description : Implements a GUI-based chat client that sends and receives messages from server.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+class ChatClientGUI implements ActionListener
+{
+    // GUI components
+    private JFrame fobj;
+    private TranscriptView chatArea;
+    private JButton sendButton;
+    private JTextField inputArea;
+
+    // Networking and logging
+    private MessageChannel channel;
+    private QueuedSender sender;
+    private Heartbeats heartbeats;
+    private Heartbeats.Watch heartbeat;
+    private LogAppender logWriter;
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor : ChatClientGUI
+    // Description : Sets up GUI for the connected channel and starts background receive thread.
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    public ChatClientGUI(String title, int width, int height, MessageChannel serverChannel) throws Exception
+    {
+        fobj = new JFrame();
+        chatArea = new TranscriptView();
+        chatArea.setBounds(20, 20, 450, 250);
+
+        inputArea = new JTextField();
+        inputArea.setBounds(20, 290, 340, 30);
+
+        sendButton = new JButton("Send");
+        sendButton.setBounds(370, 290, 100, 30);
+
+        sendButton.addActionListener(this);
+        inputArea.addActionListener(this);
+
+        channel = serverChannel;
+
+        // Sends run on their own thread; the event thread only queues them
+        sender = new QueuedSender(OutboundPolicy.fromSystemProperties(), "gui");
+        Thread senderThread = new Thread(this::sendMessages, "chat-sender");
+        senderThread.setDaemon(true);
+        senderThread.start();
+
+        // Ping a quiet peer and disconnect when it stops answering
+        heartbeats = new Heartbeats(HeartbeatPolicy.fromSystemProperties());
+        heartbeat = heartbeats.watch(channel, reason -> chatArea.appendNotice("Peer is gone (" + reason + "), disconnecting."));
+
+        // Open the timestamped log file behind its background writer
+        logWriter = ChatLogs.open("Client");
+        chatArea.setHistory(TranscriptHistory.of(logWriter));
+
+        // Start background thread to receive messages
+        new Thread(this::receiveMessage).start();
+
+        // Finalize GUI
+        fobj.add(chatArea);
+        fobj.add(inputArea);
+        fobj.add(sendButton);
+        fobj.setLayout(null);
+        fobj.setTitle(title);
+        fobj.setSize(width, height);
+        fobj.setVisible(true);
+        fobj.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : receiveMessage
+    // Description   : Continuously receives messages from the server and appends them to the GUI.
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    private void receiveMessage()
+    {
+        String notice = "Server closed the connection.";
+        try
+        {
+            String msg;
+            while ((msg = channel.receive()) != null)
+            {
+                chatArea.appendMessage("Server: " + msg);
+                logWriter.log(Direction.SERVER, msg);
+
+                if (msg.equalsIgnoreCase("end"))
+                {
+                    notice = "Server ended the chat.";
+                    break;
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            notice = "Connection closed.";
+        }
+        chatArea.appendNotice(notice);
+        endChat();
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : sendMessages
+    // Description   : Writes queued messages to the server on the sender thread until the chat ends.
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    private void sendMessages()
+    {
+        try
+        {
+            sender.run(channel);
+        }
+        catch (IOException e)
+        {
+            // The receive thread reports the closed connection
+            sender.close();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Closes the connection, which also ends the receive thread
+    private void closeQuietly()
+    {
+        sender.close();
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            // already closed
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : actionPerformed
+    // Description   : Sends a message typed by the client to the server and logs it.
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    public void actionPerformed(ActionEvent aobj)
+    {
+        String msg = inputArea.getText().trim();
+        if (!msg.isEmpty())
+        {
+            // Only queues, so a stalled peer cannot freeze the event thread
+            if (!sender.offer(msg))
+            {
+                chatArea.appendNotice("Peer is not reading, disconnecting.");
+                closeQuietly();
+                return;
+            }
+            chatArea.appendMessage("Client: " + msg);
+            logWriter.log(Direction.CLIENT, msg);
+            inputArea.setText("");
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : endChat
+    // Description   : Ends the chat session, closes the log file, and disables input.
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    private void endChat()
+    {
+        heartbeat.cancel();
+        heartbeats.close();
+
+        // Writes the end banner and waits until every queued record is on disk
+        logWriter.endSession();
+        SwingUtilities.invokeLater(() ->
+        {
+            sendButton.setEnabled(false);
+            inputArea.setEditable(false);
+        });
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : main
+    // Description   : Entry point. Connects to the server at -Dchat.host and -Dchat.port
+    //                 (localhost:5100) and agrees on the protocol before any Swing component
+    //                 or log file is created, then launches the client GUI.
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    public static void main(String[] args) throws Exception
+    {
+        LaunchConfig launch = LaunchConfig.fromSystemProperties();
+        Socket serverSocket = new Socket(launch.getHost(), launch.getPort());
+
+        // Agree on the wire protocol with the server, falling back to text lines
+        MessageChannel serverChannel = Handshake.connect(serverSocket);
+        new ChatClientGUI("Client", 500, 400, serverChannel);
+    }
+}
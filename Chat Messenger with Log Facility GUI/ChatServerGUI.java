@@ -1,168 +1,218 @@
-// ////////////////////////////////////////////////////////////////////////////////////////////////
-// File Name   : ChatServerGUI.java
-// Description : GUI-based Chat Server that communicates with a client using sockets. It logs
-//               chat messages with timestamps and displays them in a Swing GUI.
-// Author      : Kartik Ganesh Jare
-// Date        : 19/09/2025
-// ////////////////////////////////////////////////////////////////////////////////////////////////
-
-import java.net.*;
-import java.io.*;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import javax.swing.*;
-import java.awt.*;
-import java.awt.event.*;
-
-// ////////////////////////////////////////////////////////////////////////////////////////////////
-// Class Name  : ChatServerGUI
-// Description : Implements a chat server GUI that can send/receive messages with a client.
-// ////////////////////////////////////////////////////////////////////////////////////////////////
-
-class ChatServerGUI implements ActionListener
-{
-    private JFrame fobj;
-    private JTextArea chatArea;
-    private JButton sendButton;
-    private JTextField inputArea;
-
-    private PrintStream outStream;
-    private BufferedReader inStream;
-    private FileWriter logWriter;
-    private DateTimeFormatter dtf;
-
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    // Constructor : ChatServerGUI
-    // Description : Sets up GUI components, initializes socket I/O streams, logging, and starts
-    //               the message receiving thread.
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    public ChatServerGUI(String title, int width, int height, Socket clientSocket) throws Exception
-    {
-        fobj = new JFrame();
-        chatArea = new JTextArea();
-        chatArea.setEditable(false);
-
-        JScrollPane scrollpane = new JScrollPane(chatArea);
-        scrollpane.setBounds(20, 20, 450, 250);
-
-        inputArea = new JTextField();
-        inputArea.setBounds(20, 290, 340, 30);
-
-        sendButton = new JButton("Send");
-        sendButton.setBounds(370, 290, 100, 30);
-
-        sendButton.addActionListener(this);
-        inputArea.addActionListener(this);
-
-        outStream = new PrintStream(clientSocket.getOutputStream());
-        inStream = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-
-        DateTimeFormatter filenameFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm");
-        String fileTimestamp = filenameFormat.format(LocalDateTime.now());
-        String filename = "ChatLog-Server-" + fileTimestamp + ".txt";
-        logWriter = new FileWriter(filename, true);
-
-        dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-
-        new Thread(this::receiveMessage).start();
-
-        fobj.add(scrollpane);
-        fobj.add(inputArea);
-        fobj.add(sendButton);
-        fobj.setLayout(null);
-        fobj.setTitle(title);
-        fobj.setSize(width, height);
-        fobj.setVisible(true);
-        fobj.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-    }
-
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    // Function Name : receiveMessage
-    // Description   : Continuously listens for incoming client messages and appends them to GUI.
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    private void receiveMessage()
-    {
-        try
-        {
-            String msg;
-            while ((msg = inStream.readLine()) != null)
-            {
-                String timestamp = dtf.format(LocalDateTime.now());
-                chatArea.append("Client: " + msg + "\n");
-                logWriter.write("[" + timestamp + "] Client says: " + msg + "\n");
-                logWriter.flush();
-
-                if (msg.equalsIgnoreCase("end"))
-                {
-                    chatArea.append("Client ended the chat.\n");
-                    endChat();
-                    break;
-                }
-            }
-        }
-        catch (IOException e)
-        {
-            chatArea.append("Connection closed.\n");
-        }
-    }
-
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    // Function Name : actionPerformed
-    // Description   : Sends a message typed by the server to the client and logs it with timestamp.
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    public void actionPerformed(ActionEvent aobj)
-    {
-        String msg = inputArea.getText().trim();
-        if (!msg.isEmpty())
-        {
-            outStream.println(msg);
-            String timestamp = dtf.format(LocalDateTime.now());
-            chatArea.append("Server: " + msg + "\n");
-            try
-            {
-                logWriter.write("[" + timestamp + "] Server says: " + msg + "\n");
-                logWriter.flush();
-            }
-            catch (IOException ex)
-            {
-                ex.printStackTrace();
-            }
-            inputArea.setText("");
-        }
-    }
-
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    // Function Name : endChat
-    // Description   : Ends the chat session, closes the log file, and disables input controls.
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    private void endChat()
-    {
-        try
-        {
-            String endTime = dtf.format(LocalDateTime.now());
-            logWriter.write("---------------------------------------------\n");
-            logWriter.write("Chat session ended at: " + endTime + "\n");
-            logWriter.write("---------------------------------------------\n\n");
-            logWriter.flush();
-            logWriter.close();
-        }
-        catch (IOException e)
-        {
-            e.printStackTrace();
-        }
-        sendButton.setEnabled(false);
-        inputArea.setEditable(false);
-    }
-
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    // Function Name : main
-    // Description   : Entry point. Waits for client connection and launches the server GUI.
-    // ////////////////////////////////////////////////////////////////////////////////////////////////
-    public static void main(String[] args) throws Exception
-    {
-        ServerSocket ssobj = new ServerSocket(5100);
-        System.out.println("Server waiting for client...");
-        Socket clientSocket = ssobj.accept();
-        new ChatServerGUI("Server", 500, 400, clientSocket);
-    }
-}
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : ChatServerGUI.java
+// Description : GUI-based Chat Server that communicates with a client using sockets. It logs
+//               chat messages with timestamps and displays them in a Swing GUI.
+// Author      : Kartik Ganesh Jare
+// Date        : 19/09/2025
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+import java.net.*;
+import java.io.*;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+
+import chat.gui.TranscriptHistory;
+import chat.gui.TranscriptView;
+import chat.launch.LaunchConfig;
+import chat.log.ChatLogs;
+import chat.log.Direction;
+import chat.log.LogAppender;
+import chat.metrics.ChatMetrics;
+import chat.net.MessageChannel;
+import chat.server.HeartbeatPolicy;
+import chat.server.Heartbeats;
+import chat.server.OutboundPolicy;
+import chat.server.QueuedSender;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : ChatServerGUI
+// Description : Implements a chat server GUI that can send/receive messages with a client.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+class ChatServerGUI implements ActionListener
+{
+    private JFrame fobj;
+    private TranscriptView chatArea;
+    private JButton sendButton;
+    private JTextField inputArea;
+
+    private MessageChannel channel;
+    private QueuedSender sender;
+    private Heartbeats heartbeats;
+    private Heartbeats.Watch heartbeat;
+    private LogAppender logWriter;
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    // Constructor : ChatServerGUI
+    // Description : Sets up GUI components for the connected channel, logging, and starts
+    //               the message receiving thread.
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    public ChatServerGUI(String title, int width, int height, MessageChannel clientChannel) throws Exception
+    {
+        fobj = new JFrame();
+        chatArea = new TranscriptView();
+        chatArea.setBounds(20, 20, 450, 250);
+
+        inputArea = new JTextField();
+        inputArea.setBounds(20, 290, 340, 30);
+
+        sendButton = new JButton("Send");
+        sendButton.setBounds(370, 290, 100, 30);
+
+        sendButton.addActionListener(this);
+        inputArea.addActionListener(this);
+
+        channel = clientChannel;
+
+        // Sends run on their own thread; the event thread only queues them
+        sender = new QueuedSender(OutboundPolicy.fromSystemProperties(), "gui");
+        Thread senderThread = new Thread(this::sendMessages, "chat-sender");
+        senderThread.setDaemon(true);
+        senderThread.start();
+
+        // Ping a quiet peer and disconnect when it stops answering
+        heartbeats = new Heartbeats(HeartbeatPolicy.fromSystemProperties());
+        heartbeat = heartbeats.watch(channel, reason -> chatArea.appendNotice("Peer is gone (" + reason + "), disconnecting."));
+
+        logWriter = ChatLogs.open("Server");
+        ChatMetrics.REGISTRY.gauge("chat_log_queue_depth", "Records waiting for the log writer", logWriter::getQueueDepth);
+        chatArea.setHistory(TranscriptHistory.of(logWriter));
+
+        new Thread(this::receiveMessage).start();
+
+        fobj.add(chatArea);
+        fobj.add(inputArea);
+        fobj.add(sendButton);
+        fobj.setLayout(null);
+        fobj.setTitle(title);
+        fobj.setSize(width, height);
+        fobj.setVisible(true);
+        fobj.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : receiveMessage
+    // Description   : Continuously listens for incoming client messages and appends them to GUI.
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    private void receiveMessage()
+    {
+        String notice = "Client closed the connection.";
+        try
+        {
+            String msg;
+            while ((msg = channel.receive()) != null)
+            {
+                chatArea.appendMessage("Client: " + msg);
+                logWriter.log(Direction.CLIENT, msg);
+                ChatMetrics.MESSAGES_RECEIVED.increment();
+
+                if (msg.equalsIgnoreCase("end"))
+                {
+                    notice = "Client ended the chat.";
+                    break;
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            notice = "Connection closed.";
+        }
+        chatArea.appendNotice(notice);
+        endChat();
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : sendMessages
+    // Description   : Writes queued messages to the client on the sender thread until the chat ends.
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    private void sendMessages()
+    {
+        try
+        {
+            sender.run(channel);
+        }
+        catch (IOException e)
+        {
+            // The receive thread reports the closed connection
+            sender.close();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Closes the connection, which also ends the receive thread
+    private void closeQuietly()
+    {
+        sender.close();
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            // already closed
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : actionPerformed
+    // Description   : Sends a message typed by the server to the client and logs it with timestamp.
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    public void actionPerformed(ActionEvent aobj)
+    {
+        String msg = inputArea.getText().trim();
+        if (!msg.isEmpty())
+        {
+            // Only queues, so a stalled peer cannot freeze the event thread
+            if (!sender.offer(msg))
+            {
+                chatArea.appendNotice("Peer is not reading, disconnecting.");
+                closeQuietly();
+                return;
+            }
+            chatArea.appendMessage("Server: " + msg);
+            logWriter.log(Direction.SERVER, msg);
+            ChatMetrics.MESSAGES_SENT.increment();
+            inputArea.setText("");
+        }
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : endChat
+    // Description   : Ends the chat session, closes the log file, and disables input controls.
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    private void endChat()
+    {
+        heartbeat.cancel();
+        heartbeats.close();
+
+        // Writes the end banner and waits until every queued record is on disk
+        logWriter.endSession();
+        SwingUtilities.invokeLater(() ->
+        {
+            sendButton.setEnabled(false);
+            inputArea.setEditable(false);
+        });
+    }
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    // Function Name : main
+    // Description   : Entry point. Listens on -Dchat.port (5100), exports the metrics while
+    //                 it waits, and agrees on the protocol with the client before any Swing
+    //                 component or log file is created, then launches the server GUI.
+    // ////////////////////////////////////////////////////////////////////////////////////////////////
+    public static void main(String[] args) throws Exception
+    {
+        ServerSocket ssobj = new ServerSocket(LaunchConfig.fromSystemProperties().getPort());
+        System.out.println("Server waiting for client...");
+        ChatMetrics.export();
+        Socket clientSocket = ssobj.accept();
+
+        MessageChannel clientChannel = ChatMetrics.accept(clientSocket);
+        ChatMetrics.CONNECTIONS_OPENED.increment();
+        new ChatServerGUI("Server", 500, 400, clientChannel);
+    }
+}
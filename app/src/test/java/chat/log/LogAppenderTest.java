@@ -0,0 +1,158 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogAppenderTest.java
+// Description : Several threads logging through one LogAppender into a recording sink.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LogAppenderTest
+// Description : A ring far smaller than the records logged makes producers wait for the
+//               writer and wrap around the slots many times. Every record must reach the sink
+//               once, in the order its thread logged it, before endSession() returns.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+class LogAppenderTest
+{
+    private static final int THREADS = 6;
+    private static final int RECORDS_PER_THREAD = 20000;
+
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    // Class Name  : RecordingSink
+    // Description : Keeps a copy of every record, since the appender reuses its slots, and the
+    //               number of records appended at every flush.
+    // ////////////////////////////////////////////////////////////////////////////////////////////
+    private static final class RecordingSink implements LogSink
+    {
+        final List<LogRecord> records = new ArrayList<>();
+        final List<Integer> flushes = new ArrayList<>();
+        int syncs;
+        boolean closed;
+
+        public void append(LogRecord record)
+        {
+            assertTrue(!closed, "append after close");
+            records.add(new LogRecord(record.getEpochMillis(), record.getDirection(), record.getText()));
+        }
+
+        public void flush()
+        {
+            flushes.add(records.size());
+        }
+
+        public void sync()
+        {
+            syncs++;
+        }
+
+        public long size()
+        {
+            return records.size();
+        }
+
+        public void close()
+        {
+            closed = true;
+        }
+    }
+
+    @Test
+    void endSessionDrainsEveryRecordOfEveryThread() throws InterruptedException
+    {
+        RecordingSink sink = new RecordingSink();
+        LogAppender appender = new LogAppender(sink, FlushPolicy.everyMillis(5), 64);
+        produce(appender);
+        appender.endSession();
+
+        assertTrue(sink.closed);
+        int total = THREADS * RECORDS_PER_THREAD;
+        assertEquals(total + 1, sink.records.size());
+        assertEquals(Direction.SESSION_END, sink.records.get(total).getDirection());
+
+        // Each thread's records arrive once each and in the order it logged them
+        int[] next = new int[THREADS];
+        for (LogRecord record : sink.records.subList(0, total))
+        {
+            String[] fields = record.getText().split(" ");
+            int thread = Integer.parseInt(fields[0]);
+            assertEquals(next[thread]++, Integer.parseInt(fields[1]), record.getText());
+            assertEquals((thread % 2 == 0) ? Direction.CLIENT : Direction.SERVER, record.getDirection());
+        }
+        for (int count : next)
+        {
+            assertEquals(RECORDS_PER_THREAD, count);
+        }
+
+        // Records logged after the session ended are dropped
+        appender.log(Direction.CLIENT, "too late");
+        assertEquals(total + 1, sink.records.size());
+    }
+
+    @Test
+    void recordsPolicyFlushesEveryNRecordsEvenInBursts() throws InterruptedException
+    {
+        int every = 7;
+        RecordingSink sink = new RecordingSink();
+        LogAppender appender = new LogAppender(sink, FlushPolicy.parse("records:" + every), 256);
+        produce(appender);
+        appender.endSession();
+
+        // A flush after exactly every N records, then the last one when the appender closes
+        int total = THREADS * RECORDS_PER_THREAD + 1;
+        List<Integer> expected = new ArrayList<>();
+        for (int flushed = every; flushed <= total; flushed += every)
+        {
+            expected.add(flushed);
+        }
+        expected.add(total);
+        assertEquals(expected, sink.flushes);
+        assertEquals(0, sink.syncs);
+    }
+
+    @Test
+    void sessionPolicySyncsOnlyWhenTheSessionEnds() throws InterruptedException
+    {
+        RecordingSink sink = new RecordingSink();
+        LogAppender appender = new LogAppender(sink, FlushPolicy.onSessionEnd(), 64);
+        produce(appender);
+        appender.endSession();
+        appender.endSession();
+
+        assertEquals(List.of(), sink.flushes);
+        assertEquals(1, sink.syncs);
+        assertEquals(THREADS * RECORDS_PER_THREAD + 1, sink.records.size());
+    }
+
+    // Logs RECORDS_PER_THREAD records "<thread> <n>" from each of THREADS threads at once
+    private static void produce(LogAppender appender) throws InterruptedException
+    {
+        Thread[] producers = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++)
+        {
+            int thread = t;
+            Direction direction = (thread % 2 == 0) ? Direction.CLIENT : Direction.SERVER;
+            producers[t] = new Thread(() ->
+            {
+                for (int i = 0; i < RECORDS_PER_THREAD; i++)
+                {
+                    appender.log(direction, thread + " " + i);
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread producer : producers)
+        {
+            producer.join();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogIndexWriterTest.java
+// Description : Round trips of the full-text log index through publishing, merging and search.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LogIndexWriterTest
+// Description : Every search runs on merged segments, so the postings a merge rewrites, with
+//               message numbers shifted by the parts before them, must still find the same
+//               messages and positions as the segments they were made of.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+class LogIndexWriterTest
+{
+    @TempDir
+    Path directory;
+
+    @Test
+    void mergedSegmentsFindWordsAndPhrases() throws IOException
+    {
+        LogIndexWriter writer = new LogIndexWriter(directory, "Server", 1);
+        for (int i = 0; i < 1000; i++)
+        {
+            String text = ((i % 2 == 0) ? "order status m" : "status order m") + i;
+            if (i % 100 == 0)
+            {
+                // Positions past 127 take two bytes as varints
+                text += " " + "x ".repeat(200) + "needle eye";
+            }
+            writer.add(1000L + i, (i % 3 == 0) ? Direction.SERVER : Direction.CLIENT, text);
+            if (i % 40 == 39)
+            {
+                writer.publish();
+            }
+        }
+        writer.close();
+
+        // 25 segments: two merges of ten, five left unmerged
+        assertEquals(7, segmentFiles().size());
+        LogIndex index = LogIndex.open(directory);
+        assertEquals(7, index.getSegmentCount());
+        assertEquals(1000, index.getMessageCount());
+
+        assertEquals(1000, index.search(LogQuery.parse("order status"), 0, new ArrayList<>()));
+        assertEquals(500, index.search(LogQuery.parse("\"order status\""), 0, new ArrayList<>()));
+        assertEquals(500, index.search(LogQuery.parse("\"status order\""), 0, new ArrayList<>()));
+        assertEquals(10, index.search(LogQuery.parse("\"needle eye\""), 0, new ArrayList<>()));
+        assertEquals(0, index.search(LogQuery.parse("\"eye needle\""), 0, new ArrayList<>()));
+        assertEquals(0, index.search(LogQuery.parse("\"x needle eye x\""), 0, new ArrayList<>()));
+
+        for (int i : new int[] { 0, 39, 40, 399, 400, 799, 999 })
+        {
+            List<LogIndex.Hit> hits = new ArrayList<>();
+            assertEquals(1, index.search(LogQuery.parse("m" + i), 10, hits));
+            LogRecord record = hits.get(0).getRecord();
+            assertEquals(1000L + i, record.getEpochMillis());
+            assertEquals((i % 3 == 0) ? Direction.SERVER : Direction.CLIENT, record.getDirection());
+            assertTrue(record.getText().endsWith("m" + i) || record.getText().contains("m" + i + " "));
+        }
+    }
+
+    @Test
+    void segmentsTooLargeToMergeTenAtATimeStillMerge() throws IOException
+    {
+        Path probe = directory.resolve("probe");
+        LogIndexWriter sizer = new LogIndexWriter(probe, "Server", 2);
+        addSegment(sizer, 0);
+        sizer.close();
+        long segmentBytes;
+        try (Stream<Path> files = Files.list(probe))
+        {
+            segmentBytes = Files.size(files.findFirst().orElseThrow());
+        }
+
+        // Ten level 0 segments fit in one merge, ten level 1 segments do not
+        LogIndexWriter writer = new LogIndexWriter(directory, "Server", 3, 25 * segmentBytes);
+        for (int segment = 0; segment < 200; segment++)
+        {
+            addSegment(writer, segment);
+        }
+        writer.close();
+
+        assertTrue(segmentFiles().size() < 2 * LogIndexWriter.MERGE_FACTOR, segmentFiles().toString());
+        LogIndex index = LogIndex.open(directory);
+        assertEquals(2000, index.getMessageCount());
+        assertEquals(2000, index.search(LogQuery.parse("\"of the load\""), 0, new ArrayList<>()));
+        assertEquals(1, index.search(LogQuery.parse("m0000"), 0, new ArrayList<>()));
+        assertEquals(1, index.search(LogQuery.parse("m1999"), 0, new ArrayList<>()));
+    }
+
+    // Ten messages of the same size, published as one segment
+    private static void addSegment(LogIndexWriter writer, int segment) throws IOException
+    {
+        for (int i = 0; i < 10; i++)
+        {
+            writer.add(segment * 10L + i, Direction.CLIENT, String.format("message m%04d of the load", segment * 10 + i));
+        }
+        writer.publish();
+    }
+
+    private List<Path> segmentFiles() throws IOException
+    {
+        try (Stream<Path> files = Files.list(directory))
+        {
+            return files.filter(file -> file.getFileName().toString().endsWith(IndexFormat.SUFFIX)).toList();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogQueryTest.java
+// Description : Parsing of search box text into a LogQuery.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.log;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class LogQueryTest
+{
+    @Test
+    void splitWordsBecomePhrases()
+    {
+        LogQuery query = LogQuery.parse("invoice client-3 \"Order  Status\"");
+        assertEquals(List.of("invoice"), query.getWords());
+        assertEquals(List.of(List.of("client", "3"), List.of("order", "status")), query.getPhrases());
+    }
+
+    @Test
+    void wordsTooLongToBeIndexedAreRejected()
+    {
+        String longest = "a".repeat(Tokenizer.MAX_LENGTH);
+        assertEquals(List.of(longest), LogQuery.parse(longest).getWords());
+
+        String tooLong = "a".repeat(Tokenizer.MAX_LENGTH + 1);
+        assertThrows(IllegalArgumentException.class, () -> LogQuery.parse(tooLong));
+        assertThrows(IllegalArgumentException.class, () -> LogQuery.parse("hello " + tooLong));
+        assertThrows(IllegalArgumentException.class, () -> LogQuery.parse("\"hello " + tooLong + " world\""));
+    }
+}
@@ -0,0 +1,267 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : MessageStoreTest.java
+// Description : Crash recovery and replays of the message store.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : MessageStoreTest
+// Description : Each test writes messages, damages the files the way a crash can, opens the
+//               store again and checks what survived: the last sequence number, what a replay
+//               returns, and that new messages continue the sequence.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+class MessageStoreTest
+{
+    // A few index entries per segment and several segments per test
+    private static final long SEGMENT_BYTES = 16 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenedStoreReplaysFromAnySequence() throws IOException
+    {
+        write(2000);
+        try (MessageStore store = MessageStore.open(directory, SEGMENT_BYTES))
+        {
+            assertTrue(segmentFiles().size() > 3);
+            assertEquals(2000, store.getLastSequence());
+            assertReplays(store, 0, 2000);
+            for (long after : new long[] { 1, 63, 64, 65, 1234, 1999 })
+            {
+                assertReplays(store, after, 2000);
+            }
+            assertEquals(0, replay(store, 2000).size());
+
+            // A handler that stops early ends the replay there
+            List<StoredMessage> some = new ArrayList<>();
+            assertEquals(1240, store.replay(1234, message -> some.add(message) && some.size() < 6));
+            assertEquals(6, some.size());
+        }
+    }
+
+    @Test
+    void indexedPositionsStartScansMidSegment() throws IOException
+    {
+        write(2000);
+        Path path = segmentFiles().get(1);
+        String name = path.getFileName().toString();
+        long first = Long.parseLong(name.substring(MessageStore.SEGMENT_PREFIX.length(), name.length() - MessageStore.SEGMENT_SUFFIX.length()));
+        Segment segment = Segment.open(path, first);
+        try
+        {
+            List<Long> sequences = new ArrayList<>();
+            List<Long> positions = new ArrayList<>();
+            SegmentReader reader = new SegmentReader(segment.getChannel(), Segment.HEADER_SIZE, segment.getChannel().size());
+            while (reader.next())
+            {
+                segment.recordAdded(reader.getSequence(), reader.getRecordPosition(), reader.getPosition());
+                sequences.add(reader.getSequence());
+                positions.add(reader.getRecordPosition());
+            }
+
+            assertEquals(Segment.HEADER_SIZE, segment.positionFor(first));
+            long last = sequences.get(sequences.size() - 1);
+            long start = segment.positionFor(last);
+            assertTrue(start > Segment.HEADER_SIZE);
+            assertTrue(positions.get(sequences.size() - 1) - start < Segment.INDEX_INTERVAL + 256);
+            for (int i = 0; i < sequences.size(); i++)
+            {
+                long position = segment.positionFor(sequences.get(i));
+                assertTrue(position <= positions.get(i));
+                assertTrue(positions.contains(position));
+            }
+        }
+        finally
+        {
+            segment.close();
+        }
+    }
+
+    @Test
+    void tornTailIsCutOff() throws IOException
+    {
+        write(500);
+        Path last = lastSegment();
+        long size = Files.size(last);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE))
+        {
+            channel.truncate(size - 7);
+        }
+
+        try (MessageStore store = MessageStore.open(directory, SEGMENT_BYTES))
+        {
+            assertEquals(499, store.getLastSequence());
+            assertReplays(store, 0, 499);
+            assertReplays(store, 450, 499);
+            assertEquals(500, store.append(7, "client-2", "written again"));
+        }
+        try (MessageStore store = MessageStore.open(directory, SEGMENT_BYTES))
+        {
+            assertEquals(500, store.getLastSequence());
+            List<StoredMessage> tail = replay(store, 499);
+            assertEquals("written again", tail.get(0).getText());
+            assertEquals("client-2", tail.get(0).getSender());
+        }
+    }
+
+    @Test
+    void corruptRecordCutsTheRestOfItsSegment() throws IOException
+    {
+        write(500);
+        Path last = lastSegment();
+        long size = Files.size(last);
+        long firstInLast;
+        try (MessageStore store = MessageStore.open(directory, SEGMENT_BYTES))
+        {
+            firstInLast = Long.parseLong(last.getFileName().toString().replaceAll("\\D", ""));
+            assertEquals(500, store.getLastSequence());
+        }
+
+        // Flip a byte in the middle of the segment: the CRC of that record no longer matches
+        long middle = size / 2;
+        flipByte(last, middle);
+
+        try (MessageStore store = MessageStore.open(directory, SEGMENT_BYTES))
+        {
+            long kept = store.getLastSequence();
+            assertTrue(kept >= firstInLast && kept < 500, "kept " + kept);
+            assertTrue(Files.size(last) <= middle);
+            assertReplays(store, 0, kept);
+            assertEquals(kept + 1, store.append(1, "client-1", "after the damage"));
+        }
+    }
+
+    @Test
+    void repeatedSequenceNumbersAreCutOff() throws IOException
+    {
+        write(500);
+        Path last = lastSegment();
+        long size = Files.size(last);
+
+        // The segment's records once more after its end, as if a write had been repeated
+        byte[] bytes = Files.readAllBytes(last);
+        Files.write(last, Arrays.copyOfRange(bytes, Segment.HEADER_SIZE, bytes.length), StandardOpenOption.APPEND);
+
+        try (MessageStore store = MessageStore.open(directory, SEGMENT_BYTES))
+        {
+            assertEquals(500, store.getLastSequence());
+            assertEquals(size, Files.size(last));
+            assertReplays(store, 0, 500);
+            assertEquals(501, store.append(1, "client-1", "next"));
+        }
+    }
+
+    @Test
+    void tornHeaderOfTheLastSegmentIsStartedAgain() throws IOException
+    {
+        write(300);
+        for (byte[] torn : new byte[][] { { 'C', 'M' }, new byte[4096] })
+        {
+            long last;
+            try (MessageStore store = MessageStore.open(directory, SEGMENT_BYTES))
+            {
+                last = store.getLastSequence();
+            }
+            Path created = directory.resolve(Segment.fileName(last + 1));
+            Files.write(created, torn);
+
+            try (MessageStore store = MessageStore.open(directory, SEGMENT_BYTES))
+            {
+                assertEquals(last, store.getLastSequence());
+                assertEquals(Segment.HEADER_SIZE, Files.size(created));
+                List<StoredMessage> tail = replay(store, last - 10);
+                assertEquals(10, tail.size());
+                assertEquals(last, tail.get(9).getSequence());
+                assertEquals(last + 1, store.append(1, "client-1", "into the new segment"));
+            }
+            try (MessageStore store = MessageStore.open(directory, SEGMENT_BYTES))
+            {
+                assertEquals(last + 1, store.getLastSequence());
+                assertEquals("into the new segment", replay(store, last).get(0).getText());
+            }
+        }
+    }
+
+    // Messages 1 to count, closed again
+    private void write(int count) throws IOException
+    {
+        try (MessageStore store = MessageStore.open(directory, SEGMENT_BYTES))
+        {
+            for (int i = 1; i <= count; i++)
+            {
+                assertEquals(i, store.append(1000L + i, "client-" + (i % 7), "message " + i + " of the test"));
+            }
+        }
+    }
+
+    // The replay after after holds exactly the messages up to last, as write() made them
+    private static void assertReplays(MessageStore store, long after, long last) throws IOException
+    {
+        List<StoredMessage> messages = replay(store, after);
+        assertEquals(last - after, messages.size());
+        long sequence = after;
+        for (StoredMessage message : messages)
+        {
+            sequence++;
+            assertEquals(sequence, message.getSequence());
+            assertEquals(1000L + sequence, message.getEpochMillis());
+            assertEquals("client-" + (sequence % 7), message.getSender());
+            assertEquals("message " + sequence + " of the test", message.getText());
+        }
+    }
+
+    private static List<StoredMessage> replay(MessageStore store, long after) throws IOException
+    {
+        List<StoredMessage> messages = new ArrayList<>();
+        store.replay(after, messages::add);
+        return messages;
+    }
+
+    private static void flipByte(Path path, long position) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, position);
+            b.put(0, (byte) ~b.get(0));
+            b.rewind();
+            channel.write(b, position);
+        }
+    }
+
+    private Path lastSegment() throws IOException
+    {
+        List<Path> files = segmentFiles();
+        return files.get(files.size() - 1);
+    }
+
+    private List<Path> segmentFiles() throws IOException
+    {
+        try (Stream<Path> files = Files.list(directory))
+        {
+            return files.filter(file -> file.getFileName().toString().endsWith(MessageStore.SEGMENT_SUFFIX)).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : FileWriterLogBenchmark.java
+// Description : Baseline for LogAppendBenchmark: the original per-line FileWriter logging.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.bench;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : FileWriterLogBenchmark
+// Description : Formats the timestamp, writes and flushes on the chat thread for every line,
+//               as the chat loops did before LogAppender. Same units as LogAppendBenchmark.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileWriterLogBenchmark
+{
+    private Path directory;
+    private FileWriter writer;
+    private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final String message = Messages.of(64);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory("chat-bench");
+        writer = new FileWriter(directory.resolve("ChatLog-Baseline.txt").toFile(), true);
+    }
+
+    @Benchmark
+    public void fileWriter() throws IOException
+    {
+        String timestamp = dtf.format(LocalDateTime.now());
+        writer.write("[" + timestamp + "] Client says: " + message + "\n");
+        writer.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        writer.close();
+        TempFiles.delete(directory);
+    }
+}
@@ -0,0 +1,104 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LineCodecBenchmark.java
+// Description : Cost of turning messages into wire lines and wire bytes back into messages.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.bench;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import chat.net.LineCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LineCodecBenchmark
+// Description : decode() runs the NIO server's decoder over a buffer of LINES lines, the way a
+//               socket read hands them over; readLine() is the BufferedReader path used by the
+//               blocking servers and clients, on the same bytes. Scores are per line.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineCodecBenchmark
+{
+    static final int LINES = 1000;
+
+    @Param({ "16", "256" })
+    public int length;
+
+    private String message;
+    private byte[] wire;
+    private ByteBuffer input;
+    private LineCodec decoder;
+
+    @Setup
+    public void setUp()
+    {
+        message = Messages.of(length);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (int i = 0; i < LINES; i++)
+        {
+            bytes.writeBytes(LineCodec.encode(message));
+        }
+        wire = bytes.toByteArray();
+        input = ByteBuffer.allocateDirect(wire.length);
+        input.put(wire).flip();
+        decoder = new LineCodec(64 * 1024);
+    }
+
+    @Benchmark
+    public byte[] encode()
+    {
+        return LineCodec.encode(message);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public boolean decode(Blackhole blackhole) throws IOException
+    {
+        input.rewind();
+        return decoder.decode(input, line ->
+        {
+            blackhole.consume(line);
+            return true;
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void readLine(Blackhole blackhole) throws IOException
+    {
+        BufferedReader in = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(wire), StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null)
+        {
+            blackhole.consume(line);
+        }
+    }
+}
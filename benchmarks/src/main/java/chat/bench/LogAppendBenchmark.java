@@ -0,0 +1,84 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogAppendBenchmark.java
+// Description : Cost of logging one chat line, per flush policy and log format.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import chat.log.ChatLogs;
+import chat.log.Direction;
+import chat.log.FlushPolicy;
+import chat.log.LogAppender;
+import chat.log.LogConfig;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LogAppendBenchmark
+// Description : append() is LogAppender.log() as called from the chat loop. The background
+//               writer runs during the measurement, so once the ring is full the score is the
+//               sustained rate the writer keeps up with, not just the cost of queueing.
+//               Files go to a temporary directory that is removed at the end of each trial.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogAppendBenchmark
+{
+    @Param({ "records:1", "records:64", "millis:100", "session" })
+    public String flush;
+
+    @Param({ "text", "binary" })
+    public String format;
+
+    private Path directory;
+    private LogAppender appender;
+    private final String message = Messages.of(64);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory("chat-bench");
+        LogConfig config = new LogConfig();
+        config.setDirectory(directory);
+        config.setFormat(format);
+        config.setFlushPolicy(FlushPolicy.parse(flush));
+        appender = ChatLogs.open("Bench", config);
+    }
+
+    @Benchmark
+    public void append()
+    {
+        appender.log(Direction.CLIENT, message);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        appender.close();
+        TempFiles.delete(directory);
+    }
+}
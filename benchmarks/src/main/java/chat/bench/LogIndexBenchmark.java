@@ -0,0 +1,206 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogIndexBenchmark.java
+// Description : Searches of the full-text log index, against scanning every message.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import chat.log.Direction;
+import chat.log.LogIndex;
+import chat.log.LogIndexWriter;
+import chat.log.LogQuery;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LogIndexBenchmark
+// Description : The index holds synthetic messages, one per second, of eight words from a
+//               vocabulary of 10,000 in which word n is about 1/n as common as the most common,
+//               as in real text. The queries are a rare word, two common words, a phrase and
+//               one hour of the log; each returns the newest 50 matches. scan is the same
+//               two-word search over the message texts in memory, the best a search without
+//               an index can do. The index is built once per trial in a temporary directory.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx4g" })
+public class LogIndexBenchmark
+{
+    private static final int VOCABULARY = 10_000;
+    private static final int WORDS_PER_MESSAGE = 8;
+    private static final long START = 1_750_000_000_000L;
+
+    @Param({ "100000", "1000000" })
+    public int messages;
+
+    private Path directory;
+    private LogIndex index;
+    private String[] texts;
+    private final List<LogIndex.Hit> hits = new ArrayList<>();
+
+    private LogQuery rare;
+    private LogQuery common;
+    private LogQuery phrase;
+    private LogQuery hour;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory("chat-bench");
+        texts = new String[messages];
+        SplittableRandom random = new SplittableRandom(42);
+        double[] cumulative = zipf();
+        try (LogIndexWriter writer = new LogIndexWriter(directory, "Bench", 1))
+        {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < messages; i++)
+            {
+                text.setLength(0);
+                for (int w = 0; w < WORDS_PER_MESSAGE; w++)
+                {
+                    text.append((w == 0) ? "" : " ").append("w").append(pick(cumulative, random.nextDouble()));
+                }
+                texts[i] = text.toString();
+                writer.add(START + i * 1000L, (i % 2 == 0) ? Direction.CLIENT : Direction.SERVER, texts[i]);
+            }
+        }
+        index = LogIndex.open(directory);
+
+        rare = LogQuery.parse("w5000");
+        common = LogQuery.parse("w1 w2");
+        phrase = LogQuery.parse("\"w1 w2\"");
+        hour = new LogQuery();
+        hour.setFrom(START + (messages / 2) * 1000L);
+        hour.setTo(hour.getFrom() + 3_600_000L - 1);
+    }
+
+    // Running totals of 1/n over the vocabulary, scaled to 1
+    private static double[] zipf()
+    {
+        double[] cumulative = new double[VOCABULARY];
+        double sum = 0;
+        for (int n = 1; n <= VOCABULARY; n++)
+        {
+            sum += 1.0 / n;
+            cumulative[n - 1] = sum;
+        }
+        for (int n = 0; n < VOCABULARY; n++)
+        {
+            cumulative[n] /= sum;
+        }
+        return cumulative;
+    }
+
+    // Word number 1.. for a uniform value in [0, 1)
+    private static int pick(double[] cumulative, double value)
+    {
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (cumulative[middle] < value)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low + 1;
+    }
+
+    private long search(LogQuery query)
+    {
+        hits.clear();
+        return index.search(query, 50, hits);
+    }
+
+    @Benchmark
+    public long rareWord()
+    {
+        return search(rare);
+    }
+
+    @Benchmark
+    public long commonWords()
+    {
+        return search(common);
+    }
+
+    @Benchmark
+    public long phrase()
+    {
+        return search(phrase);
+    }
+
+    @Benchmark
+    public long timeRange()
+    {
+        return search(hour);
+    }
+
+    @Benchmark
+    public long scan()
+    {
+        long count = 0;
+        for (String text : texts)
+        {
+            if (containsWord(text, "w1") && containsWord(text, "w2"))
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // True if text has word between spaces or at either end
+    private static boolean containsWord(String text, String word)
+    {
+        int at = text.indexOf(word);
+        while (at >= 0)
+        {
+            int end = at + word.length();
+            if ((at == 0 || text.charAt(at - 1) == ' ') && (end == text.length() || text.charAt(end) == ' '))
+            {
+                return true;
+            }
+            at = text.indexOf(word, at + 1);
+        }
+        return false;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        index = null;
+        TempFiles.delete(directory);
+    }
+}
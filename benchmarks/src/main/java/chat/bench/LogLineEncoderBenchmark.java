@@ -0,0 +1,106 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LogLineEncoderBenchmark.java
+// Description : Time and allocation per text log line, LogLineEncoder against the String
+//               building and Writer encoding the text log used before.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import chat.log.Direction;
+import chat.log.LogLineEncoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LogLineEncoderBenchmark
+// Description : Both sides encode the same record with the current time and write into a sink
+//               that discards the bytes, so only encoding is measured. Run it with the GC
+//               profiler to see the bytes allocated per line (gc.alloc.rate.norm):
+//
+//                 java -jar benchmarks/target/benchmarks.jar LogLineEncoder -prof gc
+//
+//               encoder() should stay close to zero for ASCII and non-ASCII text alike.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogLineEncoderBenchmark
+{
+    @Param({ "ascii", "unicode" })
+    public String text;
+
+    private String message;
+    private LogLineEncoder encoder;
+    private BufferedWriter writer;
+    private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    @Setup
+    public void setUp()
+    {
+        message = text.equals("ascii") ? Messages.of(64) : "Grüße, ça va? Встреча в 10:30 🙂 " + Messages.of(30);
+        encoder = new LogLineEncoder(new DiscardChannel(), 64 * 1024, ZoneId.systemDefault());
+        writer = new BufferedWriter(new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Benchmark
+    public void encoder() throws IOException
+    {
+        encoder.append(System.currentTimeMillis(), Direction.CLIENT, message);
+    }
+
+    @Benchmark
+    public void stringWriter() throws IOException
+    {
+        String timestamp = dtf.format(Instant.ofEpochMilli(System.currentTimeMillis()));
+        writer.write("[" + timestamp + "] " + Direction.CLIENT.getLabel() + ": " + message + "\n");
+    }
+
+    // Accepts every byte and keeps none
+    private static final class DiscardChannel implements WritableByteChannel
+    {
+        public int write(ByteBuffer source)
+        {
+            int n = source.remaining();
+            source.position(source.limit());
+            return n;
+        }
+
+        public boolean isOpen()
+        {
+            return true;
+        }
+
+        public void close()
+        {
+        }
+    }
+}
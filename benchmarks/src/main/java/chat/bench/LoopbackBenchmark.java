@@ -0,0 +1,129 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : LoopbackBenchmark.java
+// Description : End-to-end latency and throughput of chat messages through a server on the
+//               loopback interface.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.bench;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import chat.net.Handshake;
+import chat.net.MessageChannel;
+import chat.server.ChatServer;
+import chat.server.NioChatServer;
+import chat.server.ServerListener;
+import chat.server.ThreadModel;
+import chat.server.ThreadedChatServer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : LoopbackBenchmark
+// Description : Two clients connect through Handshake, as ChatClientCUI does; the sender's
+//               messages are fanned out by the server to the receiver. The nio server keeps
+//               to the line protocol, virtual negotiates frames. latency() is one message
+//               round through the server; throughput() sends BATCH messages before reading
+//               them back, which stays below the server's per-client queue so none is dropped.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoopbackBenchmark
+{
+    static final int BATCH = 256;
+
+    @Param({ "nio", "virtual" })
+    public String server;
+
+    @Param({ "64" })
+    public int length;
+
+    private ChatServer chatServer;
+    private MessageChannel sender;
+    private MessageChannel receiver;
+    private String message;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException
+    {
+        ServerListener quiet = new ServerListener()
+        {
+        };
+        chatServer = server.equals("nio")
+                ? new NioChatServer(0, 1, quiet)
+                : new ThreadedChatServer(0, ThreadModel.VIRTUAL, quiet);
+        chatServer.start();
+        sender = connect();
+        receiver = connect();
+        while (chatServer.getConnectionCount() < 2)
+        {
+            Thread.sleep(10);
+        }
+        message = Messages.of(length);
+    }
+
+    private MessageChannel connect() throws IOException
+    {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), chatServer.getPort());
+        socket.setTcpNoDelay(true);
+        return Handshake.connect(socket);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String latency() throws IOException
+    {
+        sender.send(message);
+        sender.flush();
+        return receiver.receive();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @OperationsPerInvocation(BATCH)
+    public String throughput() throws IOException
+    {
+        for (int i = 0; i < BATCH; i++)
+        {
+            sender.send(message);
+        }
+        sender.flush();
+        String last = null;
+        for (int i = 0; i < BATCH; i++)
+        {
+            last = receiver.receive();
+        }
+        return last;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        sender.close();
+        receiver.close();
+        chatServer.close();
+    }
+}
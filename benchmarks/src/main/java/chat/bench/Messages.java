@@ -0,0 +1,33 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : Messages.java
+// Description : Chat messages of a given size for the benchmarks.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.bench;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : Messages
+// Description : Plain ASCII text, like most typed chat lines, so one char is one UTF-8 byte.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class Messages
+{
+    private static final String WORDS = "hello are you there see the order status for today ";
+
+    private Messages()
+    {
+    }
+
+    // A message of exactly length characters
+    static String of(int length)
+    {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length)
+        {
+            text.append(WORDS, 0, Math.min(WORDS.length(), length - text.length()));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,83 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : MetricsBenchmark.java
+// Description : Cost of the metrics the servers record on their hot paths.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import chat.metrics.Counter;
+import chat.metrics.LatencyHistogram;
+import chat.metrics.MetricsRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : MetricsBenchmark
+// Description : increment() is one counter update, record() one histogram update and timed()
+//               what a timed section adds: startTimer(), recordSince() and the two nanoTime()
+//               calls inside them, and sampled() the same on a histogram that times 1 in 16
+//               calls, as the per-message paths do. nanoTime() alone is the clock. Run again with
+//               -jvmArgsAppend -Dchat.metrics=off to see the switched-off cost, and compare
+//               LoopbackBenchmark and LogAppendBenchmark the same way for the end-to-end overhead.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark
+{
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final Counter counter = registry.counter("bench_total", "Benchmark counter");
+    private final LatencyHistogram histogram = registry.histogram("bench_seconds", "Benchmark histogram");
+    private final LatencyHistogram sampledHistogram = registry.histogram("bench_sampled_seconds", "Sampled benchmark histogram", 16);
+    private long value = 12_345;
+
+    @Benchmark
+    public void increment()
+    {
+        counter.increment();
+    }
+
+    @Benchmark
+    public void record()
+    {
+        // Walks through buckets of very different size, not one hot bucket
+        value = (value * 31 + 7) & 0xFFFFFF;
+        histogram.record(value);
+    }
+
+    @Benchmark
+    public void timed()
+    {
+        long start = MetricsRegistry.startTimer();
+        histogram.recordSince(start);
+    }
+
+    @Benchmark
+    public void sampled()
+    {
+        long start = sampledHistogram.startSample();
+        sampledHistogram.recordSince(start);
+    }
+
+    @Benchmark
+    public long nanoTime()
+    {
+        return System.nanoTime();
+    }
+}
@@ -0,0 +1,100 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : RoomFanOutBenchmark.java
+// Description : Server-side cost of publishing one message to every member of a room.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.bench;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import chat.net.LineCodec;
+import chat.server.BroadcastHub;
+import chat.server.Peer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : RoomFanOutBenchmark
+// Description : One room of members peers next to a second room of the same size, so the
+//               index really has to route. publish() is BroadcastHub.publish to the room,
+//               which encodes the line once and hands every member the same buffer;
+//               encodePerRecipient() encodes it again for every member, as a baseline. The
+//               peers only keep the last message, so the score is the routing and fan-out
+//               cost without the per-client queues.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomFanOutBenchmark
+{
+    @Param({ "100", "10000" })
+    public int members;
+
+    private final BroadcastHub hub = new BroadcastHub();
+    private final String line = "[dev] client-1: " + Messages.of(64);
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        for (int i = 0; i < members; i++)
+        {
+            hub.join(new LastMessagePeer("dev-" + i), "dev");
+            hub.join(new LastMessagePeer("ops-" + i), "ops");
+        }
+    }
+
+    @Benchmark
+    public void publish()
+    {
+        hub.publish(null, "dev", line);
+    }
+
+    @Benchmark
+    public void encodePerRecipient()
+    {
+        for (Peer peer : hub.getRooms().members("dev"))
+        {
+            peer.deliver(ByteBuffer.wrap(LineCodec.encode(line)));
+        }
+    }
+
+    // Keeps the last delivered message, the least a peer can do with it
+    static final class LastMessagePeer implements Peer
+    {
+        private final String name;
+        ByteBuffer last;
+
+        LastMessagePeer(String name)
+        {
+            this.name = name;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void deliver(ByteBuffer message)
+        {
+            last = message;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : TempFiles.java
+// Description : Removes the temporary log directories the benchmarks write to.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : TempFiles
+// Description : Log files are still being written until the appender closes, so call this
+//               after close().
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+final class TempFiles
+{
+    private TempFiles()
+    {
+    }
+
+    // Deletes a directory and everything in it, deepest entries first
+    static void delete(Path directory) throws IOException
+    {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(directory))
+        {
+            paths = walk.sorted(Comparator.reverseOrder()).toList();
+        }
+        for (Path path : paths)
+        {
+            Files.deleteIfExists(path);
+        }
+    }
+}
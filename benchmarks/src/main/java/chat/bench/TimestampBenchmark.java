@@ -0,0 +1,64 @@
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// File Name   : TimestampBenchmark.java
+// Description : Cost of the "yyyy-MM-dd HH:mm:ss" timestamp put in front of every log line.
+// Author      : Kartik Ganesh Jare
+// Date        : 17/10/2026
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+package chat.bench;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+// Class Name  : TimestampBenchmark
+// Description : newFormatter() builds the formatter for every line; localDateTime() is the
+//               original chat loop with one formatter and LocalDateTime.now(); epochMillis()
+//               formats the millis stamped on each LogRecord. LogLineEncoderBenchmark covers
+//               the cached timestamp the text log uses now.
+// ////////////////////////////////////////////////////////////////////////////////////////////////
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimestampBenchmark
+{
+    static final String PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern(PATTERN);
+    private final DateTimeFormatter zoned = DateTimeFormatter.ofPattern(PATTERN).withZone(ZoneId.systemDefault());
+
+    @Benchmark
+    public String newFormatter()
+    {
+        return DateTimeFormatter.ofPattern(PATTERN).format(LocalDateTime.now());
+    }
+
+    @Benchmark
+    public String localDateTime()
+    {
+        return dtf.format(LocalDateTime.now());
+    }
+
+    @Benchmark
+    public String epochMillis()
+    {
+        return zoned.format(Instant.ofEpochMilli(System.currentTimeMillis()));
+    }
+}